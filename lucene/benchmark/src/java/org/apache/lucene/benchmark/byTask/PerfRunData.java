@@ -44,6 +44,9 @@ import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.QueryCache;
+import org.apache.lucene.search.StripedLRUQueryCache;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.RAMDirectory;
@@ -99,6 +102,8 @@ public class PerfRunData implements Closeable {
 
   private DirectoryReader indexReader;
   private IndexSearcher indexSearcher;
+  private QueryCache queryCache;
+  private String queryCacheSettings;
   private IndexWriter indexWriter;
   private Config config;
   private long startTimeMillis;
@@ -349,13 +354,44 @@ public class PerfRunData implements Closeable {
       // Hold reference to new IR
       indexReader.incRef();
       indexSearcher = new IndexSearcher(indexReader);
-      // TODO Some day we should make the query cache in this module configurable and control clearing the cache
-      indexSearcher.setQueryCache(null);
+      indexSearcher.setQueryCache(getQueryCache());
     } else {
       indexSearcher = null;
     }
   }
 
+  /**
+   * Returns the query cache configured by the <code>query.cache</code> property for the
+   * current round: <code>none</code> (the default), <code>lru</code> for a
+   * {@link LRUQueryCache} or <code>striped</code> for a {@link StripedLRUQueryCache}.
+   * The cache is shared by all readers opened until its settings change, and caches
+   * on all segments regardless of their size.
+   */
+  private QueryCache getQueryCache() {
+    String type = config.get("query.cache", "none");
+    int maxSize = config.get("query.cache.size", 1000);
+    long maxRamBytesUsed = (long) (config.get("query.cache.ram.mb", 32.0) * 1024 * 1024);
+    int numStripes = config.get("query.cache.stripes", Math.min(16, Runtime.getRuntime().availableProcessors()));
+    String settings = type + "/" + maxSize + "/" + maxRamBytesUsed + "/" + numStripes;
+    if (settings.equals(queryCacheSettings) == false) {
+      switch (type) {
+        case "none":
+          queryCache = null;
+          break;
+        case "lru":
+          queryCache = new LRUQueryCache(maxSize, maxRamBytesUsed, context -> true);
+          break;
+        case "striped":
+          queryCache = new StripedLRUQueryCache(maxSize, maxRamBytesUsed, context -> true, numStripes);
+          break;
+        default:
+          throw new IllegalArgumentException("unknown query.cache: " + type);
+      }
+      queryCacheSettings = settings;
+    }
+    return queryCache;
+  }
+
   /**
    * @return Returns the indexWriter.
    */
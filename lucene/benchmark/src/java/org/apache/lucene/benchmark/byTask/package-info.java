@@ -561,6 +561,10 @@
  *     </li><li>file.query.maker.file
  *     </li><li>file.query.maker.default.field
  *     </li><li>search.num.hits
+ *     </li><li>query.cache
+ *     </li><li>query.cache.size
+ *     </li><li>query.cache.ram.mb
+ *     </li><li>query.cache.stripes
  *     </li></ul>
  *   </li>
  * 
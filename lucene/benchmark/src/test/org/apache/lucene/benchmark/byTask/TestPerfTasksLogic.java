@@ -51,6 +51,7 @@ import org.apache.lucene.index.SerialMergeScheduler;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.StripedLRUQueryCache;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.TestUtil;
@@ -104,6 +105,35 @@ public class TestPerfTasksLogic extends BenchmarkTestCase {
     ir.close();
   }
 
+  /**
+   * Test that the query cache is configurable per round.
+   */
+  public void testQueryCache() throws Exception {
+    String algLines[] = {
+        "query.cache=cache:none:lru:striped",
+        "query.cache.stripes=3",
+        "ResetSystemErase",
+        "CreateIndex",
+        "{ AddDoc } : 100",
+        "CloseIndex",
+        "{ \"Rounds\"",
+        "  OpenReader",
+        "  { CountingSearchTest } : 20",
+        "  CloseReader",
+        "  NewRound",
+        "} : 2",
+        "OpenReader",
+    };
+
+    Benchmark benchmark = execBenchmark(algLines);
+    PerfRunData runData = benchmark.getRunData();
+    try {
+      assertTrue(runData.getIndexSearcher().getQueryCache() instanceof StripedLRUQueryCache);
+    } finally {
+      runData.setIndexReader(null);
+    }
+  }
+
   /**
    * Test timed sequence task.
    */
@@ -37,6 +37,7 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.PrefixQuery;  // javadocs
 import org.apache.lucene.search.TermRangeQuery;  // javadocs
 import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
@@ -73,6 +74,10 @@ import org.apache.lucene.util.fst.Outputs;
  *  but with added logic to break up too-large blocks of all
  *  terms sharing a given prefix into smaller ones.</p>
  *
+ *  <p>The terms index of each field is loaded onto the heap
+ *  by default. It can instead be read directly from the
+ *  terms index file, see {@link FSTLoadMode}.</p>
+ *
  *  <p>Use {@link org.apache.lucene.index.CheckIndex} with the <code>-verbose</code>
  *  option to see summary statistics on the blocks in the
  *  dictionary.
@@ -110,6 +115,28 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   static final String TERMS_INDEX_EXTENSION = "tip";
   final static String TERMS_INDEX_CODEC_NAME = "BlockTreeTermsIndex";
 
+  /** Name of the {@link FieldInfo#getAttribute(String) field attribute}
+   *  that records the {@link FSTLoadMode} of a field. When this attribute
+   *  is not set, the default mode of the reader is used. */
+  public static final String FST_MODE_KEY = BlockTreeTermsReader.class.getSimpleName() + ".fstMode";
+
+  /** How the terms index FST of a field should be loaded. */
+  public enum FSTLoadMode {
+    /** Load the terms index onto the heap. */
+    ON_HEAP,
+    /** Read the terms index directly from the terms index file,
+     *  which is kept open as long as the reader is open. */
+    OFF_HEAP,
+    /** Read the terms index directly from the terms index file if it
+     *  supports random access natively, such as with {@link
+     *  org.apache.lucene.store.MMapDirectory}, and load it onto the heap
+     *  otherwise. */
+    AUTO
+  }
+
+  // Open input to the terms index file (_X.tip) if any field reads its terms index off-heap
+  private final IndexInput indexIn;
+
   // Open input to the main terms dict file (_X.tib)
   final IndexInput termsIn;
 
@@ -131,10 +158,19 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   
   final int version;
 
-  /** Sole constructor. */
+  /** Create a new reader that loads terms indexes onto the heap unless
+   *  fields request otherwise through the {@link #FST_MODE_KEY} attribute. */
   public BlockTreeTermsReader(PostingsReaderBase postingsReader, SegmentReadState state) throws IOException {
+    this(postingsReader, state, FSTLoadMode.ON_HEAP);
+  }
+
+  /** Create a new reader that loads terms indexes according to
+   *  {@code defaultFSTLoadMode} for fields that do not have a {@link #FST_MODE_KEY}
+   *  attribute. */
+  public BlockTreeTermsReader(PostingsReaderBase postingsReader, SegmentReadState state, FSTLoadMode defaultFSTLoadMode) throws IOException {
     boolean success = false;
     IndexInput indexIn = null;
+    boolean keepIndexInOpen = false;
     
     this.postingsReader = postingsReader;
     this.segment = state.segmentInfo.name;
@@ -211,15 +247,22 @@ public final class BlockTreeTermsReader extends FieldsProducer {
           throw new CorruptIndexException("invalid sumTotalTermFreq: " + sumTotalTermFreq + " sumDocFreq: " + sumDocFreq, termsIn);
         }
         final long indexStartFP = indexIn.readVLong();
+        final boolean offHeap = isOffHeap(fieldInfo, defaultFSTLoadMode, indexIn);
+        keepIndexInOpen |= offHeap;
         FieldReader previous = fields.put(fieldInfo.name,       
                                           new FieldReader(this, fieldInfo, numTerms, rootCode, sumTotalTermFreq, sumDocFreq, docCount,
-                                                          indexStartFP, longsSize, indexIn, minTerm, maxTerm));
+                                                          indexStartFP, longsSize, indexIn, offHeap, minTerm, maxTerm));
         if (previous != null) {
           throw new CorruptIndexException("duplicate field: " + fieldInfo.name, termsIn);
         }
       }
-      
-      indexIn.close();
+
+      if (keepIndexInOpen) {
+        this.indexIn = indexIn;
+      } else {
+        this.indexIn = null;
+        indexIn.close();
+      }
       success = true;
     } finally {
       if (!success) {
@@ -229,6 +272,28 @@ public final class BlockTreeTermsReader extends FieldsProducer {
     }
   }
 
+  private static boolean isOffHeap(FieldInfo fieldInfo, FSTLoadMode defaultFSTLoadMode, IndexInput indexIn) throws IOException {
+    FSTLoadMode mode = defaultFSTLoadMode;
+    final String attribute = fieldInfo.getAttribute(FST_MODE_KEY);
+    if (attribute != null) {
+      try {
+        mode = FSTLoadMode.valueOf(attribute);
+      } catch (IllegalArgumentException e) {
+        throw new CorruptIndexException("invalid " + FST_MODE_KEY + " for field: " + fieldInfo.name + ", got " + attribute, indexIn, e);
+      }
+    }
+    switch (mode) {
+      case ON_HEAP:
+        return false;
+      case OFF_HEAP:
+        return true;
+      case AUTO:
+        return indexIn instanceof RandomAccessInput;
+      default:
+        throw new AssertionError();
+    }
+  }
+
   private static BytesRef readBytesRef(IndexInput in) throws IOException {
     BytesRef bytes = new BytesRef();
     bytes.length = in.readVInt();
@@ -253,7 +318,7 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   @Override
   public void close() throws IOException {
     try {
-      IOUtils.close(termsIn, postingsReader);
+      IOUtils.close(indexIn, termsIn, postingsReader);
     } finally { 
       // Clear so refs to terms index is GCable even if
       // app hangs onto us:
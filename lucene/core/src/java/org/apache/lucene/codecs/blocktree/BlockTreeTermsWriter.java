@@ -213,6 +213,7 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
 
   final PostingsWriterBase postingsWriter;
   final FieldInfos fieldInfos;
+  final BlockTreeTermsReader.FSTLoadMode fstLoadMode;
 
   private static class FieldMetaData {
     public final FieldInfo fieldInfo;
@@ -254,12 +255,29 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
                               int minItemsInBlock,
                               int maxItemsInBlock)
     throws IOException
+  {
+    this(state, postingsWriter, minItemsInBlock, maxItemsInBlock, null);
+  }
+
+  /** Create a new writer that also records how the terms index of
+   *  written fields should be loaded at read time, through the {@link
+   *  BlockTreeTermsReader#FST_MODE_KEY} field attribute. If {@code fstLoadMode}
+   *  is null, then no attribute is recorded and the reader picks its default
+   *  mode.
+   *  @see #BlockTreeTermsWriter(SegmentWriteState,PostingsWriterBase,int,int) */
+  public BlockTreeTermsWriter(SegmentWriteState state,
+                              PostingsWriterBase postingsWriter,
+                              int minItemsInBlock,
+                              int maxItemsInBlock,
+                              BlockTreeTermsReader.FSTLoadMode fstLoadMode)
+    throws IOException
   {
     validateSettings(minItemsInBlock,
                      maxItemsInBlock);
 
     this.minItemsInBlock = minItemsInBlock;
     this.maxItemsInBlock = maxItemsInBlock;
+    this.fstLoadMode = fstLoadMode;
 
     this.maxDoc = state.segmentInfo.maxDoc();
     this.fieldInfos = state.fieldInfos;
@@ -330,7 +348,11 @@ public final class BlockTreeTermsWriter extends FieldsConsumer {
       }
 
       TermsEnum termsEnum = terms.iterator();
-      TermsWriter termsWriter = new TermsWriter(fieldInfos.fieldInfo(field));
+      final FieldInfo fieldInfo = fieldInfos.fieldInfo(field);
+      if (fstLoadMode != null) {
+        fieldInfo.putAttribute(BlockTreeTermsReader.FST_MODE_KEY, fstLoadMode.name());
+      }
+      TermsWriter termsWriter = new TermsWriter(fieldInfo);
       while (true) {
         BytesRef term = termsEnum.next();
         //if (DEBUG) System.out.println("BTTW: next term " + term);
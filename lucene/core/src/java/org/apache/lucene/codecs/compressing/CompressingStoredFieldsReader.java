@@ -366,6 +366,10 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     // whether the block has been sliced, this happens for large documents
     private boolean sliced;
 
+    // whether a document of this block has already been read, and whether
+    // bytes holds the whole decompressed block
+    private boolean blockRead, blockDecompressed;
+
     private int[] offsets = IntsRef.EMPTY_INTS;
     private int[] numStoredFields = IntsRef.EMPTY_INTS;
 
@@ -401,6 +405,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     }
 
     private void doReset(int docID) throws IOException {
+      blockRead = blockDecompressed = false;
       docBase = fieldsStream.readVInt();
       final int token = fieldsStream.readVInt();
       chunkDocs = token >>> 1;
@@ -467,25 +472,34 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       startPointer = fieldsStream.getFilePointer();
 
       if (merging) {
-        final int totalLength = offsets[chunkDocs];
         // decompress eagerly
-        if (sliced) {
-          bytes.offset = bytes.length = 0;
-          for (int decompressed = 0; decompressed < totalLength; ) {
-            final int toDecompress = Math.min(totalLength - decompressed, chunkSize);
-            decompressor.decompress(fieldsStream, toDecompress, 0, toDecompress, spare);
-            bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + spare.length);
-            System.arraycopy(spare.bytes, spare.offset, bytes.bytes, bytes.length, spare.length);
-            bytes.length += spare.length;
-            decompressed += toDecompress;
-          }
-        } else {
-          decompressor.decompress(fieldsStream, totalLength, 0, totalLength, bytes);
-        }
-        if (bytes.length != totalLength) {
-          throw new CorruptIndexException("Corrupted: expected chunk size = " + totalLength + ", got " + bytes.length, fieldsStream);
+        decompressBlock();
+      }
+    }
+
+    /**
+     * Decompress the whole block into {@link #bytes}.
+     */
+    private void decompressBlock() throws IOException {
+      final int totalLength = offsets[chunkDocs];
+      fieldsStream.seek(startPointer);
+      if (sliced) {
+        bytes.offset = bytes.length = 0;
+        for (int decompressed = 0; decompressed < totalLength; ) {
+          final int toDecompress = Math.min(totalLength - decompressed, chunkSize);
+          decompressor.decompress(fieldsStream, toDecompress, 0, toDecompress, spare);
+          bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + spare.length);
+          System.arraycopy(spare.bytes, spare.offset, bytes.bytes, bytes.length, spare.length);
+          bytes.length += spare.length;
+          decompressed += toDecompress;
         }
+      } else {
+        decompressor.decompress(fieldsStream, totalLength, 0, totalLength, bytes);
+      }
+      if (bytes.length != totalLength) {
+        throw new CorruptIndexException("Corrupted: expected chunk size = " + totalLength + ", got " + bytes.length, fieldsStream);
       }
+      blockDecompressed = true;
     }
 
     /**
@@ -507,9 +521,14 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       if (length == 0) {
         // empty
         documentInput = new ByteArrayDataInput();
-      } else if (merging) {
+      } else if (blockDecompressed) {
         // already decompressed
         documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
+      } else if (blockRead && sliced == false) {
+        // several documents of this block are being read, eg. hits of the same query:
+        // decompress the block once and keep it for the next documents
+        decompressBlock();
+        documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
       } else if (sliced) {
         fieldsStream.seek(startPointer);
         decompressor.decompress(fieldsStream, chunkSize, offset, Math.min(length, chunkSize - offset), bytes);
@@ -556,6 +575,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
         assert bytes.length == length;
         documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
       }
+      blockRead = true;
 
       return new SerializedDocument(documentInput, length, numStoredFields);
     }
@@ -113,6 +113,45 @@ public abstract class CompressionMode {
 
   };
 
+  /**
+   * A compression mode similar to {@link #HIGH_COMPRESSION} that decompresses
+   * much less data to read a single document. The first bytes of each chunk
+   * are used as a preset dictionary, and the rest of the chunk is split into
+   * {@value #PRESET_DICT_NUM_SUB_BLOCKS} sub-blocks that are compressed
+   * independently against that dictionary. Reading a document only needs to
+   * decompress the dictionary and the sub-blocks that contain the document,
+   * while content that documents share, such as common markup, is still
+   * compressed efficiently thanks to the dictionary. It is designed for larger
+   * chunks than {@link #HIGH_COMPRESSION}, eg. ten times larger.
+   */
+  public static final CompressionMode HIGH_COMPRESSION_WITH_PRESET_DICT = new CompressionMode() {
+
+    @Override
+    public Compressor newCompressor() {
+      return new DeflateWithPresetDictCompressor(6);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+
+    @Override
+    public String toString() {
+      return "HIGH_COMPRESSION_WITH_PRESET_DICT";
+    }
+
+  };
+
+  /** Number of sub-blocks of {@link #HIGH_COMPRESSION_WITH_PRESET_DICT} chunks. */
+  static final int PRESET_DICT_NUM_SUB_BLOCKS = 10;
+  /** The preset dictionary is this many times smaller than sub-blocks. */
+  static final int PRESET_DICT_SIZE_FACTOR = 6;
+  /** Deflate can't make use of more than 32KB of dictionary. */
+  static final int PRESET_DICT_MAX_SIZE = 1 << 15;
+  /** Smaller chunks are split into fewer sub-blocks, as tiny sub-blocks compress poorly. */
+  static final int PRESET_DICT_MIN_SUB_BLOCK_SIZE = 1 << 10;
+
   /** Sole constructor. */
   protected CompressionMode() {}
 
@@ -246,6 +285,162 @@ public abstract class CompressionMode {
 
   }
 
+  private static final class DeflateWithPresetDictDecompressor extends Decompressor {
+
+    byte[] compressed;
+
+    DeflateWithPresetDictDecompressor() {
+      compressed = new byte[0];
+    }
+
+    /** Inflates {@code compressedLength} bytes from {@code in} into {@code bytes}, starting at
+     *  {@code bytes.length} and expecting {@code originalLength} bytes. */
+    private void inflate(DataInput in, Inflater decompressor, int compressedLength, int originalLength, BytesRef bytes) throws IOException {
+      if (compressedLength == 0) {
+        if (originalLength != 0) {
+          throw new CorruptIndexException("Lengths mismatch: 0 != " + originalLength, in);
+        }
+        return;
+      }
+      // pad with extra "dummy byte": see javadocs for using Inflater(true)
+      compressed = ArrayUtil.grow(compressed, compressedLength + 1);
+      in.readBytes(compressed, 0, compressedLength);
+      compressed[compressedLength] = 0; // explicitly set dummy byte to 0
+      decompressor.setInput(compressed, 0, compressedLength + 1);
+      final int inflated;
+      try {
+        inflated = decompressor.inflate(bytes.bytes, bytes.length, originalLength);
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      }
+      if (!decompressor.finished()) {
+        throw new CorruptIndexException("Invalid decoder state: needsInput=" + decompressor.needsInput()
+                                                            + ", needsDict=" + decompressor.needsDictionary(), in);
+      }
+      if (inflated != originalLength) {
+        throw new CorruptIndexException("Lengths mismatch: " + inflated + " != " + originalLength, in);
+      }
+      bytes.length += inflated;
+    }
+
+    @Override
+    public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+      assert offset + length <= originalLength;
+      if (length == 0) {
+        bytes.length = 0;
+        return;
+      }
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      if (dictLength > originalLength || (blockLength == 0) != (dictLength == originalLength)) {
+        throw new CorruptIndexException("Invalid lengths: dict=" + dictLength + ", block=" + blockLength + ", total=" + originalLength, in);
+      }
+      final int end = offset + length;
+      // the sub-blocks that contain the requested bytes
+      final int firstBlock = offset < dictLength ? 0 : (offset - dictLength) / blockLength;
+      final int lastBlock = end <= dictLength ? -1 : (end - 1 - dictLength) / blockLength;
+
+      bytes.offset = bytes.length = 0;
+      bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength + (lastBlock - firstBlock + 1) * blockLength);
+      final Inflater decompressor = new Inflater(true);
+      try {
+        inflate(in, decompressor, in.readVInt(), dictLength, bytes);
+        for (int block = 0; block <= lastBlock; ++block) {
+          final int compressedLength = in.readVInt();
+          if (block < firstBlock) {
+            in.skipBytes(compressedLength);
+          } else {
+            final int blockStart = dictLength + block * blockLength;
+            decompressor.reset();
+            if (dictLength > 0) {
+              decompressor.setDictionary(bytes.bytes, 0, dictLength);
+            }
+            inflate(in, decompressor, compressedLength, Math.min(blockLength, originalLength - blockStart), bytes);
+          }
+        }
+      } finally {
+        decompressor.end();
+      }
+      // bytes now holds the dictionary followed by sub-blocks firstBlock to lastBlock
+      bytes.offset = offset < dictLength ? offset : offset - firstBlock * blockLength;
+      bytes.length = length;
+      assert bytes.offset + bytes.length <= bytes.bytes.length;
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+
+  }
+
+  private static final class DeflateWithPresetDictCompressor extends Compressor {
+
+    final Deflater compressor;
+    byte[] compressed;
+    boolean closed;
+
+    DeflateWithPresetDictCompressor(int level) {
+      compressor = new Deflater(level, true);
+      compressed = new byte[64];
+    }
+
+    private void deflate(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      compressor.setInput(bytes, off, len);
+      compressor.finish();
+      if (compressor.needsInput()) {
+        // no output
+        assert len == 0 : len;
+        out.writeVInt(0);
+        return;
+      }
+
+      int totalCount = 0;
+      for (;;) {
+        final int count = compressor.deflate(compressed, totalCount, compressed.length - totalCount);
+        totalCount += count;
+        assert totalCount <= compressed.length;
+        if (compressor.finished()) {
+          break;
+        } else {
+          compressed = ArrayUtil.grow(compressed);
+        }
+      }
+
+      out.writeVInt(totalCount);
+      out.writeBytes(compressed, totalCount);
+    }
+
+    @Override
+    public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = Math.min(len / (PRESET_DICT_NUM_SUB_BLOCKS * PRESET_DICT_SIZE_FACTOR), PRESET_DICT_MAX_SIZE);
+      final int remaining = len - dictLength;
+      final int blockLength = Math.min(remaining,
+          Math.max((remaining + PRESET_DICT_NUM_SUB_BLOCKS - 1) / PRESET_DICT_NUM_SUB_BLOCKS, PRESET_DICT_MIN_SUB_BLOCK_SIZE));
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+
+      compressor.reset();
+      deflate(bytes, off, dictLength, out);
+      for (int start = off + dictLength, end = off + len; start < end; start += blockLength) {
+        compressor.reset();
+        if (dictLength > 0) {
+          compressor.setDictionary(bytes, off, dictLength);
+        }
+        deflate(bytes, start, Math.min(blockLength, end - start), out);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        compressor.end();
+        closed = true;
+      }
+    }
+
+  }
+
   private static class DeflateCompressor extends Compressor {
 
     final Deflater compressor;
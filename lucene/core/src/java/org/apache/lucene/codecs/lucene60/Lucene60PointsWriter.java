@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.MutablePointValues;
@@ -55,6 +56,9 @@ public class Lucene60PointsWriter extends PointsWriter implements Closeable {
   final double maxMBSortInHeap;
   private boolean finished;
 
+  /** Pool of the merge being done, if any, which the BKD trees of all fields are built with */
+  private ForkJoinPool mergePool;
+
   /** Full constructor */
   public Lucene60PointsWriter(SegmentWriteState writeState, int maxPointsInLeafNode, double maxMBSortInHeap) throws IOException {
     assert writeState.fieldInfos.hasPointValues();
@@ -101,6 +105,8 @@ public class Lucene60PointsWriter extends PointsWriter implements Closeable {
                                           values.size(),
                                           singleValuePerDoc)) {
 
+      writer.setForkJoinPool(mergePool);
+
       if (values instanceof MutablePointValues) {
         final long fp = writer.writeField(dataOut, fieldInfo.name, (MutablePointValues) values);
         if (fp != -1) {
@@ -134,6 +140,8 @@ public class Lucene60PointsWriter extends PointsWriter implements Closeable {
 
   @Override
   public void merge(MergeState mergeState) throws IOException {
+    mergePool = mergeState.intraMergePool;
+
     /**
      * If indexSort is activated and some of the leaves are not sorted the next test will catch that and the non-optimized merge will run.
      * If the readers are all sorted then it's safe to perform a bulk merge of the points.
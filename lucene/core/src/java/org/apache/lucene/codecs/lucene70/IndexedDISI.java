@@ -22,6 +22,8 @@ import java.io.IOException;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.RoaringDocIdSet;
@@ -43,6 +45,17 @@ import org.apache.lucene.util.RoaringDocIdSet;
  *       stored in a {@link DataInput#readShort() short}.
  * </ul>
  * <p>Only ranges that contain at least one value are encoded.
+ * <p>{@code DENSE} blocks start with a rank table that records, for every
+ * group of {@code 512} documents, the number of documents of the block that
+ * come before it, so that advancing within a block only needs to read at most
+ * {@code 8} longs from the bit set.
+ * <p>The encoded blocks are followed by a jump table that records, for every
+ * range of {@code 65536} documents up to the last one that has a value, the
+ * offset of the first block that is on or after this range together with the
+ * index of its first document. Ranges that have no documents point to the
+ * next block. This makes advancing over large gaps a constant-time operation.
+ * The number of entries of the jump table is stored as an int in the last
+ * 4 bytes of the encoded data.
  * <p>This implementation uses 6 bytes per document in the worst-case, which happens
  * in the case that all ranges contain exactly one document.
  * @lucene.internal
@@ -51,6 +64,11 @@ final class IndexedDISI extends DocIdSetIterator {
 
   static final int MAX_ARRAY_LENGTH = (1 << 12) - 1;
 
+  /** Number of words of a {@code DENSE} block that are covered by a single rank entry. */
+  static final int DENSE_RANK_WORDS = 8;
+  /** Number of bytes that are used by the rank table of a {@code DENSE} block. */
+  static final int DENSE_RANK_LENGTH = (1024 / DENSE_RANK_WORDS) * Short.BYTES;
+
   private static void flush(int block, FixedBitSet buffer, int cardinality, IndexOutput out) throws IOException {
     assert block >= 0 && block < 65536;
     out.writeShort((short) block);
@@ -58,7 +76,15 @@ final class IndexedDISI extends DocIdSetIterator {
     out.writeShort((short) (cardinality - 1));
     if (cardinality > MAX_ARRAY_LENGTH) {
       if (cardinality != 65536) { // all docs are set
-        for (long word : buffer.getBits()) {
+        final long[] words = buffer.getBits();
+        int rank = 0;
+        for (int i = 0; i < words.length; i += DENSE_RANK_WORDS) {
+          out.writeShort((short) rank);
+          for (int j = i; j < i + DENSE_RANK_WORDS; ++j) {
+            rank += Long.bitCount(words[j]);
+          }
+        }
+        for (long word : words) {
           out.writeLong(word);
         }
       }
@@ -70,15 +96,33 @@ final class IndexedDISI extends DocIdSetIterator {
     }
   }
 
+  /** Record the offset and index of {@code block} in the jump table for all
+   *  ranges that are between the previous block and {@code block}. Returns the
+   *  new number of entries of the jump table. */
+  private static int addJumps(int[] jumps, int numJumps, int block, int offset, int index) {
+    for (int b = numJumps; b <= block; ++b) {
+      jumps[b << 1] = offset;
+      jumps[(b << 1) + 1] = index;
+    }
+    return Math.max(numJumps, block + 1);
+  }
+
   static void writeBitSet(DocIdSetIterator it, IndexOutput out) throws IOException {
+    final long origin = out.getFilePointer();
     int i = 0;
+    int totalCardinality = 0;
     final FixedBitSet buffer = new FixedBitSet(1<<16);
+    int[] jumps = new int[2];
+    int numJumps = 0;
     int prevBlock = -1;
     for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
       final int block = doc >>> 16;
       if (prevBlock != -1 && block != prevBlock) {
+        jumps = ArrayUtil.grow(jumps, (prevBlock + 1) << 1);
+        numJumps = addJumps(jumps, numJumps, prevBlock, (int) (out.getFilePointer() - origin), totalCardinality);
         flush(prevBlock, buffer, i, out);
         buffer.clear(0, buffer.length());
+        totalCardinality += i;
         prevBlock = block;
         i = 0;
       }
@@ -87,20 +131,38 @@ final class IndexedDISI extends DocIdSetIterator {
       prevBlock = block;
     }
     if (i > 0) {
+      jumps = ArrayUtil.grow(jumps, (prevBlock + 1) << 1);
+      numJumps = addJumps(jumps, numJumps, prevBlock, (int) (out.getFilePointer() - origin), totalCardinality);
       flush(prevBlock, buffer, i, out);
       buffer.clear(0, buffer.length());
+      totalCardinality += i;
     }
-    // NO_MORE_DOCS is stored explicitly
+    // NO_MORE_DOCS is stored explicitly, the last entry of the jump table points to it
+    jumps = ArrayUtil.grow(jumps, (numJumps + 1) << 1);
+    numJumps = addJumps(jumps, numJumps, numJumps, (int) (out.getFilePointer() - origin), totalCardinality);
     buffer.set(DocIdSetIterator.NO_MORE_DOCS & 0xFFFF);
     flush(DocIdSetIterator.NO_MORE_DOCS >>> 16, buffer, 1, out);
+
+    for (int j = 0; j < numJumps << 1; ++j) {
+      out.writeInt(jumps[j]);
+    }
+    out.writeInt(numJumps);
   }
 
   /** The slice that stores the {@link DocIdSetIterator}. */
   private final IndexInput slice;
+  /** The jump table, which stores pairs of (block offset, block index) for every range of 65536 docs. */
+  private final RandomAccessInput jumpTable;
+  private final int jumpTableEntryCount;
   private final long cost;
 
   IndexedDISI(IndexInput in, long offset, long length, long cost) throws IOException {
     this.slice = in.slice("docs", offset, length);
+    slice.seek(length - Integer.BYTES);
+    this.jumpTableEntryCount = slice.readInt();
+    final long jumpTableLength = (long) jumpTableEntryCount * 2 * Integer.BYTES;
+    this.jumpTable = slice.randomAccessSlice(length - Integer.BYTES - jumpTableLength, jumpTableLength);
+    slice.seek(0L);
     this.cost = cost;
   }
 
@@ -120,6 +182,10 @@ final class IndexedDISI extends DocIdSetIterator {
   private int wordIndex = -1;
   // number of one bits encountered so far, including those of `word`
   private int numberOfOnes;
+  // number of one bits before the current block
+  private int denseOrigoIndex;
+  // file pointer of the bit set of the current block
+  private long denseBitmapOffset;
 
   // ALL variables
   private int gap;
@@ -157,6 +223,19 @@ final class IndexedDISI extends DocIdSetIterator {
   }
 
   private void advanceBlock(int targetBlock) throws IOException {
+    final int targetBlockIndex = targetBlock >>> 16;
+    // Only use the jump table if the next block is not the target block
+    if (targetBlockIndex >= (block >> 16) + 2) {
+      final int entry = Math.min(targetBlockIndex, jumpTableEntryCount - 1);
+      final long entryOffset = (long) entry * 2 * Integer.BYTES;
+      final int offset = jumpTable.readInt(entryOffset);
+      final int blockIndex = jumpTable.readInt(entryOffset + Integer.BYTES);
+      slice.seek(offset);
+      nextBlockIndex = blockIndex - 1;
+      readBlockHeader();
+      assert block >= targetBlock;
+      return;
+    }
     do {
       slice.seek(blockEnd);
       readBlockHeader();
@@ -178,9 +257,26 @@ final class IndexedDISI extends DocIdSetIterator {
       gap = block - index - 1;
     } else {
       method = Method.DENSE;
-      blockEnd = slice.getFilePointer() + (1 << 13);
+      denseBitmapOffset = slice.getFilePointer() + DENSE_RANK_LENGTH;
+      blockEnd = denseBitmapOffset + (1 << 13);
+      slice.seek(denseBitmapOffset);
       wordIndex = -1;
       numberOfOnes = index + 1;
+      denseOrigoIndex = numberOfOnes;
+    }
+  }
+
+  /** Use the rank table of the current {@code DENSE} block to skip over words
+   *  that come before {@code targetWordIndex} if they are not in the same rank
+   *  group as the next word to read. */
+  private void rankSkip(int targetWordIndex) throws IOException {
+    final int rankIndex = targetWordIndex / DENSE_RANK_WORDS;
+    if (rankIndex > (wordIndex + 1) / DENSE_RANK_WORDS) {
+      final int rankWordIndex = rankIndex * DENSE_RANK_WORDS;
+      slice.seek(denseBitmapOffset - DENSE_RANK_LENGTH + rankIndex * Short.BYTES);
+      numberOfOnes = denseOrigoIndex + Short.toUnsignedInt(slice.readShort());
+      slice.seek(denseBitmapOffset + ((long) rankWordIndex << 3));
+      wordIndex = rankWordIndex - 1;
     }
   }
 
@@ -244,6 +340,7 @@ final class IndexedDISI extends DocIdSetIterator {
       boolean advanceWithinBlock(IndexedDISI disi, int target) throws IOException {
         final int targetInBlock = target & 0xFFFF;
         final int targetWordIndex = targetInBlock >>> 6;
+        disi.rankSkip(targetWordIndex);
         for (int i = disi.wordIndex + 1; i <= targetWordIndex; ++i) {
           disi.word = disi.slice.readLong();
           disi.numberOfOnes += Long.bitCount(disi.word);
@@ -272,6 +369,7 @@ final class IndexedDISI extends DocIdSetIterator {
       boolean advanceExactWithinBlock(IndexedDISI disi, int target) throws IOException {
         final int targetInBlock = target & 0xFFFF;
         final int targetWordIndex = targetInBlock >>> 6;
+        disi.rankSkip(targetWordIndex);
         for (int i = disi.wordIndex + 1; i <= targetWordIndex; ++i) {
           disi.word = disi.slice.readLong();
           disi.numberOfOnes += Long.bitCount(disi.word);
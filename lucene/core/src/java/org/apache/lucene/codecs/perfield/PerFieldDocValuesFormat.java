@@ -22,9 +22,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.codecs.DocValuesConsumer;
 import org.apache.lucene.codecs.DocValuesFormat;
@@ -144,15 +146,17 @@ public abstract class PerFieldDocValuesFormat extends DocValuesFormat {
         fieldsForConsumer.add(fi.name);
       }
 
-      // Delegate the merge to the appropriate consumer
-      PerFieldMergeState pfMergeState = new PerFieldMergeState(mergeState);
-      try {
-        for (Map.Entry<DocValuesConsumer, Collection<String>> e : consumersToField.entrySet()) {
-          e.getKey().merge(pfMergeState.apply(e.getValue()));
-        }
-      } finally {
-        pfMergeState.reset();
+      // Delegate the merge to the appropriate consumer: each one writes its own
+      // files, so they can merge their fields concurrently
+      List<Callable<Void>> merges = new ArrayList<>();
+      for (Map.Entry<DocValuesConsumer, Collection<String>> e : consumersToField.entrySet()) {
+        MergeState restricted = PerFieldMergeState.restrictFields(mergeState, e.getValue());
+        merges.add(() -> {
+          e.getKey().merge(restricted);
+          return null;
+        });
       }
+      mergeState.invokeAll(merges);
     }
 
     private DocValuesConsumer getInstance(FieldInfo field) throws IOException {
@@ -33,65 +33,35 @@ import org.apache.lucene.index.MergeState;
 import org.apache.lucene.index.Terms;
 
 /**
- * Utility class to update the {@link MergeState} instance to be restricted to a set of fields.
+ * Utility class to create a {@link MergeState} instance restricted to a set of fields.
  * <p>
- * Warning: the input {@linkplain MergeState} instance will be updated when calling {@link #apply(Collection)}.
- * <p>
- * It should be called within a {@code try &#123;...&#125; finally &#123;...&#125;} block to make sure that the mergeState instance is
- * restored to its original state:
+ * The input {@linkplain MergeState} instance is left untouched, so that it may be restricted
+ * to different sets of fields concurrently:
  * <pre>
- * PerFieldMergeState pfMergeState = new PerFieldMergeState(mergeState);
- * try {
- *   doSomething(pfMergeState.apply(fields));
- *   ...
- * } finally {
- *   pfMergeState.reset();
- * }
+ * doSomething(PerFieldMergeState.restrictFields(mergeState, fields));
  * </pre>
  */
 final class PerFieldMergeState {
-  private final MergeState in;
-  private final FieldInfos orgMergeFieldInfos;
-  private final FieldInfos[] orgFieldInfos;
-  private final FieldsProducer[] orgFieldsProducers;
-
-  PerFieldMergeState(MergeState in) {
-    this.in = in;
-    this.orgMergeFieldInfos = in.mergeFieldInfos;
-    this.orgFieldInfos = new FieldInfos[in.fieldInfos.length];
-    this.orgFieldsProducers = new FieldsProducer[in.fieldsProducers.length];
-
-    System.arraycopy(in.fieldInfos, 0, this.orgFieldInfos, 0, this.orgFieldInfos.length);
-    System.arraycopy(in.fieldsProducers, 0, this.orgFieldsProducers, 0, this.orgFieldsProducers.length);
-  }
+
+  private PerFieldMergeState() {}
 
   /**
-   * Update the input {@link MergeState} instance to restrict the fields to the given ones.
+   * Create a copy of the input {@link MergeState} instance that only sees the given fields.
    *
-   * @param fields The fields to keep in the updated instance.
-   * @return The updated instance.
+   * @param in The instance to restrict.
+   * @param fields The fields to keep in the returned instance.
+   * @return The restricted instance.
    */
-  MergeState apply(Collection<String> fields) {
-    in.mergeFieldInfos = new FilterFieldInfos(orgMergeFieldInfos, fields);
-    for (int i = 0; i < orgFieldInfos.length; i++) {
-      in.fieldInfos[i] = new FilterFieldInfos(orgFieldInfos[i], fields);
+  static MergeState restrictFields(MergeState in, Collection<String> fields) {
+    FieldInfos[] fieldInfos = new FieldInfos[in.fieldInfos.length];
+    for (int i = 0; i < fieldInfos.length; i++) {
+      fieldInfos[i] = new FilterFieldInfos(in.fieldInfos[i], fields);
     }
-    for (int i = 0; i < orgFieldsProducers.length; i++) {
-      in.fieldsProducers[i] = new FilterFieldsProducer(orgFieldsProducers[i], fields);
+    FieldsProducer[] fieldsProducers = new FieldsProducer[in.fieldsProducers.length];
+    for (int i = 0; i < fieldsProducers.length; i++) {
+      fieldsProducers[i] = new FilterFieldsProducer(in.fieldsProducers[i], fields);
     }
-    return in;
-  }
-
-  /**
-   * Resets the input {@link MergeState} instance to its original state.
-   *
-   * @return The reset instance.
-   */
-  MergeState reset() {
-    in.mergeFieldInfos = orgMergeFieldInfos;
-    System.arraycopy(orgFieldInfos, 0, in.fieldInfos, 0, in.fieldInfos.length);
-    System.arraycopy(orgFieldsProducers, 0, in.fieldsProducers, 0, in.fieldsProducers.length);
-    return in;
+    return new MergeState(in, new FilterFieldInfos(in.mergeFieldInfos, fields), fieldInfos, fieldsProducers);
   }
 
   private static class FilterFieldInfos extends FieldInfos {
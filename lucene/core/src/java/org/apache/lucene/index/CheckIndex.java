@@ -17,6 +17,7 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -31,6 +32,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesProducer;
@@ -62,8 +68,10 @@ import org.apache.lucene.util.CommandLineUtil;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.StringHelper;
 import org.apache.lucene.util.SuppressForbidden;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.apache.lucene.util.Version;
 import org.apache.lucene.util.automaton.Automata;
 import org.apache.lucene.util.automaton.CompiledAutomaton;
@@ -472,6 +480,26 @@ public final class CheckIndex implements Closeable {
   
   private boolean checksumsOnly;
 
+  private int threadCount = 1;
+
+  /** Set the number of threads used to check the index.  With more
+   *  than one thread, segments are checked concurrently, and so are
+   *  the independent parts of each segment (postings, stored fields,
+   *  doc values, points, ...).  Messages are buffered per segment and
+   *  printed in segment order, so the output and the returned
+   *  {@link Status} do not depend on the thread count.  Default is 1. */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be >= 1; got: " + threadCount);
+    }
+    this.threadCount = threadCount;
+  }
+
+  /** See {@link #setThreadCount}. */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
   /** Set infoStream where messages should go.  If null, no
    *  messages are printed.  If verbose is true then more
    *  details are printed. */
@@ -514,7 +542,6 @@ public final class CheckIndex implements Closeable {
   public Status checkIndex(List<String> onlySegments) throws IOException {
     ensureOpen();
     long startNS = System.nanoTime();
-    NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
     SegmentInfos sis = null;
     Status result = new Status();
     result.dir = dir;
@@ -633,183 +660,60 @@ public final class CheckIndex implements Closeable {
     result.newSegments.clear();
     result.maxSegmentName = -1;
 
-    for(int i=0;i<numSegments;i++) {
-      final SegmentCommitInfo info = sis.info(i);
-      int segmentName = Integer.parseInt(info.info.name.substring(1), Character.MAX_RADIX);
-      if (segmentName > result.maxSegmentName) {
-        result.maxSegmentName = segmentName;
-      }
-      if (onlySegments != null && !onlySegments.contains(info.info.name)) {
-        continue;
-      }
-      Status.SegmentInfoStatus segInfoStat = new Status.SegmentInfoStatus();
-      result.segmentInfos.add(segInfoStat);
-      msg(infoStream, "  " + (1+i) + " of " + numSegments + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
-      segInfoStat.name = info.info.name;
-      segInfoStat.maxDoc = info.info.maxDoc();
-      
-      final Version version = info.info.getVersion();
-      if (info.info.maxDoc() <= 0) {
-        throw new RuntimeException("illegal number of documents: maxDoc=" + info.info.maxDoc());
-      }
-
-      int toLoseDocCount = info.info.maxDoc();
-
-      SegmentReader reader = null;
-      Sort previousIndexSort = null;
-
-      try {
-        msg(infoStream, "    version=" + (version == null ? "3.0" : version));
-        msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
-        final Codec codec = info.info.getCodec();
-        msg(infoStream, "    codec=" + codec);
-        segInfoStat.codec = codec;
-        msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
-        segInfoStat.compound = info.info.getUseCompoundFile();
-        msg(infoStream, "    numFiles=" + info.files().size());
-        Sort indexSort = info.info.getIndexSort();
-        if (indexSort != null) {
-          msg(infoStream, "    sort=" + indexSort);
-          if (previousIndexSort != null) {
-            if (previousIndexSort.equals(indexSort) == false) {
-              throw new RuntimeException("index sort changed from " + previousIndexSort + " to " + indexSort);
-            }
-          } else {
-            previousIndexSort = indexSort;
-          }
-        }
-        segInfoStat.numFiles = info.files().size();
-        segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
-        msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
-        Map<String,String> diagnostics = info.info.getDiagnostics();
-        segInfoStat.diagnostics = diagnostics;
-        if (diagnostics.size() > 0) {
-          msg(infoStream, "    diagnostics = " + diagnostics);
-        }
+    ExecutorService segmentExecutor = null;
+    ExecutorService partExecutor = null;
+    if (threadCount > 1) {
+      // parts get their own pool: segment tasks block on their parts, which must not wait behind other segments
+      segmentExecutor = Executors.newFixedThreadPool(threadCount, new NamedThreadFactory("CheckIndex-segment"));
+      partExecutor = Executors.newFixedThreadPool(threadCount, new NamedThreadFactory("CheckIndex-part"));
+    }
 
-        if (!info.hasDeletions()) {
-          msg(infoStream, "    no deletions");
-          segInfoStat.hasDeletions = false;
-        } else {
-          msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
-          segInfoStat.hasDeletions = true;
-          segInfoStat.deletionsGen = info.getDelGen();
+    final SegmentInfos infos = sis;
+    final List<SegmentCommitInfo> pendingInfos = new ArrayList<>();
+    final List<ByteArrayOutputStream> pendingOutputs = new ArrayList<>();
+    final List<Future<SegmentCheck>> pendingChecks = new ArrayList<>();
+    try {
+      for(int i=0;i<numSegments;i++) {
+        final SegmentCommitInfo info = sis.info(i);
+        int segmentName = Integer.parseInt(info.info.name.substring(1), Character.MAX_RADIX);
+        if (segmentName > result.maxSegmentName) {
+          result.maxSegmentName = segmentName;
         }
-        
-        long startOpenReaderNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: open reader.........");
-        reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
-
-        segInfoStat.openReaderPassed = true;
-        
-        long startIntegrityNS = System.nanoTime();
-        if (infoStream != null)
-          infoStream.print("    test: check integrity.....");
-        reader.checkIntegrity();
-        msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
-
-        if (reader.maxDoc() != info.info.maxDoc()) {
-          throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
+        if (onlySegments != null && !onlySegments.contains(info.info.name)) {
+          continue;
         }
-        
-        final int numDocs = reader.numDocs();
-        toLoseDocCount = numDocs;
-        
-        if (reader.hasDeletions()) {
-          if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
-          }
-          if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
-            throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
-          }
-          if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
-          }
+        if (segmentExecutor == null) {
+          addSegmentCheck(result, info, checkSegment(infos, i, infoStream, null));
         } else {
-          if (info.getDelCount() != 0) {
-            throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
-          }
+          final int segment = i;
+          final ByteArrayOutputStream output = new ByteArrayOutputStream();
+          final PrintStream segmentInfoStream = infoStream == null ? null : newBufferedInfoStream(output);
+          final ExecutorService executor = partExecutor;
+          pendingInfos.add(info);
+          pendingOutputs.add(output);
+          pendingChecks.add(segmentExecutor.submit(() -> checkSegment(infos, segment, segmentInfoStream, executor)));
         }
-        
-        if (checksumsOnly == false) {
-          // Test Livedocs
-          segInfoStat.liveDocStatus = testLiveDocs(reader, infoStream, failFast);
+      }
 
-          // Test Fieldinfos
-          segInfoStat.fieldInfoStatus = testFieldInfos(reader, infoStream, failFast);
-        
-          // Test Field Norms
-          segInfoStat.fieldNormStatus = testFieldNorms(reader, infoStream, failFast);
-
-          // Test the Term Index
-          segInfoStat.termIndexStatus = testPostings(reader, infoStream, verbose, failFast, version);
-
-          // Test Stored Fields
-          segInfoStat.storedFieldStatus = testStoredFields(reader, infoStream, failFast);
-
-          // Test Term Vectors
-          segInfoStat.termVectorStatus = testTermVectors(reader, infoStream, verbose, crossCheckTermVectors, failFast, version);
-
-          // Test Docvalues
-          segInfoStat.docValuesStatus = testDocValues(reader, infoStream, failFast);
-
-          // Test PointValues
-          segInfoStat.pointsStatus = testPoints(reader, infoStream, failFast);
-
-          // Test index sort
-          segInfoStat.indexSortStatus = testSort(reader, indexSort, infoStream, failFast);
-
-          // Rethrow the first exception we encountered
-          //  This will cause stats for failed segments to be incremented properly
-          if (segInfoStat.liveDocStatus.error != null) {
-            throw new RuntimeException("Live docs test failed");
-          } else if (segInfoStat.fieldInfoStatus.error != null) {
-            throw new RuntimeException("Field Info test failed");
-          } else if (segInfoStat.fieldNormStatus.error != null) {
-            throw new RuntimeException("Field Norm test failed");
-          } else if (segInfoStat.termIndexStatus.error != null) {
-            throw new RuntimeException("Term Index test failed");
-          } else if (segInfoStat.storedFieldStatus.error != null) {
-            throw new RuntimeException("Stored Field test failed");
-          } else if (segInfoStat.termVectorStatus.error != null) {
-            throw new RuntimeException("Term Vector test failed");
-          } else if (segInfoStat.docValuesStatus.error != null) {
-            throw new RuntimeException("DocValues test failed");
-          } else if (segInfoStat.pointsStatus.error != null) {
-            throw new RuntimeException("Points test failed");
-          }
+      // merge in segment order, so that output and status are the same as with a single thread
+      for (int i = 0; i < pendingChecks.size(); i++) {
+        final SegmentCheck check;
+        try {
+          check = await(pendingChecks.get(i));
+        } finally {
+          printBuffered(infoStream, pendingOutputs.get(i));
         }
-
-        msg(infoStream, "");
-        
-        if (verbose) {
-          msg(infoStream, "detailed segment RAM usage: ");
-          msg(infoStream, Accountables.toString(reader));
+        addSegmentCheck(result, pendingInfos.get(i), check);
+      }
+    } finally {
+      if (segmentExecutor != null) {
+        // only reached early on failFast: don't start any more segments, but let running ones close their readers
+        for (Future<SegmentCheck> check : pendingChecks) {
+          check.cancel(false);
         }
-
-      } catch (Throwable t) {
-        if (failFast) {
-          throw IOUtils.rethrowAlways(t);
-        }
-        msg(infoStream, "FAILED");
-        String comment;
-        comment = "exorciseIndex() would remove reference to this segment";
-        msg(infoStream, "    WARNING: " + comment + "; full exception:");
-        if (infoStream != null)
-          t.printStackTrace(infoStream);
-        msg(infoStream, "");
-        result.totLoseDocCount += toLoseDocCount;
-        result.numBadSegments++;
-        continue;
-      } finally {
-        if (reader != null)
-          reader.close();
+        shutdownAndWait(segmentExecutor);
+        shutdownAndWait(partExecutor);
       }
-
-      // Keeper
-      result.newSegments.add(info.clone());
     }
 
     if (0 == result.numBadSegments) {
@@ -832,6 +736,277 @@ public final class CheckIndex implements Closeable {
     return result;
   }
 
+  /** Outcome of checking a single segment, see {@link #checkSegment}. */
+  private static final class SegmentCheck {
+    final Status.SegmentInfoStatus status = new Status.SegmentInfoStatus();
+    /** True if the segment is broken and would be removed by {@link #exorciseIndex}. */
+    boolean failed;
+    /** Number of documents lost if this segment is removed. */
+    int toLoseDocCount;
+  }
+
+  /** Records the outcome of checking one segment. */
+  private static void addSegmentCheck(Status result, SegmentCommitInfo info, SegmentCheck check) {
+    result.segmentInfos.add(check.status);
+    if (check.failed) {
+      result.totLoseDocCount += check.toLoseDocCount;
+      result.numBadSegments++;
+    } else {
+      // Keeper
+      result.newSegments.add(info.clone());
+    }
+  }
+
+  /** Checks the i-th segment of {@code sis}, writing messages to {@code infoStream}.  If
+   *  {@code partExecutor} is not null, the parts of the segment are checked concurrently on it. */
+  private SegmentCheck checkSegment(SegmentInfos sis, int i, PrintStream infoStream, ExecutorService partExecutor) throws IOException {
+    final NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
+    final int numSegments = sis.size();
+    final SegmentCommitInfo info = sis.info(i);
+    final SegmentCheck check = new SegmentCheck();
+    final Status.SegmentInfoStatus segInfoStat = check.status;
+    msg(infoStream, "  " + (1+i) + " of " + numSegments + ": name=" + info.info.name + " maxDoc=" + info.info.maxDoc());
+    segInfoStat.name = info.info.name;
+    segInfoStat.maxDoc = info.info.maxDoc();
+    
+    final Version version = info.info.getVersion();
+    if (info.info.maxDoc() <= 0) {
+      throw new RuntimeException("illegal number of documents: maxDoc=" + info.info.maxDoc());
+    }
+
+    int toLoseDocCount = info.info.maxDoc();
+
+    SegmentReader reader = null;
+    Sort previousIndexSort = null;
+
+    try {
+      msg(infoStream, "    version=" + (version == null ? "3.0" : version));
+      msg(infoStream, "    id=" + StringHelper.idToString(info.info.getId()));
+      final Codec codec = info.info.getCodec();
+      msg(infoStream, "    codec=" + codec);
+      segInfoStat.codec = codec;
+      msg(infoStream, "    compound=" + info.info.getUseCompoundFile());
+      segInfoStat.compound = info.info.getUseCompoundFile();
+      msg(infoStream, "    numFiles=" + info.files().size());
+      Sort indexSort = info.info.getIndexSort();
+      if (indexSort != null) {
+        msg(infoStream, "    sort=" + indexSort);
+        if (previousIndexSort != null) {
+          if (previousIndexSort.equals(indexSort) == false) {
+            throw new RuntimeException("index sort changed from " + previousIndexSort + " to " + indexSort);
+          }
+        } else {
+          previousIndexSort = indexSort;
+        }
+      }
+      segInfoStat.numFiles = info.files().size();
+      segInfoStat.sizeMB = info.sizeInBytes()/(1024.*1024.);
+      msg(infoStream, "    size (MB)=" + nf.format(segInfoStat.sizeMB));
+      Map<String,String> diagnostics = info.info.getDiagnostics();
+      segInfoStat.diagnostics = diagnostics;
+      if (diagnostics.size() > 0) {
+        msg(infoStream, "    diagnostics = " + diagnostics);
+      }
+
+      if (!info.hasDeletions()) {
+        msg(infoStream, "    no deletions");
+        segInfoStat.hasDeletions = false;
+      } else {
+        msg(infoStream, "    has deletions [delGen=" + info.getDelGen() + "]");
+        segInfoStat.hasDeletions = true;
+        segInfoStat.deletionsGen = info.getDelGen();
+      }
+      
+      long startOpenReaderNS = System.nanoTime();
+      if (infoStream != null)
+        infoStream.print("    test: open reader.........");
+      reader = new SegmentReader(info, sis.getIndexCreatedVersionMajor(), IOContext.DEFAULT);
+      msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startOpenReaderNS)));
+
+      segInfoStat.openReaderPassed = true;
+      
+      long startIntegrityNS = System.nanoTime();
+      if (infoStream != null)
+        infoStream.print("    test: check integrity.....");
+      reader.checkIntegrity();
+      msg(infoStream, String.format(Locale.ROOT, "OK [took %.3f sec]", nsToSec(System.nanoTime()-startIntegrityNS)));
+
+      if (reader.maxDoc() != info.info.maxDoc()) {
+        throw new RuntimeException("SegmentReader.maxDoc() " + reader.maxDoc() + " != SegmentInfo.maxDoc " + info.info.maxDoc());
+      }
+      
+      final int numDocs = reader.numDocs();
+      toLoseDocCount = numDocs;
+      
+      if (reader.hasDeletions()) {
+        if (reader.numDocs() != info.info.maxDoc() - info.getDelCount()) {
+          throw new RuntimeException("delete count mismatch: info=" + (info.info.maxDoc() - info.getDelCount()) + " vs reader=" + reader.numDocs());
+        }
+        if ((info.info.maxDoc() - reader.numDocs()) > reader.maxDoc()) {
+          throw new RuntimeException("too many deleted docs: maxDoc()=" + reader.maxDoc() + " vs del count=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+        if (info.info.maxDoc() - reader.numDocs() != info.getDelCount()) {
+          throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+      } else {
+        if (info.getDelCount() != 0) {
+          throw new RuntimeException("delete count mismatch: info=" + info.getDelCount() + " vs reader=" + (info.info.maxDoc() - reader.numDocs()));
+        }
+      }
+      
+      if (checksumsOnly == false) {
+        final SegmentReader segmentReader = reader;
+        checkParts(infoStream, partExecutor,
+            // Test Livedocs
+            out -> segInfoStat.liveDocStatus = testLiveDocs(segmentReader, out, failFast),
+            // Test Fieldinfos
+            out -> segInfoStat.fieldInfoStatus = testFieldInfos(segmentReader, out, failFast),
+            // Test Field Norms
+            out -> segInfoStat.fieldNormStatus = testFieldNorms(segmentReader, out, failFast),
+            // Test the Term Index
+            out -> segInfoStat.termIndexStatus = testPostings(segmentReader, out, verbose, failFast, version),
+            // Test Stored Fields
+            out -> segInfoStat.storedFieldStatus = testStoredFields(segmentReader, out, failFast),
+            // Test Term Vectors
+            out -> segInfoStat.termVectorStatus = testTermVectors(segmentReader, out, verbose, crossCheckTermVectors, failFast, version),
+            // Test Docvalues
+            out -> segInfoStat.docValuesStatus = testDocValues(segmentReader, out, failFast),
+            // Test PointValues
+            out -> segInfoStat.pointsStatus = testPoints(segmentReader, out, failFast),
+            // Test index sort
+            out -> segInfoStat.indexSortStatus = testSort(segmentReader, indexSort, out, failFast));
+
+        // Rethrow the first exception we encountered
+        //  This will cause stats for failed segments to be incremented properly
+        if (segInfoStat.liveDocStatus.error != null) {
+          throw new RuntimeException("Live docs test failed");
+        } else if (segInfoStat.fieldInfoStatus.error != null) {
+          throw new RuntimeException("Field Info test failed");
+        } else if (segInfoStat.fieldNormStatus.error != null) {
+          throw new RuntimeException("Field Norm test failed");
+        } else if (segInfoStat.termIndexStatus.error != null) {
+          throw new RuntimeException("Term Index test failed");
+        } else if (segInfoStat.storedFieldStatus.error != null) {
+          throw new RuntimeException("Stored Field test failed");
+        } else if (segInfoStat.termVectorStatus.error != null) {
+          throw new RuntimeException("Term Vector test failed");
+        } else if (segInfoStat.docValuesStatus.error != null) {
+          throw new RuntimeException("DocValues test failed");
+        } else if (segInfoStat.pointsStatus.error != null) {
+          throw new RuntimeException("Points test failed");
+        }
+      }
+
+      msg(infoStream, "");
+      
+      if (verbose) {
+        msg(infoStream, "detailed segment RAM usage: ");
+        msg(infoStream, Accountables.toString(reader));
+      }
+
+    } catch (Throwable t) {
+      if (failFast) {
+        throw IOUtils.rethrowAlways(t);
+      }
+      msg(infoStream, "FAILED");
+      String comment;
+      comment = "exorciseIndex() would remove reference to this segment";
+      msg(infoStream, "    WARNING: " + comment + "; full exception:");
+      if (infoStream != null)
+        t.printStackTrace(infoStream);
+      msg(infoStream, "");
+      check.toLoseDocCount = toLoseDocCount;
+      check.failed = true;
+    } finally {
+      if (reader != null)
+        reader.close();
+    }
+
+    return check;
+  }
+
+  /** One independent part of checking a segment, writing its messages to {@code infoStream}. */
+  @FunctionalInterface
+  private interface SegmentPart {
+    void check(PrintStream infoStream) throws IOException;
+  }
+
+  /** Runs the given parts in order, or concurrently on {@code executor} if it is not null.  In the
+   *  latter case messages of each part are buffered and printed in order once all parts are done. */
+  private static void checkParts(PrintStream infoStream, ExecutorService executor, SegmentPart... parts) throws IOException {
+    if (executor == null) {
+      for (SegmentPart part : parts) {
+        part.check(infoStream);
+      }
+      return;
+    }
+
+    final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+    final List<Future<Void>> futures = new ArrayList<>();
+    for (SegmentPart part : parts) {
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final PrintStream partInfoStream = infoStream == null ? null : newBufferedInfoStream(output);
+      outputs.add(output);
+      futures.add(executor.submit(() -> {
+        part.check(partInfoStream);
+        return null;
+      }));
+    }
+
+    // wait for all parts, even if one fails, since the caller closes the reader they share
+    Throwable failure = null;
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        await(futures.get(i));
+      } catch (Throwable t) {
+        if (failure == null) {
+          failure = t;
+        }
+      }
+      printBuffered(infoStream, outputs.get(i));
+    }
+    if (failure != null) {
+      throw IOUtils.rethrowAlways(failure);
+    }
+  }
+
+  private static PrintStream newBufferedInfoStream(ByteArrayOutputStream output) {
+    try {
+      return new PrintStream(output, false, IOUtils.UTF_8);
+    } catch (java.io.UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static void printBuffered(PrintStream infoStream, ByteArrayOutputStream output) {
+    if (infoStream != null) {
+      try {
+        infoStream.print(output.toString(IOUtils.UTF_8));
+      } catch (java.io.UnsupportedEncodingException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw IOUtils.rethrowAlways(e.getCause());
+    }
+  }
+
+  private static void shutdownAndWait(ExecutorService executor) {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    }
+  }
+
   /**
    * Tests index sort order.
    * @lucene.experimental
@@ -2622,11 +2797,15 @@ public final class CheckIndex implements Closeable {
     <p>
     Run it like this:
     <pre>
-    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-segment X] [-segment Y]
+    java -ea:org.apache.lucene... org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-verbose] [-threadCount X] [-segment X] [-segment Y]
     </pre>
     <ul>
     <li><code>-exorcise</code>: actually write a new segments_N file, removing any problematic segments. *LOSES DATA*
 
+    <li><code>-threadCount X</code>: check segments, and the parts of
+    each segment, concurrently using X threads.  The output is the
+    same as with a single thread.
+
     <li><code>-segment X</code>: only check the specified
     segment(s).  This can be specified multiple times,
     to check more than one segment, eg <code>-segment _2
@@ -2662,6 +2841,7 @@ public final class CheckIndex implements Closeable {
     boolean doCrossCheckTermVectors = false;
     boolean verbose = false;
     boolean doChecksumsOnly = false;
+    int threadCount = 1;
     List<String> onlySegments = new ArrayList<>();
     String indexPath = null;
     String dirImpl = null;
@@ -2748,6 +2928,19 @@ public final class CheckIndex implements Closeable {
         opts.doCrossCheckTermVectors = true;
       } else if (arg.equals("-verbose")) {
         opts.verbose = true;
+      } else if ("-threadCount".equals(arg)) {
+        if (i == args.length-1) {
+          throw new IllegalArgumentException("ERROR: missing value for -threadCount option");
+        }
+        i++;
+        try {
+          opts.threadCount = Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("ERROR: invalid value for -threadCount option: " + args[i]);
+        }
+        if (opts.threadCount < 1) {
+          throw new IllegalArgumentException("ERROR: -threadCount must be at least 1; got: " + opts.threadCount);
+        }
       } else if (arg.equals("-segment")) {
         if (i == args.length-1) {
           throw new IllegalArgumentException("ERROR: missing name for -segment option");
@@ -2771,13 +2964,14 @@ public final class CheckIndex implements Closeable {
 
     if (opts.indexPath == null) {
       throw new IllegalArgumentException("\nERROR: index path not specified" +
-                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-crossCheckTermVectors] [-segment X] [-segment Y] [-dir-impl X]\n" +
+                         "\nUsage: java org.apache.lucene.index.CheckIndex pathToIndex [-exorcise] [-crossCheckTermVectors] [-threadCount X] [-segment X] [-segment Y] [-dir-impl X]\n" +
                          "\n" +
                          "  -exorcise: actually write a new segments_N file, removing any problematic segments\n" +
                          "  -fast: just verify file checksums, omitting logical integrity checks\n" + 
                          "  -crossCheckTermVectors: verifies that term vectors match postings; THIS IS VERY SLOW!\n" +
                          "  -codec X: when exorcising, codec to write the new segments_N file with\n" +
                          "  -verbose: print additional details\n" +
+                         "  -threadCount X: number of threads used to check segments and their parts concurrently (default 1)\n" +
                          "  -segment X: only check the specified segments.  This can be specified multiple\n" + 
                          "              times, to check more than one segment, eg '-segment _2 -segment _a'.\n" +
                          "              You can't use this with the -exorcise option\n" +
@@ -2820,6 +3014,7 @@ public final class CheckIndex implements Closeable {
   public int doCheck(Options opts) throws IOException, InterruptedException {
     setCrossCheckTermVectors(opts.doCrossCheckTermVectors);
     setChecksumsOnly(opts.doChecksumsOnly);
+    setThreadCount(opts.threadCount);
     setInfoStream(opts.out, opts.verbose);
 
     Status result = checkIndex(opts.onlySegments);
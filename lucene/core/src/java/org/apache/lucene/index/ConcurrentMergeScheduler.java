@@ -21,6 +21,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.AlreadyClosedException;
@@ -101,6 +105,17 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
    *  to name them). */
   protected int mergeThreadCount;
 
+  /** Pool for the concurrent parts of merges, created once needed with
+   *  {@code maxThreadCount} parallelism. */
+  private ForkJoinPool intraMergePool;
+
+  /** Pools replaced after {@code maxThreadCount} changed, which running merges
+   *  may still use: they are only shut down on {@link #close()}. */
+  private final List<ForkJoinPool> retiredIntraMergePools = new ArrayList<>();
+
+  /** How many intra-merge worker threads we've launched. */
+  private final AtomicInteger intraMergeThreadCount = new AtomicInteger();
+
   /** Floor for IO write rate limit (we will never go any lower than this) */
   private static final double MIN_MERGE_MB_PER_SEC = 5.0;
 
@@ -281,8 +296,9 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
         assert context.context == IOContext.Context.MERGE: "got context=" + context.context;
         
         // Because rateLimiter is bound to a particular merge thread, this method should
-        // always be called from that context. Verify this.
-        assert mergeThread == Thread.currentThread() : "Not the same merge thread, current="
+        // always be called from that context, or from a worker of the intra-merge pool
+        // that runs parts of its merge. Verify this.
+        assert mergeThread == Thread.currentThread() || isIntraMergeThread(Thread.currentThread()) : "Not the same merge thread, current="
           + Thread.currentThread() + ", expected=" + mergeThread;
 
         return new RateLimitedIndexOutput(rateLimiter, in.createOutput(name, context));
@@ -291,6 +307,44 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
   }
   
   /**
+   * Returns a pool whose parallelism is {@code maxThreadCount}, shared by all
+   * merges, or null if {@code maxThreadCount} is 1.
+   */
+  @Override
+  public synchronized ForkJoinPool getIntraMergePool(OneMerge merge) {
+    if (maxThreadCount <= 1) {
+      return null;
+    }
+    if (intraMergePool == null || intraMergePool.getParallelism() != maxThreadCount) {
+      if (intraMergePool != null) {
+        // maxThreadCount changed: running merges may still submit to the old
+        // pool, so keep it open; its idle workers time out on their own
+        retiredIntraMergePools.add(intraMergePool);
+      }
+      intraMergePool = new ForkJoinPool(maxThreadCount, pool -> {
+          ForkJoinWorkerThread thread = new IntraMergeThread(pool, this);
+          thread.setName("Lucene Merge Worker #" + intraMergeThreadCount.getAndIncrement());
+          return thread;
+        }, null, false);
+    }
+    return intraMergePool;
+  }
+
+  private boolean isIntraMergeThread(Thread thread) {
+    return thread instanceof IntraMergeThread && ((IntraMergeThread) thread).scheduler == this;
+  }
+
+  /** Worker of the intra-merge pool. */
+  private static class IntraMergeThread extends ForkJoinWorkerThread {
+    final ConcurrentMergeScheduler scheduler;
+
+    IntraMergeThread(ForkJoinPool pool, ConcurrentMergeScheduler scheduler) {
+      super(pool);
+      this.scheduler = scheduler;
+    }
+  }
+
+  /** 
    * Called whenever the running merges have changed, to set merge IO limits.
    * This method sorts the merge threads by their merge size in
    * descending order and then pauses/unpauses threads from first to last --
@@ -440,6 +494,33 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
   @Override
   public void close() {
     sync();
+    List<ForkJoinPool> pools;
+    synchronized (this) {
+      pools = new ArrayList<>(retiredIntraMergePools);
+      retiredIntraMergePools.clear();
+      if (intraMergePool != null) {
+        pools.add(intraMergePool);
+      }
+      intraMergePool = null;
+    }
+    for (ForkJoinPool pool : pools) {
+      pool.shutdown();
+    }
+    for (ForkJoinPool pool : pools) {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+          break;
+        } catch (InterruptedException ie) {
+          // like sync, ignore this Exception and retry
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
   }
 
   /** Wait for any running merge threads to finish. This call is not interruptible as used by {@link #close()}. */
@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -332,6 +333,30 @@ public abstract class IndexReader implements Closeable {
    *  #document(int)}.  If you want to load a subset, use
    *  {@link DocumentStoredFieldVisitor}.  */
   public abstract void document(int docID, StoredFieldVisitor visitor) throws IOException;
+
+  /** Expert: visits the fields of several stored documents:
+   *  <code>visitors[i]</code> is called for the fields of
+   *  <code>docIDs[i]</code>.  Documents are loaded in
+   *  increasing doc ID order whatever the order of
+   *  <code>docIDs</code>, so that stored fields formats which
+   *  compress documents in blocks, such as the default one,
+   *  decompress each block only once.
+   *  @see #document(int, StoredFieldVisitor) */
+  public final void document(int[] docIDs, StoredFieldVisitor[] visitors) throws IOException {
+    if (docIDs.length != visitors.length) {
+      throw new IllegalArgumentException("docIDs and visitors must have the same length, got " + docIDs.length + " and " + visitors.length);
+    }
+    // sort by doc ID, then by position in docIDs
+    final long[] order = new long[docIDs.length];
+    for (int i = 0; i < docIDs.length; ++i) {
+      order[i] = ((long) docIDs[i] << 32) | i;
+    }
+    Arrays.sort(order);
+    for (long docAndIndex : order) {
+      final int i = (int) docAndIndex;
+      document(docIDs[i], visitors[i]);
+    }
+  }
   
   /**
    * Returns the stored fields of the <code>n</code><sup>th</sup>
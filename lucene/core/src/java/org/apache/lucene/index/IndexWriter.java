@@ -33,6 +33,7 @@ import java.util.Map.Entry;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -2842,7 +2843,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
 
       SegmentMerger merger = new SegmentMerger(Arrays.asList(readers), info, infoStream, trackingDir,
                                                globalFieldNumberMap, 
-                                               context);
+                                               context, null);
 
       if (!merger.shouldMerge()) {
         return docWriter.deleteQueue.getNextSequenceNumber();
@@ -4347,10 +4348,13 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
         validateMergeReader(wrappedReader);
         mergeReaders.add(wrappedReader);
       }
+      final ForkJoinPool intraMergePool = mergeScheduler.getIntraMergePool(merge);
+      merge.getMergeProgress().setIntraMergePool(intraMergePool);
       final SegmentMerger merger = new SegmentMerger(mergeReaders,
                                                      merge.info.info, infoStream, dirWrapper,
                                                      globalFieldNumberMap, 
-                                                     context);
+                                                     context,
+                                                     intraMergePool);
 
       merge.checkAborted();
 
@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -91,11 +93,16 @@ public abstract class MergePolicy {
 
     /**
      * This field is for sanity-check purposes only. Only the same thread that invoked
-     * {@link OneMerge#mergeInit()} is permitted to be calling 
-     * {@link #pauseNanos}. This is always verified at runtime. 
+     * {@link OneMerge#mergeInit()}, or a worker of the {@link MergeState#intraMergePool}
+     * running parts of its merge, is permitted to be calling {@link #pauseNanos}.
+     * This is always verified at runtime. 
      */
     private Thread owner;
 
+    /** The pool the scheduler provided for this merge, whose workers may also call
+     *  {@link #pauseNanos}, or null. */
+    private volatile ForkJoinPool intraMergePool;
+
     /** Creates a new merge progress info. */
     public OneMergeProgress() {
       // Place all the pause reasons in there immediately so that we can simply update values.
@@ -136,7 +143,7 @@ public abstract class MergePolicy {
      *      condition 
      */
     public void pauseNanos(long pauseNanos, PauseReason reason, BooleanSupplier condition) throws InterruptedException {
-      if (Thread.currentThread() != owner) {
+      if (Thread.currentThread() != owner && isIntraMergeThread(Thread.currentThread()) == false) {
         throw new RuntimeException("Only the merge owner thread can call pauseNanos(). This thread: "
             + Thread.currentThread().getName() + ", owner thread: "
             + owner);
@@ -144,6 +151,32 @@ public abstract class MergePolicy {
 
       long start = System.nanoTime();
       AtomicLong timeUpdate = pauseTimesNS.get(reason);
+      try {
+        if (Thread.currentThread() == owner) {
+          awaitNanos(pauseNanos, condition);
+        } else {
+          // Workers of the intra-merge pool may be shared with other merges: let the
+          // pool add threads while we are blocked so that those merges keep running.
+          final long deadline = start + pauseNanos;
+          ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+              awaitNanos(deadline - System.nanoTime(), condition);
+              return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+              return aborted || condition.getAsBoolean() == false || System.nanoTime() - deadline >= 0;
+            }
+          });
+        }
+      } finally {
+        timeUpdate.addAndGet(System.nanoTime() - start);
+      }
+    }
+
+    private void awaitNanos(long pauseNanos, BooleanSupplier condition) throws InterruptedException {
       pauseLock.lock();
       try {
         while (pauseNanos > 0 && !aborted && condition.getAsBoolean()) {
@@ -151,7 +184,6 @@ public abstract class MergePolicy {
         }
       } finally {
         pauseLock.unlock();
-        timeUpdate.addAndGet(System.nanoTime() - start);
       }
     }
 
@@ -180,6 +212,16 @@ public abstract class MergePolicy {
       assert this.owner == null;
       this.owner = owner;
     }
+
+    final void setIntraMergePool(ForkJoinPool intraMergePool) {
+      this.intraMergePool = intraMergePool;
+    }
+
+    private boolean isIntraMergeThread(Thread thread) {
+      return intraMergePool != null
+          && thread instanceof ForkJoinWorkerThread
+          && ((ForkJoinWorkerThread) thread).getPool() == intraMergePool;
+    }
   }
 
   /** OneMerge provides the information necessary to perform
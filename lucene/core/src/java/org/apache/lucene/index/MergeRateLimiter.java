@@ -41,8 +41,15 @@ public class MergeRateLimiter extends RateLimiter {
   private volatile double mbPerSec;
   private volatile long minPauseCheckBytes;
 
+  /** Returned by {@link #reserve} when no pause is needed. */
+  private final static long NO_PAUSE = Long.MIN_VALUE;
+
+  // guarded by pauseLock
   private long lastNS;
 
+  // Lets the writers of a merge whose parts run on the intra-merge pool share the rate limit:
+  private final Object pauseLock = new Object();
+
   private AtomicLong totalBytesWritten = new AtomicLong();
 
   private final OneMergeProgress mergeProgress;
@@ -86,18 +93,73 @@ public class MergeRateLimiter extends RateLimiter {
   public long pause(long bytes) throws MergePolicy.MergeAbortedException {
     totalBytesWritten.addAndGet(bytes);
 
+    // Writers reserve the time that their bytes take under the lock, but pause
+    // outside of it, so that they don't hold up other writers of the same merge:
+    double rate = mbPerSec; // read from volatile rate once.
+    long startNS;
+    long targetNS;
+    synchronized (pauseLock) {
+      startNS = lastNS;
+      targetNS = reserve(bytes, rate, System.nanoTime());
+    }
+
     // While loop because we may wake up and check again when our rate limit
     // is changed while we were pausing:
     long paused = 0;
     long delta;
-    while ((delta = maybePause(bytes, System.nanoTime())) >= 0) {
+    while ((delta = maybePause(targetNS, rate, System.nanoTime())) >= 0) {
       // Keep waiting.
       paused += delta;
+
+      if (rate != mbPerSec) {
+        // Reserve again at the new rate, and give the previous reservation
+        // back unless another writer already reserved after it:
+        rate = mbPerSec;
+        synchronized (pauseLock) {
+          if (lastNS == targetNS) {
+            lastNS = startNS;
+          }
+          startNS = lastNS;
+          targetNS = reserve(bytes, rate, System.nanoTime());
+        }
+      }
     }
 
     return paused;
   }
 
+  /**
+   * Returns the time until which the caller must pause so that <code>bytes</code>
+   * are written at the given rate after the bytes of previous callers, or
+   * {@link #NO_PAUSE}.
+   */
+  private long reserve(long bytes, double rate, long curNS) {
+    assert Thread.holdsLock(pauseLock);
+    if (rate == 0.0) {
+      // The merge is stopped: pause until the rate changes.
+      return Long.MAX_VALUE;
+    }
+
+    double secondsToPause = (bytes/1024./1024.) / rate;
+
+    // Time we should sleep until; this is purely instantaneous
+    // rate (just adds seconds onto the last time we had paused to);
+    // maybe we should also offer decayed recent history one?
+    long targetNS = lastNS + (long) (1000000000 * secondsToPause);
+
+    // We don't bother with thread pausing if the pause is smaller than 2 msec.
+    if (targetNS - curNS <= MIN_PAUSE_NS) {
+      // Set to curNS, not targetNS, to enforce the instant rate, not
+      // the "averaged over all history" rate:
+      lastNS = curNS;
+      return NO_PAUSE;
+    }
+
+    // The bytes of the next caller will be written after ours:
+    lastNS = targetNS;
+    return targetNS;
+  }
+
   /** Total NS merge was stopped. */
   public long getTotalStoppedNS() {
     return mergeProgress.getPauseTimes().get(PauseReason.STOPPED);
@@ -113,27 +175,21 @@ public class MergeRateLimiter extends RateLimiter {
    * if no pause was applied. If the thread needs pausing, this method delegates 
    * to the linked {@link OneMergeProgress}. 
    */
-  private long maybePause(long bytes, long curNS) throws MergePolicy.MergeAbortedException {
+  private long maybePause(long targetNS, double rate, long curNS) throws MergePolicy.MergeAbortedException {
     // Now is a good time to abort the merge:
     if (mergeProgress.isAborted()) {
       throw new MergePolicy.MergeAbortedException("Merge aborted.");
     }
 
-    double rate = mbPerSec; // read from volatile rate once.
-    double secondsToPause = (bytes/1024./1024.) / rate;
-
-    // Time we should sleep until; this is purely instantaneous
-    // rate (just adds seconds onto the last time we had paused to);
-    // maybe we should also offer decayed recent history one?
-    long targetNS = lastNS + (long) (1000000000 * secondsToPause);
+    if (targetNS == NO_PAUSE) {
+      return -1;
+    }
 
-    long curPauseNS = targetNS - curNS;
+    // A stopped merge pauses until the rate changes:
+    long curPauseNS = rate == 0.0 ? MAX_PAUSE_NS : targetNS - curNS;
 
     // We don't bother with thread pausing if the pause is smaller than 2 msec.
     if (curPauseNS <= MIN_PAUSE_NS) {
-      // Set to curNS, not targetNS, to enforce the instant rate, not
-      // the "averaged over all history" rate:
-      lastNS = curNS;
       return -1;
     }
 
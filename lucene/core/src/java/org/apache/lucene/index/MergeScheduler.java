@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.Directory;
@@ -54,6 +55,16 @@ public abstract class MergeScheduler implements Closeable {
     return in;
   }
 
+  /**
+   * Returns the pool that codecs may use to run independent parts of the
+   * provided merge concurrently, see {@link MergeState#intraMergePool}.
+   * Returns null by default, so that each merge entirely runs on the thread
+   * that called {@link IndexWriter#merge}.
+   */
+  public ForkJoinPool getIntraMergePool(OneMerge merge) {
+    return null;
+  }
+
   /** Close this MergeScheduler. */
   @Override
   public abstract void close() throws IOException;
@@ -21,6 +21,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.apache.lucene.codecs.DocValuesProducer;
 import org.apache.lucene.codecs.FieldsProducer;
@@ -30,6 +33,7 @@ import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.TermVectorsReader;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InfoStream;
 import org.apache.lucene.util.packed.PackedInts;
 import org.apache.lucene.util.packed.PackedLongValues;
@@ -84,10 +88,16 @@ public class MergeState {
   /** Indicates if the index needs to be sorted **/
   public boolean needsIndexSort;
 
-  /** Sole constructor. */
-  MergeState(List<CodecReader> originalReaders, SegmentInfo segmentInfo, InfoStream infoStream) throws IOException {
+  /** Pool to run independent parts of the merge concurrently, or null if the
+   *  whole merge must run on the calling thread.
+   *  @see MergeScheduler#getIntraMergePool */
+  public final ForkJoinPool intraMergePool;
+
+  /** Creates the state to merge the given readers into {@code segmentInfo}. */
+  MergeState(List<CodecReader> originalReaders, SegmentInfo segmentInfo, InfoStream infoStream, ForkJoinPool intraMergePool) throws IOException {
 
     this.infoStream = infoStream;
+    this.intraMergePool = intraMergePool;
 
     final Sort indexSort = segmentInfo.getIndexSort();
     int numReaders = originalReaders.size();
@@ -146,6 +156,86 @@ public class MergeState {
     this.docMaps = buildDocMaps(readers, indexSort);
   }
 
+  /** Creates a copy of {@code in} that sees the provided field infos and postings
+   *  instead, leaving {@code in} untouched so that other parts of the merge can keep
+   *  using it concurrently.
+   *
+   * @lucene.internal */
+  public MergeState(MergeState in, FieldInfos mergeFieldInfos, FieldInfos[] fieldInfos, FieldsProducer[] fieldsProducers) {
+    if (fieldInfos.length != in.fieldInfos.length || fieldsProducers.length != in.fieldsProducers.length) {
+      throw new IllegalArgumentException("expected one FieldInfos and one FieldsProducer per reader");
+    }
+    this.docMaps = in.docMaps;
+    this.leafDocMaps = in.leafDocMaps;
+    this.segmentInfo = in.segmentInfo;
+    this.mergeFieldInfos = mergeFieldInfos;
+    this.storedFieldsReaders = in.storedFieldsReaders;
+    this.termVectorsReaders = in.termVectorsReaders;
+    this.normsProducers = in.normsProducers;
+    this.docValuesProducers = in.docValuesProducers;
+    this.fieldInfos = fieldInfos;
+    this.liveDocs = in.liveDocs;
+    this.fieldsProducers = fieldsProducers;
+    this.pointsReaders = in.pointsReaders;
+    this.maxDocs = in.maxDocs;
+    this.infoStream = in.infoStream;
+    this.needsIndexSort = in.needsIndexSort;
+    this.intraMergePool = in.intraMergePool;
+  }
+
+  /** Runs the given tasks on {@link #intraMergePool}, or one after the other on the calling
+   *  thread if it is null, and returns their results in order. All tasks are waited for,
+   *  even if some fail, and then the first failure is rethrown as it was thrown.
+   *  <p>
+   *  Tasks must not share mutable state, including producers obtained through
+   *  {@code getMergeInstance()}, and must write to separate files.
+   *
+   * @lucene.internal */
+  public <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+    List<T> results = new ArrayList<>(tasks.size());
+    if (intraMergePool == null || tasks.size() <= 1) {
+      for (Callable<T> task : tasks) {
+        try {
+          results.add(task.call());
+        } catch (Exception e) {
+          throw IOUtils.rethrowAlways(e);
+        }
+      }
+      return results;
+    }
+
+    Throwable[] failures = new Throwable[tasks.size()];
+    List<ForkJoinTask<T>> futures = new ArrayList<>(tasks.size());
+    for (int i = 0; i < tasks.size(); i++) {
+      final int index = i;
+      final Callable<T> task = tasks.get(i);
+      futures.add(intraMergePool.submit(() -> {
+        try {
+          return task.call();
+        } catch (Throwable t) {
+          failures[index] = t;
+          return null;
+        }
+      }));
+    }
+    for (ForkJoinTask<T> future : futures) {
+      results.add(future.join());
+    }
+
+    Throwable failure = null;
+    for (Throwable t : failures) {
+      if (failure == null) {
+        failure = t;
+      } else if (t != null) {
+        failure.addSuppressed(t);
+      }
+    }
+    if (failure != null) {
+      throw IOUtils.rethrowAlways(failure);
+    }
+    return results;
+  }
+
   // Remap docIDs around deletions
   private DocMap[] buildDeletionDocMaps(List<CodecReader> readers) {
 
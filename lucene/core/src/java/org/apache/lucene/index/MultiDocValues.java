@@ -27,7 +27,9 @@ import org.apache.lucene.index.MultiTermsEnum.TermsEnumIndex;
 import org.apache.lucene.index.MultiTermsEnum.TermsEnumWithSlice;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.InPlaceMergeSorter;
 import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -759,7 +761,65 @@ public class MultiDocValues {
 
       // enums are not sorted, so let's sort to save memory
       final SegmentMap segmentMap = new SegmentMap(weights);
-      return new OrdinalMap(owner, subs, segmentMap, acceptableOverheadRatio);
+      return merge(owner, subs, segmentMap, acceptableOverheadRatio);
+    }
+
+    /**
+     * Create an ordinal map that uses the number of unique values of each
+     * {@link SortedDocValues} instance as a weight, by updating an ordinal map
+     * that was built over other values.
+     * @see #build(IndexReader.CacheKey, SortedSetDocValues[], OrdinalMap, int[], float)
+     */
+    public static OrdinalMap build(IndexReader.CacheKey owner, SortedDocValues[] values, OrdinalMap previous,
+        int[] previousSegments, float acceptableOverheadRatio) throws IOException {
+      final SortedSetDocValues[] setValues = new SortedSetDocValues[values.length];
+      for (int i = 0; i < values.length; ++i) {
+        setValues[i] = DocValues.singleton(values[i]);
+      }
+      return build(owner, setValues, previous, previousSegments, acceptableOverheadRatio);
+    }
+
+    /**
+     * Create an ordinal map that uses the number of unique values of each
+     * {@link SortedSetDocValues} instance as a weight, by updating an ordinal
+     * map that was built over other values, typically those of a previous
+     * point-in-time view of the same index.
+     * <p>
+     * <code>previousSegments[i]</code> is the index of <code>values[i]</code>
+     * in the values that <code>previous</code> was built from if both have
+     * exactly the same terms, as is the case for the same segment core in both
+     * readers, or -1 if <code>values[i]</code> is new. The terms of the
+     * previous segments are never read: only the terms of the new segments are
+     * looked up in the previous ones, so this is much faster than building a
+     * new map from scratch when the new segments have few terms. Terms that
+     * were only in segments which are not part of <code>values</code> anymore
+     * are dropped.
+     */
+    public static OrdinalMap build(IndexReader.CacheKey owner, SortedSetDocValues[] values, OrdinalMap previous,
+        int[] previousSegments, float acceptableOverheadRatio) throws IOException {
+      if (values.length != previousSegments.length) {
+        throw new IllegalArgumentException("values and previousSegments must have the same length");
+      }
+      final long[] weights = new long[values.length];
+      long maxValueCount = previous.getValueCount();
+      for (int i = 0; i < values.length; ++i) {
+        weights[i] = values[i].getValueCount();
+        if (previousSegments[i] == -1) {
+          maxValueCount += weights[i];
+        } else if (previousSegments[i] < 0 || previousSegments[i] >= previous.segmentToGlobalOrds.length) {
+          throw new IllegalArgumentException("previous map has no segment " + previousSegments[i]);
+        }
+      }
+      final SegmentMap segmentMap = new SegmentMap(weights);
+      if (maxValueCount > ArrayUtil.MAX_ARRAY_LENGTH) {
+        // the update works with arrays of global ords
+        final TermsEnum[] subs = new TermsEnum[values.length];
+        for (int i = 0; i < values.length; ++i) {
+          subs[i] = values[i].termsEnum();
+        }
+        return merge(owner, subs, segmentMap, acceptableOverheadRatio);
+      }
+      return update(owner, values, previous, previousSegments, segmentMap, acceptableOverheadRatio);
     }
 
     private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OrdinalMap.class);
@@ -777,11 +837,9 @@ public class MultiDocValues {
     // ram usage
     final long ramBytesUsed;
     
-    OrdinalMap(IndexReader.CacheKey owner, TermsEnum subs[], SegmentMap segmentMap, float acceptableOverheadRatio) throws IOException {
+    private static OrdinalMap merge(IndexReader.CacheKey owner, TermsEnum subs[], SegmentMap segmentMap, float acceptableOverheadRatio) throws IOException {
       // create the ordinal mappings by pulling a termsenum over each sub's 
       // unique terms, and walking a multitermsenum over those
-      this.owner = owner;
-      this.segmentMap = segmentMap;
       // even though we accept an overhead ratio, we keep these ones with COMPACT
       // since they are only used to resolve values given a global ord, which is
       // slow anyway
@@ -830,15 +888,176 @@ public class MultiDocValues {
         globalOrdDeltas.add(globalOrdDelta);
         globalOrd++;
       }
-      this.firstSegments = firstSegments.build();
-      this.globalOrdDeltas = globalOrdDeltas.build();
+      final PackedLongValues[] builtOrdDeltas = new PackedLongValues[ordDeltas.length];
+      for (int i = 0; i < ordDeltas.length; ++i) {
+        builtOrdDeltas[i] = ordDeltas[i].build();
+      }
+      return new OrdinalMap(owner, segmentMap, globalOrdDeltas.build(), firstSegments.build(),
+          builtOrdDeltas, ordDeltaBits, acceptableOverheadRatio);
+    }
+
+    private static OrdinalMap update(IndexReader.CacheKey owner, SortedSetDocValues[] values, OrdinalMap previous,
+        int[] previousSegments, SegmentMap segmentMap, float acceptableOverheadRatio) throws IOException {
+      // the global ords of the previous map that are still used by a segment
+      final FixedBitSet live = new FixedBitSet((int) previous.getValueCount());
+      int numRetained = 0;
+      for (int i = 0; i < values.length; ++i) {
+        if (previousSegments[i] != -1) {
+          final LongValues previousGlobalOrds = previous.getGlobalOrds(previousSegments[i]);
+          for (long ord = 0, valueCount = values[i].getValueCount(); ord < valueCount; ++ord) {
+            live.set((int) previousGlobalOrds.get(ord));
+          }
+          numRetained++;
+        }
+      }
+      // the previous global ords are first renumbered so that there are no gaps, this is their rank among the live ones
+      final long[] liveWords = live.getBits();
+      final int[] ranks = new int[liveWords.length];
+      for (int i = 1; i < liveWords.length; ++i) {
+        ranks[i] = ranks[i - 1] + Long.bitCount(liveWords[i - 1]);
+      }
+      final int[] retained = new int[numRetained];
+      final int[] added = new int[values.length - numRetained];
+      for (int i = 0, r = 0, a = 0; i < values.length; ++i) {
+        if (previousSegments[i] != -1) {
+          retained[r++] = i;
+        } else {
+          added[a++] = i;
+        }
+      }
+
+      final PackedLongValues.Builder[] ordDeltas = new PackedLongValues.Builder[values.length];
+      for (int i = 0; i < ordDeltas.length; i++) {
+        ordDeltas[i] = PackedLongValues.monotonicBuilder(acceptableOverheadRatio);
+      }
+      final long[] ordDeltaBits = new long[values.length];
+
+      // walk the terms of the new segments: each one is either a term of a retained segment, or a new global term
+      // that goes after all the retained terms that are less than it
+      final PackedLongValues.Builder insertionPoints = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+      long numAdded = 0;
+      if (added.length > 0) {
+        final long segmentOrds[] = new long[values.length];
+        final ReaderSlice slices[] = new ReaderSlice[added.length];
+        final TermsEnumIndex indexes[] = new TermsEnumIndex[added.length];
+        for (int i = 0; i < added.length; i++) {
+          slices[i] = new ReaderSlice(0, 0, i);
+          indexes[i] = new TermsEnumIndex(values[added[i]].termsEnum(), i);
+        }
+        final MultiTermsEnum mte = new MultiTermsEnum(slices);
+        mte.reset(indexes);
+        BytesRef term;
+        while ((term = mte.next()) != null) {
+          long rank = -1;
+          long insertionPoint = 0;
+          for (int i : retained) {
+            final LongValues previousGlobalOrds = previous.getGlobalOrds(previousSegments[i]);
+            final long ord = values[i].lookupTerm(term);
+            if (ord >= 0) {
+              rank = rank(liveWords, ranks, previousGlobalOrds.get(ord));
+              break;
+            } else if (ord < -1) {
+              insertionPoint = Math.max(insertionPoint, rank(liveWords, ranks, previousGlobalOrds.get(-2 - ord)) + 1);
+            }
+          }
+          final long globalOrd;
+          if (rank >= 0) {
+            globalOrd = rank + numAdded;
+          } else {
+            globalOrd = insertionPoint + numAdded;
+            insertionPoints.add(insertionPoint);
+            numAdded++;
+          }
+
+          final TermsEnumWithSlice matches[] = mte.getMatchArray();
+          for (int m = 0; m < mte.getMatchCount(); m++) {
+            final int segmentIndex = added[matches[m].index];
+            final long segmentOrd = matches[m].terms.ord();
+            final long delta = globalOrd - segmentOrd;
+            final int newIndex = segmentMap.oldToNew(segmentIndex);
+            while (segmentOrds[segmentIndex] <= segmentOrd) {
+              ordDeltaBits[newIndex] |= delta;
+              ordDeltas[newIndex].add(delta);
+              segmentOrds[segmentIndex]++;
+            }
+          }
+        }
+      }
+
+      // the retained segments only need their global ords to be shifted by the number of new terms before them
+      final PackedLongValues builtInsertionPoints = insertionPoints.build();
+      for (int i : retained) {
+        final LongValues previousGlobalOrds = previous.getGlobalOrds(previousSegments[i]);
+        final int newIndex = segmentMap.oldToNew(i);
+        final PackedLongValues.Iterator it = builtInsertionPoints.iterator();
+        long numAddedBefore = 0;
+        long nextInsertionPoint = it.hasNext() ? it.next() : Long.MAX_VALUE;
+        for (long ord = 0, valueCount = values[i].getValueCount(); ord < valueCount; ++ord) {
+          final long rank = rank(liveWords, ranks, previousGlobalOrds.get(ord));
+          while (nextInsertionPoint <= rank) {
+            numAddedBefore++;
+            nextInsertionPoint = it.hasNext() ? it.next() : Long.MAX_VALUE;
+          }
+          final long delta = rank + numAddedBefore - ord;
+          ordDeltaBits[newIndex] |= delta;
+          ordDeltas[newIndex].add(delta);
+        }
+      }
+
+      final PackedLongValues[] builtOrdDeltas = new PackedLongValues[ordDeltas.length];
+      for (int i = 0; i < ordDeltas.length; ++i) {
+        builtOrdDeltas[i] = ordDeltas[i].build();
+      }
+
+      // the first segment of a global ord is the one with the least index in the sorted view of the segments
+      final int valueCount = Math.toIntExact(live.cardinality() + numAdded);
+      final FixedBitSet seen = new FixedBitSet(valueCount);
+      final PackedInts.Mutable firstSegmentIndexes =
+          PackedInts.getMutable(valueCount, PackedInts.bitsRequired(Math.max(1, values.length - 1)), PackedInts.COMPACT);
+      final PackedInts.Mutable firstSegmentDeltas =
+          PackedInts.getMutable(valueCount, PackedInts.bitsRequired(valueCount), PackedInts.COMPACT);
+      for (int newIndex = 0; newIndex < builtOrdDeltas.length; ++newIndex) {
+        final PackedLongValues.Iterator it = builtOrdDeltas[newIndex].iterator();
+        for (long ord = 0; it.hasNext(); ++ord) {
+          final long delta = it.next();
+          final int globalOrd = (int) (ord + delta);
+          if (seen.getAndSet(globalOrd) == false) {
+            firstSegmentIndexes.set(globalOrd, newIndex);
+            firstSegmentDeltas.set(globalOrd, delta);
+          }
+        }
+      }
+      final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+      final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+      for (int globalOrd = 0; globalOrd < valueCount; ++globalOrd) {
+        assert seen.get(globalOrd);
+        globalOrdDeltas.add(firstSegmentDeltas.get(globalOrd));
+        firstSegments.add(firstSegmentIndexes.get(globalOrd));
+      }
+      return new OrdinalMap(owner, segmentMap, globalOrdDeltas.build(), firstSegments.build(),
+          builtOrdDeltas, ordDeltaBits, acceptableOverheadRatio);
+    }
+
+    // the number of live ords that are less than the given live ord
+    private static long rank(long[] liveWords, int[] ranks, long ord) {
+      final int word = (int) (ord >>> 6);
+      return ranks[word] + Long.bitCount(liveWords[word] & ((1L << ord) - 1));
+    }
+
+    private OrdinalMap(IndexReader.CacheKey owner, SegmentMap segmentMap, PackedLongValues globalOrdDeltas,
+        PackedLongValues firstSegments, PackedLongValues[] ordDeltas, long[] ordDeltaBits,
+        float acceptableOverheadRatio) {
+      this.owner = owner;
+      this.segmentMap = segmentMap;
+      this.firstSegments = firstSegments;
+      this.globalOrdDeltas = globalOrdDeltas;
       // ordDeltas is typically the bottleneck, so let's see what we can do to make it faster
-      segmentToGlobalOrds = new LongValues[subs.length];
+      segmentToGlobalOrds = new LongValues[ordDeltas.length];
       long ramBytesUsed = BASE_RAM_BYTES_USED + this.globalOrdDeltas.ramBytesUsed()
           + this.firstSegments.ramBytesUsed() + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds)
           + segmentMap.ramBytesUsed();
       for (int i = 0; i < ordDeltas.length; ++i) {
-        final PackedLongValues deltas = ordDeltas[i].build();
+        final PackedLongValues deltas = ordDeltas[i];
         if (ordDeltaBits[i] == 0L) {
           // segment ords perfectly match global ordinals
           // likely in case of low cardinalities and large segments
@@ -16,6 +16,8 @@
  */
 package org.apache.lucene.index;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.Directory;
 
@@ -49,6 +51,11 @@ public final class NoMergeScheduler extends MergeScheduler {
     return in;
   }
 
+  @Override
+  public ForkJoinPool getIntraMergePool(OneMerge merge) {
+    return null;
+  }
+
   @Override
   public MergeScheduler clone() {
     return this;
@@ -33,12 +33,21 @@ final class Boolean2ScorerSupplier extends ScorerSupplier {
   private final BooleanWeight weight;
   private final Map<BooleanClause.Occur, Collection<ScorerSupplier>> subs;
   private final boolean needsScores;
+  private final boolean topScores;
   private final int minShouldMatch;
   private long cost = -1;
 
   Boolean2ScorerSupplier(BooleanWeight weight,
       Map<Occur, Collection<ScorerSupplier>> subs,
       boolean needsScores, int minShouldMatch) {
+    this(weight, subs, needsScores, false, minShouldMatch);
+  }
+
+  /** {@code topScores} should be true if the scorer is for a collector that does not need total hits,
+   *  see {@link Weight#topScoresScorer}. */
+  Boolean2ScorerSupplier(BooleanWeight weight,
+      Map<Occur, Collection<ScorerSupplier>> subs,
+      boolean needsScores, boolean topScores, int minShouldMatch) {
     if (minShouldMatch < 0) {
       throw new IllegalArgumentException("minShouldMatch must be positive, but got: " + minShouldMatch);
     }
@@ -55,6 +64,7 @@ final class Boolean2ScorerSupplier extends ScorerSupplier {
     this.weight = weight;
     this.subs = subs;
     this.needsScores = needsScores;
+    this.topScores = topScores;
     this.minShouldMatch = minShouldMatch;
   }
 
@@ -94,6 +104,25 @@ final class Boolean2ScorerSupplier extends ScorerSupplier {
 
     // pure disjunction
     if (subs.get(Occur.FILTER).isEmpty() && subs.get(Occur.MUST).isEmpty()) {
+      if (topScores && needsScores && minShouldMatch <= 1 && subs.get(Occur.SHOULD).size() > 1) {
+        // behaves like a regular disjunction, but can skip over non-competitive
+        // documents if the collector sets a minimum competitive score
+        final List<Scorer> optionalScorers = new ArrayList<>();
+        boolean negativeScores = false;
+        for (ScorerSupplier scorer : subs.get(Occur.SHOULD)) {
+          Scorer optionalScorer = scorer.get(randomAccess);
+          // WANDScorer only works with non-negative scores
+          negativeScores |= (optionalScorer.maxScore() >= 0) == false;
+          optionalScorers.add(optionalScorer);
+        }
+        final Scorer disjunction;
+        if (negativeScores) {
+          disjunction = new DisjunctionSumScorer(weight, optionalScorers, needsScores);
+        } else {
+          disjunction = new WANDScorer(weight, optionalScorers);
+        }
+        return excl(disjunction, subs.get(Occur.MUST_NOT));
+      }
       return excl(opt(subs.get(Occur.SHOULD), minShouldMatch, needsScores, randomAccess), subs.get(Occur.MUST_NOT));
     }
 
@@ -290,6 +290,21 @@ final class BooleanWeight extends Weight {
     }
   }
 
+  @Override
+  public BulkScorer topScoresBulkScorer(LeafReaderContext context) throws IOException {
+    if (needsScores
+        && query.getMinimumNumberShouldMatch() <= 1
+        && query.getClauses(Occur.MUST).isEmpty()
+        && query.getClauses(Occur.FILTER).isEmpty()
+        && query.getClauses(Occur.SHOULD).size() > 1) {
+      // pure disjunction: BooleanScorer would score every match while
+      // WANDScorer can skip documents that are not competitive
+      final Scorer scorer = topScoresScorer(context);
+      return scorer == null ? null : new DefaultBulkScorer(scorer);
+    }
+    return bulkScorer(context);
+  }
+
   @Override
   public Scorer scorer(LeafReaderContext context) throws IOException {
     ScorerSupplier scorerSupplier = scorerSupplier(context);
@@ -299,8 +314,21 @@ final class BooleanWeight extends Weight {
     return scorerSupplier.get(false);
   }
 
+  @Override
+  public Scorer topScoresScorer(LeafReaderContext context) throws IOException {
+    ScorerSupplier scorerSupplier = scorerSupplier(context, true);
+    if (scorerSupplier == null) {
+      return null;
+    }
+    return scorerSupplier.get(false);
+  }
+
   @Override
   public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+    return scorerSupplier(context, false);
+  }
+
+  private ScorerSupplier scorerSupplier(LeafReaderContext context, boolean topScores) throws IOException {
     int minShouldMatch = query.getMinimumNumberShouldMatch();
 
     final Map<Occur, Collection<ScorerSupplier>> scorers = new EnumMap<>(Occur.class);
@@ -345,7 +373,7 @@ final class BooleanWeight extends Weight {
       scorers.get(Occur.SHOULD).clear();
     }
 
-    return new Boolean2ScorerSupplier(this, scorers, needsScores, minShouldMatch);
+    return new Boolean2ScorerSupplier(this, scorers, needsScores, topScores, minShouldMatch);
   }
 
 }
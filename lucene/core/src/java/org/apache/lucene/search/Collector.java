@@ -79,4 +79,17 @@ public interface Collector {
    * @return {@code true} if scores are needed.
    */
   boolean needsScores();
+
+  /**
+   * Indicates if this collector needs to see every matching document, for
+   * instance in order to count them. Collectors that return {@code false} may
+   * call {@link Scorer#setMinCompetitiveScore(float)} on the scorers that are
+   * passed to {@link LeafCollector#setScorer(Scorer)} in order to let them skip
+   * documents that cannot be competitive.
+   *
+   * @return {@code true} unless this collector only needs competitive hits.
+   */
+  default boolean needsTotalHits() {
+    return true;
+  }
 }
@@ -31,6 +31,9 @@ public class DisiWrapper {
   public int doc; // the current doc, used for comparison
   public DisiWrapper next; // reference to a next element, see #topList
 
+  // FOR WAND
+  public long maxScore; // scaled upper bound of the scores of this scorer
+
   // An approximation of the iterator, or the iterator itself if it does not
   // support two-phase iteration
   public final DocIdSetIterator approximation;
@@ -28,6 +28,7 @@ import java.util.List;
 final class DisjunctionMaxScorer extends DisjunctionScorer {
   /* Multiplier applied to non-maximum-scoring subqueries for a document as they are summed into the result. */
   private final float tieBreakerMultiplier;
+  private final float maxScore;
 
   /**
    * Creates a new instance of DisjunctionMaxScorer
@@ -43,6 +44,20 @@ final class DisjunctionMaxScorer extends DisjunctionScorer {
   DisjunctionMaxScorer(Weight weight, float tieBreakerMultiplier, List<Scorer> subScorers, boolean needsScores) {
     super(weight, subScorers, needsScores);
     this.tieBreakerMultiplier = tieBreakerMultiplier;
+    double positiveMaxScoreSum = 0;
+    float maxScoreMax = Float.NEGATIVE_INFINITY;
+    for (Scorer scorer : subScorers) {
+      final float subMaxScore = scorer.maxScore();
+      positiveMaxScoreSum += Math.max(subMaxScore, 0);
+      maxScoreMax = Math.max(maxScoreMax, subMaxScore);
+    }
+    if (Float.isInfinite(maxScoreMax)) {
+      this.maxScore = Float.POSITIVE_INFINITY;
+    } else {
+      // the score is a non-decreasing function of the scores of the sub scorers, and
+      // sub scorers with negative max scores can only lower it when they match
+      this.maxScore = (float) (maxScoreMax + (positiveMaxScoreSum - Math.max(maxScoreMax, 0)) * tieBreakerMultiplier);
+    }
   }
 
   @Override
@@ -58,4 +73,9 @@ final class DisjunctionMaxScorer extends DisjunctionScorer {
     }
     return scoreMax + (scoreSum - scoreMax) * tieBreakerMultiplier; 
   }
+
+  @Override
+  public float maxScore() {
+    return maxScore;
+  }
 }
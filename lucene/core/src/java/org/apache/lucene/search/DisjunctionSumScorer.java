@@ -23,6 +23,8 @@ import java.util.List;
 /** A Scorer for OR like queries, counterpart of <code>ConjunctionScorer</code>.
  */
 final class DisjunctionSumScorer extends DisjunctionScorer {
+
+  private final float maxScore;
   
   /** Construct a <code>DisjunctionScorer</code>.
    * @param weight The weight to be used.
@@ -30,6 +32,17 @@ final class DisjunctionSumScorer extends DisjunctionScorer {
    */
   DisjunctionSumScorer(Weight weight, List<Scorer> subScorers, boolean needsScores) {
     super(weight, subScorers, needsScores);
+    // sub scorers that have negative max scores only lower the score when they
+    // match, so the best case is when only those with positive max scores match,
+    // or only the one with the highest max score if none is positive
+    double positiveMaxScoreSum = 0;
+    float maxScoreMax = Float.NEGATIVE_INFINITY;
+    for (Scorer scorer : subScorers) {
+      final float subMaxScore = scorer.maxScore();
+      positiveMaxScoreSum += Math.max(subMaxScore, 0);
+      maxScoreMax = Math.max(maxScoreMax, subMaxScore);
+    }
+    this.maxScore = maxScoreMax < 0 ? maxScoreMax : (float) positiveMaxScoreSum;
   }
 
   @Override
@@ -40,4 +53,9 @@ final class DisjunctionSumScorer extends DisjunctionScorer {
     }
     return (float)score;
   }
+
+  @Override
+  public float maxScore() {
+    return maxScore;
+  }
 }
@@ -28,6 +28,9 @@ import java.io.IOException;
  * contained scorer. Subclasses of {@code FilterScorer} may
  * further override some of these methods and may also provide additional
  * methods and fields.
+ * <p>
+ * {@link #maxScore()} and {@link #setMinCompetitiveScore(float)} are not
+ * propagated to the contained scorer since subclasses may modify scores.
  */
 public abstract class FilterScorer extends Scorer {
   protected final Scorer in;
@@ -652,7 +652,13 @@ public class IndexSearcher {
         // continue with the following leaf
         continue;
       }
-      BulkScorer scorer = weight.bulkScorer(ctx);
+      BulkScorer scorer;
+      if (collector.needsTotalHits()) {
+        scorer = weight.bulkScorer(ctx);
+      } else {
+        // let the weight pick a bulk scorer that can skip non-competitive documents
+        scorer = weight.topScoresBulkScorer(ctx);
+      }
       if (scorer != null) {
         try {
           scorer.score(leafCollector, ctx.reader().getLiveDocs());
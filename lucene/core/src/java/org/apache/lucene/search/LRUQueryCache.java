@@ -254,6 +254,25 @@ public class LRUQueryCache implements QueryCache, Accountable {
     cacheSize = 0;
   }
 
+  /**
+   * Expert: return whether queries may be cached on an index that has
+   * <code>maxDoc</code> documents. The default implementation only accepts
+   * indices whose dense (bit set) entries fit five times in
+   * <code>maxRamBytesUsed</code>.
+   * @lucene.experimental
+   */
+  protected boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
+    // The worst-case (dense) is a bit set which needs one bit per document
+    final long worstCaseRamUsage = maxDoc / 8;
+    final long totalRamAvailable = maxRamBytesUsed;
+    // Imagine the worst-case that a cache entry is large than the size of
+    // the cache: not only will this entry be trashed immediately but it
+    // will also evict all current entries from the cache. For this reason
+    // we only cache on an IndexReader if we have available room for
+    // 5 different filters on this reader to avoid excessive trashing
+    return worstCaseRamUsage * 5 < totalRamAvailable;
+  }
+
   /** Whether evictions are required. */
   boolean requiresEviction() {
     assert lock.isHeldByCurrentThread();
@@ -689,18 +708,6 @@ public class LRUQueryCache implements QueryCache, Accountable {
       in.extractTerms(terms);
     }
 
-    private boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
-      // The worst-case (dense) is a bit set which needs one bit per document
-      final long worstCaseRamUsage = maxDoc / 8;
-      final long totalRamAvailable = maxRamBytesUsed;
-      // Imagine the worst-case that a cache entry is large than the size of
-      // the cache: not only will this entry be trashed immediately but it
-      // will also evict all current entries from the cache. For this reason
-      // we only cache on an IndexReader if we have available room for
-      // 5 different filters on this reader to avoid excessive trashing
-      return worstCaseRamUsage * 5 < totalRamAvailable;
-    }
-
     private DocIdSet cache(LeafReaderContext context) throws IOException {
       final BulkScorer scorer = in.bulkScorer(context);
       if (scorer == null) {
@@ -89,17 +89,24 @@ public class MultiCollector implements Collector {
   }
   
   private final boolean cacheScores;
+  private final boolean hideMinCompetitiveScore;
   private final Collector[] collectors;
 
   private MultiCollector(Collector... collectors) {
     this.collectors = collectors;
     int numNeedsScores = 0;
+    boolean hideMinCompetitiveScore = false;
     for (Collector collector : collectors) {
       if (collector.needsScores()) {
         numNeedsScores += 1;
       }
+      if (collector.needsTotalHits() == false) {
+        // this collector must not make the scorer skip documents that other collectors need
+        hideMinCompetitiveScore = true;
+      }
     }
     this.cacheScores = numNeedsScores >= 2;
+    this.hideMinCompetitiveScore = hideMinCompetitiveScore;
   }
 
   @Override
@@ -131,19 +138,21 @@ public class MultiCollector implements Collector {
       case 1:
         return leafCollectors.get(0);
       default:
-        return new MultiLeafCollector(leafCollectors, cacheScores);
+        return new MultiLeafCollector(leafCollectors, cacheScores, hideMinCompetitiveScore);
     }
   }
 
   private static class MultiLeafCollector implements LeafCollector {
 
     private final boolean cacheScores;
+    private final boolean hideMinCompetitiveScore;
     private final LeafCollector[] collectors;
     private int numCollectors;
 
-    private MultiLeafCollector(List<LeafCollector> collectors, boolean cacheScores) {
+    private MultiLeafCollector(List<LeafCollector> collectors, boolean cacheScores, boolean hideMinCompetitiveScore) {
       this.collectors = collectors.toArray(new LeafCollector[collectors.size()]);
       this.cacheScores = cacheScores;
+      this.hideMinCompetitiveScore = hideMinCompetitiveScore;
       this.numCollectors = this.collectors.length;
     }
 
@@ -151,6 +160,9 @@ public class MultiCollector implements Collector {
     public void setScorer(Scorer scorer) throws IOException {
       if (cacheScores) {
         scorer = new ScoreCachingWrappingScorer(scorer);
+      } else if (hideMinCompetitiveScore) {
+        // FilterScorer does not propagate min competitive scores
+        scorer = new FilterScorer(scorer) {};
       }
       for (int i = 0; i < numCollectors; ++i) {
         final LeafCollector c = collectors[i];
@@ -146,4 +146,32 @@ public abstract class Scorer {
   public TwoPhaseIterator twoPhaseIterator() {
     return null;
   }
+
+  /**
+   * Return an upper bound of the scores that this scorer may produce, or
+   * {@link Float#POSITIVE_INFINITY} if no bound is known. This is used by
+   * disjunctions in order to skip over documents that cannot be competitive.
+   * Rounding errors of the score computation may cause {@link #score()} to
+   * exceed this bound by a few ulps.
+   *
+   * The default implementation returns {@link Float#POSITIVE_INFINITY}.
+   * @lucene.experimental
+   */
+  public float maxScore() {
+    return Float.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Optional method: Tell this scorer that documents whose score is less
+   * than {@code minScore} are not competitive and may be skipped. This is
+   * only called by {@link Collector}s that return {@code false} on
+   * {@link Collector#needsTotalHits()}. Successive calls must pass
+   * non-decreasing values.
+   *
+   * The default implementation is a no-op.
+   * @lucene.experimental
+   */
+  public void setMinCompetitiveScore(float minScore) throws IOException {
+    // no-op by default
+  }
 }
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+
+/**
+ * A {@link QueryCache} that partitions queries across several independent
+ * {@link LRUQueryCache} stripes, based on the hash code of the query.
+ *
+ * {@link LRUQueryCache} serializes all lookups and insertions on a single lock,
+ * which can become a point of contention when many threads search concurrently.
+ * This cache only makes threads contend when they look up queries that belong
+ * to the same stripe. The price is that least-recently-used eviction is only
+ * performed within a stripe: the cache as a whole is approximately LRU.
+ *
+ * The <code>maxSize</code> queries and <code>maxRamBytesUsed</code> bytes are
+ * split evenly across stripes. Like {@link LRUQueryCache}, queries are only
+ * cached on an index whose dense (bit set) entries fit five times in the total
+ * <code>maxRamBytesUsed</code>. In addition, such an entry must fit in the
+ * <code>maxRamBytesUsed / numStripes</code> bytes of a stripe, otherwise it
+ * would evict itself right away. This only makes a difference with more than
+ * five stripes, which then need larger budgets than {@link LRUQueryCache}
+ * for very large indices.
+ *
+ * This class is thread-safe. It can be used as a drop-in replacement for
+ * {@link LRUQueryCache}:
+ * <pre class="prettyprint">
+ *   final QueryCache queryCache = new StripedLRUQueryCache(maxNumberOfCachedQueries, maxRamBytesUsed);
+ *   indexSearcher.setQueryCache(queryCache);
+ * </pre>
+ *
+ * @see LRUQueryCache
+ * @lucene.experimental
+ */
+public class StripedLRUQueryCache implements QueryCache, Accountable {
+
+  private final LRUQueryCache[] stripes;
+
+  /**
+   * Expert: Create a new instance with <code>numStripes</code> stripes that
+   * will cache at most <code>maxSize</code> queries with at most
+   * <code>maxRamBytesUsed</code> bytes of memory in total, only on leaves that
+   * satisfy {@code leavesToCache}.
+   */
+  public StripedLRUQueryCache(int maxSize, long maxRamBytesUsed,
+      Predicate<LeafReaderContext> leavesToCache, int numStripes) {
+    if (numStripes <= 0) {
+      throw new IllegalArgumentException("numStripes must be positive, got " + numStripes);
+    }
+    stripes = new LRUQueryCache[numStripes];
+    for (int i = 0; i < numStripes; ++i) {
+      // the first stripes get the remainders of the divisions
+      final int stripeMaxSize = maxSize / numStripes + (i < maxSize % numStripes ? 1 : 0);
+      final long stripeMaxRamBytesUsed = maxRamBytesUsed / numStripes + (i < maxRamBytesUsed % numStripes ? 1 : 0);
+      stripes[i] = newStripe(stripeMaxSize, stripeMaxRamBytesUsed, maxRamBytesUsed, leavesToCache);
+    }
+  }
+
+  /**
+   * Create a new instance that will cache at most <code>maxSize</code> queries
+   * with at most <code>maxRamBytesUsed</code> bytes of memory, using the same
+   * leaf selection as {@link LRUQueryCache#LRUQueryCache(int, long)} and one
+   * stripe per available processor, up to 16.
+   */
+  public StripedLRUQueryCache(int maxSize, long maxRamBytesUsed) {
+    this(maxSize, maxRamBytesUsed, new LRUQueryCache.MinSegmentSizePredicate(10000, .03f),
+        Math.min(16, Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Expert: create the cache for one stripe. This can be overridden in order
+   * to return a {@link Stripe} sub-class, for instance to collect
+   * fine-grained statistics.
+   * @lucene.experimental
+   */
+  protected Stripe newStripe(int maxSize, long maxRamBytesUsed, long totalMaxRamBytesUsed,
+      Predicate<LeafReaderContext> leavesToCache) {
+    return new Stripe(maxSize, maxRamBytesUsed, totalMaxRamBytesUsed, leavesToCache);
+  }
+
+  /**
+   * One stripe of a {@link StripedLRUQueryCache}. It decides which indices
+   * may be cached based on the budget of the whole cache rather than its own.
+   * @lucene.experimental
+   */
+  public static class Stripe extends LRUQueryCache {
+
+    private final long maxRamBytesUsed;
+    private final long totalMaxRamBytesUsed;
+
+    /**
+     * Create a stripe that will cache at most <code>maxSize</code> queries
+     * with at most <code>maxRamBytesUsed</code> bytes of memory, in a cache
+     * whose stripes use at most <code>totalMaxRamBytesUsed</code> bytes.
+     */
+    public Stripe(int maxSize, long maxRamBytesUsed, long totalMaxRamBytesUsed,
+        Predicate<LeafReaderContext> leavesToCache) {
+      super(maxSize, maxRamBytesUsed, leavesToCache);
+      this.maxRamBytesUsed = maxRamBytesUsed;
+      this.totalMaxRamBytesUsed = totalMaxRamBytesUsed;
+    }
+
+    @Override
+    protected boolean cacheEntryHasReasonableWorstCaseSize(int maxDoc) {
+      final long worstCaseRamUsage = maxDoc / 8;
+      // room for 5 entries in the whole cache, like a single LRUQueryCache,
+      // and for this one in the stripe, or it would evict itself
+      return worstCaseRamUsage * 5 < totalMaxRamBytesUsed
+          && worstCaseRamUsage < maxRamBytesUsed;
+    }
+  }
+
+  private LRUQueryCache stripe(Query query) {
+    final int h = query.hashCode();
+    return stripes[((h ^ (h >>> 16)) & 0x7FFFFFFF) % stripes.length];
+  }
+
+  // pkg-private for testing
+  LRUQueryCache[] getStripes() {
+    return stripes;
+  }
+
+  @Override
+  public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+    return stripe(weight.getQuery()).doCache(weight, policy);
+  }
+
+  /**
+   * Remove all cache entries for the given core cache key.
+   */
+  public void clearCoreCacheKey(Object coreKey) {
+    for (LRUQueryCache stripe : stripes) {
+      stripe.clearCoreCacheKey(coreKey);
+    }
+  }
+
+  /**
+   * Remove all cache entries for the given query.
+   */
+  public void clearQuery(Query query) {
+    stripe(query).clearQuery(query);
+  }
+
+  /**
+   * Clear the content of this cache.
+   */
+  public void clear() {
+    for (LRUQueryCache stripe : stripes) {
+      stripe.clear();
+    }
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytesUsed = 0;
+    for (LRUQueryCache stripe : stripes) {
+      ramBytesUsed += stripe.ramBytesUsed();
+    }
+    return ramBytesUsed;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    final List<Accountable> resources = new ArrayList<>(stripes.length);
+    for (int i = 0; i < stripes.length; ++i) {
+      resources.add(Accountables.namedAccountable("stripe " + i, stripes[i]));
+    }
+    return Collections.unmodifiableList(resources);
+  }
+
+  /**
+   * Return the total number of times that a {@link Query} has been looked up
+   * in this {@link QueryCache}, summed over all stripes.
+   * @see LRUQueryCache#getTotalCount()
+   */
+  public final long getTotalCount() {
+    return getHitCount() + getMissCount();
+  }
+
+  /**
+   * Return the number of cache hits, summed over all stripes.
+   * @see LRUQueryCache#getHitCount()
+   */
+  public final long getHitCount() {
+    long hitCount = 0;
+    for (LRUQueryCache stripe : stripes) {
+      hitCount += stripe.getHitCount();
+    }
+    return hitCount;
+  }
+
+  /**
+   * Return the number of cache misses, summed over all stripes.
+   * @see LRUQueryCache#getMissCount()
+   */
+  public final long getMissCount() {
+    long missCount = 0;
+    for (LRUQueryCache stripe : stripes) {
+      missCount += stripe.getMissCount();
+    }
+    return missCount;
+  }
+
+  /**
+   * Return the number of {@link DocIdSet}s which are currently stored in the
+   * cache, summed over all stripes.
+   * @see LRUQueryCache#getCacheSize()
+   */
+  public final long getCacheSize() {
+    long cacheSize = 0;
+    for (LRUQueryCache stripe : stripes) {
+      cacheSize += stripe.getCacheSize();
+    }
+    return cacheSize;
+  }
+
+  /**
+   * Return the number of cache entries that have been put in the cache,
+   * summed over all stripes.
+   * @see LRUQueryCache#getCacheCount()
+   */
+  public final long getCacheCount() {
+    long cacheCount = 0;
+    for (LRUQueryCache stripe : stripes) {
+      cacheCount += stripe.getCacheCount();
+    }
+    return cacheCount;
+  }
+
+  /**
+   * Return the number of cache entries that have been removed from the cache,
+   * summed over all stripes.
+   * @see LRUQueryCache#getEvictionCount()
+   */
+  public final long getEvictionCount() {
+    return getCacheCount() - getCacheSize();
+  }
+}
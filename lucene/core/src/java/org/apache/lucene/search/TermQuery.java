@@ -93,7 +93,10 @@ public class TermQuery extends Query {
       }
       PostingsEnum docs = termsEnum.postings(null, needsScores ? PostingsEnum.FREQS : PostingsEnum.NONE);
       assert docs != null;
-      return new TermScorer(this, docs, similarity.simScorer(stats, context));
+      // the frequency of the term in a document is bounded by its total frequency
+      final long totalTermFreq = termsEnum.totalTermFreq();
+      final float maxFreq = totalTermFreq == -1 ? Float.POSITIVE_INFINITY : totalTermFreq;
+      return new TermScorer(this, docs, similarity.simScorer(stats, context), maxFreq);
     }
 
     /**
@@ -127,6 +127,19 @@ public abstract class Weight {
     };
   }
 
+  /**
+   * Optional method.
+   * Get a {@link Scorer} for a {@link Collector} that returns {@code false} on
+   * {@link Collector#needsTotalHits()}. The returned scorer may skip documents
+   * whose score is less than the value passed to
+   * {@link Scorer#setMinCompetitiveScore(float)}. The default implementation
+   * calls {@link #scorer}.
+   * @lucene.experimental
+   */
+  public Scorer topScoresScorer(LeafReaderContext context) throws IOException {
+    return scorer(context);
+  }
+
   /**
    * Optional method, to return a {@link BulkScorer} to
    * score the query and send hits to a {@link Collector}.
@@ -155,6 +168,19 @@ public abstract class Weight {
     return new DefaultBulkScorer(scorer);
   }
 
+  /**
+   * Optional method.
+   * Get a {@link BulkScorer} for a {@link Collector} that returns {@code false} on
+   * {@link Collector#needsTotalHits()}. The default implementation calls
+   * {@link #bulkScorer}, so that weights that score in bulk keep doing so.
+   * Weights whose {@link #topScoresScorer} skips non-competitive documents
+   * may override this method to wrap it instead.
+   * @lucene.experimental
+   */
+  public BulkScorer topScoresBulkScorer(LeafReaderContext context) throws IOException {
+    return bulkScorer(context);
+  }
+
   /** Just wraps a Scorer and performs top scoring using it.
    *  @lucene.internal */
   protected static class DefaultBulkScorer extends BulkScorer {
@@ -252,6 +252,33 @@ public class BM25Similarity extends Similarity {
       }
       return weightValue * freq / (freq + norm);
     }
+
+    @Override
+    public float maxScore(float maxFreq) {
+      if (weightValue < 0) {
+        // negative boost: the score decreases with freq and increases with norm
+        float maxNorm = k1;
+        if (norms != null) {
+          maxNorm = cache[0];
+          for (int i = 1; i < cache.length; ++i) {
+            maxNorm = Math.max(maxNorm, cache[i]);
+          }
+        }
+        return weightValue / (1 + maxNorm);
+      }
+      // the score increases with freq and decreases with norm
+      float minNorm = k1;
+      if (norms != null) {
+        minNorm = cache[0];
+        for (int i = 1; i < cache.length; ++i) {
+          minNorm = Math.min(minNorm, cache[i]);
+        }
+      }
+      if (Float.isInfinite(maxFreq)) {
+        return weightValue;
+      }
+      return weightValue * maxFreq / (maxFreq + minNorm);
+    }
     
     @Override
     public Explanation explain(int doc, Explanation freq) throws IOException {
@@ -163,6 +163,19 @@ public abstract class Similarity {
      */
     public abstract float score(int doc, float freq) throws IOException;
 
+    /**
+     * Return an upper bound of the scores that {@link #score(int, float)} may
+     * return for documents whose frequency is between 1 and {@code maxFreq}, or
+     * {@link Float#POSITIVE_INFINITY} if no such bound is known.
+     * The default implementation returns {@link Float#POSITIVE_INFINITY}.
+     * @param maxFreq the maximum frequency of the term in a document, may be
+     *        {@link Float#POSITIVE_INFINITY} if unknown
+     * @lucene.experimental
+     */
+    public float maxScore(float maxFreq) {
+      return Float.POSITIVE_INFINITY;
+    }
+
     /** Computes the amount of a sloppy phrase match, based on an edit distance. */
     public abstract float computeSlopFactor(int distance);
     
@@ -20,8 +20,14 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.IntFunction;
 
 import org.apache.lucene.codecs.CodecUtil;
@@ -57,7 +63,6 @@ import org.apache.lucene.util.StringHelper;
 //     (monotonic) long[] leafBlockFPs; or we could use MonotonicLongValues ... but then
 //     the index is already plenty small: 60M OSM points --> 1.1 MB with 128 points
 //     per leaf, and you can reduce that by putting more points per leaf
-//   - we could use threads while building; the higher nodes are very parallelizable
 
 /** Recursively builds a block KD-tree to assign all incoming points in N-dim space to smaller
  *  and smaller N-dim rectangles (cells) until the number of points in a given
@@ -73,6 +78,8 @@ import org.apache.lucene.util.StringHelper;
  *
  *  <p>This consumes heap during writing: it allocates a <code>LongBitSet(numPoints)</code>,
  *  and then uses up to the specified {@code maxMBSortInHeap} heap space for writing.
+ *  When {@link #setForkJoinPool a pool} is set, every sub-tree that is built concurrently allocates
+ *  its own <code>LongBitSet(numPoints)</code>.
  *
  *  <p>
  *  <b>NOTE</b>: This can write at most Integer.MAX_VALUE * <code>maxPointsInLeafNode</code> total points.
@@ -114,7 +121,6 @@ public class BKDWriter implements Closeable {
   final String tempFileNamePrefix;
   final double maxMBSortInHeap;
 
-  final byte[] scratchDiff;
   final byte[] scratch1;
   final byte[] scratch2;
   final BytesRef scratchBytesRef1 = new BytesRef();
@@ -150,11 +156,17 @@ public class BKDWriter implements Closeable {
   /** How much heap OfflineSorter is allowed to use */
   protected final OfflineSorter.BufferSize offlineSorterBufferMB;
 
+  /** The share of {@link #offlineSorterBufferMB} each dimension gets when all dimensions are sorted concurrently */
+  private final OfflineSorter.BufferSize concurrentOfflineSorterBufferMB;
+
   /** How much heap OfflineSorter is allowed to use */
   protected final int offlineSorterMaxTempFiles;
 
   private final int maxDoc;
 
+  /** Used to sort dimensions and build sub-trees concurrently in {@link #finish}, or null */
+  private ForkJoinPool pool;
+
   public BKDWriter(int maxDoc, Directory tempDir, String tempFileNamePrefix, int numDims, int bytesPerDim,
                    int maxPointsInLeafNode, double maxMBSortInHeap, long totalPointCount, boolean singleValuePerDoc) throws IOException {
     this(maxDoc, tempDir, tempFileNamePrefix, numDims, bytesPerDim, maxPointsInLeafNode, maxMBSortInHeap, totalPointCount, singleValuePerDoc,
@@ -175,11 +187,11 @@ public class BKDWriter implements Closeable {
     this.totalPointCount = totalPointCount;
     this.maxDoc = maxDoc;
     this.offlineSorterBufferMB = OfflineSorter.BufferSize.megabytes(offlineSorterBufferMB);
+    this.concurrentOfflineSorterBufferMB = OfflineSorter.BufferSize.megabytes(Math.max(1, offlineSorterBufferMB / numDims));
     this.offlineSorterMaxTempFiles = offlineSorterMaxTempFiles;
     docsSeen = new FixedBitSet(maxDoc);
     packedBytesLength = numDims * bytesPerDim;
 
-    scratchDiff = new byte[bytesPerDim];
     scratch1 = new byte[packedBytesLength];
     scratch2 = new byte[packedBytesLength];
     commonPrefixLengths = new int[numDims];
@@ -245,6 +257,14 @@ public class BKDWriter implements Closeable {
     }
   }
 
+  /** Sets the pool that {@link #finish} uses to sort all dimensions and to build independent sub-trees
+   *  concurrently, or null (the default) to build the whole tree on the calling thread.  The parallelism of
+   *  the pool bounds how many sub-trees are built at once, and each of them gets its share of
+   *  {@code maxMBSortInHeap}. */
+  public void setForkJoinPool(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
   /** If the current segment has too many points then we spill over to temp files / offline sort. */
   private void spillToOffline() throws IOException {
 
@@ -828,7 +848,7 @@ public class BKDWriter implements Closeable {
   }
   */
 
-  private PointWriter sort(int dim) throws IOException {
+  private PointWriter sort(int dim, OfflineSorter.BufferSize bufferSize) throws IOException {
     assert dim >= 0 && dim < numDims;
 
     if (heapPointWriter != null) {
@@ -884,7 +904,7 @@ public class BKDWriter implements Closeable {
         };
       }
 
-      OfflineSorter sorter = new OfflineSorter(tempDir, tempFileNamePrefix + "_bkd" + dim, cmp, offlineSorterBufferMB, offlineSorterMaxTempFiles, bytesPerDoc, null, 0) {
+      OfflineSorter sorter = new OfflineSorter(tempDir, tempFileNamePrefix + "_bkd" + dim, cmp, bufferSize, offlineSorterMaxTempFiles, bytesPerDoc, null, 0) {
 
           /** We write/read fixed-byte-width file that {@link OfflinePointReader} can read. */
           @Override
@@ -985,13 +1005,26 @@ public class BKDWriter implements Closeable {
     PathSlice[] sortedPointWriters = new PathSlice[numDims];
 
     // This is only used on exception; on normal code paths we close all files we opened:
-    List<Closeable> toCloseHeroically = new ArrayList<>();
+    List<Closeable> toCloseHeroically = Collections.synchronizedList(new ArrayList<>());
 
     boolean success = false;
     try {
       //long t0 = System.nanoTime();
-      for(int dim=0;dim<numDims;dim++) {
-        sortedPointWriters[dim] = new PathSlice(sort(dim), 0, pointCount);
+      if (pool != null && tempInput != null && numDims > 1) {
+        // Offline sorts of the different dims are independent, so we run them concurrently, each with its share of the buffer:
+        List<Callable<PointWriter>> sorts = new ArrayList<>();
+        for(int dim=0;dim<numDims;dim++) {
+          final int sortDim = dim;
+          sorts.add(() -> sort(sortDim, concurrentOfflineSorterBufferMB));
+        }
+        List<PointWriter> sorted = invokeAll(sorts);
+        for(int dim=0;dim<numDims;dim++) {
+          sortedPointWriters[dim] = new PathSlice(sorted.get(dim), 0, pointCount);
+        }
+      } else {
+        for(int dim=0;dim<numDims;dim++) {
+          sortedPointWriters[dim] = new PathSlice(sort(dim, offlineSorterBufferMB), 0, pointCount);
+        }
       }
       //long t1 = System.nanoTime();
       //System.out.println("sort time: " + ((t1-t0)/1000000.0) + " msec");
@@ -1004,15 +1037,32 @@ public class BKDWriter implements Closeable {
         heapPointWriter = null;
       }
 
-      final int[] parentSplits = new int[numDims];
-      build(1, numLeaves, sortedPointWriters,
-            ordBitSet, out,
-            minPackedValue, maxPackedValue,
-            parentSplits,
-            splitPackedValues,
-            leafBlockFPs,
-            toCloseHeroically);
-      assert Arrays.equals(parentSplits, new int[numDims]);
+      // Build as many independent sub-trees as the pool can run at once, but not smaller than a leaf:
+      int numSubTrees = 1;
+      if (pool != null) {
+        while (numSubTrees < pool.getParallelism() && numSubTrees < numLeaves) {
+          numSubTrees *= 2;
+        }
+      }
+
+      if (numSubTrees > 1) {
+        buildConcurrently(numLeaves, numSubTrees, sortedPointWriters,
+                          ordBitSet, out,
+                          splitPackedValues,
+                          leafBlockFPs,
+                          toCloseHeroically);
+      } else {
+        final int[] parentSplits = new int[numDims];
+        build(1, numLeaves, sortedPointWriters,
+              ordBitSet, out,
+              minPackedValue, maxPackedValue,
+              parentSplits,
+              splitPackedValues,
+              leafBlockFPs,
+              toCloseHeroically,
+              maxPointsSortInHeap);
+        assert Arrays.equals(parentSplits, new int[numDims]);
+      }
 
       for(PathSlice slice : sortedPointWriters) {
         slice.writer.destroy();
@@ -1388,11 +1438,14 @@ public class BKDWriter implements Closeable {
 
     // Read the split value, then mark all ords in the right tree (larger than the split value):
 
+    // Not a scratch array, since sub-trees may be built concurrently:
+    byte[] splitValue = new byte[bytesPerDim];
+
     // TODO: find a way to also checksum this reader?  If we changed to markLeftTree, and scanned the final chunk, it could work?
     try (PointReader reader = source.writer.getReader(source.start + source.count - rightCount, rightCount)) {
       boolean result = reader.next();
       assert result: "rightCount=" + rightCount + " source.count=" + source.count + " source.writer=" + source.writer;
-      System.arraycopy(reader.packedValue(), splitDim*bytesPerDim, scratch1, 0, bytesPerDim);
+      System.arraycopy(reader.packedValue(), splitDim*bytesPerDim, splitValue, 0, bytesPerDim);
       if (numDims > 1) {
         assert ordBitSet.get(reader.ord()) == false;
         ordBitSet.set(reader.ord());
@@ -1403,7 +1456,7 @@ public class BKDWriter implements Closeable {
       throw verifyChecksum(t, source.writer);
     }
 
-    return scratch1;
+    return splitValue;
   }
 
   /** Called only in assert */
@@ -1445,11 +1498,13 @@ public class BKDWriter implements Closeable {
     }
 
     // Find which dim has the largest span so we can split on it:
+    byte[] diff = new byte[bytesPerDim];
+    byte[] maxDiff = new byte[bytesPerDim];
     int splitDim = -1;
     for(int dim=0;dim<numDims;dim++) {
-      NumericUtils.subtract(bytesPerDim, dim, maxPackedValue, minPackedValue, scratchDiff);
-      if (splitDim == -1 || StringHelper.compare(bytesPerDim, scratchDiff, 0, scratch1, 0) > 0) {
-        System.arraycopy(scratchDiff, 0, scratch1, 0, bytesPerDim);
+      NumericUtils.subtract(bytesPerDim, dim, maxPackedValue, minPackedValue, diff);
+      if (splitDim == -1 || StringHelper.compare(bytesPerDim, diff, 0, maxDiff, 0) > 0) {
+        System.arraycopy(diff, 0, maxDiff, 0, bytesPerDim);
         splitDim = dim;
       }
     }
@@ -1624,13 +1679,14 @@ public class BKDWriter implements Closeable {
                      int[] parentSplits,
                      byte[] splitPackedValues,
                      long[] leafBlockFPs,
-                     List<Closeable> toCloseHeroically) throws IOException {
+                     List<Closeable> toCloseHeroically,
+                     int maxPointsInHeap) throws IOException {
 
     for(PathSlice slice : slices) {
       assert slice.count == slices[0].count;
     }
     
-    if (numDims == 1 && slices[0].writer instanceof OfflinePointWriter && slices[0].count <= maxPointsSortInHeap) {
+    if (numDims == 1 && slices[0].writer instanceof OfflinePointWriter && slices[0].count <= maxPointsInHeap) {
       // Special case for 1D, to cutover to heap once we recurse deeply enough:
       slices[0] = switchToHeap(slices[0], toCloseHeroically);
     }
@@ -1641,6 +1697,10 @@ public class BKDWriter implements Closeable {
       // We can write the block in any order so by default we write it sorted by the dimension that has the
       // least number of unique bytes at commonPrefixLengths[dim], which makes compression more efficient
       int sortedDim = 0;
+      // Not the shared scratch arrays, since sub-trees may be built concurrently:
+      byte[] scratch1 = new byte[packedBytesLength];
+      byte[] scratch2 = new byte[packedBytesLength];
+      int[] commonPrefixLengths = new int[numDims];
       int sortedDimCardinality = Integer.MAX_VALUE;
 
       for (int dim=0;dim<numDims;dim++) {
@@ -1785,8 +1845,8 @@ public class BKDWriter implements Closeable {
         // we will have done a singel full sweep of the file:
         PointReader reader = slices[dim].writer.getSharedReader(slices[dim].start, slices[dim].count, toCloseHeroically);
 
-        try (PointWriter leftPointWriter = getPointWriter(leftCount, "left" + dim);
-             PointWriter rightPointWriter = getPointWriter(source.count - leftCount, "right" + dim)) {
+        try (PointWriter leftPointWriter = getPointWriter(leftCount, "left" + dim, maxPointsInHeap);
+             PointWriter rightPointWriter = getPointWriter(source.count - leftCount, "right" + dim, maxPointsInHeap)) {
 
           long nextRightCount = reader.split(source.count, ordBitSet, leftPointWriter, rightPointWriter, dim == dimToClear);
           if (rightCount != nextRightCount) {
@@ -1805,7 +1865,7 @@ public class BKDWriter implements Closeable {
       build(2*nodeID, leafNodeOffset, leftSlices,
             ordBitSet, out,
             minPackedValue, maxSplitPackedValue, parentSplits,
-            splitPackedValues, leafBlockFPs, toCloseHeroically);
+            splitPackedValues, leafBlockFPs, toCloseHeroically, maxPointsInHeap);
       for(int dim=0;dim<numDims;dim++) {
         // Don't destroy the dim we split on because we just re-used what our caller above gave us for that dim:
         if (dim != splitDim) {
@@ -1818,7 +1878,7 @@ public class BKDWriter implements Closeable {
       build(2*nodeID+1, leafNodeOffset, rightSlices,
             ordBitSet, out,
             minSplitPackedValue, maxPackedValue, parentSplits,
-            splitPackedValues, leafBlockFPs, toCloseHeroically);
+            splitPackedValues, leafBlockFPs, toCloseHeroically, maxPointsInHeap);
       for(int dim=0;dim<numDims;dim++) {
         // Don't destroy the dim we split on because we just re-used what our caller above gave us for that dim:
         if (dim != splitDim) {
@@ -1829,6 +1889,255 @@ public class BKDWriter implements Closeable {
     }
   }
 
+  /** A cell of the top levels of the tree, which are partitioned level by level when building concurrently. */
+  private static final class Cell {
+    final int nodeID;
+    final PathSlice[] slices;
+    final byte[] minPackedValue;
+    final byte[] maxPackedValue;
+    final int[] parentSplits;
+
+    Cell(int nodeID, PathSlice[] slices, byte[] minPackedValue, byte[] maxPackedValue, int[] parentSplits) {
+      this.nodeID = nodeID;
+      this.slices = slices;
+      this.minPackedValue = minPackedValue;
+      this.maxPackedValue = maxPackedValue;
+      this.parentSplits = parentSplits;
+    }
+  }
+
+  /** Builds the tree on {@link #pool}.  The top levels are partitioned level by level, partitioning all cells and
+   *  dims of a level concurrently, until there are {@code numSubTrees} cells.  Then each of these sub-trees is
+   *  recursively built by a single thread into its own temp file, and the temp files are appended to {@code out}
+   *  in node order. */
+  private void buildConcurrently(int numLeaves, int numSubTrees,
+                                 PathSlice[] slices,
+                                 LongBitSet ordBitSet,
+                                 IndexOutput out,
+                                 byte[] splitPackedValues,
+                                 long[] leafBlockFPs,
+                                 List<Closeable> toCloseHeroically) throws IOException {
+
+    // Each sub-tree being built concurrently gets its share of the heap, but must still be able to hold a leaf:
+    final int maxPointsInHeap = Math.max(maxPointsInLeafNode, maxPointsSortInHeap / numSubTrees);
+
+    List<Cell> cells = Collections.singletonList(new Cell(1, slices, minPackedValue, maxPackedValue, new int[numDims]));
+    while (cells.size() < numSubTrees) {
+      List<Cell> children = partitionLevel(cells, ordBitSet, splitPackedValues, maxPointsInHeap);
+      if (cells.get(0).nodeID != 1) {
+        // Don't destroy the root slices: our caller sorted them and destroys them
+        for (Cell cell : cells) {
+          for (PathSlice slice : cell.slices) {
+            slice.writer.destroy();
+          }
+        }
+      }
+      cells = children;
+    }
+
+    // The recursion clears all bits it sets, so sub-trees can hand over their ord bitset to the next one:
+    Queue<LongBitSet> ordBitSets = new ConcurrentLinkedQueue<>();
+    if (ordBitSet != null) {
+      ordBitSets.add(ordBitSet);
+    }
+    List<Callable<String>> subTrees = new ArrayList<>();
+    for (Cell cell : cells) {
+      subTrees.add(() -> buildSubTree(cell, numLeaves, ordBitSets, splitPackedValues, leafBlockFPs, toCloseHeroically, maxPointsInHeap));
+    }
+    List<String> leavesFileNames = invokeAll(subTrees);
+
+    int leavesPerSubTree = numLeaves / numSubTrees;
+    for (int i = 0; i < numSubTrees; i++) {
+      long startFP = out.getFilePointer();
+      String leavesFileName = leavesFileNames.get(i);
+      try (ChecksumIndexInput in = tempDir.openChecksumInput(leavesFileName, IOContext.READONCE)) {
+        out.copyBytes(in, in.length() - CodecUtil.footerLength());
+        CodecUtil.checkFooter(in);
+      }
+      tempDir.deleteFile(leavesFileName);
+
+      // The sub-tree recorded its leaf block file pointers relative to its own temp file:
+      for (int leaf = i * leavesPerSubTree; leaf < (i + 1) * leavesPerSubTree; leaf++) {
+        leafBlockFPs[leaf] += startFP;
+      }
+    }
+  }
+
+  /** Partitions all provided cells of one level of the tree into their left and right children.  The right trees are
+   *  marked in {@code ordBitSet} on the calling thread first, so that the concurrent partitioning only reads it. */
+  private List<Cell> partitionLevel(List<Cell> cells, LongBitSet ordBitSet, byte[] splitPackedValues, int maxPointsInHeap) throws IOException {
+    int[] splitDims = new int[cells.size()];
+    byte[][] splitValues = new byte[cells.size()][];
+    for (int i = 0; i < cells.size(); i++) {
+      Cell cell = cells.get(i);
+      int splitDim;
+      if (numDims > 1) {
+        splitDim = split(cell.minPackedValue, cell.maxPackedValue, cell.parentSplits);
+      } else {
+        splitDim = 0;
+      }
+      PathSlice source = cell.slices[splitDim];
+      splitDims[i] = splitDim;
+      splitValues[i] = markRightTree(source.count / 2, splitDim, source, ordBitSet);
+      int address = cell.nodeID * (1+bytesPerDim);
+      splitPackedValues[address] = (byte) splitDim;
+      System.arraycopy(splitValues[i], 0, splitPackedValues, address + 1, bytesPerDim);
+    }
+
+    // Unlike the sequential build, we also copy the split dim, so that each sub-tree owns all its writers (and their
+    // shared readers):
+    List<Callable<PointWriter[]>> partitions = new ArrayList<>();
+    for (int i = 0; i < cells.size(); i++) {
+      Cell cell = cells.get(i);
+      for (int dim = 0; dim < numDims; dim++) {
+        PathSlice slice = cell.slices[dim];
+        LongBitSet rightTree = dim == splitDims[i] ? null : ordBitSet;
+        String desc = Integer.toString(dim);
+        partitions.add(() -> partition(slice, rightTree, desc, maxPointsInHeap));
+      }
+    }
+    List<PointWriter[]> writers = invokeAll(partitions);
+
+    if (ordBitSet != null) {
+      ordBitSet.clear(0, ordBitSet.length());
+    }
+
+    List<Cell> children = new ArrayList<>();
+    for (int i = 0; i < cells.size(); i++) {
+      Cell cell = cells.get(i);
+      int splitDim = splitDims[i];
+      long rightCount = cell.slices[splitDim].count / 2;
+      long leftCount = cell.slices[splitDim].count - rightCount;
+
+      PathSlice[] leftSlices = new PathSlice[numDims];
+      PathSlice[] rightSlices = new PathSlice[numDims];
+      for (int dim = 0; dim < numDims; dim++) {
+        PointWriter[] leftAndRight = writers.get(i * numDims + dim);
+        leftSlices[dim] = new PathSlice(leftAndRight[0], 0, leftCount);
+        rightSlices[dim] = new PathSlice(leftAndRight[1], 0, rightCount);
+      }
+
+      byte[] minSplitPackedValue = cell.minPackedValue.clone();
+      System.arraycopy(splitValues[i], 0, minSplitPackedValue, splitDim*bytesPerDim, bytesPerDim);
+      byte[] maxSplitPackedValue = cell.maxPackedValue.clone();
+      System.arraycopy(splitValues[i], 0, maxSplitPackedValue, splitDim*bytesPerDim, bytesPerDim);
+
+      int[] parentSplits = cell.parentSplits.clone();
+      parentSplits[splitDim]++;
+      children.add(new Cell(2*cell.nodeID, leftSlices, cell.minPackedValue, maxSplitPackedValue, parentSplits));
+      children.add(new Cell(2*cell.nodeID+1, rightSlices, minSplitPackedValue, cell.maxPackedValue, parentSplits.clone()));
+    }
+    return children;
+  }
+
+  /** Partitions a slice into new left and right writers: the points whose ords are set in {@code rightTree} go right,
+   *  or, if it is null, the slice is split in the middle. */
+  private PointWriter[] partition(PathSlice slice, LongBitSet rightTree, String desc, int maxPointsInHeap) throws IOException {
+    long rightCount = slice.count / 2;
+    long leftCount = slice.count - rightCount;
+    try (PointReader reader = slice.writer.getReader(slice.start, slice.count);
+         PointWriter leftPointWriter = getPointWriter(leftCount, "left" + desc, maxPointsInHeap);
+         PointWriter rightPointWriter = getPointWriter(rightCount, "right" + desc, maxPointsInHeap)) {
+      if (rightTree == null) {
+        for (long i = 0; i < slice.count; i++) {
+          boolean result = reader.next();
+          assert result;
+          PointWriter writer = i < leftCount ? leftPointWriter : rightPointWriter;
+          writer.append(reader.packedValue(), reader.ord(), reader.docID());
+        }
+      } else {
+        long nextRightCount = reader.split(slice.count, rightTree, leftPointWriter, rightPointWriter, false);
+        if (rightCount != nextRightCount) {
+          throw new IllegalStateException("wrong number of points in split: expected=" + rightCount + " but actual=" + nextRightCount);
+        }
+      }
+      return new PointWriter[] {leftPointWriter, rightPointWriter};
+    } catch (Throwable t) {
+      throw verifyChecksum(t, slice.writer);
+    }
+  }
+
+  /** Recursively builds the sub-tree of one cell into a new temp file, whose name is returned. */
+  private String buildSubTree(Cell cell, int numLeaves,
+                              Queue<LongBitSet> ordBitSets,
+                              byte[] splitPackedValues,
+                              long[] leafBlockFPs,
+                              List<Closeable> toCloseHeroically,
+                              int maxPointsInHeap) throws IOException {
+    LongBitSet ordBitSet = null;
+    if (numDims > 1) {
+      ordBitSet = ordBitSets.poll();
+      if (ordBitSet == null) {
+        ordBitSet = new LongBitSet(singleValuePerDoc ? maxDoc : pointCount);
+      }
+    }
+
+    // Save the writers first, since the build may swap slices for heap copies:
+    PointWriter[] writers = new PointWriter[numDims];
+    for (int dim = 0; dim < numDims; dim++) {
+      writers[dim] = cell.slices[dim].writer;
+    }
+
+    String leavesFileName;
+    try (IndexOutput leavesOut = tempDir.createTempOutput(tempFileNamePrefix, "bkd_leaves", IOContext.DEFAULT)) {
+      leavesFileName = leavesOut.getName();
+      build(cell.nodeID, numLeaves, cell.slices,
+            ordBitSet, leavesOut,
+            cell.minPackedValue, cell.maxPackedValue,
+            cell.parentSplits,
+            splitPackedValues,
+            leafBlockFPs,
+            toCloseHeroically,
+            maxPointsInHeap);
+      CodecUtil.writeFooter(leavesOut);
+    }
+
+    for (PointWriter writer : writers) {
+      writer.destroy();
+    }
+    if (ordBitSet != null) {
+      ordBitSets.add(ordBitSet);
+    }
+    return leavesFileName;
+  }
+
+  /** Runs all tasks on {@link #pool} and waits for all of them, so that none is still running on failure, and then
+   *  rethrows the first failure as it was thrown. */
+  private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+    Throwable[] failures = new Throwable[tasks.size()];
+    List<ForkJoinTask<T>> futures = new ArrayList<>();
+    for (int i = 0; i < tasks.size(); i++) {
+      final int index = i;
+      final Callable<T> task = tasks.get(i);
+      futures.add(pool.submit(() -> {
+        try {
+          return task.call();
+        } catch (Throwable t) {
+          failures[index] = t;
+          return null;
+        }
+      }));
+    }
+
+    List<T> results = new ArrayList<>();
+    for (ForkJoinTask<T> future : futures) {
+      results.add(future.join());
+    }
+
+    Throwable failure = null;
+    for (Throwable t : failures) {
+      if (failure == null) {
+        failure = t;
+      } else if (t != null) {
+        failure.addSuppressed(t);
+      }
+    }
+    if (failure != null) {
+      throw IOUtils.rethrowAlways(failure);
+    }
+    return results;
+  }
+
   // only called from assert
   private boolean valuesInOrderAndBounds(int count, int sortedDim, byte[] minPackedValue, byte[] maxPackedValue,
       IntFunction<BytesRef> values, int[] docs, int docsOffset) throws IOException {
@@ -1864,8 +2173,8 @@ public class BKDWriter implements Closeable {
     return true;
   }
 
-  PointWriter getPointWriter(long count, String desc) throws IOException {
-    if (count <= maxPointsSortInHeap) {
+  PointWriter getPointWriter(long count, String desc, int maxPointsInHeap) throws IOException {
+    if (count <= maxPointsInHeap) {
       int size = Math.toIntExact(count);
       return new HeapPointWriter(size, size, packedBytesLength, longOrds, singleValuePerDoc);
     } else {
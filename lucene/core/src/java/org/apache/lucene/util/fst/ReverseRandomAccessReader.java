@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.util.fst;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+
+/** Reads in reverse from an {@link IndexInput}, through {@link RandomAccessInput}
+ *  if the input supports it and by seeking otherwise. */
+final class ReverseRandomAccessReader extends FST.BytesReader {
+  private final IndexInput in;
+  private final RandomAccessInput randomAccessIn;
+  private long pos;
+
+  /** The input must not be shared, pass a clone. */
+  public ReverseRandomAccessReader(IndexInput in) {
+    this.in = in;
+    this.randomAccessIn = in instanceof RandomAccessInput ? (RandomAccessInput) in : null;
+  }
+
+  @Override
+  public byte readByte() throws IOException {
+    if (randomAccessIn != null) {
+      return randomAccessIn.readByte(pos--);
+    }
+    in.seek(pos--);
+    return in.readByte();
+  }
+
+  @Override
+  public void readBytes(byte[] b, int offset, int len) throws IOException {
+    for(int i=0;i<len;i++) {
+      b[offset+i] = readByte();
+    }
+  }
+
+  @Override
+  public void skipBytes(long count) {
+    pos -= count;
+  }
+
+  @Override
+  public long getPosition() {
+    return pos;
+  }
+
+  @Override
+  public void setPosition(long pos) {
+    this.pos = pos;
+  }
+
+  @Override
+  public boolean reversed() {
+    return true;
+  }
+}
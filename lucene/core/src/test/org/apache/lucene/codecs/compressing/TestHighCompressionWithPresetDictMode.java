@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+
+public class TestHighCompressionWithPresetDictMode extends AbstractTestCompressionMode {
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    mode = CompressionMode.HIGH_COMPRESSION_WITH_PRESET_DICT;
+  }
+
+  public void testDecompressOnlyNeededSubBlocks() throws IOException {
+    final byte[] decompressed = randomArray(TestUtil.nextInt(random(), 1 << 16, 1 << 18), 255);
+    final byte[] compressed = compress(decompressed, 0, decompressed.length);
+
+    // a range in the first sub-block
+    final int offset = random().nextInt(decompressed.length / 20);
+    final int length = random().nextInt(decompressed.length / 20);
+    final ByteArrayDataInput in = new ByteArrayDataInput(compressed);
+    final BytesRef bytes = new BytesRef();
+    mode.newDecompressor().decompress(in, decompressed.length, offset, length, bytes);
+    assertEquals(new BytesRef(decompressed, offset, length), bytes);
+    assertTrue(in.getPosition() + " " + compressed.length, in.getPosition() < compressed.length / 2);
+
+    // reading everything consumes the whole stream
+    final ByteArrayDataInput in2 = new ByteArrayDataInput(compressed);
+    mode.newDecompressor().decompress(in2, decompressed.length, 0, decompressed.length, bytes);
+    assertArrayEquals(decompressed, Arrays.copyOfRange(bytes.bytes, bytes.offset, bytes.offset + bytes.length));
+    assertEquals(compressed.length, in2.getPosition());
+  }
+}
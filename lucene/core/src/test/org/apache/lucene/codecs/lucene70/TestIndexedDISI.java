@@ -151,6 +151,33 @@ public class TestIndexedDISI extends LuceneTestCase {
     }
   }
 
+  public void testLargeGaps() throws IOException {
+    try (Directory dir = newDirectory()) {
+      // a few blocks that use different encodings, separated by many empty blocks
+      final int numBlocks = TestUtil.nextInt(random(), 20, 60);
+      FixedBitSet set = new FixedBitSet(numBlocks << 16);
+      for (int block = random().nextInt(5); block < numBlocks; block += TestUtil.nextInt(random(), 1, 10)) {
+        final int base = block << 16;
+        switch (random().nextInt(3)) {
+          case 0: // SPARSE
+            for (int i = 0; i < 100; ++i) {
+              set.set(base + random().nextInt(1 << 16));
+            }
+            break;
+          case 1: // DENSE
+            for (int i = random().nextInt(3); i < 1 << 16; i += TestUtil.nextInt(random(), 1, 5)) {
+              set.set(base + i);
+            }
+            break;
+          default: // ALL
+            set.set(base, base + (1 << 16));
+            break;
+        }
+      }
+      doTest(set, dir);
+    }
+  }
+
   public void testRandom() throws IOException {
     try (Directory dir = newDirectory()) {
       for (int i = 0; i < 10; ++i) {
@@ -17,9 +17,22 @@
 package org.apache.lucene.index;
 
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.TestUtil;
 import org.junit.Test;
 
 public class TestCheckIndex extends BaseTestCheckIndex {
@@ -56,4 +69,64 @@ public class TestCheckIndex extends BaseTestCheckIndex {
   public void testObtainsLock() throws IOException {
     testObtainsLock(directory);
   }
+
+  @Test
+  public void testThreadCount() throws IOException {
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+    RandomIndexWriter writer = new RandomIndexWriter(random(), directory, iwc);
+    FieldType vectorsType = new FieldType(TextField.TYPE_STORED);
+    vectorsType.setStoreTermVectors(true);
+    vectorsType.setStoreTermVectorPositions(true);
+    int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new Field("body", TestUtil.randomSimpleString(random()) + " " + i, vectorsType));
+      doc.add(new IntPoint("point", i));
+      doc.add(new NumericDocValuesField("number", random().nextLong()));
+      doc.add(new SortedSetDocValuesField("tag", new BytesRef(TestUtil.randomSimpleString(random()))));
+      writer.addDocument(doc);
+      if (random().nextInt(20) == 0) {
+        writer.commit();
+      }
+      if (random().nextInt(50) == 0) {
+        writer.deleteDocuments(new Term("body", Integer.toString(random().nextInt(i + 1))));
+      }
+    }
+    writer.close();
+
+    String expected = checkOutput(1);
+    for (int threadCount : new int[] { 2, TestUtil.nextInt(random(), 3, 8) }) {
+      assertEquals(expected, checkOutput(threadCount));
+    }
+  }
+
+  /** Runs CheckIndex with the given thread count and returns its output without timings. */
+  private String checkOutput(int threadCount) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+    CheckIndex.Status status;
+    try (CheckIndex checker = new CheckIndex(directory)) {
+      checker.setThreadCount(threadCount);
+      checker.setInfoStream(new PrintStream(bos, false, IOUtils.UTF_8));
+      status = checker.checkIndex();
+    }
+    String output = bos.toString(IOUtils.UTF_8);
+    assertTrue(output, status.clean);
+    for (CheckIndex.Status.SegmentInfoStatus segment : status.segmentInfos) {
+      assertNull(segment.termIndexStatus.error);
+      assertNull(segment.storedFieldStatus.error);
+      assertNull(segment.termVectorStatus.error);
+      assertNull(segment.docValuesStatus.error);
+      assertNull(segment.pointsStatus.error);
+    }
+    return output.replaceAll("(?i)took [0-9.]+ sec", "took X sec");
+  }
+
+  @Test
+  public void testThreadCountOption() {
+    assertEquals(1, CheckIndex.parseOptions(new String[] {"index"}).threadCount);
+    assertEquals(4, CheckIndex.parseOptions(new String[] {"index", "-threadCount", "4"}).threadCount);
+    expectThrows(IllegalArgumentException.class, () -> CheckIndex.parseOptions(new String[] {"index", "-threadCount", "0"}));
+    expectThrows(IllegalArgumentException.class, () -> CheckIndex.parseOptions(new String[] {"index", "-threadCount"}));
+  }
 }
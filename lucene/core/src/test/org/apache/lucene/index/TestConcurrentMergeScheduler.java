@@ -18,20 +18,35 @@ package org.apache.lucene.index;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.asserting.AssertingCodec;
+import org.apache.lucene.codecs.asserting.AssertingDocValuesFormat;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.MergePolicy.OneMergeProgress.PauseReason;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MockDirectoryWrapper;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.TestUtil;
 
@@ -670,4 +685,146 @@ public class TestConcurrentMergeScheduler extends LuceneTestCase {
 
     assertFalse(failed.get());
   }
+
+  public void testIntraMergePool() throws Exception {
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setMaxMergesAndThreads(2, 1);
+    assertNull(cms.getIntraMergePool(null));
+    cms.setMaxMergesAndThreads(4, 3);
+    assertEquals(3, cms.getIntraMergePool(null).getParallelism());
+    assertSame(cms.getIntraMergePool(null), cms.getIntraMergePool(null));
+    cms.close();
+  }
+
+  public void testOnlyIntraMergeWorkersMayPause() throws Exception {
+    MergePolicy.OneMergeProgress progress = new MergePolicy.OneMergeProgress();
+    progress.setMergeThread(Thread.currentThread());
+    ForkJoinPool intraMergePool = new ForkJoinPool(2);
+    ForkJoinPool otherPool = new ForkJoinPool(2);
+    try {
+      progress.setIntraMergePool(intraMergePool);
+      progress.pauseNanos(1, PauseReason.PAUSED, () -> true);
+      intraMergePool.submit(() -> {
+          progress.pauseNanos(1, PauseReason.PAUSED, () -> true);
+          return null;
+        }).get();
+      ExecutionException e = expectThrows(ExecutionException.class, () -> otherPool.submit(() -> {
+          progress.pauseNanos(1, PauseReason.PAUSED, () -> true);
+          return null;
+        }).get());
+      assertTrue(e.getCause() instanceof RuntimeException);
+      assertTrue(e.getCause().getMessage().contains("Only the merge owner thread"));
+    } finally {
+      intraMergePool.shutdown();
+      otherPool.shutdown();
+    }
+  }
+
+  public void testIntraMergePoolOutlivesThreadCountChange() throws Exception {
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setMaxMergesAndThreads(4, 3);
+    ForkJoinPool oldPool = cms.getIntraMergePool(null);
+    cms.setMaxMergesAndThreads(4, 2);
+    ForkJoinPool newPool = cms.getIntraMergePool(null);
+    assertNotSame(oldPool, newPool);
+    assertEquals(2, newPool.getParallelism());
+    // a merge that got the old pool must still be able to use it
+    assertFalse(oldPool.isShutdown());
+    assertEquals(42, oldPool.submit(() -> 42).get().intValue());
+    cms.close();
+    assertTrue(oldPool.isTerminated());
+    assertTrue(newPool.isTerminated());
+  }
+
+  public void testStoppedMergeDoesNotBlockIntraMergePool() throws Exception {
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setMaxMergesAndThreads(4, 2);
+    ForkJoinPool pool = cms.getIntraMergePool(null);
+    MergePolicy.OneMergeProgress progress = new MergePolicy.OneMergeProgress();
+    progress.setMergeThread(Thread.currentThread());
+    progress.setIntraMergePool(pool);
+    MergeRateLimiter rateLimiter = new MergeRateLimiter(progress);
+    try {
+      // the scheduler stops the merge while its parts occupy every worker of the pool
+      rateLimiter.setMBPerSec(0.0);
+      CountDownLatch paused = new CountDownLatch(pool.getParallelism());
+      List<ForkJoinTask<Long>> parts = new ArrayList<>();
+      for (int i = 0; i < pool.getParallelism(); i++) {
+        parts.add(pool.submit(() -> {
+            paused.countDown();
+            return rateLimiter.pause(1024);
+          }));
+      }
+      assertTrue(paused.await(10, TimeUnit.SECONDS));
+
+      // another merge must still make progress on the shared pool
+      assertEquals(42, pool.submit(() -> 42).get(10, TimeUnit.SECONDS).intValue());
+
+      rateLimiter.setMBPerSec(Double.POSITIVE_INFINITY);
+      for (ForkJoinTask<Long> part : parts) {
+        part.get(10, TimeUnit.SECONDS);
+      }
+      assertTrue(rateLimiter.getTotalStoppedNS() > 0);
+    } finally {
+      cms.close();
+    }
+  }
+
+  public void testIntraMergeConcurrency() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    // two doc values formats, so that their fields are merged concurrently too
+    DocValuesFormat dvFormat1 = TestUtil.getDefaultDocValuesFormat();
+    DocValuesFormat dvFormat2 = new AssertingDocValuesFormat();
+    iwc.setCodec(new AssertingCodec() {
+        @Override
+        public DocValuesFormat getDocValuesFormatForField(String field) {
+          return field.equals("dv1") ? dvFormat1 : dvFormat2;
+        }
+      });
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setMaxMergesAndThreads(4, TestUtil.nextInt(random(), 2, 4));
+    iwc.setMergeScheduler(cms);
+    iwc.setMaxBufferedDocs(TestUtil.nextInt(random(), 10, 50));
+    IndexWriter w = new IndexWriter(dir, iwc);
+    FieldType vectorsType = new FieldType(TextField.TYPE_STORED);
+    vectorsType.setStoreTermVectors(true);
+    vectorsType.setStoreTermVectorPositions(true);
+    int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new Field("body", "some text " + i, vectorsType));
+      doc.add(new NumericDocValuesField("dv1", i));
+      doc.add(new SortedDocValuesField("dv2", new BytesRef(Integer.toString(i))));
+      doc.add(new IntPoint("point", i, -i));
+      w.addDocument(doc);
+      if (random().nextInt(10) == 0) {
+        w.deleteDocuments(new Term("id", Integer.toString(random().nextInt(i + 1))));
+      }
+    }
+    w.forceMerge(1);
+    w.close();
+
+    DirectoryReader r = DirectoryReader.open(dir);
+    assertEquals(1, r.leaves().size());
+    LeafReader leaf = r.leaves().get(0).reader();
+    NumericDocValues dv1 = leaf.getNumericDocValues("dv1");
+    SortedDocValues dv2 = leaf.getSortedDocValues("dv2");
+    Bits liveDocs = leaf.getLiveDocs();
+    for (int doc = 0; doc < leaf.maxDoc(); doc++) {
+      if (liveDocs != null && liveDocs.get(doc) == false) {
+        continue;
+      }
+      String id = leaf.document(doc).get("id");
+      assertEquals(doc, dv1.advance(doc));
+      assertEquals(Integer.parseInt(id), dv1.longValue());
+      assertEquals(doc, dv2.advance(doc));
+      assertEquals(id, dv2.binaryValue().utf8ToString());
+      assertNotNull(leaf.getTermVector(doc, "body"));
+    }
+    assertEquals(leaf.maxDoc(), leaf.getPointValues("point").size());
+    r.close();
+    dir.close();
+  }
 }
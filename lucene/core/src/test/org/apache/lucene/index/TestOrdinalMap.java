@@ -23,15 +23,19 @@ import java.util.HashMap;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.packed.PackedInts;
 
 public class TestOrdinalMap extends LuceneTestCase {
 
@@ -96,4 +100,73 @@ public class TestOrdinalMap extends LuceneTestCase {
     dir.close();
   }
 
+  public void testUpdate() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig cfg = new IndexWriterConfig(new MockAnalyzer(random())).setCodec(TestUtil.alwaysDocValuesFormat(TestUtil.getDefaultDocValuesFormat()));
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir, cfg);
+    final int maxTermLength = TestUtil.nextInt(random(), 1, 4);
+    int id = 0;
+    DirectoryReader previousReader = null;
+    OrdinalMap previousMap = null;
+    final int iters = atLeast(5);
+    for (int iter = 0; iter < iters; ++iter) {
+      final int numDocs = TestUtil.nextInt(random(), 1, 200);
+      for (int i = 0; i < numDocs; ++i) {
+        Document d = new Document();
+        d.add(new StringField("id", Integer.toString(id++), Store.NO));
+        final int numSortedSet = random().nextInt(3);
+        for (int j = 0; j < numSortedSet; ++j) {
+          d.add(new SortedSetDocValuesField("ssdv", new BytesRef(TestUtil.randomSimpleString(random(), maxTermLength))));
+        }
+        iw.addDocument(d);
+        if (rarely()) {
+          iw.commit();
+        }
+      }
+      final int numDeletes = random().nextInt(numDocs);
+      for (int i = 0; i < numDeletes; ++i) {
+        iw.deleteDocuments(new Term("id", Integer.toString(random().nextInt(id))));
+      }
+      DirectoryReader reader = iw.getReader();
+      final SortedSetDocValues[] values = new SortedSetDocValues[reader.leaves().size()];
+      for (int i = 0; i < values.length; ++i) {
+        values[i] = DocValues.getSortedSet(reader.leaves().get(i).reader(), "ssdv");
+      }
+      final OrdinalMap expected = OrdinalMap.build(null, values, PackedInts.DEFAULT);
+
+      if (previousReader != null) {
+        final int[] previousSegments = new int[values.length];
+        for (int i = 0; i < values.length; ++i) {
+          previousSegments[i] = -1;
+          final IndexReader.CacheKey key = reader.leaves().get(i).reader().getCoreCacheHelper().getKey();
+          for (int j = 0; j < previousReader.leaves().size(); ++j) {
+            if (previousReader.leaves().get(j).reader().getCoreCacheHelper().getKey() == key) {
+              previousSegments[i] = j;
+            }
+          }
+        }
+        final OrdinalMap actual = OrdinalMap.build(null, values, previousMap, previousSegments, PackedInts.DEFAULT);
+        assertEquals(expected.getValueCount(), actual.getValueCount());
+        for (long ord = 0; ord < expected.getValueCount(); ++ord) {
+          assertEquals(expected.getFirstSegmentNumber(ord), actual.getFirstSegmentNumber(ord));
+          assertEquals(expected.getFirstSegmentOrd(ord), actual.getFirstSegmentOrd(ord));
+        }
+        for (int i = 0; i < values.length; ++i) {
+          final LongValues expectedGlobalOrds = expected.getGlobalOrds(i);
+          final LongValues actualGlobalOrds = actual.getGlobalOrds(i);
+          for (long ord = 0; ord < values[i].getValueCount(); ++ord) {
+            assertEquals(expectedGlobalOrds.get(ord), actualGlobalOrds.get(ord));
+          }
+        }
+        // chain updates
+        previousMap = actual;
+      } else {
+        previousMap = expected;
+      }
+      IOUtils.close(previousReader);
+      previousReader = reader;
+    }
+    IOUtils.close(previousReader, iw, dir);
+  }
+
 }
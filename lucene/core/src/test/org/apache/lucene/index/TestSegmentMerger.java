@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.document.Document;
@@ -86,11 +87,20 @@ public class TestSegmentMerger extends LuceneTestCase {
     final Codec codec = Codec.getDefault();
     final SegmentInfo si = new SegmentInfo(mergedDir, Version.LATEST, null, mergedSegment, -1, false, codec, Collections.emptyMap(), StringHelper.randomId(), new HashMap<>(), null);
 
+    ForkJoinPool pool = random().nextBoolean() ? new ForkJoinPool(TestUtil.nextInt(random(), 2, 4)) : null;
     SegmentMerger merger = new SegmentMerger(Arrays.<CodecReader>asList(reader1, reader2),
                                              si, InfoStream.getDefault(), mergedDir,
                                              new FieldInfos.FieldNumbers(),
-                                             newIOContext(random(), new IOContext(new MergeInfo(-1, -1, false, -1))));
-    MergeState mergeState = merger.merge();
+                                             newIOContext(random(), new IOContext(new MergeInfo(-1, -1, false, -1))),
+                                             pool);
+    MergeState mergeState;
+    try {
+      mergeState = merger.merge();
+    } finally {
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
     int docsMerged = mergeState.segmentInfo.maxDoc();
     assertTrue(docsMerged == 2);
     //Should be able to open a new SegmentReader against the new directory
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.carrotsearch.randomizedtesting.generators.RandomPicks;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestStripedLRUQueryCache extends LuceneTestCase {
+
+  private static final QueryCachingPolicy NEVER_CACHE = new QueryCachingPolicy() {
+
+    @Override
+    public void onUse(Query query) {}
+
+    @Override
+    public boolean shouldCache(Query query) throws IOException {
+      return false;
+    }
+
+  };
+
+  private static void assertConsistent(StripedLRUQueryCache queryCache) {
+    long cacheSize = 0;
+    long ramBytesUsed = 0;
+    for (LRUQueryCache stripe : queryCache.getStripes()) {
+      stripe.assertConsistent();
+      cacheSize += stripe.getCacheSize();
+      ramBytesUsed += stripe.ramBytesUsed();
+    }
+    assertEquals(cacheSize, queryCache.getCacheSize());
+    assertEquals(ramBytesUsed, queryCache.ramBytesUsed());
+  }
+
+  private static int count(IndexSearcher searcher, Query query) throws IOException {
+    // IndexSearcher.count may use index statistics instead of running the query
+    TotalHitCountCollector collector = new TotalHitCountCollector();
+    searcher.search(query, collector);
+    return collector.getTotalHits();
+  }
+
+  public void testEligibilityUsesTotalBudget() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document doc = new Document();
+    doc.add(new StringField("color", "blue", Store.NO));
+    final int numDocs = 800;
+    for (int i = 0; i < numDocs; ++i) {
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    final int maxDoc = reader.maxDoc();
+    final Query query = new TermQuery(new Term("color", "blue"));
+
+    // a budget that fits five dense entries on this index...
+    final long maxRamBytesUsed = 5 * (maxDoc / 8) + 1;
+
+    // ... is enough for a single LRUQueryCache
+    final LRUQueryCache lruCache = new LRUQueryCache(100, maxRamBytesUsed, context -> true);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+    searcher.setQueryCache(lruCache);
+    assertEquals(numDocs, count(searcher, query));
+    assertTrue(lruCache.getCacheCount() > 0);
+
+    // and for a striped cache with a few stripes
+    StripedLRUQueryCache stripedCache = new StripedLRUQueryCache(100, maxRamBytesUsed, context -> true,
+        TestUtil.nextInt(random(), 2, 4));
+    searcher.setQueryCache(stripedCache);
+    assertEquals(numDocs, count(searcher, query));
+    assertTrue(stripedCache.getCacheCount() > 0);
+    assertConsistent(stripedCache);
+
+    // with more stripes, the entry would not even fit in its stripe
+    stripedCache = new StripedLRUQueryCache(100, maxRamBytesUsed, context -> true,
+        TestUtil.nextInt(random(), 6, 16));
+    searcher.setQueryCache(stripedCache);
+    assertEquals(numDocs, count(searcher, query));
+    assertEquals(0, stripedCache.getCacheCount());
+
+    // and a budget that doesn't fit five entries is not enough either
+    stripedCache = new StripedLRUQueryCache(100, 5 * (maxDoc / 8), context -> true, 1);
+    searcher.setQueryCache(stripedCache);
+    assertEquals(numDocs, count(searcher, query));
+    assertEquals(0, stripedCache.getCacheCount());
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testConcurrency() throws Throwable {
+    final StripedLRUQueryCache queryCache = new StripedLRUQueryCache(1 + random().nextInt(20), 1 + random().nextInt(100000),
+        context -> random().nextBoolean(), 1 + random().nextInt(8));
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final SearcherFactory searcherFactory = new SearcherFactory() {
+      @Override
+      public IndexSearcher newSearcher(IndexReader reader, IndexReader previous) throws IOException {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+        searcher.setQueryCache(queryCache);
+        return searcher;
+      }
+    };
+    final SearcherManager mgr = new SearcherManager(w.w, random().nextBoolean(), false, searcherFactory);
+    final AtomicBoolean indexing = new AtomicBoolean(true);
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final String[] colors = new String[] {"blue", "red", "yellow", "green", "white", "black", "pink", "purple"};
+    final int numDocs = atLeast(5000);
+    Thread[] threads = new Thread[1 + TestUtil.nextInt(random(), 2, 4)];
+    threads[0] = new Thread() {
+      public void run() {
+        Document doc = new Document();
+        StringField f = new StringField("color", "", Store.NO);
+        doc.add(f);
+        for (int i = 0; indexing.get() && i < numDocs; ++i) {
+          f.setStringValue(RandomPicks.randomFrom(random(), colors));
+          try {
+            w.addDocument(doc);
+            if ((i & 63) == 0) {
+              mgr.maybeRefresh();
+              if (rarely()) {
+                queryCache.clear();
+              }
+              if (rarely()) {
+                queryCache.clearQuery(new TermQuery(new Term("color", RandomPicks.randomFrom(random(), colors))));
+              }
+            }
+          } catch (Throwable t) {
+            error.compareAndSet(null, t);
+            break;
+          }
+        }
+        indexing.set(false);
+      }
+    };
+    for (int i = 1; i < threads.length; ++i) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          while (indexing.get()) {
+            try {
+              final IndexSearcher searcher = mgr.acquire();
+              try {
+                final Query q = new TermQuery(new Term("color", RandomPicks.randomFrom(random(), colors)));
+                TotalHitCountCollector collector = new TotalHitCountCollector();
+                searcher.search(q, collector); // will use the cache
+                final int totalHits1 = collector.getTotalHits();
+                final int totalHits2 = searcher.search(q, 1).totalHits; // will not use the cache because of scores
+                assertEquals(totalHits2, totalHits1);
+              } finally {
+                mgr.release(searcher);
+              }
+            } catch (Throwable t) {
+              error.compareAndSet(null, t);
+            }
+          }
+        }
+      };
+    }
+
+    for (Thread thread : threads) {
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    if (error.get() != null) {
+      throw error.get();
+    }
+    assertConsistent(queryCache);
+    mgr.close();
+    w.close();
+    dir.close();
+    assertConsistent(queryCache);
+  }
+
+  public void testStatsAndEviction() throws IOException {
+    final int numStripes = TestUtil.nextInt(random(), 1, 4);
+    final StripedLRUQueryCache queryCache = new StripedLRUQueryCache(2 * numStripes, 10000000, context -> true, numStripes);
+
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document doc = new Document();
+    StringField f = new StringField("color", "", Store.NO);
+    doc.add(f);
+    for (int i = 0; i < 100; ++i) {
+      f.setStringValue("color" + (i % 50));
+      w.addDocument(doc);
+    }
+    final DirectoryReader reader = w.getReader();
+    final int segmentCount = reader.leaves().size();
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(queryCache);
+    final Query query = new TermQuery(new Term("color", "color7"));
+
+    searcher.setQueryCachingPolicy(NEVER_CACHE);
+    searcher.search(new ConstantScoreQuery(query), 1);
+    assertEquals(segmentCount, queryCache.getMissCount());
+    assertEquals(0, queryCache.getCacheCount());
+
+    searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+    for (int i = 0; i < 10; ++i) {
+      searcher.search(new ConstantScoreQuery(query), 1);
+    }
+    assertEquals(11 * segmentCount, queryCache.getTotalCount());
+    assertEquals(9 * segmentCount, queryCache.getHitCount());
+    assertEquals(segmentCount, queryCache.getCacheSize());
+    assertEquals(0, queryCache.getEvictionCount());
+
+    // more queries than the cache can hold, each stripe must stay within its bounds
+    for (int i = 0; i < 50; ++i) {
+      searcher.search(new ConstantScoreQuery(new TermQuery(new Term("color", "color" + i))), 1);
+    }
+    for (LRUQueryCache stripe : queryCache.getStripes()) {
+      assertTrue(stripe.cachedQueries().size() <= 2);
+    }
+    assertTrue(queryCache.getEvictionCount() > 0);
+    assertConsistent(queryCache);
+
+    queryCache.clear();
+    assertEquals(0, queryCache.getCacheSize());
+    assertConsistent(queryCache);
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
+
+  public void testClearQuery() throws IOException {
+    final StripedLRUQueryCache queryCache = new StripedLRUQueryCache(100, 10000000, context -> true, 4);
+    Directory dir = newDirectory();
+    final RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    Document doc = new Document();
+    StringField f = new StringField("color", "", Store.NO);
+    doc.add(f);
+    for (int i = 0; i < 10; ++i) {
+      f.setStringValue(i % 2 == 0 ? "blue" : "red");
+      w.addDocument(doc);
+    }
+    final DirectoryReader reader = w.getReader();
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(QueryCachingPolicy.ALWAYS_CACHE);
+
+    final Query blue = new TermQuery(new Term("color", "blue"));
+    final Query red = new TermQuery(new Term("color", "red"));
+    searcher.search(new ConstantScoreQuery(blue), 1);
+    searcher.search(new ConstantScoreQuery(red), 1);
+    final long cacheSize = queryCache.getCacheSize();
+    assertTrue(cacheSize > 0);
+
+    queryCache.clearQuery(new TermQuery(new Term("color", "blue")));
+    assertEquals(cacheSize / 2, queryCache.getCacheSize());
+    assertConsistent(queryCache);
+
+    reader.close();
+    w.close();
+    dir.close();
+  }
+}
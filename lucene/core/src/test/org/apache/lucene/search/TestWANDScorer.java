@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestWANDScorer extends LuceneTestCase {
+
+  public void testScalingFactor() {
+    doTestScalingFactor(1);
+    doTestScalingFactor(2);
+    doTestScalingFactor(Math.nextDown(1f));
+    doTestScalingFactor(Math.nextUp(1f));
+    doTestScalingFactor(Float.MIN_VALUE);
+    doTestScalingFactor(Math.nextUp(Float.MIN_VALUE));
+    doTestScalingFactor(Float.MAX_VALUE);
+    doTestScalingFactor(Math.nextDown(Float.MAX_VALUE));
+    assertEquals(WANDScorer.scalingFactor(Float.MIN_VALUE) + 1, WANDScorer.scalingFactor(0));
+    assertEquals(WANDScorer.scalingFactor(Float.MAX_VALUE) - 1, WANDScorer.scalingFactor(Float.POSITIVE_INFINITY));
+  }
+
+  private void doTestScalingFactor(float f) {
+    int scalingFactor = WANDScorer.scalingFactor(f);
+    float scaled = Math.scalb(f, scalingFactor);
+    assertTrue(""+scaled, scaled > 1 << 15);
+    assertTrue(""+scaled, scaled <= 1 << 16);
+  }
+
+  public void testSkipsNonCompetitiveDocuments() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(newLogMergePolicy()));
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("foo", "a", Store.NO));
+      if (i < 10) {
+        doc.add(new StringField("foo", "b", Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("foo", "a")), Occur.SHOULD)
+        .add(new TermQuery(new Term("foo", "b")), Occur.SHOULD)
+        .build();
+
+    TopScoreDocCollector collector = TopScoreDocCollector.create(5, null, true);
+    searcher.search(query, collector);
+    TopDocs expected = collector.topDocs();
+    assertEquals(numDocs, expected.totalHits);
+
+    collector = TopScoreDocCollector.create(5, null, false);
+    searcher.search(query, collector);
+    TopDocs actual = collector.topDocs();
+    // documents that only match "a" are not competitive once 5 documents that match "b" have been collected
+    assertTrue(actual.totalHits < numDocs);
+    CheckHits.checkEqual(query, expected.scoreDocs, actual.scoreDocs);
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testOnlyUsedForTopScores() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    Document doc = new Document();
+    doc.add(new StringField("foo", "a", Store.NO));
+    doc.add(new StringField("foo", "b", Store.NO));
+    w.addDocument(doc);
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("foo", "a")), Occur.SHOULD)
+        .add(new TermQuery(new Term("foo", "b")), Occur.SHOULD)
+        .build();
+    Weight weight = searcher.createNormalizedWeight(query, true);
+    assertFalse(weight.scorer(reader.leaves().get(0)) instanceof WANDScorer);
+    assertTrue(weight.topScoresScorer(reader.leaves().get(0)) instanceof WANDScorer);
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testNegativeBoost() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    final int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("foo", "a", Store.NO));
+      if (i % 3 == 0) {
+        doc.add(new StringField("foo", "b", Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+
+    Query query = new BooleanQuery.Builder()
+        .add(new BoostQuery(new TermQuery(new Term("foo", "b")), -2), Occur.SHOULD)
+        .add(new TermQuery(new Term("foo", "a")), Occur.SHOULD)
+        .build();
+    Weight weight = searcher.createNormalizedWeight(query, true);
+    LeafReaderContext context = searcher.getIndexReader().leaves().get(0);
+    assertNotNull(weight.scorer(context));
+    assertNotNull(weight.topScoresScorer(context));
+
+    TopScoreDocCollector collector = TopScoreDocCollector.create(5, null, true);
+    searcher.search(query, collector);
+    TopDocs expected = collector.topDocs();
+    assertEquals(numDocs, expected.totalHits);
+
+    collector = TopScoreDocCollector.create(5, null, false);
+    searcher.search(query, collector);
+    CheckHits.checkEqual(query, expected.scoreDocs, collector.topDocs().scoreDocs);
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandom() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final String[] terms = new String[] { "a", "b", "c", "d", "e", "f", "g", "h" };
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      StringBuilder text = new StringBuilder();
+      for (int j = 0; j < terms.length; ++j) {
+        // rare terms are the last ones
+        if (random().nextInt(1 << j) == 0) {
+          final int freq = 1 + random().nextInt(3);
+          for (int k = 0; k < freq; ++k) {
+            text.append(terms[j]).append(' ');
+          }
+        }
+      }
+      doc.add(new TextField("foo", text.toString(), Store.NO));
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+
+    for (int iter = 0; iter < 100; ++iter) {
+      BooleanQuery.Builder builder = new BooleanQuery.Builder();
+      final int numClauses = 2 + random().nextInt(5);
+      for (int i = 0; i < numClauses; ++i) {
+        Query q = new TermQuery(new Term("foo", terms[random().nextInt(terms.length)]));
+        switch (random().nextInt(4)) {
+          case 0:
+            q = new ConstantScoreQuery(q);
+            break;
+          case 1:
+            q = new BoostQuery(q, 1 + random().nextInt(5));
+            break;
+          default:
+            break;
+        }
+        builder.add(q, Occur.SHOULD);
+      }
+      if (random().nextBoolean()) {
+        builder.add(new TermQuery(new Term("foo", terms[random().nextInt(terms.length)])), Occur.MUST_NOT);
+      }
+      Query query = builder.build();
+      final int numHits = 1 + random().nextInt(20);
+
+      TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, null, true);
+      searcher.search(query, collector);
+      TopDocs expected = collector.topDocs();
+
+      collector = TopScoreDocCollector.create(numHits, null, false);
+      searcher.search(query, collector);
+      TopDocs actual = collector.topDocs();
+
+      assertTrue(actual.totalHits <= expected.totalHits);
+      CheckHits.checkEqual(query, expected.scoreDocs, actual.scoreDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testTopHitsKeepCustomBulkScorer() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(10);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("foo", "bar", Store.NO));
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    AtomicInteger bulkScorerCalls = new AtomicInteger();
+    Query query = new Query() {
+      @Override
+      public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) throws IOException {
+        Weight in = searcher.createWeight(new TermQuery(new Term("foo", "bar")), needsScores, boost);
+        return new FilterWeight(this, in) {
+          @Override
+          public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+            bulkScorerCalls.incrementAndGet();
+            return super.bulkScorer(context);
+          }
+        };
+      }
+
+      @Override
+      public String toString(String field) {
+        return "CustomBulkScorerQuery";
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+        return this == obj;
+      }
+
+      @Override
+      public int hashCode() {
+        return System.identityHashCode(this);
+      }
+    };
+
+    TopScoreDocCollector collector = TopScoreDocCollector.create(5, null, false);
+    searcher.search(query, collector);
+    assertEquals(Math.min(5, numDocs), collector.topDocs().scoreDocs.length);
+    assertEquals(reader.leaves().size(), bulkScorerCalls.get());
+
+    reader.close();
+    dir.close();
+  }
+}
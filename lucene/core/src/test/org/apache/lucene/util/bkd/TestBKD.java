@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.MergeState;
@@ -628,7 +630,10 @@ public class TestBKD extends LuceneTestCase {
     List<MergeState.DocMap> docMaps = null;
     int seg = 0;
 
+    ForkJoinPool pool = random().nextBoolean() ? new ForkJoinPool(TestUtil.nextInt(random(), 2, 4)) : null;
+
     BKDWriter w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length, false);
+    w.setForkJoinPool(pool);
     IndexOutput out = dir.createOutput("bkd", IOContext.DEFAULT);
     IndexInput in = null;
 
@@ -689,6 +694,7 @@ public class TestBKD extends LuceneTestCase {
           maxPointsInLeafNode = TestUtil.nextInt(random(), 50, 1000);
           maxMB = (float) 3.0 + (3*random().nextDouble());
           w = new BKDWriter(numValues, dir, "_" + seg, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, docValues.length, false);
+          w.setForkJoinPool(pool);
           lastDocIDBase = docID;
         }
       }
@@ -833,6 +839,56 @@ public class TestBKD extends LuceneTestCase {
         IOUtils.closeWhileHandlingException(w, in, out);
         IOUtils.deleteFilesIgnoringExceptions(dir, "bkd", "bkd2");
       }
+      if (pool != null) {
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+      }
+    }
+  }
+
+  /** Building concurrently must write exactly the same tree as building on a single thread */
+  public void testConcurrentBuild() throws Exception {
+    int numDocs = atLeast(10000);
+    int numDims = TestUtil.nextInt(random(), 1, 3);
+    int numBytesPerDim = TestUtil.nextInt(random(), 2, 8);
+    int maxPointsInLeafNode = TestUtil.nextInt(random(), 50, 500);
+    // Sometimes small enough that we sort and partition offline:
+    double maxMB = random().nextBoolean() ? 0.1 : 5.0;
+
+    byte[][] packedValues = new byte[numDocs][];
+    for (int docID = 0; docID < numDocs; docID++) {
+      packedValues[docID] = new byte[numDims * numBytesPerDim];
+      random().nextBytes(packedValues[docID]);
+      if (random().nextInt(10) == 0) {
+        // Also have some duplicate values:
+        packedValues[docID] = packedValues[random().nextInt(docID + 1)];
+      }
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(TestUtil.nextInt(random(), 2, 8));
+    try (Directory dir = getDirectory(numDocs)) {
+      byte[][] trees = new byte[2][];
+      for (int i = 0; i < 2; i++) {
+        BKDWriter w = new BKDWriter(numDocs, dir, "_" + i, numDims, numBytesPerDim, maxPointsInLeafNode, maxMB, numDocs, true);
+        if (i == 1) {
+          w.setForkJoinPool(pool);
+        }
+        for (int docID = 0; docID < numDocs; docID++) {
+          w.add(packedValues[docID], docID);
+        }
+        try (IndexOutput out = dir.createOutput("bkd" + i, IOContext.DEFAULT)) {
+          w.finish(out);
+        }
+        w.close();
+        try (IndexInput in = dir.openInput("bkd" + i, IOContext.DEFAULT)) {
+          trees[i] = new byte[(int) in.length()];
+          in.readBytes(trees[i], 0, trees[i].length);
+        }
+      }
+      assertArrayEquals(trees[0], trees[1]);
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
     }
   }
 
@@ -309,13 +309,14 @@ public final class MockRandomPostingsFormat extends PostingsFormat {
       }
     } else if (t1 == 2) {
       // Use BlockTree terms dict
+      final BlockTreeTermsReader.FSTLoadMode fstLoadMode = BlockTreeTermsReader.FSTLoadMode.values()[random.nextInt(BlockTreeTermsReader.FSTLoadMode.values().length)];
       if (LuceneTestCase.VERBOSE) {
-        System.out.println("MockRandomCodec: reading BlockTree terms dict");
+        System.out.println("MockRandomCodec: reading BlockTree terms dict fstLoadMode=" + fstLoadMode);
       }
 
       boolean success = false;
       try {
-        fields = new BlockTreeTermsReader(postingsReader, state);
+        fields = new BlockTreeTermsReader(postingsReader, state, fstLoadMode);
         success = true;
       } finally {
         if (!success) {
@@ -33,6 +33,7 @@ import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.StoredFieldsFormat;
 import org.apache.lucene.codecs.simpletext.SimpleTextCodec;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DocumentStoredFieldVisitor;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntPoint;
@@ -169,6 +170,55 @@ public abstract class BaseStoredFieldsFormatTestCase extends BaseIndexFileFormat
     dir.close();
   }
   
+  public void testBatchDocuments() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMaxBufferedDocs(RandomNumbers.randomIntBetween(random(), 2, 100));
+    RandomIndexWriter iw = new RandomIndexWriter(random(), dir, iwConf);
+    final int numDocs = atLeast(300);
+    final String[] values = new String[numDocs];
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StoredField("id", i));
+      if (random().nextInt(50) == 0) {
+        // large enough for its block to be sliced
+        values[i] = RandomStrings.randomAsciiOfLength(random(), TestUtil.nextInt(random(), 1 << 15, 1 << 17));
+      } else if (random().nextInt(10) != 0) {
+        values[i] = TestUtil.randomSimpleString(random(), 200);
+      }
+      if (values[i] != null) {
+        doc.add(new StoredField("value", values[i]));
+      }
+      iw.addDocument(doc);
+    }
+    final DirectoryReader rd = iw.getReader();
+    iw.close();
+
+    final int iters = atLeast(20);
+    for (int iter = 0; iter < iters; ++iter) {
+      // random order, with duplicates
+      final int[] docIDs = new int[TestUtil.nextInt(random(), 0, 50)];
+      final DocumentStoredFieldVisitor[] visitors = new DocumentStoredFieldVisitor[docIDs.length];
+      for (int i = 0; i < docIDs.length; ++i) {
+        docIDs[i] = random().nextInt(numDocs);
+        visitors[i] = new DocumentStoredFieldVisitor();
+      }
+      rd.document(docIDs, visitors);
+      for (int i = 0; i < docIDs.length; ++i) {
+        final Document doc = visitors[i].getDocument();
+        final int id = doc.getField("id").numericValue().intValue();
+        assertEquals(values[id], doc.get("value"));
+        // also compare with single document loads, which share the decompressed block
+        assertEquals(values[id], rd.document(docIDs[i]).get("value"));
+      }
+    }
+
+    expectThrows(IllegalArgumentException.class, () -> rd.document(new int[1], new StoredFieldVisitor[2]));
+
+    rd.close();
+    dir.close();
+  }
+
   // LUCENE-1727: make sure doc fields are stored in order
   public void testStoredFieldsOrder() throws Throwable {
     Directory d = newDirectory();
@@ -36,6 +36,7 @@ public class AssertingScorer extends Scorer {
   final Random random;
   final Scorer in;
   final boolean needsScores;
+  float minCompetitiveScore = Float.NEGATIVE_INFINITY;
 
   IteratorState state = IteratorState.START;
   int doc;
@@ -69,9 +70,22 @@ public class AssertingScorer extends Scorer {
     assert iterating();
     final float score = in.score();
     assert !Float.isNaN(score) : "NaN score for in="+in;
+    assert score <= Math.nextUp(maxScore()) + Math.abs(maxScore()) * 0x1p-20f : "score " + score + " greater than max score " + maxScore() + " for in=" + in;
     return score;
   }
 
+  @Override
+  public float maxScore() {
+    return in.maxScore();
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) throws IOException {
+    assert minScore >= minCompetitiveScore : "min competitive scores must not decrease: " + minScore + " < " + minCompetitiveScore;
+    minCompetitiveScore = minScore;
+    in.setMinCompetitiveScore(minScore);
+  }
+
   @Override
   public Collection<ChildScorer> getChildren() {
     // We cannot hide that we hold a single child, else
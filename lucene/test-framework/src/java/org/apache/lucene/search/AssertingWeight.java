@@ -50,6 +50,13 @@ class AssertingWeight extends FilterWeight {
     }
   }
 
+  @Override
+  public Scorer topScoresScorer(LeafReaderContext context) throws IOException {
+    final Scorer inScorer = in.topScoresScorer(context);
+    assert inScorer == null || inScorer.docID() == -1;
+    return AssertingScorer.wrap(new Random(random.nextLong()), inScorer, needsScores);
+  }
+
   @Override
   public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
     final ScorerSupplier inScorerSupplier = in.scorerSupplier(context);
@@ -83,4 +90,14 @@ class AssertingWeight extends FilterWeight {
 
     return AssertingBulkScorer.wrap(new Random(random.nextLong()), inScorer, context.reader().maxDoc());
   }
+
+  @Override
+  public BulkScorer topScoresBulkScorer(LeafReaderContext context) throws IOException {
+    BulkScorer inScorer = in.topScoresBulkScorer(context);
+    if (inScorer == null) {
+      return null;
+    }
+
+    return AssertingBulkScorer.wrap(new Random(random.nextLong()), inScorer, context.reader().maxDoc());
+  }
 }
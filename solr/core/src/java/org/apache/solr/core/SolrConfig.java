@@ -247,9 +247,13 @@ public class SolrConfig extends Config implements MapSerializable {
 //    filtOptThreshold = getFloat("query/boolTofilterOptimizer/@threshold",.05f);
 
     useFilterForSortedQuery = getBool("query/useFilterForSortedQuery", false);
+    useRoaringDocSets = getBool("query/useRoaringDocSets", true);
     queryResultWindowSize = Math.max(1, getInt("query/queryResultWindowSize", 1));
     queryResultMaxDocsCached = getInt("query/queryResultMaxDocsCached", Integer.MAX_VALUE);
     enableLazyFieldLoading = getBool("query/enableLazyFieldLoading", false);
+    searchThreads = Math.max(0, getInt("query/searchThreads", 0));
+    segmentFilterCacheSize = Math.max(0, getInt("query/segmentFilterCache/@size", 0));
+    segmentFilterCacheMaxRamMB = getInt("query/segmentFilterCache/@maxRamMB", -1);
     
     useRangeVersionsForPeerSync = getBool("peerSync/useRangeVersions", true);
 
@@ -482,9 +486,13 @@ public class SolrConfig extends Config implements MapSerializable {
   public final Map<String, CacheConfig> userCacheConfigs;
   // SolrIndexSearcher - more...
   public final boolean useFilterForSortedQuery;
+  public final boolean useRoaringDocSets;
   public final int queryResultWindowSize;
   public final int queryResultMaxDocsCached;
   public final boolean enableLazyFieldLoading;
+  public final int searchThreads;
+  public final int segmentFilterCacheSize;
+  public final int segmentFilterCacheMaxRamMB;
   
   public final boolean useRangeVersionsForPeerSync;
   
@@ -812,9 +820,13 @@ public class SolrConfig extends Config implements MapSerializable {
     Map m = new LinkedHashMap();
     result.put("query", m);
     m.put("useFilterForSortedQuery", useFilterForSortedQuery);
+    m.put("useRoaringDocSets", useRoaringDocSets);
     m.put("queryResultWindowSize", queryResultWindowSize);
     m.put("queryResultMaxDocsCached", queryResultMaxDocsCached);
     m.put("enableLazyFieldLoading", enableLazyFieldLoading);
+    m.put("searchThreads", searchThreads);
+    m.put("segmentFilterCacheSize", segmentFilterCacheSize);
+    m.put("segmentFilterCacheMaxRamMB", segmentFilterCacheMaxRamMB);
     m.put("maxBooleanClauses", booleanQueryMaxClauseCount);
     for (SolrPluginInfo plugin : plugins) {
       List<PluginInfo> infos = getPluginInfos(plugin.clazz.getName());
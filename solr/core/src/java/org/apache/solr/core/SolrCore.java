@@ -104,6 +104,7 @@ import org.apache.solr.handler.SolrConfigHandler;
 import org.apache.solr.handler.component.HighlightComponent;
 import org.apache.solr.handler.component.SearchComponent;
 import org.apache.solr.logging.MDCLoggingContext;
+import org.apache.solr.metrics.MetricsMap;
 import org.apache.solr.metrics.SolrCoreMetricManager;
 import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.metrics.SolrMetricProducer;
@@ -134,6 +135,7 @@ import org.apache.solr.schema.IndexSchemaFactory;
 import org.apache.solr.schema.ManagedIndexSchema;
 import org.apache.solr.schema.SimilarityFactory;
 import org.apache.solr.search.QParserPlugin;
+import org.apache.solr.search.SegmentFilterCache;
 import org.apache.solr.search.SolrFieldCacheBean;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.ValueSourceParser;
@@ -891,6 +893,12 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
     
     resourceLoader = config.getResourceLoader();
     this.solrConfig = config;
+    this.searchExecutor = config.searchThreads > 0
+        ? ExecutorUtil.newMDCAwareFixedThreadPool(config.searchThreads, new DefaultSolrThreadFactory("searchExecutor"))
+        : null;
+    this.segmentFilterCache = config.segmentFilterCacheSize > 0
+        ? new SegmentFilterCache(config.segmentFilterCacheSize, config.segmentFilterCacheMaxRamMB * 1024L * 1024L)
+        : null;
     this.configSetProperties = configSetProperties;
     // Initialize the metrics manager
     this.coreMetricManager = initCoreMetricManager(config);
@@ -1176,6 +1184,10 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
     File dataDirFile = dataDirPath.toFile();
     manager.registerGauge(this, registry, () -> dataDirFile.getTotalSpace(), true, "totalSpace", Category.CORE.toString(), "fs");
     manager.registerGauge(this, registry, () -> dataDirFile.getUsableSpace(), true, "usableSpace", Category.CORE.toString(), "fs");
+    if (segmentFilterCache != null) {
+      manager.registerGauge(this, registry, new MetricsMap((detailed, map) -> segmentFilterCache.getStatistics(map)),
+          true, "segmentFilterCache", Category.CACHE.toString(), "searcher");
+    }
   }
 
   private void checkVersionFieldExistsInSchema(IndexSchema schema, CoreDescriptor coreDescriptor) {
@@ -1573,6 +1585,21 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
         throw (Error) e;
       }
     }
+
+    if (segmentFilterCache != null) {
+      segmentFilterCache.clear();
+    }
+
+    if (searchExecutor != null) {
+      try {
+        ExecutorUtil.shutdownAndAwaitTermination(searchExecutor);
+      } catch (Throwable e) {
+        SolrException.log(log, e);
+        if (e instanceof Error) {
+          throw (Error) e;
+        }
+      }
+    }
     
     if (coreStateClosed) {
       try {
@@ -1783,6 +1810,24 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
   // Searcher Control
   ////////////////////////////////////////////////////////////////////////////////
 
+  /**
+   * Returns the executor that searchers use to search segments concurrently, or
+   * null if <code>searchThreads</code> is not configured in the <code>query</code>
+   * section of solrconfig.xml.
+   */
+  public ExecutorService getSearchExecutor() {
+    return searchExecutor;
+  }
+
+  /**
+   * Returns the cache of per-segment filter results that the searchers of this core share, or
+   * null if <code>segmentFilterCache</code> is not configured in the <code>query</code>
+   * section of solrconfig.xml.
+   */
+  public SegmentFilterCache getSegmentFilterCache() {
+    return segmentFilterCache;
+  }
+
   // The current searcher used to service queries.
   // Don't access this directly!!!! use getSearcher() to
   // get it (and it will increment the ref count at the same time).
@@ -1796,6 +1841,10 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
 
   final ExecutorService searcherExecutor = ExecutorUtil.newMDCAwareSingleThreadExecutor(
       new DefaultSolrThreadFactory("searcherExecutor"));
+  // Searches the segments of a single query concurrently, null unless query/searchThreads is configured
+  private final ExecutorService searchExecutor;
+  // Caches filters per segment across searchers, null unless query/segmentFilterCache is configured
+  private final SegmentFilterCache segmentFilterCache;
   private int onDeckSearchers;  // number of searchers preparing
   // Lock ordering: one can acquire the openSearcherLock and then the searcherLock, but not vice-versa.
   private Object searcherLock = new Object();  // the sync object for the searcher
@@ -2025,6 +2074,10 @@ public final class SolrCore implements SolrInfoBean, SolrMetricProducer, Closeab
         final String newName = realtime ? "realtime" : "main";
         tmp = new SolrIndexSearcher(this, newIndexDir, getLatestSchema(), newName,
                                     newReader, true, useCaches, true, directoryFactory);
+        if (newestSearcher.get().getSchema() == tmp.getSchema()) {
+          // segments that did not change keep the same terms, so ordinal maps can be updated incrementally
+          tmp.reuseOrdinalMaps(newestSearcher.get());
+        }
 
       } else {
         // newestSearcher == null at this point
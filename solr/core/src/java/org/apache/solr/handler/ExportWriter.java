@@ -24,8 +24,21 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.lang.invoke.MethodHandles;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexableField;
@@ -51,6 +64,7 @@ import org.apache.solr.common.MapWriter.EntryWriter;
 import org.apache.solr.common.PushWriter;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
 import org.apache.solr.common.util.JavaBinCodec;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.request.SolrQueryRequest;
@@ -72,6 +86,7 @@ import org.apache.solr.schema.TrieLongField;
 import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.search.SortSpec;
 import org.apache.solr.search.SyntaxError;
+import org.apache.solr.util.DefaultSolrThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -81,9 +96,35 @@ import static org.apache.solr.common.util.Utils.makeMap;
 
 public class ExportWriter implements SolrCore.RawWriter, Closeable {
   private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * Number of worker threads used to sort segments and read docValues ahead of the response
+   * writer. The default of 0 sorts and writes on the request thread. Values larger than
+   * {@link #MAX_THREADS} are capped.
+   */
+  public static final String THREADS_PARAM = "threads";
+
+  /** Upper bound for {@link #THREADS_PARAM}. */
+  static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+  /** Executor for export tasks which hands off to a new or idle thread, callers must bound concurrency themselves */
+  static final ExecutorService exportExecutor = new ExecutorUtil.MDCAwareThreadPoolExecutor(
+      0,
+      Integer.MAX_VALUE,
+      10, TimeUnit.SECONDS, // terminate idle threads after 10 sec
+      new SynchronousQueue<Runnable>(), // directly hand off tasks
+      new DefaultSolrThreadFactory("exportExecutor")
+  );
+
+  /** Number of documents sorted per pass over the matching documents. */
+  static final int BATCH_SIZE = 30000;
+  /** Number of documents whose fields are read by a single materialization task. */
+  static final int CHUNK_SIZE = 1000;
+
   private OutputStreamWriter respWriter;
   final SolrQueryRequest req;
   final SolrQueryResponse res;
+  String[] fields;
   FieldWriter[] fieldWriters;
   int totalHits = 0;
   FixedBitSet[] sets = null;
@@ -185,8 +226,6 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
     SolrParams params = req.getParams();
     String fl = params.get("fl");
 
-    String[] fields = null;
-
     if(fl == null) {
       writeException((new IOException(new SyntaxError("export field list (fl) must be specified."))), writer, true);
       return;
@@ -222,11 +261,17 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
   }
 
   protected void writeDocs(SolrQueryRequest req, IteratorWriter.ItemWriter writer, Sort sort) throws IOException {
+    int threads = Math.min(req.getParams().getInt(THREADS_PARAM, 0), MAX_THREADS);
+    if (threads > 0 && totalHits > 0) {
+      writeDocsPipelined(req, writer, sort, threads);
+      return;
+    }
+
     //Write the data.
     List<LeafReaderContext> leaves = req.getSearcher().getTopReaderContext().leaves();
     SortDoc sortDoc = getSortDoc(req.getSearcher(), sort.getSort());
     int count = 0;
-    int queueSize = 30000;
+    int queueSize = BATCH_SIZE;
     SortQueue queue = new SortQueue(queueSize, sortDoc);
     SortDoc[] outDocs = new SortDoc[queueSize];
 
@@ -269,22 +314,296 @@ public class ExportWriter implements SolrCore.RawWriter, Closeable {
           });
         }
       } catch(Throwable e) {
-        Throwable ex = e;
-        e.printStackTrace();
-        while(ex != null) {
-          String m = ex.getMessage();
-          if(m != null && m.contains("Broken pipe")) {
-            throw new IgnoreException();
-          }
-          ex = ex.getCause();
+        throw toWriteException(e);
+      }
+    }
+  }
+
+  private IOException toWriteException(Throwable e) {
+    Throwable ex = e;
+    e.printStackTrace();
+    while(ex != null) {
+      String m = ex.getMessage();
+      if(m != null && m.contains("Broken pipe")) {
+        return new IgnoreException();
+      }
+      ex = ex.getCause();
+    }
+
+    if(e instanceof IOException) {
+      return ((IOException)e);
+    } else {
+      return new IOException(e);
+    }
+  }
+
+  /**
+   * Pipelined variant of {@link #writeDocs}: a producer thread sorts each batch by having the
+   * worker threads select the top documents of every segment in parallel and merging the
+   * per-segment results. The batch is then split into chunks whose docValues are read by the
+   * workers, and the chunks are handed to the response writer through a bounded queue in sort
+   * order. Sorting the next batch and reading fields thus overlap with writing the response.
+   */
+  protected void writeDocsPipelined(SolrQueryRequest req, IteratorWriter.ItemWriter writer, Sort sort, int threads) throws IOException {
+    final SolrIndexSearcher searcher = req.getSearcher();
+    final List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+    final SortDoc proto = getSortDoc(searcher, sort.getSort());
+    final BlockingQueue<Future<List<BufferedDoc>>> chunks = new ArrayBlockingQueue<>(Math.max(2, 2 * threads));
+    // bounds the number of worker tasks this request runs on the shared executor
+    final Semaphore permits = new Semaphore(threads);
+    // threads reading the index must not be interrupted (that would close NIOFSDirectory channels), so
+    // they stop by checking this flag instead
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    Future<?> producer = null;
+    try {
+      producer = exportExecutor.submit(() -> {
+        try {
+          produceChunks(searcher, leaves, proto, permits, chunks, cancelled);
+        } catch (Throwable t) {
+          CompletableFuture<List<BufferedDoc>> failed = new CompletableFuture<>();
+          failed.completeExceptionally(t);
+          offer(chunks, failed, cancelled);
         }
+        return null;
+      });
 
-        if(e instanceof IOException) {
-          throw ((IOException)e);
-        } else {
+      while (true) {
+        List<BufferedDoc> docs;
+        try {
+          docs = chunks.take().get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
           throw new IOException(e);
+        } catch (ExecutionException e) {
+          throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        if (docs == null) {
+          break; // end of stream
+        }
+        try {
+          for (BufferedDoc doc : docs) {
+            writer.add(doc);
+          }
+        } catch (Throwable e) {
+          throw toWriteException(e);
+        }
+      }
+    } finally {
+      // stops the producer if it is still running, e.g. after a client disconnect, and waits for
+      // all threads to stop using the searcher
+      cancelled.set(true);
+      awaitTasks(producer, permits, threads);
+    }
+  }
+
+  /** Waits for the producer and for the worker tasks holding one of the {@code threads} permits. */
+  private static void awaitTasks(Future<?> producer, Semaphore permits, int threads) {
+    boolean interrupted = false;
+    try {
+      if (producer != null) {
+        while (true) {
+          try {
+            producer.get(); // failures were already reported through the queue
+            break;
+          } catch (InterruptedException e) {
+            interrupted = true;
+          } catch (ExecutionException e) {
+            break;
+          }
         }
       }
+      permits.acquireUninterruptibly(threads);
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /** Runs a task on the shared executor once one of the request's permits is available. */
+  private static <T> Future<T> submit(Semaphore permits, Callable<T> task) throws InterruptedException {
+    permits.acquire();
+    try {
+      return exportExecutor.submit(() -> {
+        try {
+          return task.call();
+        } finally {
+          permits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /** Adds a chunk to the queue, waiting for space unless the writer has stopped consuming. */
+  private static boolean offer(BlockingQueue<Future<List<BufferedDoc>>> chunks, Future<List<BufferedDoc>> chunk,
+                               AtomicBoolean cancelled) throws InterruptedException {
+    while (!cancelled.get()) {
+      if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void produceChunks(SolrIndexSearcher searcher, List<LeafReaderContext> leaves, SortDoc proto,
+                             Semaphore permits, BlockingQueue<Future<List<BufferedDoc>>> chunks,
+                             AtomicBoolean cancelled) throws Exception {
+    final SortQueue[] segmentQueues = new SortQueue[leaves.size()];
+    final SortDoc[] segmentDocs = new SortDoc[leaves.size()];
+    for (int i = 0; i < leaves.size(); i++) {
+      int cardinality = sets[i].cardinality();
+      if (cardinality > 0) {
+        segmentDocs[i] = proto.copy();
+        segmentQueues[i] = new SortQueue(Math.min(BATCH_SIZE, cardinality), proto);
+      }
+    }
+    final SortQueue queue = new SortQueue(BATCH_SIZE, proto);
+    final int[] outOrds = new int[BATCH_SIZE];
+    final int[] outDocIds = new int[BATCH_SIZE];
+
+    int count = 0;
+    while (count < totalHits && !cancelled.get()) {
+      // select the top documents of each segment in parallel
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < leaves.size(); i++) {
+        if (segmentQueues[i] == null) continue;
+        final int ord = i;
+        futures.add(submit(permits, () -> {
+          selectTopDocs(leaves.get(ord), sets[ord], segmentDocs[ord], segmentQueues[ord]);
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+
+      // merge the per-segment results into the top documents overall
+      queue.reset();
+      SortDoc top = queue.top();
+      for (SortQueue segmentQueue : segmentQueues) {
+        if (segmentQueue == null) continue;
+        for (int i = segmentQueue.maxSize; i > 0; --i) {
+          SortDoc s = segmentQueue.pop();
+          if (s.docId > -1 && top.lessThan(s)) {
+            top.setValues(s);
+            top = queue.updateTop();
+          }
+          s.reset();
+        }
+      }
+
+      int outDocsIndex = -1;
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        SortDoc s = queue.pop();
+        if (s.docId > -1) {
+          ++outDocsIndex;
+          outOrds[outDocsIndex] = s.ord;
+          outDocIds[outDocsIndex] = s.docId;
+          // remove the document from the next passes; the writer does this in the sequential mode
+          sets[s.ord].clear(s.docId);
+        }
+        s.reset();
+      }
+      if (outDocsIndex < 0) {
+        break;
+      }
+      count += (outDocsIndex + 1);
+
+      // read the fields of the batch in chunks, in the order the documents are written
+      for (int end = outDocsIndex; end >= 0; end -= CHUNK_SIZE) {
+        final int start = Math.max(-1, end - CHUNK_SIZE);
+        final int length = end - start;
+        final int[] ords = new int[length];
+        final int[] docIds = new int[length];
+        for (int i = 0; i < length; i++) {
+          ords[i] = outOrds[end - i];
+          docIds[i] = outDocIds[end - i];
+        }
+        Future<List<BufferedDoc>> chunk = submit(permits, () -> cancelled.get() ? null : materialize(searcher, leaves, ords, docIds));
+        if (!offer(chunks, chunk, cancelled)) {
+          return;
+        }
+      }
+    }
+    offer(chunks, CompletableFuture.completedFuture(null), cancelled);
+  }
+
+  private void selectTopDocs(LeafReaderContext context, FixedBitSet set, SortDoc sortDoc, SortQueue queue) throws IOException {
+    queue.reset();
+    SortDoc top = queue.top();
+    sortDoc.setNextReader(context);
+    DocIdSetIterator it = new BitSetIterator(set, 0); // cost is not useful here
+    int docId;
+    while ((docId = it.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+      sortDoc.setValues(docId);
+      if (top.lessThan(sortDoc)) {
+        top.setValues(sortDoc);
+        top = queue.updateTop();
+      }
+    }
+  }
+
+  private List<BufferedDoc> materialize(SolrIndexSearcher searcher, List<LeafReaderContext> leaves,
+                                        int[] ords, int[] docIds) throws IOException {
+    // field writers keep scratch state, so every task uses its own
+    FieldWriter[] writers = getFieldWriters(fields, searcher);
+    List<BufferedDoc> docs = new ArrayList<>(ords.length);
+    for (int i = 0; i < ords.length; i++) {
+      BufferedDoc doc = new BufferedDoc(writers.length);
+      LeafReader reader = leaves.get(ords[i]).reader();
+      int fieldIndex = 0;
+      for (FieldWriter fieldWriter : writers) {
+        if (fieldWriter.write(docIds[i], reader, doc, fieldIndex)) {
+          ++fieldIndex;
+        }
+      }
+      docs.add(doc);
+    }
+    return docs;
+  }
+
+  /**
+   * The field values of a document, read ahead of time by a worker thread and replayed
+   * by the response writer.
+   */
+  static class BufferedDoc implements MapWriter, EntryWriter {
+    private final List<Object> entries;  // alternating keys and values
+
+    BufferedDoc(int numFields) {
+      entries = new ArrayList<>(2 * numFields);
+    }
+
+    @Override
+    public EntryWriter put(String k, Object v) throws IOException {
+      if (v instanceof IteratorWriter) {
+        // multi-valued fields are written lazily; read their values now
+        List<Object> values = new ArrayList<>();
+        ((IteratorWriter) v).writeIter(new IteratorWriter.ItemWriter() {
+          @Override
+          public IteratorWriter.ItemWriter add(Object o) {
+            values.add(o);
+            return this;
+          }
+        });
+        v = (IteratorWriter) w -> {
+          for (Object o : values) {
+            w.add(o);
+          }
+        };
+      }
+      entries.add(k);
+      entries.add(v);
+      return this;
+    }
+
+    @Override
+    public void writeMap(EntryWriter ew) throws IOException {
+      for (int i = 0; i < entries.size(); i += 2) {
+        ew.put((String) entries.get(i), entries.get(i + 1));
+      }
     }
   }
 
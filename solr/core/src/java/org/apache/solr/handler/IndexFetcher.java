@@ -45,6 +45,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -97,6 +99,7 @@ import org.apache.solr.util.FileUtils;
 import org.apache.solr.util.PropertiesOutputStream;
 import org.apache.solr.util.RTimer;
 import org.apache.solr.util.RefCounted;
+import org.apache.solr.util.TestInjection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -141,11 +144,8 @@ public class IndexFetcher {
 
   private volatile List<Map<String, Object>> tlogFilesDownloaded;
 
-  private volatile Map<String, Object> currentFile;
-
-  private volatile DirectoryFileFetcher dirFileFetcher;
-
-  private volatile LocalFsFileFetcher localFileFetcher;
+  // the file fetchers that are currently running, several of them when index files are fetched in parallel
+  private final Set<FileFetcher> activeFetchers = ConcurrentHashMap.newKeySet();
 
   private volatile ExecutorService fsyncService;
 
@@ -157,6 +157,8 @@ public class IndexFetcher {
 
   private boolean fetchFromLeader = false;
 
+  private int fetchThreads = 1;
+
   private final HttpClient myHttpClient;
 
   private Integer connTimeout;
@@ -239,6 +241,14 @@ public class IndexFetcher {
     useInternalCompression = INTERNAL.equals(compress);
     useExternalCompression = EXTERNAL.equals(compress);
     connTimeout = getParameter(initArgs, HttpClientUtil.PROP_CONNECTION_TIMEOUT, 30000, null);
+    Object fetchThreads = initArgs.get(FETCH_THREADS);
+    if (fetchThreads != null) {
+      this.fetchThreads = Integer.parseInt(fetchThreads.toString());
+      if (this.fetchThreads < 1) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+            "'" + FETCH_THREADS + "' must be at least 1, got " + this.fetchThreads);
+      }
+    }
     
     // allow a master override for tests - you specify this in /replication slave section of solrconfig and some 
     // test don't want to define this
@@ -665,8 +675,6 @@ public class IndexFetcher {
 
       filesToDownload = filesDownloaded = confFilesDownloaded = confFilesToDownload = tlogFilesToDownload = tlogFilesDownloaded = null;
       markReplicationStop();
-      dirFileFetcher = null;
-      localFileFetcher = null;
       if (fsyncService != null && !fsyncService.isShutdown()) fsyncService.shutdown();
       fsyncService = null;
       stop = false;
@@ -813,12 +821,9 @@ public class IndexFetcher {
       bytesDownloaded += (Long) file.get(SIZE);
     }
 
-    //get size from current file being downloaded
-    Map<String, Object> currentFile = getCurrentFile();
-    if (currentFile != null) {
-      if (currentFile.containsKey("bytesDownloaded")) {
-        bytesDownloaded += (Long) currentFile.get("bytesDownloaded");
-      }
+    //get size from the files being downloaded
+    for (Map<String, Object> currentFile : getCurrentFiles()) {
+      bytesDownloaded += (Long) currentFile.get("bytesDownloaded");
     }
     return bytesDownloaded;
   }
@@ -901,8 +906,7 @@ public class IndexFetcher {
       }
       for (Map<String, Object> file : confFilesToDownload) {
         String saveAs = (String) (file.get(ALIAS) == null ? file.get(NAME) : file.get(ALIAS));
-        localFileFetcher = new LocalFsFileFetcher(tmpconfDir, file, saveAs, CONF_FILE_SHORT, latestGeneration);
-        currentFile = file;
+        LocalFsFileFetcher localFileFetcher = new LocalFsFileFetcher(tmpconfDir, file, saveAs, CONF_FILE_SHORT, latestGeneration);
         localFileFetcher.fetchFile();
         confFilesDownloaded.add(new HashMap<>(file));
       }
@@ -930,8 +934,7 @@ public class IndexFetcher {
     }
     for (Map<String, Object> file : tlogFilesToDownload) {
       String saveAs = (String) (file.get(ALIAS) == null ? file.get(NAME) : file.get(ALIAS));
-      localFileFetcher = new LocalFsFileFetcher(tmpTlogDir, file, saveAs, TLOG_FILE, latestGeneration);
-      currentFile = file;
+      LocalFsFileFetcher localFileFetcher = new LocalFsFileFetcher(tmpTlogDir, file, saveAs, TLOG_FILE, latestGeneration);
       localFileFetcher.fetchFile();
       bytesDownloaded += localFileFetcher.getBytesDownloaded();
       tlogFilesDownloaded.add(new HashMap<>(file));
@@ -954,7 +957,7 @@ public class IndexFetcher {
     if (LOG.isDebugEnabled()) {
       LOG.debug("Download files to dir: " + Arrays.asList(indexDir.listAll()));
     }
-    long bytesDownloaded = 0;
+    List<Map<String,Object>> filesToFetch = new ArrayList<>();
     for (Map<String,Object> file : filesToDownload) {
       String filename = (String) file.get(NAME);
       long size = (Long) file.get(SIZE);
@@ -962,20 +965,77 @@ public class IndexFetcher {
       boolean alwaysDownload = filesToAlwaysDownloadIfNoChecksums(filename, size, compareResult);
       LOG.debug("Downloading file={} size={} checksum={} alwaysDownload={}", filename, size, file.get(CHECKSUM), alwaysDownload);
       if (!compareResult.equal || downloadCompleteIndex || alwaysDownload) {
-        dirFileFetcher = new DirectoryFileFetcher(tmpIndexDir, file,
-            (String) file.get(NAME), FILE, latestGeneration);
-        currentFile = file;
-        dirFileFetcher.fetchFile();
-        bytesDownloaded += dirFileFetcher.getBytesDownloaded();
-        filesDownloaded.add(new HashMap<>(file));
+        filesToFetch.add(file);
       } else {
         LOG.info("Skipping download for " + file.get(NAME)
             + " because it already exists");
       }
     }
+
+    long bytesDownloaded = 0;
+    if (fetchThreads == 1 || filesToFetch.size() <= 1) {
+      for (Map<String,Object> file : filesToFetch) {
+        bytesDownloaded += downloadIndexFile(tmpIndexDir, file, latestGeneration);
+      }
+      return bytesDownloaded;
+    }
+
+    // start with the largest files so that a large segment file is not the last one to be fetched
+    filesToFetch.sort((f1, f2) -> Long.compare((Long) f2.get(SIZE), (Long) f1.get(SIZE)));
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(Math.min(fetchThreads, filesToFetch.size()),
+        new DefaultSolrThreadFactory("indexFileFetcher"));
+    try {
+      List<Future<Long>> futures = new ArrayList<>(filesToFetch.size());
+      for (Map<String,Object> file : filesToFetch) {
+        futures.add(executor.submit(() -> downloadIndexFile(tmpIndexDir, file, latestGeneration)));
+      }
+      Exception failure = null;
+      for (Future<Long> future : futures) {
+        try {
+          bytesDownloaded += future.get();
+        } catch (CancellationException e) {
+          // not started because another file failed
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            for (Future<Long> f : futures) {
+              f.cancel(false);
+            }
+          }
+        } catch (InterruptedException e) {
+          // stop the running fetchers
+          abortFetch();
+          for (Future<Long> f : futures) {
+            f.cancel(false);
+          }
+          throw e;
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
     return bytesDownloaded;
   }
-  
+
+  private long downloadIndexFile(Directory tmpIndexDir, Map<String,Object> file, long latestGeneration) throws Exception {
+    DirectoryFileFetcher fetcher = new DirectoryFileFetcher(tmpIndexDir, file,
+        (String) file.get(NAME), FILE, latestGeneration);
+    long startNanos = System.nanoTime();
+    fetcher.fetchFile();
+    long timeTakenNanos = System.nanoTime() - startNanos;
+    replicationHandler.fileFetchTimes.update(timeTakenNanos, TimeUnit.NANOSECONDS);
+
+    Map<String,Object> downloaded = new HashMap<>(file);
+    long timeTakenMs = TimeUnit.NANOSECONDS.toMillis(timeTakenNanos);
+    downloaded.put(DOWNLOAD_TIME, timeTakenMs);
+    downloaded.put(DOWNLOAD_SPEED, fetcher.getBytesDownloaded() * 1000 / Math.max(1, timeTakenMs));
+    filesDownloaded.add(downloaded);
+    return fetcher.getBytesDownloaded();
+  }
+
   static boolean filesToAlwaysDownloadIfNoChecksums(String filename,
       long size, CompareResult compareResult) {
     // without checksums to compare, we always download .si, .liv, segments_N,
@@ -1350,6 +1410,9 @@ public class IndexFetcher {
    */
   void abortFetch() {
     stop = true;
+    for (FileFetcher fetcher : activeFetchers) {
+      fetcher.abort();
+    }
   }
 
   @SuppressForbidden(reason = "Need currentTimeMillis for debugging/stats")
@@ -1413,16 +1476,25 @@ public class IndexFetcher {
     return tmp == null ? Collections.EMPTY_LIST : new ArrayList<>(tmp);
   }
 
-  // TODO: currently does not reflect conf files
+  /**
+   * Returns one of the files that are being downloaded, or null if there is none.
+   */
   Map<String, Object> getCurrentFile() {
-    Map<String, Object> tmp = currentFile;
-    DirectoryFileFetcher tmpFileFetcher = dirFileFetcher;
-    if (tmp == null)
-      return null;
-    tmp = new HashMap<>(tmp);
-    if (tmpFileFetcher != null)
-      tmp.put("bytesDownloaded", tmpFileFetcher.getBytesDownloaded());
-    return tmp;
+    List<Map<String, Object>> currentFiles = getCurrentFiles();
+    return currentFiles.isEmpty() ? null : currentFiles.get(0);
+  }
+
+  /**
+   * Returns the files that are being downloaded along with the number of bytes downloaded so far.
+   */
+  List<Map<String, Object>> getCurrentFiles() {
+    List<Map<String, Object>> currentFiles = new ArrayList<>();
+    for (FileFetcher fetcher : activeFetchers) {
+      Map<String, Object> file = new HashMap<>(fetcher.fileDetails);
+      file.put("bytesDownloaded", fetcher.getBytesDownloaded());
+      currentFiles.add(file);
+    }
+    return currentFiles;
   }
 
   private static class ReplicationHandlerException extends InterruptedException {
@@ -1445,6 +1517,7 @@ public class IndexFetcher {
    */
   private class FileFetcher {
     private final FileInterface file;
+    private final Map<String, Object> fileDetails;
     private boolean includeChecksum = true;
     private final String fileName;
     private final String saveAs;
@@ -1452,15 +1525,17 @@ public class IndexFetcher {
     private final Long indexGen;
 
     private final long size;
-    private long bytesDownloaded = 0;
+    private volatile long bytesDownloaded = 0;
+    private volatile FastInputStream stream;
     private byte[] buf = new byte[1024 * 1024];
     private final Checksum checksum;
     private int errorCount = 0;
-    private boolean aborted = false;
+    private volatile boolean aborted = false;
 
     FileFetcher(FileInterface file, Map<String, Object> fileDetails, String saveAs,
                 String solrParamOutput, long latestGen) throws IOException {
       this.file = file;
+      this.fileDetails = fileDetails;
       this.fileName = (String) fileDetails.get(NAME);
       this.size = (Long) fileDetails.get(SIZE);
       this.solrParamOutput = solrParamOutput;
@@ -1477,42 +1552,46 @@ public class IndexFetcher {
       return bytesDownloaded;
     }
 
+    /**
+     * Stops the download, closing the stream of a packet that is being read.
+     */
+    void abort() {
+      aborted = true;
+      IOUtils.closeQuietly(stream);
+    }
+
     /**
      * The main method which downloads file
      */
     public void fetchFile() throws Exception {
       bytesDownloaded = 0;
-      try {
-        fetch();
-      } catch(Exception e) {
-        if (!aborted) {
-          SolrException.log(IndexFetcher.LOG, "Error fetching file, doing one retry...", e);
-          // one retry
-          fetch();
-        } else {
-          throw e;
-        }
+      activeFetchers.add(this);
+      if (stop) {
+        // the fetch was aborted before this fetcher was registered
+        abort();
       }
-    }
-    
-    private void fetch() throws Exception {
       try {
+        boolean retried = false;
         while (true) {
-          final FastInputStream is = getStream();
-          int result;
+          long resumeFrom = bytesDownloaded;
           try {
-            //fetch packets one by one in a single request
-            result = fetchPackets(is);
-            if (result == 0 || result == NO_CONTENT) {
-
-              return;
+            fetch();
+            return;
+          } catch (Exception e) {
+            // the file is kept open on failure, so a retry resumes from the last packet that was written
+            // instead of starting over. Keep resuming as long as the previous attempt made progress, and
+            // do one retry otherwise.
+            if (aborted || (retried && bytesDownloaded == resumeFrom)) {
+              throw e;
             }
-            //if there is an error continue. But continue from the point where it got broken
-          } finally {
-            IOUtils.closeQuietly(is);
+            retried = true;
+            errorCount = 0;
+            SolrException.log(IndexFetcher.LOG, "Error fetching file " + fileName + ", resuming at byte "
+                + bytesDownloaded + " of " + size + "...", e);
           }
         }
       } finally {
+        activeFetchers.remove(this);
         cleanup();
         //if cleanup succeeds . The file is downloaded fully. do an fsync
         fsyncService.submit(() -> {
@@ -1525,14 +1604,38 @@ public class IndexFetcher {
       }
     }
 
+    private void fetch() throws Exception {
+      while (true) {
+        if (aborted) {
+          throw new ReplicationHandlerException("User aborted replication");
+        }
+        final FastInputStream is = getStream();
+        stream = is;
+        if (aborted) {
+          // abort() may have missed the new stream
+          IOUtils.closeQuietly(is);
+        }
+        int result;
+        try {
+          //fetch packets one by one in a single request
+          result = fetchPackets(is);
+          if (result == 0 || result == NO_CONTENT) {
+
+            return;
+          }
+          //if there is an error continue. But continue from the point where it got broken
+        } finally {
+          IOUtils.closeQuietly(is);
+        }
+      }
+    }
+
     private int fetchPackets(FastInputStream fis) throws Exception {
       byte[] intbytes = new byte[4];
       byte[] longbytes = new byte[8];
       try {
         while (true) {
-          if (stop) {
-            stop = false;
-            aborted = true;
+          if (aborted) {
             throw new ReplicationHandlerException("User aborted replication");
           }
           long checkSumServer = -1;
@@ -1566,15 +1669,21 @@ public class IndexFetcher {
           //if everything is fine, write down the packet to the file
           file.write(buf, packetSize);
           bytesDownloaded += packetSize;
+          replicationHandler.fetchedBytes.mark(packetSize);
           LOG.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
           if (bytesDownloaded >= size)
             return 0;
           //errorCount is always set to zero after a successful packet
           errorCount = 0;
+          assert TestInjection.injectFailIndexFetchPacket();
         }
       } catch (ReplicationHandlerException e) {
         throw e;
       } catch (Exception e) {
+        if (aborted) {
+          // abort() closed the stream
+          throw new ReplicationHandlerException("User aborted replication");
+        }
         LOG.warn("Error in fetching file: {} (downloaded {} of {} bytes)",
             fileName, bytesDownloaded, size, e);
         //for any failure, increment the error count
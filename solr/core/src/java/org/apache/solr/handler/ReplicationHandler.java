@@ -55,6 +55,8 @@ import java.util.zip.Adler32;
 import java.util.zip.Checksum;
 import java.util.zip.DeflaterOutputStream;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.commons.io.IOUtils;
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.index.DirectoryReader;
@@ -399,6 +401,10 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   private volatile IndexFetcher currentIndexFetcher;
 
+  // updated by the index fetchers of this handler
+  Timer fileFetchTimes = new Timer();
+  Meter fetchedBytes = new Meter();
+
   public IndexFetchResult doFetch(SolrParams solrParams, boolean forceReplication) {
     String masterUrl = solrParams == null ? null : solrParams.get(MASTER_URL);
     if (!indexFetchLock.tryLock())
@@ -872,6 +878,8 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         "isMaster", getCategory().toString(), scope);
     manager.registerGauge(this, registry, () -> isSlave, true,
         "isSlave", getCategory().toString(), scope);
+    fileFetchTimes = manager.timer(this, registry, "fileFetchTimes", getCategory().toString(), scope);
+    fetchedBytes = manager.meter(this, registry, "fetchedBytes", getCategory().toString(), scope);
     final MetricsMap fetcherMap = new MetricsMap((detailed, map) -> {
       IndexFetcher fetcher = currentIndexFetcher;
       if (fetcher != null) {
@@ -1001,9 +1009,18 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
           long bytesDownloaded = 0;
           List<String> filesDownloaded = new ArrayList<>();
+          List<NamedList<Object>> filesDownloadedStats = new ArrayList<>();
           for (Map<String, Object> file : fetcher.getFilesDownloaded()) {
             filesDownloaded.add((String) file.get(NAME));
             bytesDownloaded += (Long) file.get(SIZE);
+            if (file.containsKey(DOWNLOAD_TIME)) {
+              NamedList<Object> stats = new SimpleOrderedMap<>();
+              stats.add(NAME, file.get(NAME));
+              stats.add(SIZE, NumberUtils.readableSize((Long) file.get(SIZE)));
+              stats.add(DOWNLOAD_TIME, file.get(DOWNLOAD_TIME));
+              stats.add(DOWNLOAD_SPEED, NumberUtils.readableSize((Long) file.get(DOWNLOAD_SPEED)));
+              filesDownloadedStats.add(stats);
+            }
           }
 
           //get list of conf files downloaded
@@ -1028,6 +1045,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
           }
           slave.add("filesDownloaded", filesDownloaded);
           slave.add("numFilesDownloaded", String.valueOf(filesDownloaded.size()));
+          slave.add("filesDownloadedStats", filesDownloadedStats);
 
           long estimatedTimeRemaining = 0;
 
@@ -1777,6 +1795,12 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   public static final String MAX_WRITE_PER_SECOND = "maxWriteMBPerSec";
 
+  public static final String FETCH_THREADS = "fetchThreads";
+
+  static final String DOWNLOAD_TIME = "downloadTimeMs";
+
+  static final String DOWNLOAD_SPEED = "downloadSpeed";
+
   public static final String CONF_FILE_SHORT = "cf";
 
   public static final String TLOG_FILE = "tlogFile";
@@ -16,6 +16,7 @@
  */
 package org.apache.solr.handler.component;
 
+import com.codahale.metrics.Meter;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -51,6 +52,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
@@ -59,7 +61,10 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -107,6 +112,22 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
 
   private final ReplicaListTransformer shufflingReplicaListTransformer = new ShufflingReplicaListTransformer(r);
 
+  boolean latencyAwareReplicaSelection = false;
+  boolean hedgeShardRequests = false;
+  double hedgeDelayPercentile = 95;
+  long minHedgeDelay = 10;
+  int maxHedgeThreads = 64;
+
+  // only set when latency aware replica selection or hedging is enabled
+  private ReplicaLatencyTracker latencyTracker;
+  private ReplicaListTransformer latencyAwareReplicaListTransformer;
+
+  // only set when hedging is enabled. Hedged requests do not run on the commExecutor, whose tasks wait
+  // for them, so that they cannot take more than maxHedgeThreads threads
+  private ExecutorService hedgeExecutor;
+
+  private Meter hedgedRequests = new Meter();
+
   // URL scheme to be used in distributed search.
   static final String INIT_URL_SCHEME = "urlScheme";
 
@@ -125,6 +146,21 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
   // Configure if the threadpool favours fairness over throughput
   static final String INIT_FAIRNESS_POLICY = "fairnessPolicy";
 
+  // Prefer the replicas that recently answered fastest and have the fewest outstanding requests
+  static final String INIT_LATENCY_AWARE_REPLICA_SELECTION = "latencyAwareReplicaSelection";
+
+  // Send a shard request to a second replica as well if the first one does not answer in time
+  static final String INIT_HEDGE_SHARD_REQUESTS = "hedgeShardRequests";
+
+  // The percentile of recent shard response times after which a shard request is hedged
+  static final String INIT_HEDGE_DELAY_PERCENTILE = "hedgeDelayPercentile";
+
+  // The minimum time in ms to wait before hedging a shard request
+  static final String INIT_MIN_HEDGE_DELAY = "minHedgeDelay";
+
+  // The maximum number of threads sending hedged shard requests, requests are not hedged when all are busy
+  static final String INIT_MAX_HEDGE_THREADS = "maxHedgeThreads";
+
   /**
    * Get {@link ShardHandler} that uses the default http client.
    */
@@ -165,6 +201,11 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
     this.keepAliveTime = getParameter(args, MAX_THREAD_IDLE_TIME, keepAliveTime,sb);
     this.queueSize = getParameter(args, INIT_SIZE_OF_QUEUE, queueSize,sb);
     this.accessPolicy = getParameter(args, INIT_FAIRNESS_POLICY, accessPolicy,sb);
+    this.latencyAwareReplicaSelection = getParameter(args, INIT_LATENCY_AWARE_REPLICA_SELECTION, latencyAwareReplicaSelection, sb);
+    this.hedgeShardRequests = getParameter(args, INIT_HEDGE_SHARD_REQUESTS, hedgeShardRequests, sb);
+    this.hedgeDelayPercentile = getParameter(args, INIT_HEDGE_DELAY_PERCENTILE, (Number) hedgeDelayPercentile, sb).doubleValue();
+    this.minHedgeDelay = getParameter(args, INIT_MIN_HEDGE_DELAY, (Number) minHedgeDelay, sb).longValue();
+    this.maxHedgeThreads = getParameter(args, INIT_MAX_HEDGE_THREADS, maxHedgeThreads, sb);
     log.debug("created with {}",sb);
     
     // magic sysprop to make tests reproducible: set by SolrTestCaseJ4.
@@ -173,6 +214,22 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
       r.setSeed(Long.parseLong(v));
     }
 
+    if (latencyAwareReplicaSelection || hedgeShardRequests) {
+      this.latencyTracker = new ReplicaLatencyTracker(hedgeDelayPercentile, minHedgeDelay);
+      if (latencyAwareReplicaSelection) {
+        this.latencyAwareReplicaListTransformer = new LatencyAwareReplicaListTransformer(r, latencyTracker);
+      }
+    }
+    if (hedgeShardRequests) {
+      this.hedgeExecutor = new ExecutorUtil.MDCAwareThreadPoolExecutor(
+          0,
+          this.maxHedgeThreads,
+          this.keepAliveTime, TimeUnit.SECONDS,
+          new SynchronousQueue<Runnable>(),  // directly hand off tasks, or reject them when all threads are busy
+          new DefaultSolrThreadFactory("httpShardHedgeExecutor")
+      );
+    }
+
     BlockingQueue<Runnable> blockingQueue = (this.queueSize == -1) ?
         new SynchronousQueue<Runnable>(this.accessPolicy) :
         new ArrayBlockingQueue<Runnable>(this.queueSize, this.accessPolicy);
@@ -227,6 +284,9 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
   public void close() {
     try {
       ExecutorUtil.shutdownAndAwaitTermination(commExecutor);
+      if (hedgeExecutor != null) {
+        ExecutorUtil.shutdownAndAwaitTermination(hedgeExecutor);
+      }
     } finally {
       try {
         if (loadbalancer != null) {
@@ -252,7 +312,103 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
    */
   public LBHttpSolrClient.Rsp makeLoadBalancedRequest(final QueryRequest req, List<String> urls)
     throws SolrServerException, IOException {
-    return loadbalancer.request(new LBHttpSolrClient.Req(req, urls));
+    if (latencyTracker == null) {
+      return loadbalancer.request(new LBHttpSolrClient.Req(req, urls));
+    }
+    if (hedgeShardRequests && urls.size() > 1) {
+      long hedgeDelay = latencyTracker.getHedgeDelayMs();
+      if (hedgeDelay >= 0) {
+        return makeHedgedRequest(req, urls, hedgeDelay);
+      }
+    }
+    return makeTrackedRequest(req, urls);
+  }
+
+  private LBHttpSolrClient.Rsp makeTrackedRequest(final QueryRequest req, List<String> urls)
+    throws SolrServerException, IOException {
+    // the load balancer tries the first url first
+    String url = urls.get(0);
+    latencyTracker.requestStarted(url);
+    long startTime = System.nanoTime();
+    try {
+      LBHttpSolrClient.Rsp rsp = loadbalancer.request(new LBHttpSolrClient.Req(req, urls));
+      long elapsed = System.nanoTime() - startTime;
+      latencyTracker.recordLatency(rsp.getServer(), elapsed);
+      if (!url.equals(rsp.getServer())) {
+        // the first replica failed, count the time it cost against it
+        latencyTracker.recordLatency(url, elapsed);
+      }
+      return rsp;
+    } catch (SolrServerException | IOException | RuntimeException e) {
+      if (Thread.currentThread().isInterrupted() == false) {
+        // a hedged request that lost the race is interrupted, which says nothing about the replica
+        latencyTracker.recordLatency(url, System.nanoTime() - startTime);
+      }
+      throw e;
+    } finally {
+      latencyTracker.requestFinished(url);
+    }
+  }
+
+  /**
+   * Sends the request to the first replica, and if it does not answer within the hedge delay, to the next
+   * replica as well. The first successful response is returned and the other request is cancelled. Both
+   * requests run on the hedge executor; when it has no idle thread, the request is not hedged.
+   */
+  private LBHttpSolrClient.Rsp makeHedgedRequest(final QueryRequest req, List<String> urls, long hedgeDelay)
+    throws SolrServerException, IOException {
+    List<String> hedgeUrls = new ArrayList<>(urls.size());
+    hedgeUrls.addAll(urls.subList(1, urls.size()));
+    hedgeUrls.add(urls.get(0));
+
+    CompletionService<LBHttpSolrClient.Rsp> completionService = new ExecutorCompletionService<>(hedgeExecutor);
+    List<Future<LBHttpSolrClient.Rsp>> futures = new ArrayList<>(2);
+    try {
+      futures.add(completionService.submit(() -> makeTrackedRequest(req, urls)));
+    } catch (RejectedExecutionException e) {
+      return makeTrackedRequest(req, urls);
+    }
+    try {
+      Future<LBHttpSolrClient.Rsp> done = completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+      if (done == null) {
+        try {
+          futures.add(completionService.submit(() -> makeTrackedRequest(req, hedgeUrls)));
+          hedgedRequests.mark();
+        } catch (RejectedExecutionException e) {
+          // no thread to hedge with, wait for the first request
+        }
+      }
+      Throwable failure = null;
+      for (int i = 0; i < futures.size(); i++) {
+        if (done == null) {
+          done = completionService.take();
+        }
+        try {
+          return done.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+        done = null;
+      }
+      if (failure instanceof SolrServerException) {
+        throw (SolrServerException) failure;
+      } else if (failure instanceof IOException) {
+        throw (IOException) failure;
+      } else if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      throw new SolrServerException(failure);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrServerException("Interrupted while waiting for a hedged shard request", e);
+    } finally {
+      // cancel the request that lost the race, which frees its hedge thread as soon as it blocks interruptibly
+      for (Future<LBHttpSolrClient.Rsp> future : futures) {
+        future.cancel(true);
+      }
+    }
   }
 
   /**
@@ -346,9 +502,21 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
       }
     }
 
+    if (latencyAwareReplicaListTransformer != null) {
+      return latencyAwareReplicaListTransformer;
+    }
+
     return shufflingReplicaListTransformer;
   }
 
+  /**
+   * Returns the tracker of replica response times, or null if neither latency aware replica selection
+   * nor hedging is enabled.
+   */
+  public ReplicaLatencyTracker getReplicaLatencyTracker() {
+    return latencyTracker;
+  }
+
   /**
    * Creates a new completion service for use by a single set of distributed requests.
    */
@@ -376,6 +544,7 @@ public class HttpShardHandlerFactory extends ShardHandlerFactory implements org.
     String expandedScope = SolrMetricManager.mkName(scope, SolrInfoBean.Category.QUERY.name());
     clientConnectionManager.initializeMetrics(manager, registry, expandedScope);
     httpRequestExecutor.initializeMetrics(manager, registry, expandedScope);
+    hedgedRequests = manager.meter(null, registry, "hedgedRequests", expandedScope);
     commExecutor = MetricUtils.instrumentedExecutorService(commExecutor, null,
         manager.registry(registry),
         SolrMetricManager.mkName("httpShardExecutor", expandedScope, "threadPool"));
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Orders replicas by their {@link ReplicaLatencyTracker} score, fastest first. Replicas with equal scores,
+ * e.g. replicas that have no recent samples, are shuffled.
+ */
+class LatencyAwareReplicaListTransformer implements ReplicaListTransformer {
+
+  private final Random r;
+  private final ReplicaLatencyTracker tracker;
+
+  public LatencyAwareReplicaListTransformer(Random r, ReplicaLatencyTracker tracker)
+  {
+    this.r = r;
+    this.tracker = tracker;
+  }
+
+  public void transform(List<?> choices)
+  {
+    if (choices.size() > 1) {
+      Collections.shuffle(choices, r);
+      sortByScore(choices);
+    }
+  }
+
+  // scores change concurrently, so they are read once up front rather than in a comparator
+  private <T> void sortByScore(List<T> choices) {
+    final int size = choices.size();
+    final double[] scores = new double[size];
+    for (int i = 0; i < size; i++) {
+      scores[i] = tracker.getScore(choices.get(i));
+    }
+    // stable insertion sort, there are only a few replicas per shard
+    for (int i = 1; i < size; i++) {
+      final T choice = choices.get(i);
+      final double score = scores[i];
+      int j = i - 1;
+      for (; j >= 0 && scores[j] > score; j--) {
+        scores[j + 1] = scores[j];
+        choices.set(j + 1, choices.get(j));
+      }
+      scores[j + 1] = score;
+      choices.set(j + 1, choice);
+    }
+  }
+
+}
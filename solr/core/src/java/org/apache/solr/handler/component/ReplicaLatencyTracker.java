@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.ZkCoreNodeProps;
+import org.apache.solr.common.util.URLUtil;
+
+/**
+ * Keeps track of how fast each replica answers shard requests. The score of a replica is an exponentially
+ * weighted moving average of its response times, scaled by the number of requests it currently has
+ * outstanding. Replicas without recent samples score 0, so that they are tried again.
+ *
+ * The response times of all replicas also feed a histogram, which {@link HttpShardHandlerFactory} uses
+ * to decide how long to wait before hedging a shard request to another replica.
+ */
+public class ReplicaLatencyTracker {
+
+  // weight of a new sample in the moving average
+  static final double ALPHA = 0.3;
+
+  // samples older than this no longer count, so that a replica that was slow gets another chance
+  static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  // don't hedge before there are enough samples to know what a slow response is
+  static final int MIN_HEDGE_SAMPLES = 100;
+
+  private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final ConcurrentMap<String,ReplicaStats> stats = new ConcurrentHashMap<>();
+  private final Histogram latencies = new Histogram(new ExponentiallyDecayingReservoir());
+  private final double hedgeQuantile;
+  private final long minHedgeDelayMs;
+
+  private volatile long hedgeDelayMs = -1;
+  private volatile long hedgeDelayRefreshed;
+
+  /**
+   * @param hedgePercentile the percentile of response times after which a request is hedged
+   * @param minHedgeDelayMs the minimum time to wait before hedging a request
+   */
+  public ReplicaLatencyTracker(double hedgePercentile, long minHedgeDelayMs) {
+    if (hedgePercentile <= 0 || hedgePercentile >= 100) {
+      throw new IllegalArgumentException("hedgePercentile must be between 0 and 100, got " + hedgePercentile);
+    }
+    this.hedgeQuantile = hedgePercentile / 100;
+    this.minHedgeDelayMs = minHedgeDelayMs;
+  }
+
+  private static class ReplicaStats {
+    final AtomicInteger outstanding = new AtomicInteger();
+    double averageMs;
+    long lastUpdated;
+
+    synchronized void update(double elapsedMs, long now) {
+      if (lastUpdated == 0 || now - lastUpdated > STALE_NANOS) {
+        averageMs = elapsedMs;
+      } else {
+        averageMs = ALPHA * elapsedMs + (1 - ALPHA) * averageMs;
+      }
+      lastUpdated = now;
+    }
+
+    synchronized double getAverageMs(long now) {
+      return lastUpdated == 0 || now - lastUpdated > STALE_NANOS ? 0 : averageMs;
+    }
+  }
+
+  private ReplicaStats getStats(String url) {
+    return stats.computeIfAbsent(key(url), k -> new ReplicaStats());
+  }
+
+  /** Records that a request to the replica at the given url was started. */
+  public void requestStarted(String url) {
+    getStats(url).outstanding.incrementAndGet();
+  }
+
+  /** Records that a request started with {@link #requestStarted(String)} is done. */
+  public void requestFinished(String url) {
+    getStats(url).outstanding.decrementAndGet();
+  }
+
+  /** Records the time taken by a request to the replica at the given url. */
+  public void recordLatency(String url, long elapsedNanos) {
+    getStats(url).update(elapsedNanos / 1e6, System.nanoTime());
+    latencies.update(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+  }
+
+  /** Returns the score of the replica at the given url, lower is better. */
+  public double getScore(String url) {
+    ReplicaStats replicaStats = stats.get(key(url));
+    if (replicaStats == null) {
+      return 0;
+    }
+    return replicaStats.getAverageMs(System.nanoTime()) * (1 + replicaStats.outstanding.get());
+  }
+
+  /** Returns the score of a replica, which may be given as a {@link Replica} or as its url. */
+  double getScore(Object choice) {
+    if (choice instanceof Replica) {
+      return getScore(ZkCoreNodeProps.getCoreUrl((Replica) choice));
+    } else if (choice instanceof String) {
+      return getScore((String) choice);
+    }
+    return 0;
+  }
+
+  /**
+   * Returns how long to wait for a shard request before sending it to another replica as well, or -1
+   * if there are not enough samples yet.
+   */
+  public long getHedgeDelayMs() {
+    long now = System.nanoTime();
+    if (hedgeDelayMs < 0 ? latencies.getCount() >= MIN_HEDGE_SAMPLES : now - hedgeDelayRefreshed >= HEDGE_DELAY_REFRESH_NANOS) {
+      hedgeDelayRefreshed = now;
+      hedgeDelayMs = Math.max(minHedgeDelayMs, (long) Math.ceil(latencies.getSnapshot().getValue(hedgeQuantile)));
+    }
+    return hedgeDelayMs;
+  }
+
+  // the same replica may be given with or without scheme and trailing slash
+  private static String key(String url) {
+    String key = URLUtil.removeScheme(url);
+    return key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
+  }
+}
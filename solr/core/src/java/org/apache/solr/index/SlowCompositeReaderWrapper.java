@@ -17,7 +17,9 @@
 package org.apache.solr.index;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.lucene.index.*;
@@ -25,6 +27,7 @@ import org.apache.lucene.index.MultiDocValues.MultiSortedDocValues;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.Version;
+import org.apache.lucene.util.packed.PackedInts;
 
 /**
  * This class forces a composite reader (eg a {@link
@@ -127,6 +130,9 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
     OrdinalMap map = null;
     synchronized (cachedOrdMaps) {
       map = cachedOrdMaps.get(field);
+      if (map == null) {
+        map = updateOrdinalMap(field, DocValuesType.SORTED);
+      }
       if (map == null) {
         // uncached, or not a multi dv
         SortedDocValues dv = MultiDocValues.getSortedValues(in, field);
@@ -169,6 +175,9 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
     OrdinalMap map = null;
     synchronized (cachedOrdMaps) {
       map = cachedOrdMaps.get(field);
+      if (map == null) {
+        map = updateOrdinalMap(field, DocValuesType.SORTED_SET);
+      }
       if (map == null) {
         // uncached, or not a multi dv
         SortedSetDocValues dv = MultiDocValues.getSortedSetValues(in, field);
@@ -211,6 +220,111 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
   // but do we really need to optimize slow-wrapper any more?
   final Map<String,OrdinalMap> cachedOrdMaps = new HashMap<>();
 
+  // ordinal maps of a previous view of the index, guarded by cachedOrdMaps
+  private Map<String,PreviousOrdinalMap> previousOrdMaps = Collections.emptyMap();
+
+  /** An ordinal map along with the core keys of the segments it was built on. */
+  private static final class PreviousOrdinalMap {
+    final OrdinalMap map;
+    final IndexReader.CacheKey[] segmentKeys;
+
+    PreviousOrdinalMap(OrdinalMap map, IndexReader.CacheKey[] segmentKeys) {
+      this.map = map;
+      this.segmentKeys = segmentKeys;
+    }
+
+    int indexOf(IndexReader.CacheHelper segmentCacheHelper) {
+      if (segmentCacheHelper != null) {
+        for (int i = 0; i < segmentKeys.length; ++i) {
+          if (segmentKeys[i] == segmentCacheHelper.getKey()) {
+            return i;
+          }
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Allows the ordinal maps of this reader to be built by updating those of
+   * <code>previous</code>, typically the reader of the searcher that this
+   * reader replaces, rather than from scratch. The update only needs to look
+   * up the terms of the segments that are new in this reader, which is much
+   * cheaper on high cardinality fields after a small commit.
+   * This must be called before this reader is used.
+   */
+  public void reuseOrdinalMaps(SlowCompositeReaderWrapper previous) {
+    final Map<String,PreviousOrdinalMap> maps;
+    synchronized (previous.cachedOrdMaps) {
+      maps = new HashMap<>(previous.previousOrdMaps);
+      if (previous.cachedOrdMaps.isEmpty() == false) {
+        // only keep the keys, not the previous reader
+        final List<LeafReaderContext> leaves = previous.in.leaves();
+        final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[leaves.size()];
+        for (int i = 0; i < segmentKeys.length; ++i) {
+          final IndexReader.CacheHelper cacheHelper = leaves.get(i).reader().getCoreCacheHelper();
+          segmentKeys[i] = cacheHelper == null ? null : cacheHelper.getKey();
+        }
+        for (Map.Entry<String,OrdinalMap> entry : previous.cachedOrdMaps.entrySet()) {
+          maps.put(entry.getKey(), new PreviousOrdinalMap(entry.getValue(), segmentKeys));
+        }
+      }
+    }
+    synchronized (cachedOrdMaps) {
+      previousOrdMaps = maps;
+    }
+  }
+
+  /**
+   * Returns an ordinal map for the given field that is built by updating the
+   * previous one, or null if there is none or if a new one would be cheaper to
+   * build. Must be called while holding the lock on cachedOrdMaps.
+   */
+  private OrdinalMap updateOrdinalMap(String field, DocValuesType type) throws IOException {
+    assert Thread.holdsLock(cachedOrdMaps);
+    final PreviousOrdinalMap previous = previousOrdMaps.get(field);
+    final IndexReader.CacheHelper cacheHelper = getReaderCacheHelper();
+    final List<LeafReaderContext> leaves = in.leaves();
+    if (previous == null || cacheHelper == null || leaves.size() < 2) {
+      return null;
+    }
+    final SortedSetDocValues[] values = new SortedSetDocValues[leaves.size()];
+    final int[] previousSegments = new int[leaves.size()];
+    int numRetained = 0;
+    long newValueCount = 0;
+    for (int i = 0; i < values.length; i++) {
+      final LeafReader reader = leaves.get(i).reader();
+      final FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+      if (fieldInfo != null && fieldInfo.getDocValuesType() != type) {
+        return null;
+      }
+      SortedSetDocValues v;
+      if (type == DocValuesType.SORTED) {
+        final SortedDocValues singleValues = reader.getSortedDocValues(field);
+        v = singleValues == null ? null : DocValues.singleton(singleValues);
+      } else {
+        v = reader.getSortedSetDocValues(field);
+      }
+      if (v == null) {
+        v = DocValues.emptySortedSet();
+      }
+      values[i] = v;
+      previousSegments[i] = previous.indexOf(reader.getCoreCacheHelper());
+      if (previousSegments[i] == -1) {
+        newValueCount += v.getValueCount();
+      } else {
+        numRetained++;
+      }
+    }
+    // every new term is looked up in every retained segment
+    if (numRetained == 0 || newValueCount * numRetained > previous.map.getValueCount()) {
+      return null;
+    }
+    final OrdinalMap map = OrdinalMap.build(cacheHelper.getKey(), values, previous.map, previousSegments, PackedInts.DEFAULT);
+    cachedOrdMaps.put(field, map);
+    return map;
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -18,6 +18,7 @@ package org.apache.solr.response;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -59,12 +60,18 @@ import org.apache.solr.search.SolrReturnFields;
 public class DocsStreamer implements Iterator<SolrDocument> {
   public static final Set<Class> KNOWN_TYPES = new HashSet<>();
 
+  /** Number of documents whose stored fields are read together, see {@link SolrDocumentFetcher#doc(int[], Set)} */
+  static final int PREFETCH_SIZE = 32;
+
   private final org.apache.solr.response.ResultContext rctx;
   private final SolrDocumentFetcher docFetcher; // a collaborator of SolrIndexSearcher
   private final DocList docs;
 
   private final DocTransformer transformer;
   private final DocIterator docIterator;
+  private final DocIterator prefetchIterator; // runs ahead of docIterator, to read stored fields in batches
+  private Document[] prefetched;
+  private int prefetchedIdx;
 
   private final Set<String> fnames; // returnFields.getLuceneFieldNames(). Maybe null. Not empty.
   private final boolean onlyPseudoFields;
@@ -77,6 +84,7 @@ public class DocsStreamer implements Iterator<SolrDocument> {
     this.docs = rctx.getDocList();
     transformer = rctx.getReturnFields().getTransformer();
     docIterator = this.docs.iterator();
+    prefetchIterator = this.docs.iterator();
     fnames = rctx.getReturnFields().getLuceneFieldNames();
     //TODO move onlyPseudoFields calc to ReturnFields
     onlyPseudoFields = (fnames == null && !rctx.getReturnFields().wantsAllFields() && !rctx.getReturnFields().hasPatternMatching())
@@ -152,7 +160,7 @@ public class DocsStreamer implements Iterator<SolrDocument> {
       sdoc = new SolrDocument();
     } else {
       try {
-        Document doc = docFetcher.doc(id, fnames);
+        Document doc = nextDocument(id);
         sdoc = convertLuceneDocToSolrDoc(doc, rctx.getSearcher().getSchema()); // make sure to use the schema from the searcher and not the request (cross-core)
 
         // decorate the document with non-stored docValues fields
@@ -176,6 +184,21 @@ public class DocsStreamer implements Iterator<SolrDocument> {
 
   }
 
+  /** Returns the stored fields of {@code id}, the document just returned by {@link #docIterator}. */
+  private Document nextDocument(int id) throws IOException {
+    if (prefetched == null || prefetchedIdx == prefetched.length) {
+      int[] ids = new int[PREFETCH_SIZE];
+      int numIds = 0;
+      while (numIds < ids.length && prefetchIterator.hasNext()) {
+        ids[numIds++] = prefetchIterator.nextDoc();
+      }
+      assert numIds > 0 && ids[0] == id;
+      prefetched = docFetcher.doc(Arrays.copyOf(ids, numIds), fnames);
+      prefetchedIdx = 0;
+    }
+    return prefetched[prefetchedIdx++];
+  }
+
   // TODO move to SolrDocumentFetcher ?  Refactor to also call docFetcher.decorateDocValueFields(...) ?
   public static SolrDocument convertLuceneDocToSolrDoc(Document doc, final IndexSchema schema) {
     SolrDocument out = new SolrDocument();
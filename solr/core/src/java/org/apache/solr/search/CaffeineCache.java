@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.metrics.MetricsMap;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SolrCache based on the Caffeine library, which uses the W-TinyLFU policy: a small LRU window
+ * admits new entries, and an entry only replaces a victim from the main region when a frequency
+ * sketch estimates that it is used more often. One-off lookups, such as those issued by large
+ * scans, therefore do not push frequently used entries out of the cache.
+ * <p>
+ * Reads are lock-free. Eviction is either bounded by the number of entries (<code>size</code>)
+ * or, when <code>maxRamMB</code> is set, by the RAM used by the keys and values, which are
+ * measured through {@link Accountable} when they implement it.
+ * <p>
+ * Autowarming regenerates the entries of the old cache that the policy considers hottest.
+ *
+ * @see org.apache.solr.search.SolrCache
+ */
+public class CaffeineCache<K, V> extends SolrCacheBase implements SolrCache<K,V>, Accountable {
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(CaffeineCache.class);
+
+  private Cache<K,V> cache;
+  private CumulativeStats cumulativeStats;
+
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder inserts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private long warmupTime = 0;
+  private int maxSize;
+  private long maxRamBytes;
+  private int showItems = 0;
+
+  private String description = "Caffeine Cache";
+
+  private MetricsMap cacheMap;
+  private Set<String> metricNames = new HashSet<>();
+  private MetricRegistry registry;
+
+  @Override
+  public Object init(Map args, Object persistence, CacheRegenerator regenerator) {
+    super.init(args, regenerator);
+    String str = (String) args.get("size");
+    maxSize = str == null ? 1024 : Integer.parseInt(str);
+    str = (String) args.get("initialSize");
+    int initialSize = Math.min(str == null ? 1024 : Integer.parseInt(str), maxSize);
+    str = (String) args.get("maxRamMB");
+    maxRamBytes = str == null ? Long.MAX_VALUE : (long) (Double.parseDouble(str) * 1024L * 1024L);
+    str = (String) args.get("cleanupThread");
+    boolean cleanupThread = str != null && Boolean.parseBoolean(str);
+    str = (String) args.get("showItems");
+    showItems = str == null ? 0 : Integer.parseInt(str);
+
+    Caffeine<K,V> builder = Caffeine.newBuilder()
+        .initialCapacity(initialSize)
+        // by default the maintenance work (including eviction) is done by the calling thread,
+        // like FastLRUCache does without a cleanup thread
+        .executor(cleanupThread ? ForkJoinPool.commonPool() : Runnable::run)
+        .removalListener((K key, V value, RemovalCause cause) -> {
+          if (cause.wasEvicted()) {
+            evictions.increment();
+          }
+        });
+    if (maxRamBytes != Long.MAX_VALUE) {
+      builder = builder.maximumWeight(maxRamBytes)
+          .weigher((K key, V value) -> (int) Math.min(Integer.MAX_VALUE, ramBytesUsed(key, value)));
+    } else {
+      builder.maximumSize(maxSize);
+    }
+    cache = builder.build();
+    description = generateDescription(cleanupThread);
+
+    cumulativeStats = (CumulativeStats) persistence;
+    if (cumulativeStats == null) {
+      // must be the first time a cache of this type is being created
+      cumulativeStats = new CumulativeStats();
+    }
+    return cumulativeStats;
+  }
+
+  private String generateDescription(boolean cleanupThread) {
+    StringBuilder sb = new StringBuilder("TinyLFU Cache(");
+    if (maxRamBytes != Long.MAX_VALUE) {
+      sb.append("maxRamMB=").append(maxRamBytes / 1024L / 1024L);
+    } else {
+      sb.append("maxSize=").append(maxSize);
+    }
+    sb.append(", cleanupThread=").append(cleanupThread);
+    if (isAutowarmingOn()) {
+      sb.append(", ").append(getAutowarmDescription());
+    }
+    return sb.append(')').toString();
+  }
+
+  private static long ramBytesUsed(Object key, Object value) {
+    long ramBytes = LRUCache.HASHTABLE_RAM_BYTES_PER_ENTRY;
+    ramBytes += key instanceof Accountable ? ((Accountable) key).ramBytesUsed() : LRUCache.DEFAULT_RAM_BYTES_USED;
+    ramBytes += value instanceof Accountable ? ((Accountable) value).ramBytesUsed() : LRUCache.DEFAULT_RAM_BYTES_USED;
+    return ramBytes;
+  }
+
+  @Override
+  public int size() {
+    return (int) cache.estimatedSize();
+  }
+
+  @Override
+  public V put(K key, V value) {
+    if (getState() == State.LIVE) {
+      inserts.increment();
+    }
+    return cache.asMap().put(key, value);
+  }
+
+  @Override
+  public V get(K key) {
+    V value = cache.getIfPresent(key);
+    if (getState() == State.LIVE) {
+      lookups.increment();
+      if (value != null) {
+        hits.increment();
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  @Override
+  public void warm(SolrIndexSearcher searcher, SolrCache old) {
+    if (regenerator == null) return;
+    long warmingStartTime = System.nanoTime();
+    CaffeineCache<K,V> other = (CaffeineCache<K,V>) old;
+    if (isAutowarmingOn()) {
+      int sz = autowarm.getWarmCount(other.size());
+      Map<K,V> hottest = other.cache.policy().eviction()
+          .map(eviction -> eviction.hottest(sz))
+          .orElse(Collections.emptyMap());
+      // regenerate the hottest entries last, so they are the most recently used ones in the new cache
+      List<Map.Entry<K,V>> entries = new ArrayList<>(hottest.entrySet());
+      for (int i = entries.size() - 1; i >= 0; i--) {
+        Map.Entry<K,V> entry = entries.get(i);
+        try {
+          boolean continueRegen = regenerator.regenerateItem(searcher, this, old, entry.getKey(), entry.getValue());
+          if (!continueRegen) break;
+        }
+        catch (Exception e) {
+          SolrException.log(log, "Error during auto-warming of key:" + entry.getKey(), e);
+        }
+      }
+    }
+    warmupTime = TimeUnit.MILLISECONDS.convert(System.nanoTime() - warmingStartTime, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void close() {
+    cumulativeStats.lookups.add(lookups.sum());
+    cumulativeStats.hits.add(hits.sum());
+    cumulativeStats.inserts.add(inserts.sum());
+    cumulativeStats.evictions.add(evictions.sum());
+    cache.invalidateAll();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long ramBytes = BASE_RAM_BYTES_USED;
+    Policy.Eviction<K,V> eviction = cache.policy().eviction().orElse(null);
+    if (eviction != null && eviction.isWeighted()) {
+      ramBytes += eviction.weightedSize().orElse(0L);
+    } else {
+      for (Map.Entry<K,V> entry : cache.asMap().entrySet()) {
+        ramBytes += ramBytesUsed(entry.getKey(), entry.getValue());
+      }
+    }
+    return ramBytes;
+  }
+
+  //////////////////////// SolrInfoMBeans methods //////////////////////
+  @Override
+  public String getName() {
+    return CaffeineCache.class.getName();
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public Set<String> getMetricNames() {
+    return metricNames;
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricManager manager, String registryName, String scope) {
+    registry = manager.registry(registryName);
+    cacheMap = new MetricsMap((detailed, map) -> {
+      if (cache != null) {
+        long lookups = this.lookups.sum();
+        long hits = this.hits.sum();
+        long inserts = this.inserts.sum();
+        long evictions = this.evictions.sum();
+        long clookups = cumulativeStats.lookups.sum() + lookups;
+        long chits = cumulativeStats.hits.sum() + hits;
+        long cinserts = cumulativeStats.inserts.sum() + inserts;
+        long cevictions = cumulativeStats.evictions.sum() + evictions;
+
+        map.put("lookups", lookups);
+        map.put("hits", hits);
+        map.put("hitratio", calcHitRatio(lookups, hits));
+        map.put("inserts", inserts);
+        map.put("evictions", evictions);
+        map.put("size", cache.estimatedSize());
+        map.put("ramBytesUsed", ramBytesUsed());
+        if (maxRamBytes != Long.MAX_VALUE) {
+          map.put("maxRamMB", maxRamBytes / 1024L / 1024L);
+        } else {
+          map.put("maxSize", maxSize);
+        }
+
+        map.put("warmupTime", warmupTime);
+        map.put("cumulative_lookups", clookups);
+        map.put("cumulative_hits", chits);
+        map.put("cumulative_hitratio", calcHitRatio(clookups, chits));
+        map.put("cumulative_inserts", cinserts);
+        map.put("cumulative_evictions", cevictions);
+
+        if (detailed && showItems != 0) {
+          Map<K,V> items = cache.policy().eviction()
+              .map(eviction -> eviction.hottest(showItems == -1 ? Integer.MAX_VALUE : showItems))
+              .orElse(Collections.emptyMap());
+          for (Map.Entry<K,V> e : items.entrySet()) {
+            map.put("item_" + e.getKey(), e.getValue().toString());
+          }
+        }
+      }
+    });
+    manager.registerGauge(this, registryName, cacheMap, true, scope, getCategory().toString());
+  }
+
+  // for unit tests only
+  MetricsMap getMetricsMap() {
+    return cacheMap;
+  }
+
+  @Override
+  public MetricRegistry getMetricRegistry() {
+    return registry;
+  }
+
+  @Override
+  public String toString() {
+    return name() + (cacheMap != null ? cacheMap.getValue().toString() : "");
+  }
+
+  /** Statistics of the caches of the same type that have been closed. */
+  private static class CumulativeStats {
+    final LongAdder lookups = new LongAdder();
+    final LongAdder hits = new LongAdder();
+    final LongAdder inserts = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+  }
+}
@@ -17,6 +17,7 @@
 package org.apache.solr.search;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -49,6 +50,24 @@ public class DocSetUtil {
     return (maxDoc>>6)+5;  // The +5 is for better test coverage for small sets
   }
 
+  /**
+   * Returns a {@link RoaringDocSet} with the documents of the given set if it is a {@link BitDocSet} whose
+   * documents are sparse, or clustered, enough for the RoaringDocSet to take at most half of the memory of the bits.
+   * Any other set is returned as-is.
+   * @lucene.experimental
+   */
+  public static DocSet compact(DocSet set) {
+    if (!(set instanceof BitDocSet)) {
+      return set;
+    }
+    final FixedBitSet bits = ((BitDocSet) set).getBits();
+    final long bitsBytes = (long) bits.getBits().length << 3;
+    if (RoaringDocSet.ramBytesEstimate(bits) > bitsBytes >> 1) {
+      return set;
+    }
+    return RoaringDocSet.fromBits(bits);
+  }
+
   /**
    * Iterates DocSets to test for equality - slow and for testing purposes only.
    * @lucene.internal
@@ -94,6 +113,46 @@ public class DocSetUtil {
     return collector.getDocSet();
   }
 
+  /**
+   * Merges the sets of several collectors that collected disjoint ranges of documents, such as
+   * different leaf slices of the same searcher. The collectors must be ordered by doc id.
+   * Like {@link #getDocSet(DocSetCollector, SolrIndexSearcher)}, sets with size numDocs are mapped
+   * to searcher.getLiveDocs.
+   * @lucene.experimental
+   */
+  public static DocSet getDocSet(Collection<DocSetCollector> collectors, SolrIndexSearcher searcher) {
+    final int maxDoc = searcher.maxDoc();
+    int size = 0;
+    for (DocSetCollector collector : collectors) {
+      size += collector.size();
+    }
+
+    final DocSet docs;
+    if (size <= smallSetSize(maxDoc)) {
+      final int[] docIds = new int[size];
+      int upto = 0;
+      for (DocSetCollector collector : collectors) {
+        // small sets are fully stored in the scratch array, and collectors cover
+        // increasing ranges of doc ids, so docIds ends up sorted
+        assert collector.bits == null;
+        final int[] collected = collector.scratch.toArray();
+        System.arraycopy(collected, 0, docIds, upto, collected.length);
+        upto += collected.length;
+      }
+      docs = new SortedIntDocSet(docIds, size);
+    } else {
+      final FixedBitSet bits = new FixedBitSet(maxDoc);
+      for (DocSetCollector collector : collectors) {
+        if (collector.bits != null) {
+          bits.or(collector.bits);
+        }
+        collector.scratch.copyTo(bits);
+      }
+      docs = new BitDocSet(bits, size);
+    }
+    return getDocSet(docs, searcher);
+  }
+
   /**
    * This variant of getDocSet maps all sets with size numDocs to searcher.getLiveDocs.
    * The returned set should not be modified.
@@ -0,0 +1,925 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * <code>RoaringDocSet</code> represents a set of Lucene Document Ids the way Roaring bitmaps do: the ids are
+ * split into blocks of 65536, and every non-empty block is stored as a sorted array of the low 16 bits of its
+ * ids when it holds at most 4096 documents, or as a bitmap otherwise. A set that is sparse, or dense in some
+ * ranges only, takes much less memory than a {@link BitDocSet} sized for the whole index, while the dense
+ * blocks keep the speed of a bitset.
+ * <p>
+ * A RoaringDocSet can't be modified, use a {@link Builder} or {@link #fromBits(FixedBitSet)} to create one.
+ *
+ * @see org.apache.lucene.util.RoaringDocIdSet
+ * @lucene.experimental
+ */
+public class RoaringDocSet extends DocSetBase {
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(RoaringDocSet.class)
+      + 2 * RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+  private static final long CONTAINER_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Container.class)
+      + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF + Integer.BYTES;
+
+  static final int BLOCK_SHIFT = 16;
+  static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+  static final int BLOCK_MASK = BLOCK_SIZE - 1;
+  static final int BITMAP_WORDS = BLOCK_SIZE >>> 6;
+  // above this many docs, a bitmap takes less memory than an array of chars
+  static final int MAX_ARRAY_SIZE = BLOCK_SIZE >>> 4;
+
+  private static final RoaringDocSet[] NONE = new RoaringDocSet[0];
+
+  final int maxDoc;
+  final int[] keys;             // the high bits of the docs of each container, increasing
+  final Container[] containers;
+  final int size;
+
+  private RoaringDocSet(int maxDoc, int[] keys, Container[] containers, int size) {
+    this.maxDoc = maxDoc;
+    this.keys = keys;
+    this.containers = containers;
+    this.size = size;
+  }
+
+  /** The docs of a block, as either a sorted array of their low bits or a bitmap. */
+  static final class Container {
+    final char[] array;
+    final long[] bitmap;
+    final int cardinality;
+
+    private Container(char[] array, long[] bitmap, int cardinality) {
+      assert (array == null) != (bitmap == null);
+      assert array == null || array.length == cardinality;
+      this.array = array;
+      this.bitmap = bitmap;
+      this.cardinality = cardinality;
+    }
+
+    boolean contains(int low) {
+      if (bitmap != null) {
+        return (bitmap[low >>> 6] & (1L << low)) != 0;
+      }
+      return Arrays.binarySearch(array, (char) low) >= 0;
+    }
+
+    long ramBytesUsed() {
+      return CONTAINER_RAM_BYTES_USED + (bitmap != null ? (long) bitmap.length << 3 : (long) array.length << 1);
+    }
+
+    /** Creates a container from the first {@code cardinality} entries of a sorted array of low bits. */
+    static Container fromArray(char[] array, int cardinality) {
+      if (cardinality == 0) {
+        return null;
+      } else if (cardinality > MAX_ARRAY_SIZE) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+          bitmap[array[i] >>> 6] |= 1L << array[i];
+        }
+        return new Container(null, bitmap, cardinality);
+      }
+      return new Container(array.length == cardinality ? array : Arrays.copyOf(array, cardinality), null, cardinality);
+    }
+
+    /** Creates a container from a range of words, which is copied if it is kept as a bitmap. */
+    static Container fromWords(long[] words, int from, int to, int cardinality) {
+      if (cardinality == 0) {
+        return null;
+      } else if (cardinality > MAX_ARRAY_SIZE) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        System.arraycopy(words, from, bitmap, 0, to - from);
+        return new Container(null, bitmap, cardinality);
+      }
+      char[] array = new char[cardinality];
+      int upto = 0;
+      for (int i = from; i < to; i++) {
+        long word = words[i];
+        while (word != 0) {
+          array[upto++] = (char) (((i - from) << 6) + Long.numberOfTrailingZeros(word));
+          word &= word - 1;
+        }
+      }
+      assert upto == cardinality;
+      return new Container(array, null, cardinality);
+    }
+
+    /** Creates a container from a bitmap of {@link #BITMAP_WORDS} words that may be used as-is. */
+    static Container fromBitmap(long[] bitmap) {
+      return fromWords(bitmap, 0, BITMAP_WORDS, cardinality(bitmap, 0, BITMAP_WORDS));
+    }
+  }
+
+  static int cardinality(long[] words, int from, int to) {
+    int cardinality = 0;
+    for (int i = from; i < to; i++) {
+      cardinality += Long.bitCount(words[i]);
+    }
+    return cardinality;
+  }
+
+  /**
+   * Builds a RoaringDocSet from documents added in increasing order.
+   */
+  public static final class Builder {
+    private final int maxDoc;
+    private int[] keys = new int[4];
+    private Container[] containers = new Container[4];
+    private int numContainers;
+    private int size;
+
+    private int lastDoc = -1;
+    private int currentKey = -1;
+    private final char[] buffer = new char[MAX_ARRAY_SIZE];
+    private long[] bitmap;
+    private int currentSize;
+
+    public Builder(int maxDoc) {
+      this.maxDoc = maxDoc;
+    }
+
+    /** Adds a document, which must be greater than any document added before. */
+    public Builder add(int doc) {
+      if (doc <= lastDoc) {
+        throw new IllegalArgumentException("Docs must be added in order, got " + doc + " after " + lastDoc);
+      }
+      lastDoc = doc;
+      final int key = doc >>> BLOCK_SHIFT;
+      if (key != currentKey) {
+        flush();
+        currentKey = key;
+      }
+      final int low = doc & BLOCK_MASK;
+      if (bitmap != null) {
+        bitmap[low >>> 6] |= 1L << low;
+      } else if (currentSize < MAX_ARRAY_SIZE) {
+        buffer[currentSize] = (char) low;
+      } else {
+        bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < currentSize; i++) {
+          bitmap[buffer[i] >>> 6] |= 1L << buffer[i];
+        }
+        bitmap[low >>> 6] |= 1L << low;
+      }
+      currentSize++;
+      return this;
+    }
+
+    private void flush() {
+      if (currentSize > 0) {
+        if (bitmap != null) {
+          append(currentKey, new Container(null, bitmap, currentSize));
+        } else {
+          append(currentKey, Container.fromArray(Arrays.copyOf(buffer, currentSize), currentSize));
+        }
+      }
+      bitmap = null;
+      currentSize = 0;
+    }
+
+    // containers must be appended in order of their keys, empty containers are given as null
+    void append(int key, Container container) {
+      if (container == null) {
+        return;
+      }
+      assert numContainers == 0 || keys[numContainers - 1] < key;
+      if (numContainers == keys.length) {
+        keys = ArrayUtil.grow(keys, numContainers + 1);
+        containers = Arrays.copyOf(containers, keys.length);
+      }
+      keys[numContainers] = key;
+      containers[numContainers] = container;
+      numContainers++;
+      size += container.cardinality;
+    }
+
+    public RoaringDocSet build() {
+      flush();
+      return new RoaringDocSet(maxDoc, Arrays.copyOf(keys, numContainers), Arrays.copyOf(containers, numContainers), size);
+    }
+  }
+
+  /**
+   * Creates a RoaringDocSet with the documents set in the given bits.
+   */
+  public static RoaringDocSet fromBits(FixedBitSet bits) {
+    final long[] words = bits.getBits();
+    final int numWords = FixedBitSet.bits2words(bits.length());
+    final Builder builder = new Builder(bits.length());
+    for (int from = 0, key = 0; from < numWords; from += BITMAP_WORDS, key++) {
+      final int to = Math.min(numWords, from + BITMAP_WORDS);
+      builder.append(key, Container.fromWords(words, from, to, cardinality(words, from, to)));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns how much memory the documents of the given bits would take in a RoaringDocSet.
+   */
+  public static long ramBytesEstimate(FixedBitSet bits) {
+    final long[] words = bits.getBits();
+    final int numWords = FixedBitSet.bits2words(bits.length());
+    long bytes = BASE_RAM_BYTES_USED;
+    for (int from = 0; from < numWords; from += BITMAP_WORDS) {
+      final int cardinality = cardinality(words, from, Math.min(numWords, from + BITMAP_WORDS));
+      if (cardinality > 0) {
+        bytes += CONTAINER_RAM_BYTES_USED + (cardinality > MAX_ARRAY_SIZE ? BITMAP_WORDS << 3 : cardinality << 1);
+      }
+    }
+    return bytes;
+  }
+
+  /** Iterates over the docs of the set, in order. */
+  private class DocsIterator extends DocIdSetIterator {
+    private int containerIndex = -1;
+    private Container container;
+    private int base;
+    private int arrayIndex;
+    private int wordIndex;
+    private long word;
+    private int doc = -1;
+
+    private void setContainer(int index) {
+      containerIndex = index;
+      container = containers[index];
+      base = keys[index] << BLOCK_SHIFT;
+      arrayIndex = 0;
+      if (container.bitmap != null) {
+        wordIndex = 0;
+        word = container.bitmap[0];
+      }
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() {
+      for (;;) {
+        if (container != null) {
+          if (container.array != null) {
+            if (arrayIndex < container.cardinality) {
+              return doc = base + container.array[arrayIndex++];
+            }
+          } else {
+            while (word == 0 && ++wordIndex < BITMAP_WORDS) {
+              word = container.bitmap[wordIndex];
+            }
+            if (word != 0) {
+              doc = base + (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+              word &= word - 1;
+              return doc;
+            }
+          }
+        }
+        if (containerIndex + 1 >= containers.length) {
+          container = null;
+          return doc = NO_MORE_DOCS;
+        }
+        setContainer(containerIndex + 1);
+      }
+    }
+
+    @Override
+    public int advance(int target) {
+      final int key = target >>> BLOCK_SHIFT;
+      if (container == null || keys[containerIndex] != key) {
+        int index = Arrays.binarySearch(keys, containerIndex + 1, keys.length, key);
+        if (index < 0) {
+          index = -1 - index;
+          if (index >= keys.length) {
+            container = null;
+            containerIndex = keys.length - 1;
+            return doc = NO_MORE_DOCS;
+          }
+          // all docs of the next container are after the target
+          setContainer(index);
+          return nextDoc();
+        }
+        setContainer(index);
+      }
+      final int low = target & BLOCK_MASK;
+      if (container.array != null) {
+        final int index = Arrays.binarySearch(container.array, arrayIndex, container.cardinality, (char) low);
+        arrayIndex = index >= 0 ? index : -1 - index;
+      } else {
+        wordIndex = low >>> 6;
+        word = container.bitmap[wordIndex] & (-1L << low);
+      }
+      return nextDoc();
+    }
+
+    @Override
+    public long cost() {
+      return size;
+    }
+  }
+
+  @Override
+  public DocIterator iterator() {
+    return new DocIterator() {
+      private final DocsIterator iter = new DocsIterator();
+      private int pos = iter.nextDoc();
+
+      @Override
+      public boolean hasNext() {
+        return pos != DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public Integer next() {
+        return nextDoc();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("The remove  operation is not supported by this Iterator.");
+      }
+
+      @Override
+      public int nextDoc() {
+        int old = pos;
+        pos = iter.nextDoc();
+        return old;
+      }
+
+      @Override
+      public float score() {
+        return 0.0f;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean exists(int docid) {
+    final int index = Arrays.binarySearch(keys, docid >>> BLOCK_SHIFT);
+    return index >= 0 && containers[index].contains(docid & BLOCK_MASK);
+  }
+
+  // the container of the other set with the given key, or null
+  private static Container findContainer(RoaringDocSet set, int key) {
+    final int index = Arrays.binarySearch(set.keys, key);
+    return index >= 0 ? set.containers[index] : null;
+  }
+
+  // only BitDocSet and RoaringDocSet are handled here, other sets are better at iterating and calling exists
+  private static boolean isSmallSet(DocSet other) {
+    return other instanceof SortedIntDocSet || other instanceof HashDocSet || other instanceof DocList;
+  }
+
+  @Override
+  public DocSet intersection(DocSet other) {
+    if (isSmallSet(other)) {
+      return other.intersection(this);
+    }
+    final Builder builder = new Builder(maxDoc);
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      for (int i = 0, j = 0; i < keys.length && j < o.keys.length; ) {
+        if (keys[i] < o.keys[j]) {
+          i++;
+        } else if (keys[i] > o.keys[j]) {
+          j++;
+        } else {
+          builder.append(keys[i], and(containers[i], o.containers[j]));
+          i++;
+          j++;
+        }
+      }
+    } else if (other instanceof BitDocSet) {
+      final FixedBitSet bits = ((BitDocSet) other).getBits();
+      for (int i = 0; i < keys.length; i++) {
+        builder.append(keys[i], and(containers[i], keys[i], bits));
+      }
+    } else {
+      for (DocIterator iter = iterator(); iter.hasNext(); ) {
+        final int doc = iter.nextDoc();
+        if (other.exists(doc)) {
+          builder.add(doc);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public int intersectionSize(DocSet other) {
+    if (isSmallSet(other)) {
+      return other.intersectionSize(this);
+    }
+    int count = 0;
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      for (int i = 0, j = 0; i < keys.length && j < o.keys.length; ) {
+        if (keys[i] < o.keys[j]) {
+          i++;
+        } else if (keys[i] > o.keys[j]) {
+          j++;
+        } else {
+          count += andCardinality(containers[i], o.containers[j]);
+          i++;
+          j++;
+        }
+      }
+    } else if (other instanceof BitDocSet) {
+      final FixedBitSet bits = ((BitDocSet) other).getBits();
+      for (int i = 0; i < keys.length; i++) {
+        count += andCardinality(containers[i], keys[i], bits);
+      }
+    } else {
+      for (DocIterator iter = iterator(); iter.hasNext(); ) {
+        if (other.exists(iter.nextDoc())) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public boolean intersects(DocSet other) {
+    if (isSmallSet(other)) {
+      return other.intersects(this);
+    }
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      for (int i = 0; i < keys.length; i++) {
+        final Container c = findContainer(o, keys[i]);
+        if (c != null && andCardinality(containers[i], c) > 0) {
+          return true;
+        }
+      }
+    } else if (other instanceof BitDocSet) {
+      final FixedBitSet bits = ((BitDocSet) other).getBits();
+      for (int i = 0; i < keys.length; i++) {
+        if (andCardinality(containers[i], keys[i], bits) > 0) {
+          return true;
+        }
+      }
+    } else {
+      for (DocIterator iter = iterator(); iter.hasNext(); ) {
+        if (other.exists(iter.nextDoc())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public DocSet union(DocSet other) {
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      final Builder builder = new Builder(Math.max(maxDoc, o.maxDoc));
+      int i = 0, j = 0;
+      while (i < keys.length || j < o.keys.length) {
+        if (j == o.keys.length || (i < keys.length && keys[i] < o.keys[j])) {
+          builder.append(keys[i], containers[i]);
+          i++;
+        } else if (i == keys.length || keys[i] > o.keys[j]) {
+          builder.append(o.keys[j], o.containers[j]);
+          j++;
+        } else {
+          builder.append(keys[i], or(containers[i], o.containers[j]));
+          i++;
+          j++;
+        }
+      }
+      return builder.build();
+    } else if (other instanceof BitDocSet) {
+      final FixedBitSet bits = ((BitDocSet) other).getBits();
+      final FixedBitSet newbits = FixedBitSet.ensureCapacity(bits.clone(), lastDoc());
+      addAllTo(newbits);
+      return new BitDocSet(newbits);
+    }
+    return super.union(other);
+  }
+
+  @Override
+  public DocSet andNot(DocSet other) {
+    if (other.size() == 0) {
+      return this;
+    }
+    final Builder builder = new Builder(maxDoc);
+    if (other instanceof RoaringDocSet) {
+      final RoaringDocSet o = (RoaringDocSet) other;
+      for (int i = 0; i < keys.length; i++) {
+        final Container c = findContainer(o, keys[i]);
+        builder.append(keys[i], c == null ? containers[i] : andNot(containers[i], c));
+      }
+    } else if (other instanceof BitDocSet) {
+      final FixedBitSet bits = ((BitDocSet) other).getBits();
+      for (int i = 0; i < keys.length; i++) {
+        builder.append(keys[i], andNot(containers[i], keys[i], bits));
+      }
+    } else {
+      for (DocIterator iter = iterator(); iter.hasNext(); ) {
+        final int doc = iter.nextDoc();
+        if (!other.exists(doc)) {
+          builder.add(doc);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public void addAllTo(DocSet target) {
+    if (target instanceof BitDocSet) {
+      addAllTo(((BitDocSet) target).getBits());
+      ((BitDocSet) target).invalidateSize();
+    } else {
+      super.addAllTo(target);
+    }
+  }
+
+  private void addAllTo(FixedBitSet bits) {
+    final long[] words = bits.getBits();
+    for (int i = 0; i < keys.length; i++) {
+      final Container c = containers[i];
+      if (c.bitmap != null) {
+        final int from = keys[i] * BITMAP_WORDS;
+        for (int w = 0; w < BITMAP_WORDS && from + w < words.length; w++) {
+          words[from + w] |= c.bitmap[w];
+        }
+      } else {
+        final int base = keys[i] << BLOCK_SHIFT;
+        for (int k = 0; k < c.cardinality; k++) {
+          bits.set(base + c.array[k]);
+        }
+      }
+    }
+  }
+
+  // the greatest doc of the set, or -1 if it is empty
+  private int lastDoc() {
+    if (keys.length == 0) {
+      return -1;
+    }
+    final Container last = containers[containers.length - 1];
+    final int base = keys[keys.length - 1] << BLOCK_SHIFT;
+    if (last.array != null) {
+      return base + last.array[last.cardinality - 1];
+    }
+    int w = BITMAP_WORDS - 1;
+    while (last.bitmap[w] == 0) {
+      w--;
+    }
+    return base + (w << 6) + 63 - Long.numberOfLeadingZeros(last.bitmap[w]);
+  }
+
+  @Override
+  protected FixedBitSet getBits() {
+    final FixedBitSet bits = new FixedBitSet(Math.max(maxDoc, lastDoc() + 1));
+    addAllTo(bits);
+    return bits;
+  }
+
+  /** A RoaringDocSet can't be modified, so a clone can share everything. */
+  @Override
+  public RoaringDocSet clone() {
+    return this;
+  }
+
+  // container operations
+
+  private static Container and(Container a, Container b) {
+    if (a.array != null && b.array != null) {
+      final char[] result = new char[Math.min(a.cardinality, b.cardinality)];
+      int upto = 0;
+      for (int i = 0, j = 0; i < a.cardinality && j < b.cardinality; ) {
+        if (a.array[i] < b.array[j]) {
+          i++;
+        } else if (a.array[i] > b.array[j]) {
+          j++;
+        } else {
+          result[upto++] = a.array[i];
+          i++;
+          j++;
+        }
+      }
+      return Container.fromArray(result, upto);
+    } else if (a.array != null || b.array != null) {
+      final Container array = a.array != null ? a : b;
+      final Container bitmap = a.array != null ? b : a;
+      final char[] result = new char[array.cardinality];
+      int upto = 0;
+      for (int i = 0; i < array.cardinality; i++) {
+        if (bitmap.contains(array.array[i])) {
+          result[upto++] = array.array[i];
+        }
+      }
+      return Container.fromArray(result, upto);
+    }
+    final long[] result = new long[BITMAP_WORDS];
+    for (int w = 0; w < BITMAP_WORDS; w++) {
+      result[w] = a.bitmap[w] & b.bitmap[w];
+    }
+    return Container.fromBitmap(result);
+  }
+
+  private static int andCardinality(Container a, Container b) {
+    if (a.array != null && b.array != null) {
+      int count = 0;
+      for (int i = 0, j = 0; i < a.cardinality && j < b.cardinality; ) {
+        if (a.array[i] < b.array[j]) {
+          i++;
+        } else if (a.array[i] > b.array[j]) {
+          j++;
+        } else {
+          count++;
+          i++;
+          j++;
+        }
+      }
+      return count;
+    } else if (a.array != null || b.array != null) {
+      final Container array = a.array != null ? a : b;
+      final Container bitmap = a.array != null ? b : a;
+      int count = 0;
+      for (int i = 0; i < array.cardinality; i++) {
+        if (bitmap.contains(array.array[i])) {
+          count++;
+        }
+      }
+      return count;
+    }
+    int count = 0;
+    for (int w = 0; w < BITMAP_WORDS; w++) {
+      count += Long.bitCount(a.bitmap[w] & b.bitmap[w]);
+    }
+    return count;
+  }
+
+  private static Container or(Container a, Container b) {
+    if (a.array != null && b.array != null) {
+      final char[] result = new char[a.cardinality + b.cardinality];
+      int upto = 0;
+      int i = 0, j = 0;
+      while (i < a.cardinality && j < b.cardinality) {
+        if (a.array[i] < b.array[j]) {
+          result[upto++] = a.array[i++];
+        } else if (a.array[i] > b.array[j]) {
+          result[upto++] = b.array[j++];
+        } else {
+          result[upto++] = a.array[i++];
+          j++;
+        }
+      }
+      while (i < a.cardinality) {
+        result[upto++] = a.array[i++];
+      }
+      while (j < b.cardinality) {
+        result[upto++] = b.array[j++];
+      }
+      return Container.fromArray(result, upto);
+    } else if (a.array != null || b.array != null) {
+      final Container array = a.array != null ? a : b;
+      final Container bitmap = a.array != null ? b : a;
+      final long[] result = bitmap.bitmap.clone();
+      int cardinality = bitmap.cardinality;
+      for (int i = 0; i < array.cardinality; i++) {
+        final int low = array.array[i];
+        if ((result[low >>> 6] & (1L << low)) == 0) {
+          result[low >>> 6] |= 1L << low;
+          cardinality++;
+        }
+      }
+      return new Container(null, result, cardinality);
+    }
+    final long[] result = new long[BITMAP_WORDS];
+    for (int w = 0; w < BITMAP_WORDS; w++) {
+      result[w] = a.bitmap[w] | b.bitmap[w];
+    }
+    return Container.fromBitmap(result);
+  }
+
+  private static Container andNot(Container a, Container b) {
+    if (a.array != null) {
+      final char[] result = new char[a.cardinality];
+      int upto = 0;
+      for (int i = 0; i < a.cardinality; i++) {
+        if (!b.contains(a.array[i])) {
+          result[upto++] = a.array[i];
+        }
+      }
+      return Container.fromArray(result, upto);
+    }
+    final long[] result = a.bitmap.clone();
+    if (b.array != null) {
+      for (int i = 0; i < b.cardinality; i++) {
+        result[b.array[i] >>> 6] &= ~(1L << b.array[i]);
+      }
+    } else {
+      for (int w = 0; w < BITMAP_WORDS; w++) {
+        result[w] &= ~b.bitmap[w];
+      }
+    }
+    return Container.fromBitmap(result);
+  }
+
+  // operations with the block of a FixedBitSet that has the same key as the container
+
+  private static boolean get(FixedBitSet bits, int doc) {
+    return doc < bits.length() && bits.get(doc);
+  }
+
+  private static Container and(Container a, int key, FixedBitSet bits) {
+    final int base = key << BLOCK_SHIFT;
+    if (a.array != null) {
+      final char[] result = new char[a.cardinality];
+      int upto = 0;
+      for (int i = 0; i < a.cardinality; i++) {
+        if (get(bits, base + a.array[i])) {
+          result[upto++] = a.array[i];
+        }
+      }
+      return Container.fromArray(result, upto);
+    }
+    final long[] words = bits.getBits();
+    final int from = key * BITMAP_WORDS;
+    final long[] result = new long[BITMAP_WORDS];
+    for (int w = 0; w < BITMAP_WORDS && from + w < words.length; w++) {
+      result[w] = a.bitmap[w] & words[from + w];
+    }
+    return Container.fromBitmap(result);
+  }
+
+  private static int andCardinality(Container a, int key, FixedBitSet bits) {
+    final int base = key << BLOCK_SHIFT;
+    int count = 0;
+    if (a.array != null) {
+      for (int i = 0; i < a.cardinality; i++) {
+        if (get(bits, base + a.array[i])) {
+          count++;
+        }
+      }
+      return count;
+    }
+    final long[] words = bits.getBits();
+    final int from = key * BITMAP_WORDS;
+    for (int w = 0; w < BITMAP_WORDS && from + w < words.length; w++) {
+      count += Long.bitCount(a.bitmap[w] & words[from + w]);
+    }
+    return count;
+  }
+
+  private static Container andNot(Container a, int key, FixedBitSet bits) {
+    final int base = key << BLOCK_SHIFT;
+    if (a.array != null) {
+      final char[] result = new char[a.cardinality];
+      int upto = 0;
+      for (int i = 0; i < a.cardinality; i++) {
+        if (!get(bits, base + a.array[i])) {
+          result[upto++] = a.array[i];
+        }
+      }
+      return Container.fromArray(result, upto);
+    }
+    final long[] words = bits.getBits();
+    final int from = key * BITMAP_WORDS;
+    final long[] result = a.bitmap.clone();
+    for (int w = 0; w < BITMAP_WORDS && from + w < words.length; w++) {
+      result[w] &= ~words[from + w];
+    }
+    return Container.fromBitmap(result);
+  }
+
+  @Override
+  public Filter getTopFilter() {
+    return new Filter() {
+      final RoaringDocSet set = RoaringDocSet.this;
+
+      @Override
+      public DocIdSet getDocIdSet(final LeafReaderContext context, final Bits acceptDocs) {
+        LeafReader reader = context.reader();
+        // all Solr DocSets that are used as filters only include live docs
+        final Bits acceptDocs2 = acceptDocs == null ? null : (reader.getLiveDocs() == acceptDocs ? null : acceptDocs);
+
+        final int base = context.docBase;
+        final int max = base + reader.maxDoc();   // one past the max doc in this segment.
+
+        return BitsFilteredDocIdSet.wrap(new DocIdSet() {
+          @Override
+          public DocIdSetIterator iterator() {
+            return new DocIdSetIterator() {
+              final DocsIterator iter = new DocsIterator();
+              int adjustedDoc = -1;
+
+              @Override
+              public int docID() {
+                return adjustedDoc;
+              }
+
+              @Override
+              public int nextDoc() {
+                int doc = adjustedDoc == -1 ? iter.advance(base) : iter.nextDoc();
+                return adjustedDoc = doc < max ? doc - base : NO_MORE_DOCS;
+              }
+
+              @Override
+              public int advance(int target) {
+                if (target == NO_MORE_DOCS) return adjustedDoc = NO_MORE_DOCS;
+                int doc = iter.advance(target + base);
+                return adjustedDoc = doc < max ? doc - base : NO_MORE_DOCS;
+              }
+
+              @Override
+              public long cost() {
+                return Math.min(size, max - base);
+              }
+            };
+          }
+
+          @Override
+          public long ramBytesUsed() {
+            return set.ramBytesUsed();
+          }
+
+          @Override
+          public Bits bits() {
+            return new Bits() {
+              @Override
+              public boolean get(int index) {
+                return set.exists(index + base);
+              }
+
+              @Override
+              public int length() {
+                return max - base;
+              }
+            };
+          }
+
+        }, acceptDocs2);
+      }
+
+      @Override
+      public String toString(String field) {
+        return "RoaringDocSetTopFilter";
+      }
+
+      @Override
+      public boolean equals(Object other) {
+        return sameClassAs(other) && set == getClass().cast(other).set;
+      }
+
+      @Override
+      public int hashCode() {
+        return classHash() * 31 + System.identityHashCode(set);
+      }
+    };
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    long bytes = BASE_RAM_BYTES_USED;
+    for (Container container : containers) {
+      bytes += container.ramBytesUsed();
+    }
+    return bytes;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public String toString() {
+    return "RoaringDocSet(size=" + size + ",containers=" + containers.length + ")";
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.MultiPhraseQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PointInSetQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopTermsRewrite;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.RoaringDocIdSet;
+import org.apache.solr.query.FilterQuery;
+
+/**
+ * A cache of the documents that queries match in each segment, keyed by the core cache key of the segment.
+ * Unlike the filterCache, which belongs to a single {@link SolrIndexSearcher}, this cache is shared by all
+ * the searchers of a core: when a new searcher is opened, the segments that it shares with the previous
+ * searcher reuse their cached sets, and only the new segments have to be searched. This makes autowarming
+ * the filterCache cheap when few segments change between commits.
+ * <p>
+ * Sets are cached as they are before deletions, which are applied when the top-level set is built, so that
+ * a segment that only got new deletions keeps its entries. Entries are removed once their segment is closed,
+ * and the least recently used entries are evicted above the configured number of entries or RAM usage.
+ * <p>
+ * Only queries whose matches in a segment depend on nothing else than the segment are cached, see
+ * {@link #isCacheable(Query)}.
+ *
+ * @lucene.experimental
+ */
+public class SegmentFilterCache implements Accountable {
+
+  // rough estimates of the memory used by an entry besides its set, as in LRUQueryCache
+  static final long QUERY_DEFAULT_RAM_BYTES_USED = 192;
+  static final long HASHTABLE_RAM_BYTES_PER_ENTRY =
+      2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF // key + value
+      * 2; // hash tables need to be oversized to avoid collisions, assume 2x capacity
+  static final long LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY =
+      HASHTABLE_RAM_BYTES_PER_ENTRY
+      + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF; // previous & next references
+
+  private final int maxSize;
+  private final long maxRamBytes;
+
+  // all of the fields below are guarded by this
+  private final Map<Key, DocIdSet> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<IndexReader.CacheKey, Set<Key>> keysBySegment = new HashMap<>();
+  private long ramBytesUsed;
+  private long lookups;
+  private long hits;
+  private long inserts;
+  private long evictions;
+
+  /**
+   * @param maxSize the maximum number of per-segment entries
+   * @param maxRamBytes the maximum amount of memory to use for entries, or a negative value for no limit
+   */
+  public SegmentFilterCache(int maxSize, long maxRamBytes) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive, got " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.maxRamBytes = maxRamBytes < 0 ? Long.MAX_VALUE : maxRamBytes;
+  }
+
+  /**
+   * Returns whether the documents that the query matches in a segment only depend on that segment, so that
+   * they can be cached per segment and shared by several searchers. This is true of the queries that field
+   * types create and of the boolean and wrapping queries that combine them, while queries that look at the
+   * whole index, such as joins and function queries, are not cached. Neither are multi-term queries that
+   * only keep the top terms of the index, such as {@link org.apache.lucene.search.FuzzyQuery}.
+   */
+  public static boolean isCacheable(Query query) {
+    if (query instanceof TermQuery
+        || query instanceof TermInSetQuery
+        || (query instanceof MultiTermQuery
+            && !(((MultiTermQuery) query).getRewriteMethod() instanceof TopTermsRewrite))
+        || query instanceof PointRangeQuery
+        || query instanceof PointInSetQuery
+        || query instanceof PhraseQuery
+        || query instanceof MultiPhraseQuery
+        || query instanceof MatchAllDocsQuery
+        || query instanceof MatchNoDocsQuery) {
+      return true;
+    } else if (query instanceof BooleanQuery) {
+      for (BooleanClause clause : (BooleanQuery) query) {
+        if (!isCacheable(clause.getQuery())) {
+          return false;
+        }
+      }
+      return true;
+    } else if (query instanceof DisjunctionMaxQuery) {
+      for (Query disjunct : (DisjunctionMaxQuery) query) {
+        if (!isCacheable(disjunct)) {
+          return false;
+        }
+      }
+      return true;
+    } else if (query instanceof ConstantScoreQuery) {
+      return isCacheable(((ConstantScoreQuery) query).getQuery());
+    } else if (query instanceof BoostQuery) {
+      return isCacheable(((BoostQuery) query).getQuery());
+    } else if (query instanceof WrappedQuery) {
+      return isCacheable(((WrappedQuery) query).getWrappedQuery());
+    } else if (query instanceof FilterQuery) {
+      return isCacheable(((FilterQuery) query).getQuery());
+    }
+    return false;
+  }
+
+  /**
+   * Returns the set of live documents that the query matches in the index of the searcher, searching only
+   * the segments for which the cache has no entry yet. The query must be positive and
+   * {@link #isCacheable(Query) cacheable}.
+   */
+  public DocSet getDocSet(SolrIndexSearcher searcher, Query query) throws IOException {
+    assert isCacheable(query) : query;
+    final DocSetCollector collector = new DocSetCollector(searcher.maxDoc());
+    Weight weight = null;
+    for (LeafReaderContext context : searcher.getTopReaderContext().leaves()) {
+      final LeafReader reader = context.reader();
+      final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+      DocIdSet set = cacheHelper == null ? null : get(cacheHelper.getKey(), query);
+      if (set == null) {
+        if (weight == null) {
+          weight = searcher.createNormalizedWeight(query, false);
+        }
+        set = createDocIdSet(weight, context);
+        if (cacheHelper != null) {
+          put(cacheHelper, query, set);
+        }
+      }
+
+      final DocIdSetIterator it = set.iterator();
+      if (it == null) {
+        continue;
+      }
+      final LeafCollector leafCollector = collector.getLeafCollector(context);
+      final Bits liveDocs = reader.getLiveDocs();
+      for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+        if (liveDocs == null || liveDocs.get(doc)) {
+          leafCollector.collect(doc);
+        }
+      }
+    }
+    return DocSetUtil.getDocSet(collector, searcher);
+  }
+
+  // the matches of the weight in the segment, ignoring deletions
+  private static DocIdSet createDocIdSet(Weight weight, LeafReaderContext context) throws IOException {
+    final Scorer scorer = weight.scorer(context);
+    if (scorer == null) {
+      return DocIdSet.EMPTY;
+    }
+    final RoaringDocIdSet.Builder builder = new RoaringDocIdSet.Builder(context.reader().maxDoc());
+    final DocIdSetIterator it = scorer.iterator();
+    for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+      builder.add(doc);
+    }
+    return builder.build();
+  }
+
+  synchronized DocIdSet get(IndexReader.CacheKey segmentKey, Query query) {
+    lookups++;
+    final DocIdSet set = cache.get(new Key(segmentKey, query));
+    if (set != null) {
+      hits++;
+    }
+    return set;
+  }
+
+  synchronized void put(IndexReader.CacheHelper cacheHelper, Query query, DocIdSet set) {
+    final IndexReader.CacheKey segmentKey = cacheHelper.getKey();
+    final Key key = new Key(segmentKey, query);
+    final DocIdSet old = cache.put(key, set);
+    if (old != null) {
+      ramBytesUsed -= ramBytesUsed(key, old);
+    } else {
+      Set<Key> segmentKeys = keysBySegment.get(segmentKey);
+      if (segmentKeys == null) {
+        segmentKeys = new HashSet<>();
+        keysBySegment.put(segmentKey, segmentKeys);
+        cacheHelper.addClosedListener(this::clearSegment);
+      }
+      segmentKeys.add(key);
+    }
+    ramBytesUsed += ramBytesUsed(key, set);
+    inserts++;
+
+    for (Iterator<Map.Entry<Key, DocIdSet>> it = cache.entrySet().iterator();
+         it.hasNext() && (cache.size() > maxSize || ramBytesUsed > maxRamBytes); ) {
+      final Map.Entry<Key, DocIdSet> eldest = it.next();
+      it.remove();
+      onRemove(eldest.getKey(), eldest.getValue());
+      evictions++;
+    }
+  }
+
+  private void onRemove(Key key, DocIdSet set) {
+    ramBytesUsed -= ramBytesUsed(key, set);
+    final Set<Key> segmentKeys = keysBySegment.get(key.segmentKey);
+    if (segmentKeys != null) {
+      segmentKeys.remove(key);
+      // the closed listener stays registered, it will find no entries to remove
+    }
+  }
+
+  /** Removes the entries of the segment with the given core cache key. */
+  public synchronized void clearSegment(IndexReader.CacheKey segmentKey) {
+    final Set<Key> segmentKeys = keysBySegment.remove(segmentKey);
+    if (segmentKeys != null) {
+      for (Key key : segmentKeys) {
+        final DocIdSet set = cache.remove(key);
+        if (set != null) {
+          ramBytesUsed -= ramBytesUsed(key, set);
+        }
+      }
+    }
+  }
+
+  /** Removes all entries. */
+  public synchronized void clear() {
+    cache.clear();
+    keysBySegment.clear();
+    ramBytesUsed = 0;
+  }
+
+  /** Returns the number of per-segment entries. */
+  public synchronized int size() {
+    return cache.size();
+  }
+
+  /** Returns the number of lookups of a per-segment entry. */
+  public synchronized long getLookups() {
+    return lookups;
+  }
+
+  /** Returns the number of lookups that found an entry. */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  private static long ramBytesUsed(Key key, DocIdSet set) {
+    final long queryRamBytesUsed = key.query instanceof Accountable
+        ? ((Accountable) key.query).ramBytesUsed()
+        : QUERY_DEFAULT_RAM_BYTES_USED;
+    return LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY + queryRamBytesUsed + set.ramBytesUsed();
+  }
+
+  @Override
+  public synchronized long ramBytesUsed() {
+    return ramBytesUsed;
+  }
+
+  @Override
+  public Collection<Accountable> getChildResources() {
+    return Collections.emptyList();
+  }
+
+  /** Adds the statistics of this cache to the given map. */
+  public synchronized void getStatistics(Map<String, Object> map) {
+    map.put("lookups", lookups);
+    map.put("hits", hits);
+    map.put("hitratio", lookups == 0 ? 0.0f : (float) hits / lookups);
+    map.put("inserts", inserts);
+    map.put("evictions", evictions);
+    map.put("size", cache.size());
+    map.put("segments", keysBySegment.size());
+    map.put("ramBytesUsed", ramBytesUsed);
+    if (maxRamBytes != Long.MAX_VALUE) {
+      map.put("maxRamMB", maxRamBytes / 1024L / 1024L);
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "SegmentFilterCache(size=" + cache.size() + ",maxSize=" + maxSize + ",ramBytesUsed=" + ramBytesUsed + ")";
+  }
+
+  private static final class Key {
+    final IndexReader.CacheKey segmentKey;
+    final Query query;
+
+    Key(IndexReader.CacheKey segmentKey, Query query) {
+      this.segmentKey = segmentKey;
+      this.query = query;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) obj;
+      return segmentKey == other.segmentKey && query.equals(other.query);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(segmentKey) + query.hashCode();
+    }
+  }
+}
@@ -205,6 +205,49 @@ public class SolrDocumentFetcher {
     return d;
   }
 
+  /**
+   * Retrieve the {@link Document} instances corresponding to the document ids, as {@link #doc(int, Set)} would.
+   * Documents which are not in the document cache are read in increasing id order, so that documents stored in
+   * the same compressed block are decompressed only once.
+   */
+  public Document[] doc(int[] ids, Set<String> fields) throws IOException {
+    final Document[] docs = new Document[ids.length];
+    final int[] toRead = new int[ids.length]; // indexes of the ids to read from the index
+    int numToRead = 0;
+    for (int i = 0; i < ids.length; i++) {
+      if (documentCache != null) {
+        docs[i] = documentCache.get(ids[i]);
+      }
+      if (docs[i] == null) {
+        toRead[numToRead++] = i;
+      }
+    }
+    if (numToRead == 0) {
+      return docs;
+    }
+
+    final DirectoryReader reader = searcher.getIndexReader();
+    if (documentCache != null && !enableLazyFieldLoading) {
+      // see doc(int, Set)
+      fields = null;
+    }
+    final int[] readIds = new int[numToRead];
+    final SolrDocumentStoredFieldVisitor[] visitors = new SolrDocumentStoredFieldVisitor[numToRead];
+    for (int i = 0; i < numToRead; i++) {
+      readIds[i] = ids[toRead[i]];
+      visitors[i] = new SolrDocumentStoredFieldVisitor(fields, reader, readIds[i]);
+    }
+    reader.document(readIds, visitors);
+    for (int i = 0; i < numToRead; i++) {
+      final Document d = visitors[i].getDocument();
+      docs[toRead[i]] = d;
+      if (documentCache != null) {
+        documentCache.put(readIds[i], d);
+      }
+    }
+    return docs;
+  }
+
   /** {@link StoredFieldVisitor} which loads the specified fields eagerly (or all if null).
    * If {@link #enableLazyFieldLoading} then the rest get special lazy field entries.  Designated "large"
    * fields will always get a special field entry. */
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -110,13 +112,16 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   private long warmupTime = 0;
   private final DirectoryReader reader;
   private final boolean closeReader;
+  private final ExecutorService searchExecutor;
 
   private final int queryResultWindowSize;
   private final int queryResultMaxDocsCached;
   private final boolean useFilterForSortedQuery;
+  private final boolean useRoaringDocSets;
 
   private final boolean cachingEnabled;
   private final SolrCache<Query,DocSet> filterCache;
+  private final SegmentFilterCache segmentFilterCache;
   private final SolrCache<QueryResultKey,DocList> queryResultCache;
   private final SolrCache<String,UnInvertedField> fieldValueCache;
 
@@ -243,7 +248,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   public SolrIndexSearcher(SolrCore core, String path, IndexSchema schema, String name, DirectoryReader r,
       boolean closeReader, boolean enableCache, boolean reserveDirectory, DirectoryFactory directoryFactory)
           throws IOException {
-    super(wrapReader(core, r));
+    super(wrapReader(core, r), core.getSearchExecutor());
 
     this.path = path;
     this.directoryFactory = directoryFactory;
@@ -269,17 +274,20 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
 
     this.closeReader = closeReader;
+    this.searchExecutor = core.getSearchExecutor();
     setSimilarity(schema.getSimilarity());
 
     final SolrConfig solrConfig = core.getSolrConfig();
     this.queryResultWindowSize = solrConfig.queryResultWindowSize;
     this.queryResultMaxDocsCached = solrConfig.queryResultMaxDocsCached;
     this.useFilterForSortedQuery = solrConfig.useFilterForSortedQuery;
+    this.useRoaringDocSets = solrConfig.useRoaringDocSets;
 
     this.fieldInfos = leafReader.getFieldInfos();
     this.docFetcher = new SolrDocumentFetcher(this, solrConfig, enableCache);
 
     this.cachingEnabled = enableCache;
+    this.segmentFilterCache = cachingEnabled ? core.getSegmentFilterCache() : null;
     if (cachingEnabled) {
       final ArrayList<SolrCache> clist = new ArrayList<>();
       fieldValueCache = solrConfig.fieldValueCacheConfig == null ? null
@@ -407,6 +415,17 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return leafReader;
   }
 
+  /**
+   * Lets the ordinal maps of the top-level doc values of this searcher be built
+   * by updating those of <code>previous</code> instead of from scratch.
+   * @see SlowCompositeReaderWrapper#reuseOrdinalMaps(SlowCompositeReaderWrapper)
+   */
+  public void reuseOrdinalMaps(SolrIndexSearcher previous) {
+    if (leafReader instanceof SlowCompositeReaderWrapper && previous.leafReader instanceof SlowCompositeReaderWrapper) {
+      ((SlowCompositeReaderWrapper) leafReader).reuseOrdinalMaps((SlowCompositeReaderWrapper) previous.leafReader);
+    }
+  }
+
   /** Raw reader (no fieldcaches etc). Useful for operations like addIndexes */
   public final DirectoryReader getRawReader() {
     return rawReader;
@@ -767,12 +786,32 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       return (BitDocSet) answer;
     }
     BitDocSet answerBits = makeBitDocSet(answer);
+    // cache the bits, also in place of a compact RoaringDocSet, so that the next call doesn't convert again
     if (filterCache != null) {
       filterCache.put(q, answerBits);
     }
     return answerBits;
   }
 
+  /**
+   * Returns the set to put in the filterCache for the given set, which is a {@link RoaringDocSet} with the
+   * same documents if the set is a sparse {@link BitDocSet} and <code>useRoaringDocSets</code> is enabled.
+   */
+  private DocSet compactDocSet(DocSet set) {
+    return useRoaringDocSets && set != liveDocs ? DocSetUtil.compact(set) : set;
+  }
+
+  /**
+   * Computes the set of a positive query that the caller is going to cache, from the sets that the
+   * {@link SegmentFilterCache} has for the segments of this searcher if it is configured.
+   */
+  private DocSet getDocSetForCache(Query query) throws IOException {
+    if (segmentFilterCache != null && SegmentFilterCache.isCacheable(query)) {
+      return segmentFilterCache.getDocSet(this, query);
+    }
+    return getDocSetNC(query, null);
+  }
+
   /**
    * Returns the set of document ids matching a query. This method is cache-aware and attempts to retrieve the answer
    * from the cache if possible. If the answer was not cached, it may have been inserted into the cache as a result of
@@ -805,7 +844,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       }
     }
 
-    DocSet absAnswer = getDocSetNC(absQ, null);
+    DocSet absAnswer = getDocSetForCache(absQ);
+    if (filterCache != null) {
+      absAnswer = compactDocSet(absAnswer);
+    }
     DocSet answer = positive ? absAnswer : getLiveDocs().andNot(absAnswer);
 
     if (filterCache != null) {
@@ -823,8 +865,8 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       answer = filterCache.get(q);
       if (answer != null) return answer;
     }
-    answer = getDocSetNC(q, null);
-    if (filterCache != null) filterCache.put(q, answer);
+    answer = getDocSetForCache(q);
+    if (filterCache != null) filterCache.put(q, answer = compactDocSet(answer));
     return answer;
   }
 
@@ -1156,6 +1198,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
 
     if (useCache) {
+      result = compactDocSet(result);
       filterCache.put(key, result);
     }
 
@@ -1199,7 +1242,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     if (filterCache != null) {
       first = filterCache.get(absQ);
       if (first == null) {
-        first = getDocSetNC(absQ, null);
+        first = compactDocSet(getDocSetForCache(absQ));
         filterCache.put(absQ, first);
       }
       return positive ? first.intersection(filter) : filter.andNot(first);
@@ -1490,6 +1533,14 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
    *          The Command whose properties should determine the type of TopDocsCollector to use.
    */
   private TopDocsCollector buildTopDocsCollector(int len, QueryCommand cmd) throws IOException {
+    return buildTopDocsCollector(len, cmd, false);
+  }
+
+  /**
+   * Same as {@link #buildTopDocsCollector(int, QueryCommand)}, but makes sure that sort fields get filled
+   * if {@code forceFillFields} is true, which is required to merge the top docs of several collectors.
+   */
+  private TopDocsCollector buildTopDocsCollector(int len, QueryCommand cmd, boolean forceFillFields) throws IOException {
 
     Query q = cmd.getQuery();
     if (q instanceof RankQuery) {
@@ -1508,12 +1559,89 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
 
       // :TODO: make fillFields its own QueryCommand flag? ...
       // ... see comments in populateNextCursorMarkFromTopDocs for cache issues (SOLR-5595)
-      final boolean fillFields = (null != cursor);
+      final boolean fillFields = forceFillFields || (null != cursor);
       final FieldDoc searchAfter = (null != cursor ? cursor.getSearchAfterFieldDoc() : null);
       return TopFieldCollector.create(weightedSort, len, searchAfter, fillFields, needScores, needScores);
     }
   }
 
+  /**
+   * Returns whether the given command can be executed by searching segments concurrently with the
+   * core's search executor. Commands that rely on a single collector chain, such as post filters, time
+   * limits and early termination, or on a custom {@link RankQuery} collector, are executed sequentially.
+   */
+  private boolean canSearchConcurrently(QueryCommand cmd, ProcessedFilter pf) {
+    return searchExecutor != null
+        && leafContexts.size() > 1
+        && pf.postFilter == null
+        && cmd.getTimeAllowed() <= 0
+        && !cmd.getTerminateEarly()
+        && !cmd.getSegmentTerminateEarly()
+        && !(cmd.getQuery() instanceof RankQuery);
+  }
+
+  /**
+   * Collects the top {@code len} documents for {@code query} with one collector per leaf slice, that are
+   * executed concurrently, and merges their results. If {@code setCollectors} is not null, then a
+   * {@link DocSetCollector} is also created for every slice and added to this list, in doc id order.
+   */
+  private TopDocs searchConcurrently(Query query, int len, QueryCommand cmd, List<DocSetCollector> setCollectors)
+      throws IOException {
+    final int maxDoc = maxDoc();
+    final List<TopDocsCollector> topCollectors = new ArrayList<>();
+    final CollectorManager<Collector,TopDocs> manager = new CollectorManager<Collector,TopDocs>() {
+      @Override
+      public Collector newCollector() throws IOException {
+        final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd, true);
+        topCollectors.add(topCollector);
+        if (setCollectors == null) {
+          return topCollector;
+        }
+        final DocSetCollector setCollector = new DocSetCollector(maxDoc);
+        setCollectors.add(setCollector);
+        return MultiCollector.wrap(topCollector, setCollector);
+      }
+
+      @Override
+      public TopDocs reduce(Collection<Collector> collectors) throws IOException {
+        if (cmd.getSort() == null) {
+          final TopDocs[] topDocs = new TopDocs[topCollectors.size()];
+          for (int i = 0; i < topDocs.length; i++) {
+            topDocs[i] = topCollectors.get(i).topDocs(0, len);
+          }
+          return TopDocs.merge(0, len, topDocs, true);
+        } else {
+          final TopFieldDocs[] topDocs = new TopFieldDocs[topCollectors.size()];
+          for (int i = 0; i < topDocs.length; i++) {
+            topDocs[i] = (TopFieldDocs) topCollectors.get(i).topDocs(0, len);
+          }
+          return TopDocs.merge(weightSort(cmd.getSort()), 0, len, topDocs, true);
+        }
+      }
+    };
+    return search(query, manager);
+  }
+
+  /**
+   * Collects the set of documents that match {@code query} with one collector per leaf slice, that are
+   * executed concurrently.
+   */
+  private DocSet searchDocSetConcurrently(Query query) throws IOException {
+    final int maxDoc = maxDoc();
+    final CollectorManager<DocSetCollector,DocSet> manager = new CollectorManager<DocSetCollector,DocSet>() {
+      @Override
+      public DocSetCollector newCollector() throws IOException {
+        return new DocSetCollector(maxDoc);
+      }
+
+      @Override
+      public DocSet reduce(Collection<DocSetCollector> collectors) throws IOException {
+        return DocSetUtil.getDocSet(collectors, SolrIndexSearcher.this);
+      }
+    };
+    return search(query, manager);
+  }
+
   private void getDocListNC(QueryResult qr, QueryCommand cmd) throws IOException {
     int len = cmd.getSupersetMaxDoc();
     int last = len;
@@ -1586,12 +1714,18 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       // no docs on this page, so cursor doesn't change
       qr.setNextCursorMark(cmd.getCursorMark());
     } else {
-      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd);
-      Collector collector = topCollector;
-      buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
+      final TopDocs topDocs;
+      if (canSearchConcurrently(cmd, pf)) {
+        topDocs = searchConcurrently(query, len, cmd, null);
+        totalHits = topDocs.totalHits;
+      } else {
+        final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd);
+        Collector collector = topCollector;
+        buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
 
-      totalHits = topCollector.getTotalHits();
-      TopDocs topDocs = topCollector.topDocs(0, len);
+        totalHits = topCollector.getTotalHits();
+        topDocs = topCollector.topDocs(0, len);
+      }
       populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
 
       maxScore = totalHits > 0 ? topDocs.getMaxScore() : 0.0f;
@@ -1640,7 +1774,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       Collector collector;
       final DocSetCollector setCollector = new DocSetCollector(maxDoc);
 
-      if (!needScores) {
+      if (!needScores && canSearchConcurrently(cmd, pf)) {
+        collector = null;
+      } else if (!needScores) {
         collector = setCollector;
       } else {
         final Collector topScoreCollector = new SimpleCollector() {
@@ -1667,9 +1803,12 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         collector = MultiCollector.wrap(setCollector, topScoreCollector);
       }
 
-      buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
-
-      set = DocSetUtil.getDocSet(setCollector, this);
+      if (collector == null) {
+        set = searchDocSetConcurrently(query);
+      } else {
+        buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
+        set = DocSetUtil.getDocSet(setCollector, this);
+      }
 
       nDocsReturned = 0;
       ids = new int[nDocsReturned];
@@ -1680,18 +1819,26 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       qr.setNextCursorMark(cmd.getCursorMark());
     } else {
 
-      final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd);
-      DocSetCollector setCollector = new DocSetCollector(maxDoc);
-      Collector collector = MultiCollector.wrap(topCollector, setCollector);
+      final TopDocs topDocs;
+      if (canSearchConcurrently(cmd, pf)) {
+        final List<DocSetCollector> setCollectors = new ArrayList<>();
+        topDocs = searchConcurrently(query, len, cmd, setCollectors);
+        set = DocSetUtil.getDocSet(setCollectors, this);
+        totalHits = topDocs.totalHits;
+      } else {
+        final TopDocsCollector topCollector = buildTopDocsCollector(len, cmd);
+        DocSetCollector setCollector = new DocSetCollector(maxDoc);
+        Collector collector = MultiCollector.wrap(topCollector, setCollector);
 
-      buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
+        buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
 
-      set = DocSetUtil.getDocSet(setCollector, this);
+        set = DocSetUtil.getDocSet(setCollector, this);
 
-      totalHits = topCollector.getTotalHits();
+        totalHits = topCollector.getTotalHits();
+        topDocs = topCollector.topDocs(0, len);
+      }
       assert (totalHits == set.size());
 
-      TopDocs topDocs = topCollector.topDocs(0, len);
       populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
       maxScore = totalHits > 0 ? topDocs.getMaxScore() : 0.0f;
       nDocsReturned = topDocs.scoreDocs.length;
@@ -1987,7 +2134,7 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
 
     // bit of a hack to tell if a set is sorted - do it better in the future.
-    boolean inOrder = set instanceof BitDocSet || set instanceof SortedIntDocSet;
+    boolean inOrder = set instanceof BitDocSet || set instanceof SortedIntDocSet || set instanceof RoaringDocSet;
 
     TopDocsCollector topCollector = buildTopDocsCollector(nDocs, cmd);
 
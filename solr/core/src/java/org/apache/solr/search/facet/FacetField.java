@@ -49,6 +49,9 @@ abstract class FacetRequestSorted extends FacetRequest {
 
 
 public class FacetField extends FacetRequestSorted {
+  // half width of the 95% confidence interval of estimated bucket counts
+  static final String COUNT_ERROR = "countError";
+
   String field;
   boolean missing;
   boolean allBuckets;   // show cumulative stats across all buckets (this can be different than non-bucketed stats across all docs because of multi-valued docs)
@@ -59,6 +62,9 @@ public class FacetField extends FacetRequestSorted {
 
   // experimental - force perSeg collection when using dv method, currently for testing purposes only.
   Boolean perSeg;
+  int threads;  // segments counted concurrently; 0 means on the request thread, negative means unlimited
+  int sample;   // if positive, estimate counts (and numBuckets) from a random sample of at least this many docs of the domain
+  Long sampleSeed;  // seed of the random sample; derived from the request and the domain if null
 
   {
     // defaults for FacetRequestSorted
@@ -150,6 +150,14 @@ public class FacetFieldMerger extends FacetRequestSortedMerger<FacetField> {
   }
 
 
+  @Override
+  FacetMerger createFacetMerger(String key, Object val) {
+    if (FacetField.COUNT_ERROR.equals(key)) {
+      return new FacetCountErrorMerger();
+    }
+    return super.createFacetMerger(key, val);
+  }
+
   @Override
   public void finish(Context mcontext) {
     // TODO: check refine of subs?
@@ -186,6 +194,27 @@ public class FacetFieldMerger extends FacetRequestSortedMerger<FacetField> {
     return refinement;
   }
 
+  /** Shard samples are independent, so the variances of their estimated counts add up. */
+  private static class FacetCountErrorMerger extends FacetMerger {
+    double sumOfSquares;
+
+    @Override
+    public void merge(Object facetResult, Context mcontext) {
+      double error = ((Number)facetResult).doubleValue();
+      sumOfSquares += error * error;
+    }
+
+    @Override
+    public void finish(Context mcontext) {
+      // nothing to do
+    }
+
+    @Override
+    public Object getMergedResult() {
+      return (long) Math.ceil(Math.sqrt(sumOfSquares));
+    }
+  }
+
   private static class FacetNumBucketsMerger extends FacetMerger {
     long sumBuckets;
     long shardsMissingSum;
@@ -19,22 +19,38 @@ package org.apache.solr.search.facet;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.PriorityQueue;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.request.SimpleFacets;
 import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.DocIterator;
 import org.apache.solr.search.DocSet;
+import org.apache.solr.search.Filter;
+import org.apache.solr.search.SortedIntDocSet;
 
 import static org.apache.solr.search.facet.FacetContext.SKIP_FACET;
 
@@ -61,6 +77,9 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
 
   SpecialSlotAcc allBucketsAcc;  // this can internally refer to otherAccs and/or collectAcc. setNextReader should be called on otherAccs directly if they exist.
 
+  DocSet fullBase;   // the domain that fcontext.base was sampled from, or null if counts are exact
+  int sampleBinSize; // one doc out of this many docs of fullBase is in the sample
+
   FacetFieldProcessor(FacetContext fcontext, FacetField freq, SchemaField sf) {
     super(fcontext, freq);
     this.sf = sf;
@@ -205,6 +224,49 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     }
   }
 
+  /**
+   * Replaces the domain with a random sample of it if {@link FacetField#sample} is less than half its size.
+   * The domain is split into bins of consecutive docs, and one random doc of each bin is counted, like
+   * Lucene's RandomSamplingFacetsCollector does. Counts of the top buckets are then scaled back by the bin size.
+   */
+  void sampleDomain() {
+    if (freq.sample <= 0 || fcontext.facetInfo != null) {
+      return;
+    }
+    final DocSet base = fcontext.base;
+    final int binSize = base.size() / freq.sample;
+    if (binSize < 2) {
+      return;
+    }
+
+    // a seed that only depends on the request, so that repeating it returns the same estimates
+    final long seed = freq.sampleSeed != null ? freq.sampleSeed
+        : Objects.hash(fcontext.req.getParamString(), fcontext.filter, freq.field, binSize);
+    final Random random = new Random(seed);
+    final int[] docs = new int[base.size() / binSize + 1];
+    int numDocs = 0;
+    int pos = 0;
+    int pick = random.nextInt(binSize);
+    for (DocIterator it = base.iterator(); it.hasNext(); ) {
+      int doc = it.nextDoc();
+      if (pos == pick) {
+        docs[numDocs++] = doc;
+      }
+      if (++pos == binSize) {
+        pos = 0;
+        pick = random.nextInt(binSize);
+      }
+    }
+    Arrays.sort(docs, 0, numDocs); // not all DocSets iterate in order
+
+    fullBase = base;
+    sampleBinSize = binSize;
+    fcontext.base = new SortedIntDocSet(docs, numDocs);
+    if (effectiveMincount > 1) {
+      effectiveMincount = (effectiveMincount + binSize - 1) / binSize;
+    }
+  }
+
   /** Processes the collected data to finds the top slots, and composes it in the response NamedList. */
   SimpleOrderedMap<Object> findTopSlots(final int numSlots, final int slotCardinality,
                                         IntFunction<Comparable> bucketValFromSlotNumFunc,
@@ -287,11 +349,17 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
 
     assert queue.size() <= numBuckets;
 
+    if (fullBase != null) {
+      // only counts are estimated from the sample, sub-facets and the missing bucket use the whole domain
+      fcontext.base = fullBase;
+    }
+
     SimpleOrderedMap<Object> res = new SimpleOrderedMap<>();
     if (freq.numBuckets) {
-      if (!fcontext.isShard()) {
+      if (!fcontext.isShard() && fullBase == null) {
         res.add("numBuckets", numBuckets);
       } else {
+        // a sample misses rare terms, so estimate the number of buckets of the whole domain, like shards do
         calculateNumBuckets(res);
       }
     }
@@ -335,7 +403,13 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
 
       Query filter = needFilter ? sf.getType().getFieldQuery(null, sf, fieldQueryValFunc.apply(val)) : null;
 
-      fillBucket(bucket, countAcc.getCount(slotNum), slotNum, null, filter);
+      int count = countAcc.getCount(slotNum);
+      if (fullBase == null) {
+        fillBucket(bucket, count, slotNum, null, filter);
+      } else {
+        fillBucket(bucket, count * sampleBinSize, slotNum, null, filter);
+        bucket.add(FacetField.COUNT_ERROR, estimateCountError(count));
+      }
 
       bucketList.add(bucket);
     }
@@ -343,6 +417,15 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     return res;
   }
 
+  /**
+   * Each doc of a bucket is in the sample with probability p=1/sampleBinSize, so the standard error of the
+   * estimated count is sqrt(count*(1-p))/p, which is multiplied by 1.96 to get an approximate 95% confidence interval.
+   */
+  private long estimateCountError(int sampleCount) {
+    double p = 1.0 / sampleBinSize;
+    return (long) Math.ceil(1.96 * Math.sqrt(sampleCount * (1 - p)) / p);
+  }
+
   private void calculateNumBuckets(SimpleOrderedMap<Object> target) throws IOException {
     DocSet domain = fcontext.base;
     if (freq.prefix != null) {
@@ -427,6 +510,88 @@ abstract class FacetFieldProcessor extends FacetProcessor<FacetField> {
     super.setNextReader(ctx);
   }
 
+  /** Counts the matches of a single segment, possibly on a thread other than the request thread. */
+  interface SegmentCounter<T> {
+    T count(LeafReaderContext ctx, DocIdSetIterator disi) throws IOException;
+  }
+
+  /** Merges the counts of a single segment into the accumulators, on the request thread. */
+  interface SegmentMerger<T> {
+    void merge(LeafReaderContext ctx, T counts) throws IOException;
+  }
+
+  /** Whether counting should be spread over the segments of the index on several threads. */
+  boolean countSegmentsInParallel() {
+    return freq.threads != 0 && fcontext.searcher.getIndexReader().leaves().size() > 1;
+  }
+
+  /**
+   * Counts all segments with up to {@link FacetField#threads} concurrent tasks (no limit if negative),
+   * and merges the per-segment counts in the order tasks complete.
+   */
+  <T> void countSegments(SegmentCounter<T> counter, SegmentMerger<T> merger) throws IOException {
+    final Filter filter = fcontext.base.getTopFilter();
+    final CompletionService<T> completionService = new ExecutorCompletionService<>(SimpleFacets.facetExecutor);
+    final LinkedList<LeafReaderContext> pending = new LinkedList<>(fcontext.searcher.getIndexReader().leaves());
+    final Map<Future<T>,LeafReaderContext> running = new HashMap<>();
+    final int maxThreads = freq.threads <= 0 ? Integer.MAX_VALUE : freq.threads;
+    // tasks are not interrupted, since an interrupt would close the shared channels of
+    // NIOFSDirectory; a failed request sets this flag so that tasks which didn't start yet skip
+    final AtomicBoolean stop = new AtomicBoolean();
+
+    try {
+      while (!pending.isEmpty() || !running.isEmpty()) {
+        while (running.size() < maxThreads && !pending.isEmpty()) {
+          final LeafReaderContext ctx = pending.removeFirst();
+          DocIdSet dis = filter.getDocIdSet(ctx, null); // solr docsets already exclude any deleted docs
+          final DocIdSetIterator disi = dis == null ? null : dis.iterator();
+          if (disi != null) {
+            running.put(completionService.submit(() -> stop.get() ? null : counter.count(ctx, disi)), ctx);
+          }
+        }
+        if (running.isEmpty()) {
+          break;
+        }
+        Future<T> future = completionService.take();
+        merger.merge(running.remove(future), future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Error in per-segment faceting on field: " + sf.getName(), cause);
+      }
+    } finally {
+      // don't leave tasks running against the searcher after a failure
+      if (!running.isEmpty()) {
+        stop.set(true);
+        awaitTasks(completionService, running.size());
+      }
+    }
+  }
+
+  /** Waits for the given number of tasks to complete, ignoring their results and failures. */
+  private static <T> void awaitTasks(CompletionService<T> completionService, int numTasks) {
+    boolean interrupted = false;
+    for (int i = 0; i < numTasks; ) {
+      try {
+        completionService.take();
+        i++;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   void setNextReaderFirstPhase(LeafReaderContext ctx) throws IOException {
     if (collectAcc != null) {
       collectAcc.setNextReader(ctx);
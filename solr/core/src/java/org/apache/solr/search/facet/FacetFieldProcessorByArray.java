@@ -55,6 +55,7 @@ abstract class FacetFieldProcessorByArray extends FacetFieldProcessor {
   @Override
   public void process() throws IOException {
     super.process();
+    sampleDomain();
     response = calcFacets();
   }
 
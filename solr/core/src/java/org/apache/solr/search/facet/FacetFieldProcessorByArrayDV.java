@@ -117,6 +117,12 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
 
     if (freq.perSeg != null) accumSeg = canDoPerSeg && freq.perSeg;  // internal - override perSeg heuristic
 
+    if (accumSeg && countSegmentsInParallel()) {
+      // each segment is counted into its own array, and only the merge into global counts is sequential
+      countSegments(this::countSeg, this::mergeSegCounts);
+      return;
+    }
+
     final List<LeafReaderContext> leaves = fcontext.searcher.getIndexReader().leaves();
     Filter filter = fcontext.base.getTopFilter();
 
@@ -128,25 +134,8 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
       DocIdSet dis = filter.getDocIdSet(subCtx, null); // solr docsets already exclude any deleted docs
       DocIdSetIterator disi = dis.iterator();
 
-      SortedDocValues singleDv = null;
-      SortedSetDocValues multiDv = null;
-      if (multiValuedField) {
-        // TODO: get sub from multi?
-        multiDv = subCtx.reader().getSortedSetDocValues(sf.getName());
-        if (multiDv == null) {
-          multiDv = DocValues.emptySortedSet();
-        }
-        // some codecs may optimize SortedSet storage for single-valued fields
-        // this will be null if this is not a wrapped single valued docvalues.
-        if (unwrap_singleValued_multiDv) {
-          singleDv = DocValues.unwrapSingleton(multiDv);
-        }
-      } else {
-        singleDv = subCtx.reader().getSortedDocValues(sf.getName());
-        if (singleDv == null) {
-          singleDv = DocValues.emptySorted();
-        }
-      }
+      SortedSetDocValues multiDv = getMultiDv(subCtx);
+      SortedDocValues singleDv = getSingleDv(subCtx, multiDv);
 
       LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subIdx);
 
@@ -176,15 +165,75 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
     reuse = null;  // better GC
   }
 
+  private SortedSetDocValues getMultiDv(LeafReaderContext subCtx) throws IOException {
+    if (!multiValuedField) {
+      return null;
+    }
+    // TODO: get sub from multi?
+    SortedSetDocValues multiDv = subCtx.reader().getSortedSetDocValues(sf.getName());
+    return multiDv == null ? DocValues.emptySortedSet() : multiDv;
+  }
+
+  /** returns null if multiDv should be used */
+  private SortedDocValues getSingleDv(LeafReaderContext subCtx, SortedSetDocValues multiDv) throws IOException {
+    if (multiValuedField) {
+      // some codecs may optimize SortedSet storage for single-valued fields
+      // this will be null if this is not a wrapped single valued docvalues.
+      return unwrap_singleValued_multiDv ? DocValues.unwrapSingleton(multiDv) : null;
+    }
+    SortedDocValues singleDv = subCtx.reader().getSortedDocValues(sf.getName());
+    return singleDv == null ? DocValues.emptySorted() : singleDv;
+  }
+
   @Override
   protected BytesRef lookupOrd(int ord) throws IOException {
     return si.lookupOrd(ord);
   }
 
+  /** Segment-local counts, where counts[segOrd + ordOffset] is the count of segOrd. */
+  private static class SegCounts {
+    final int[] counts;
+    final int ordOffset;
+
+    SegCounts(int[] counts, int ordOffset) {
+      this.counts = counts;
+      this.ordOffset = ordOffset;
+    }
+  }
+
+  /** Counts a segment into a new array, this may be called concurrently for different segments */
+  private SegCounts countSeg(LeafReaderContext subCtx, DocIdSetIterator disi) throws IOException {
+    SortedSetDocValues multiDv = getMultiDv(subCtx);
+    SortedDocValues singleDv = getSingleDv(subCtx, multiDv);
+    if (singleDv != null) {
+      int[] counts = new int[singleDv.getValueCount() + 1];
+      countPerSeg(singleDv, disi, counts);
+      return new SegCounts(counts, 1);
+    } else {
+      int[] counts = new int[(int) multiDv.getValueCount()];
+      countPerSeg(multiDv, disi, counts);
+      return new SegCounts(counts, 0);
+    }
+  }
+
+  private void mergeSegCounts(LeafReaderContext subCtx, SegCounts segCounts) {
+    LongValues toGlobal = ordinalMap == null ? null : ordinalMap.getGlobalOrds(subCtx.ord);
+    addSegCounts(segCounts.counts, segCounts.ordOffset, segCounts.counts.length, toGlobal);
+  }
+
   private void collectPerSeg(SortedDocValues singleDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
     int segMax = singleDv.getValueCount() + 1;
     final int[] counts = getCountArr( segMax );
 
+    // calculate segment-local counts
+    countPerSeg(singleDv, disi, counts);
+
+    // convert segment-local counts to global counts
+    addSegCounts(counts, 1, segMax, toGlobal);
+  }
+
+  private void countPerSeg(SortedDocValues singleDv, DocIdSetIterator disi, int[] counts) throws IOException {
+
     /** alternate trial implementations
      // ord
      // FieldUtil.visitOrds(singleDv, disi,  (doc,ord)->{counts[ord+1]++;} );
@@ -196,7 +245,6 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
      **/
 
 
-    // calculate segment-local counts
     int doc;
     if (singleDv instanceof FieldCacheImpl.SortedDocValuesImpl.Iter) {
       FieldCacheImpl.SortedDocValuesImpl.Iter fc = (FieldCacheImpl.SortedDocValuesImpl.Iter) singleDv;
@@ -210,21 +258,18 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
         }
       }
     }
-
-    // convert segment-local counts to global counts
-    for (int i=1; i<segMax; i++) {
-      int segCount = counts[i];
-      if (segCount > 0) {
-        int slot = toGlobal == null ? (i - 1) : (int) toGlobal.get(i - 1);
-        countAcc.incrementCount(slot, segCount);
-      }
-    }
   }
 
   private void collectPerSeg(SortedSetDocValues multiDv, DocIdSetIterator disi, LongValues toGlobal) throws IOException {
     int segMax = (int)multiDv.getValueCount();
     final int[] counts = getCountArr( segMax );
 
+    countPerSeg(multiDv, disi, counts);
+
+    addSegCounts(counts, 0, segMax, toGlobal);
+  }
+
+  private void countPerSeg(SortedSetDocValues multiDv, DocIdSetIterator disi, int[] counts) throws IOException {
     int doc;
     while ((doc = disi.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
       if (multiDv.advanceExact(doc)) {
@@ -235,11 +280,14 @@ class FacetFieldProcessorByArrayDV extends FacetFieldProcessorByArray {
         }
       }
     }
+  }
 
-    for (int i=0; i<segMax; i++) {
+  /** adds segment-local counts, where counts[segOrd + ordOffset] is the count of segOrd, to the global counts */
+  private void addSegCounts(int[] counts, int ordOffset, int segMax, LongValues toGlobal) {
+    for (int i=ordOffset; i<segMax; i++) {
       int segCount = counts[i];
       if (segCount > 0) {
-        int slot = toGlobal == null ? (i) : (int) toGlobal.get(i);
+        int slot = toGlobal == null ? (i - ordOffset) : (int) toGlobal.get(i - ordOffset);
         countAcc.incrementCount(slot, segCount);
       }
     }
@@ -27,6 +27,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiDocValues;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.SimpleCollector;
 import org.apache.lucene.util.BitUtil;
 import org.apache.lucene.util.BytesRef;
@@ -87,6 +88,11 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
 
     /** returns the slot */
     int add(long val) {
+      return add(val, 1);
+    }
+
+    /** adds inc (which must be positive) to the count of val, returns the slot */
+    int add(long val, int inc) {
       if (cardinality >= threshold) {
         rehash();
       }
@@ -95,13 +101,13 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
       for (int slot = h & (vals.length-1);  ;slot = (slot + ((h>>7)|1)) & (vals.length-1)) {
         int count = counts[slot];
         if (count == 0) {
-          counts[slot] = 1;
+          counts[slot] = inc;
           vals[slot] = val;
           cardinality++;
           return slot;
         } else if (vals[slot] == val) {
           // val is already in the set
-          counts[slot] = count + 1;
+          counts[slot] = count + inc;
           return slot;
         }
       }
@@ -209,6 +215,7 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
   @Override
   public void process() throws IOException {
     super.process();
+    sampleDomain();
     response = calcFacets();
     table = null;//gc
   }
@@ -328,6 +335,8 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
   }
 
   private void collectDocs() throws IOException {
+    boolean countOnly = collectAcc == null && allBucketsAcc == null;
+
     if (calc instanceof TermOrdCalc) { // Strings
 
       // TODO support SortedSetDocValues
@@ -340,6 +349,24 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
         }
       };
 
+      if (countOnly && countSegmentsInParallel() && globalDocValues instanceof MultiDocValues.MultiSortedDocValues) {
+        // count segment ords into a table per segment, and only map the distinct ones to global ords
+        MultiDocValues.MultiSortedDocValues multiDocValues = (MultiDocValues.MultiSortedDocValues) globalDocValues;
+        countSegments(
+            (ctx, disi) -> {
+              SortedDocValues docValues = DocValues.getSorted(ctx.reader(), sf.getName());
+              LongCounts segTable = newSegmentTable(ctx);
+              for (int doc = disi.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = disi.nextDoc()) {
+                if (docValues.advanceExact(doc)) {
+                  segTable.add(docValues.ordValue());
+                }
+              }
+              return segTable;
+            },
+            (ctx, segTable) -> mergeSegmentTable(segTable, multiDocValues.mapping.getGlobalOrds(ctx.ord)));
+        return;
+      }
+
       DocSetUtil.collectSortedDocSet(fcontext.base, fcontext.searcher.getIndexReader(), new SimpleCollector() {
           SortedDocValues docValues = globalDocValues; // this segment/leaf. NN
           LongValues toGlobal = LongValues.IDENTITY; // this segment to global ordinal. NN
@@ -370,6 +397,22 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
 
     } else { // Numeric:
 
+      if (countOnly && countSegmentsInParallel()) {
+        countSegments(
+            (ctx, disi) -> {
+              NumericDocValues values = DocValues.getNumeric(ctx.reader(), sf.getName());
+              LongCounts segTable = newSegmentTable(ctx);
+              for (int doc = disi.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = disi.nextDoc()) {
+                if (values.advanceExact(doc)) {
+                  segTable.add(values.longValue());
+                }
+              }
+              return segTable;
+            },
+            (ctx, segTable) -> mergeSegmentTable(segTable, LongValues.IDENTITY));
+        return;
+      }
+
       // TODO support SortedNumericDocValues
       DocSetUtil.collectSortedDocSet(fcontext.base, fcontext.searcher.getIndexReader(), new SimpleCollector() {
           NumericDocValues values = null; //NN
@@ -395,6 +438,21 @@ class FacetFieldProcessorByHashDV extends FacetFieldProcessor {
     }
   }
 
+  private LongCounts newSegmentTable(LeafReaderContext ctx) {
+    int possibleValues = ctx.reader().maxDoc();
+    int hashSize = BitUtil.nextHighestPowerOfTwo((int) (possibleValues * (1 / LongCounts.LOAD_FACTOR) + 1));
+    return new LongCounts(Math.min(hashSize, MAXIMUM_STARTING_TABLE_SIZE));
+  }
+
+  private void mergeSegmentTable(LongCounts segTable, LongValues toGlobal) {
+    for (int i = 0; i < segTable.numSlots(); i++) {
+      int count = segTable.counts[i];
+      if (count > 0) {
+        table.add(toGlobal.get(segTable.vals[i]), count);
+      }
+    }
+  }
+
   private void collectValFirstPhase(int segDoc, long val) throws IOException {
     int slot = table.add(val); // this can trigger a rehash
 
@@ -712,6 +712,11 @@ class FacetFieldParser extends FacetParser<FacetField> {
       facet.refine = FacetField.RefineMethod.fromObj(m.get("refine"));
 
       facet.perSeg = (Boolean)m.get("perSeg");
+      facet.threads = (int)getLong(m, "threads", facet.threads);
+      facet.sample = (int)getLong(m, "sample", facet.sample);
+      if (m.containsKey("sampleSeed")) {
+        facet.sampleSeed = getLong(m, "sampleSeed", 0);
+      }
 
       // facet.sort may depend on a facet stat...
       // should we be parsing / validating this here, or in the execution environment?
@@ -719,6 +724,16 @@ class FacetFieldParser extends FacetParser<FacetField> {
       parseSubs(o);
 
       parseSort( m.get(SORT) );
+
+      if (facet.sample > 0) {
+        // only counts are estimated, so anything that depends on other stats of the whole domain can't be sampled
+        if (!"count".equals(facet.sortVariable) && !"index".equals(facet.sortVariable)) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "sample requires sorting by count or index: " + facet.sortVariable);
+        }
+        if (facet.allBuckets || facet.refine == FacetRequest.RefineMethod.SIMPLE) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "sample can not be used with allBuckets or refine");
+        }
+      }
     }
 
     return facet;
@@ -19,10 +19,12 @@ package org.apache.solr.update;
 import org.apache.http.HttpResponse;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.BinaryRequestWriter;
 import org.apache.solr.client.solrj.impl.BinaryResponseParser;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.impl.ConcurrentUpdateSolrClient; // jdoc
 import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
@@ -182,17 +184,16 @@ public class SolrCmdDistributor implements Closeable {
   }
   
   public void distribDelete(DeleteUpdateCommand cmd, List<Node> nodes, ModifiableSolrParams params, boolean sync) throws IOException {
-    
+    UpdateRequest uReq = newUpdateRequest(nodes);
+    uReq.setParams(params);
+    uReq.setCommitWithin(cmd.commitWithin);
+    if (cmd.isDeleteById()) {
+      uReq.deleteById(cmd.getId(), cmd.getRoute(), cmd.getVersion());
+    } else {
+      uReq.deleteByQuery(cmd.query);
+    }
+
     for (Node node : nodes) {
-      UpdateRequest uReq = new UpdateRequest();
-      uReq.setParams(params);
-      uReq.setCommitWithin(cmd.commitWithin);
-      if (cmd.isDeleteById()) {
-        uReq.deleteById(cmd.getId(), cmd.getRoute(), cmd.getVersion());
-      } else {
-        uReq.deleteByQuery(cmd.query);
-      }
-      
       submit(new Req(cmd, node, uReq, sync), false);
     }
   }
@@ -206,20 +207,29 @@ public class SolrCmdDistributor implements Closeable {
   }
   
   public void distribAdd(AddUpdateCommand cmd, List<Node> nodes, ModifiableSolrParams params, boolean synchronous, RequestReplicationTracker rrt) throws IOException {  
+    UpdateRequest uReq = newUpdateRequest(nodes);
+    if (cmd.isLastDocInBatch)
+      uReq.lastDocInBatch();
+    uReq.setParams(params);
+    uReq.add(cmd.solrDoc, cmd.commitWithin, cmd.overwrite);
+    if (cmd.isInPlaceUpdate()) {
+      params.set(DistributedUpdateProcessor.DISTRIB_INPLACE_PREVVERSION, String.valueOf(cmd.prevVersion));
+    }
+
     for (Node node : nodes) {
-      UpdateRequest uReq = new UpdateRequest();
-      if (cmd.isLastDocInBatch)
-        uReq.lastDocInBatch();
-      uReq.setParams(params);
-      uReq.add(cmd.solrDoc, cmd.commitWithin, cmd.overwrite);
-      if (cmd.isInPlaceUpdate()) {
-        params.set(DistributedUpdateProcessor.DISTRIB_INPLACE_PREVVERSION, String.valueOf(cmd.prevVersion));
-      }
       submit(new Req(cmd, node, uReq, synchronous, rrt), false);
     }
     
   }
 
+  /**
+   * An update that goes to more than one node is built once and shared by all of them, so that it is only
+   * serialized once.
+   */
+  private UpdateRequest newUpdateRequest(List<Node> nodes) {
+    return nodes.size() > 1 ? new SharedUpdateRequest() : new UpdateRequest();
+  }
+
   public void distribCommit(CommitUpdateCommand cmd, List<Node> nodes,
       ModifiableSolrParams params) throws IOException {
     
@@ -312,6 +322,25 @@ public class SolrCmdDistributor implements Closeable {
     }
   }
   
+  /**
+   * An {@link UpdateRequest} that is sent to several nodes. It is marshalled to javabin the first time it is
+   * written, and the same bytes are then streamed to every other node, including on retries.
+   *
+   * @see StreamingSolrClients
+   */
+  public static class SharedUpdateRequest extends UpdateRequest {
+    private byte[] bytes;
+
+    public synchronized byte[] getBytes() throws IOException {
+      if (bytes == null) {
+        BinaryRequestWriter.BAOS baos = new BinaryRequestWriter.BAOS();
+        new JavaBinUpdateRequestCodec().marshal(this, baos);
+        bytes = baos.toByteArray();
+      }
+      return bytes;
+    }
+  }
+
   public static class Req {
     public Node node;
     public UpdateRequest uReq;
@@ -36,6 +36,9 @@ import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
@@ -88,6 +91,12 @@ public class TransactionLog implements Closeable {
   long snapshot_size;
   int snapshot_numRecords;
 
+  // set once the log has been capped with a commit record; nothing is appended after that
+  private volatile boolean finished;
+  // lazily opened memory-mapped view of a finished log, used for lookups
+  private volatile IndexInput mappedInput;
+  private boolean mappingFailed;  // guarded by "this"
+
   // write a BytesRef as a byte array
   static final JavaBinCodec.ObjectResolver resolver = new JavaBinCodec.ObjectResolver() {
     @Override
@@ -497,6 +506,7 @@ public class TransactionLog implements Closeable {
 
         fos.flush();  // flush since this will be the last record in a log fill
         assert fos.size() == channel.size();
+        finished = true;
 
         return pos;
       } catch (IOException e) {
@@ -513,6 +523,17 @@ public class TransactionLog implements Closeable {
     if (pos < 0) return null;
 
     try {
+      if (finished) {
+        IndexInput mapped = getMappedInput();
+        if (mapped != null) {
+          // read straight from the page cache, without a syscall per buffer fill
+          IndexInput in = mapped.clone();
+          in.seek(pos);
+          LogCodec codec = new LogCodec(resolver);
+          return codec.readVal(new IndexInputFastInputStream(in));
+        }
+      }
+
       // make sure any unflushed buffer has been flushed
       synchronized (this) {
         // TODO: optimize this by keeping track of what we have flushed up to
@@ -533,6 +554,25 @@ public class TransactionLog implements Closeable {
     }
   }
 
+  /** Returns a memory-mapped view of this finished log, or null if it could not be mapped. */
+  private IndexInput getMappedInput() {
+    IndexInput mapped = mappedInput;
+    if (mapped != null) {
+      return mapped;
+    }
+    synchronized (this) {
+      if (mappedInput == null && !mappingFailed) {
+        try (MMapDirectory dir = new MMapDirectory(tlogFile.getParentFile().toPath())) {
+          mappedInput = dir.openInput(tlogFile.getName(), IOContext.READ);
+        } catch (IOException | RuntimeException e) {
+          log.warn("Could not memory-map " + tlogFile + ", falling back to channel reads", e);
+          mappingFailed = true;
+        }
+      }
+      return mappedInput;
+    }
+  }
+
   public void incref() {
     int result = refcount.incrementAndGet();
     if (result <= 1) {
@@ -590,6 +630,10 @@ public class TransactionLog implements Closeable {
       synchronized (this) {
         fos.flush();
         fos.close();
+        if (mappedInput != null) {
+          mappedInput.close();  // unmaps, so the file can be deleted on all platforms
+          mappedInput = null;
+        }
       }
 
       if (deleteOnClose) {
@@ -880,6 +924,27 @@ public class TransactionLog implements Closeable {
 
 
 
+/** Reads from an {@link IndexInput}, such as a memory-mapped view of a finished log, starting at its current position. */
+class IndexInputFastInputStream extends FastInputStream {
+  private final IndexInput in;
+
+  public IndexInputFastInputStream(IndexInput in) {
+    super(null);
+    this.in = in;
+    super.readFromStream = in.getFilePointer();
+  }
+
+  @Override
+  public int readWrappedStream(byte[] target, int offset, int len) throws IOException {
+    int toRead = (int) Math.min(len, in.length() - in.getFilePointer());
+    if (toRead <= 0) {
+      return -1;
+    }
+    in.readBytes(target, offset, toRead);
+    return toRead;
+  }
+}
+
 class ChannelFastInputStream extends FastInputStream {
   private FileChannel ch;
 
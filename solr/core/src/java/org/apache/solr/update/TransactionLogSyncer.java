@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.common.SolrException;
+import org.apache.solr.util.DefaultSolrThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group commit for {@link UpdateLog.SyncLevel#FSYNC}: callers of {@link #sync(TransactionLog)} are
+ * batched by a dedicated thread that flushes and fsyncs each log once per batch, instead of every
+ * updater paying for its own fsync.
+ * <p>
+ * A caller returns only after an fsync that started after its call, so everything it wrote to the
+ * log before calling is durable. The syncer waits up to {@code maxDelayMs} after the first pending
+ * request to let more requests join a batch; requests arriving while an fsync is in progress
+ * are always grouped into the next batch.
+ *
+ * @lucene.experimental
+ */
+class TransactionLogSyncer implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final long maxDelayNanos;
+  private List<Request> pending = new ArrayList<>();
+  private Thread thread;  // started lazily on the first request
+  private boolean closed;
+
+  private static final class Request {
+    final TransactionLog tlog;
+    boolean done;
+    RuntimeException failure;
+
+    Request(TransactionLog tlog) {
+      this.tlog = tlog;
+    }
+  }
+
+  TransactionLogSyncer(int maxDelayMs) {
+    if (maxDelayMs < 0) {
+      throw new IllegalArgumentException("maxDelayMs must be >= 0, got " + maxDelayMs);
+    }
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+  }
+
+  /**
+   * Blocks until all data written to the given log before this call is flushed and fsynced.
+   * The caller must hold a reference to the log until this method returns.
+   */
+  public void sync(TransactionLog tlog) {
+    final Request request = new Request(tlog);
+    boolean enqueued = false;
+    synchronized (this) {
+      if (!closed) {
+        if (thread == null) {
+          thread = new DefaultSolrThreadFactory("tlogSyncer").newThread(this::run);
+          thread.start();
+        }
+        pending.add(request);
+        if (pending.size() == 1) {
+          notifyAll();
+        }
+        enqueued = true;
+      }
+    }
+    if (!enqueued) {
+      // shutting down: fall back to syncing on the caller's thread
+      tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      return;
+    }
+
+    boolean interrupted = false;
+    synchronized (request) {
+      while (!request.done) {
+        try {
+          request.wait();
+        } catch (InterruptedException e) {
+          // the update is already in the log; finish waiting so the caller knows it is durable
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (request.failure != null) {
+      throw request.failure;
+    }
+  }
+
+  private void run() {
+    while (true) {
+      final List<Request> batch;
+      synchronized (this) {
+        while (pending.isEmpty() && !closed) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            // only close() stops this thread, so pending requests are never abandoned
+          }
+        }
+        if (pending.isEmpty()) {
+          return; // closed and drained
+        }
+        if (maxDelayNanos > 0 && !closed) {
+          final long deadline = System.nanoTime() + maxDelayNanos;
+          long remaining;
+          while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+            try {
+              TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+              break;
+            }
+          }
+        }
+        batch = pending;
+        pending = new ArrayList<>();
+      }
+      syncBatch(batch);
+    }
+  }
+
+  private void syncBatch(List<Request> batch) {
+    final Map<TransactionLog, RuntimeException> results = new IdentityHashMap<>();
+    for (Request request : batch) {
+      if (results.containsKey(request.tlog)) {
+        continue;
+      }
+      RuntimeException failure = null;
+      try {
+        request.tlog.finish(UpdateLog.SyncLevel.FSYNC);
+      } catch (RuntimeException e) {
+        log.error("Error syncing " + request.tlog, e);
+        failure = e;
+      } catch (Throwable t) {
+        log.error("Error syncing " + request.tlog, t);
+        failure = new SolrException(SolrException.ErrorCode.SERVER_ERROR, t);
+      }
+      results.put(request.tlog, failure);
+    }
+    for (Request request : batch) {
+      synchronized (request) {
+        request.failure = results.get(request.tlog);
+        request.done = true;
+        request.notifyAll();
+      }
+    }
+  }
+
+  /** Syncs any pending requests and stops the syncer thread. */
+  @Override
+  public void close() {
+    final Thread t;
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+      t = thread;
+    }
+    if (t != null) {
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "Interrupted while stopping tlog syncer", e);
+      }
+    }
+  }
+}
@@ -226,6 +226,10 @@ public static final int VERSION_IDX = 1;
   protected VersionInfo versionInfo;
 
   protected SyncLevel defaultSyncLevel = SyncLevel.FLUSH;
+  // when set, FSYNC requests are batched by a dedicated thread (group commit)
+  TransactionLogSyncer syncer;
+  // small LRU of decoded log entries for real-time get, null when disabled; synchronize on the map itself
+  private Map<LookupKey,List> lookupCache;
 
   volatile UpdateHandler uhandler;    // a core reload can change this reference!
   protected volatile boolean cancelApplyBufferUpdate;
@@ -322,6 +326,26 @@ public static final int VERSION_IDX = 1;
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
           "Number of version buckets must be greater than 0!");
 
+    int lookupCacheSize = objToInt(info.initArgs.get("lookupCacheSize"), 256);
+    if (lookupCacheSize > 0) {
+      lookupCache = new LinkedHashMap<LookupKey,List>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LookupKey,List> eldest) {
+          return size() > lookupCacheSize;
+        }
+      };
+    }
+
+    boolean groupCommit = Boolean.parseBoolean(String.valueOf(info.initArgs.get("groupCommit")));
+    int groupCommitMaxDelayMs = objToInt(info.initArgs.get("groupCommitMaxDelayMs"), 0);
+    if (groupCommitMaxDelayMs < 0)
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR,
+          "groupCommitMaxDelayMs must not be negative!");
+    if (groupCommit) {
+      syncer = new TransactionLogSyncer(groupCommitMaxDelayMs);
+      log.info("Using group commit for fsync of the update log, maxDelayMs={}", groupCommitMaxDelayMs);
+    }
+
     log.info("Initializing UpdateLog: dataDir={} defaultSyncLevel={} numRecordsToKeep={} maxNumLogsToKeep={} numVersionBuckets={}",
         dataDir, defaultSyncLevel, numRecordsToKeep, maxNumLogsToKeep, numVersionBuckets);
   }
@@ -428,6 +452,9 @@ public static final int VERSION_IDX = 1;
     applyingBufferedOpsMeter = manager.meter(null, registry, "ops", scope, "applyingBuffered");
     replayOpsMeter = manager.meter(null, registry, "ops", scope, "replay");
     manager.registerGauge(null, registry, () -> state.getValue(), true, "state", scope);
+    if (versionInfo != null) {
+      versionInfo.initializeMetrics(manager, registry, scope);
+    }
   }
 
   /**
@@ -779,6 +806,8 @@ public static final int VERSION_IDX = 1;
         prevTlog.writeCommit(cmd, operationFlags);
 
         addOldLog(prevTlog, true);
+        // entries from logs that are no longer needed must not be kept alive by the cache
+        clearLookupCache();
         // the old log list will decref when no longer needed
         // prevTlog.decref();
         prevTlog = null;
@@ -909,7 +938,7 @@ public static final int VERSION_IDX = 1;
           Object obj = null;
 
           try {
-            obj = lookupLog.lookup(lookupPointer);
+            obj = lookupEntry(lookupLog, lookupPointer);
           } catch (Exception | Error ex) {
             // This can happen when trying to deserialize the entry at position lookupPointer,
             // but from a different tlog than the one containing the desired entry.
@@ -963,13 +992,80 @@ public static final int VERSION_IDX = 1;
 
     try {
       // now do the lookup outside of the sync block for concurrency
-      return lookupLog.lookup(entry.pointer);
+      return lookupEntry(lookupLog, entry.pointer);
     } finally {
       lookupLog.decref();
     }
 
   }
 
+  /** Identifies a record by the log instance it was written to and its position in that log. */
+  private static final class LookupKey {
+    final TransactionLog log;
+    final long pointer;
+
+    LookupKey(TransactionLog log, long pointer) {
+      this.log = log;
+      this.pointer = pointer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof LookupKey)) return false;
+      LookupKey other = (LookupKey) o;
+      return log == other.log && pointer == other.pointer;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(log) + Long.hashCode(pointer);
+    }
+  }
+
+  /**
+   * Reads the record at the given position, going through the decoded-entry cache if enabled.
+   * The caller must hold a reference to the log. Callers may modify the returned entry (e.g.
+   * atomic updates merge into the document), so the cache hands out copies.
+   */
+  Object lookupEntry(TransactionLog lookupLog, long pointer) {
+    if (lookupCache == null || pointer < 0) {
+      return lookupLog.lookup(pointer);
+    }
+    LookupKey key = new LookupKey(lookupLog, pointer);
+    List cached;
+    synchronized (lookupCache) {
+      cached = lookupCache.get(key);
+    }
+    if (cached != null) {
+      return copyEntry(cached);
+    }
+    Object obj = lookupLog.lookup(pointer);
+    if (obj instanceof List && !((List) obj).isEmpty()) {
+      List copy = copyEntry((List) obj);
+      synchronized (lookupCache) {
+        lookupCache.put(key, copy);
+      }
+    }
+    return obj;
+  }
+
+  private static List copyEntry(List entry) {
+    List copy = new ArrayList<>(entry);
+    int last = copy.size() - 1;
+    if (copy.get(last) instanceof SolrInputDocument) {
+      copy.set(last, ((SolrInputDocument) copy.get(last)).deepCopy());
+    }
+    return copy;
+  }
+
+  private void clearLookupCache() {
+    if (lookupCache != null) {
+      synchronized (lookupCache) {
+        lookupCache.clear();
+      }
+    }
+  }
+
   // This method works like realtime-get... it only guarantees to return the latest
   // version of the *completed* update.  There can be updates in progress concurrently
   // that have already grabbed higher version numbers.  Higher level coordination or
@@ -1037,7 +1133,11 @@ public static final int VERSION_IDX = 1;
     }
 
     try {
-      currLog.finish(syncLevel);
+      if (syncLevel == SyncLevel.FSYNC && syncer != null) {
+        syncer.sync(currLog);
+      } else {
+        currLog.finish(syncLevel);
+      }
     } finally {
       currLog.decref();
     }
@@ -1275,6 +1375,11 @@ public static final int VERSION_IDX = 1;
     synchronized (this) {
       recoveryExecutor.shutdown(); // no new tasks
 
+      if (syncer != null) {
+        syncer.close(); // syncs anything still pending before the logs are closed
+      }
+      clearLookupCache();
+
       // Don't delete the old tlogs, we want to be able to replay from them and retrieve old versions
 
       doClose(prevTlog, committed);
@@ -1554,6 +1659,8 @@ public static final int VERSION_IDX = 1;
       synchronized (this) {
         if (tlog != null) {
           tlog.rollback(recoveryInfo.positionOfStart);
+          // positions past the rollback point will be reused by new records
+          clearLookupCache();
         }
       }
 
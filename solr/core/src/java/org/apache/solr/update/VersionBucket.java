@@ -16,17 +16,93 @@
  */
 package org.apache.solr.update;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
 // TODO: make inner?
 // TODO: store the highest possible in the index on a commit (but how to not block adds?)
 // TODO: could also store highest possible in the transaction log after a commit.
 // Or on a new index, just scan "version" for the max?
-/** @lucene.internal */
+/**
+ * Tracks the highest version seen for a range of ids and serializes updates to that range.
+ * <p>
+ * The highest version is maintained with compare-and-set so it can be read and seeded without
+ * holding the bucket lock. Every bucket has its own lock; threads waiting for a re-ordered update
+ * park on a condition of that lock, which is only created and signalled when such waiters exist.
+ *
+ * @lucene.internal
+ */
 public class VersionBucket {
-  public long highest;
+  private static final AtomicLongFieldUpdater<VersionBucket> HIGHEST =
+      AtomicLongFieldUpdater.newUpdater(VersionBucket.class, "highest");
+
+  public volatile long highest;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private Condition condition; // created lazily, guarded by lock
+  private int waiters; // guarded by lock
 
+  /** Raises the highest version to {@code abs(val)}, unless this bucket has not been seeded yet. */
   public void updateHighest(long val) {
-    if (highest != 0) {
-      highest = Math.max(highest, Math.abs(val));
+    final long v = Math.abs(val);
+    long current;
+    do {
+      current = highest;
+      if (current == 0 || current >= v) {
+        return;
+      }
+    } while (!HIGHEST.compareAndSet(this, current, v));
+  }
+
+  /** Raises the highest version to {@code val}, even if this bucket has not been seeded yet. */
+  public void seedHighest(long val) {
+    long current;
+    do {
+      current = highest;
+      if (current >= val) {
+        return;
+      }
+    } while (!HIGHEST.compareAndSet(this, current, val));
+  }
+
+  /** Acquires the lock of this bucket, waiting if necessary. */
+  public void lock() {
+    lock.lock();
+  }
+
+  /** Acquires the lock of this bucket only if it is free at the time of invocation. */
+  public boolean tryLock() {
+    return lock.tryLock();
+  }
+
+  public void unlock() {
+    lock.unlock();
+  }
+
+  /** Wakes up threads waiting for a re-ordered update. Must be called with the lock held. */
+  public void signalAll() {
+    assert lock.isHeldByCurrentThread();
+    if (waiters > 0) {
+      condition.signalAll();
+    }
+  }
+
+  /**
+   * Releases the lock and waits until signalled or the timeout expires. Must be called with
+   * the lock held, which is re-acquired before returning.
+   * @return an estimate of the remaining nanoseconds, see {@link Condition#awaitNanos(long)}
+   */
+  public long awaitNanos(long nanosTimeout) throws InterruptedException {
+    assert lock.isHeldByCurrentThread();
+    if (condition == null) {
+      condition = lock.newCondition();
+    }
+    waiters++;
+    try {
+      return condition.awaitNanos(nanosTimeout);
+    } finally {
+      waiters--;
     }
   }
 }
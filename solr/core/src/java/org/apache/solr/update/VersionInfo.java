@@ -19,9 +19,11 @@ package org.apache.solr.update;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import com.codahale.metrics.Timer;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Terms;
@@ -34,6 +36,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.SuppressForbidden;
 import org.apache.solr.index.SlowCompositeReaderWrapper;
+import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.search.SolrIndexSearcher;
@@ -49,6 +52,8 @@ public class VersionInfo {
 
   private final UpdateLog ulog;
   private final VersionBucket[] buckets;
+  private volatile Timer bucketLockWaitTimer = new Timer();
+  private volatile Timer bucketReorderWaitTimer = new Timer();
   private SchemaField versionField;
   private SchemaField idField;
   final ReadWriteLock lock = new ReentrantReadWriteLock(true);
@@ -99,6 +104,15 @@ public class VersionInfo {
     }
   }
 
+  /**
+   * Registers timers for the time spent acquiring contended bucket locks and the time spent
+   * waiting for re-ordered updates that an in-place update depends on.
+   */
+  public void initializeMetrics(SolrMetricManager manager, String registry, String scope) {
+    bucketLockWaitTimer = manager.timer(null, registry, "lockWait", scope, "versionBucket");
+    bucketReorderWaitTimer = manager.timer(null, registry, "reorderWait", scope, "versionBucket");
+  }
+
   public void reload() {
   }
 
@@ -189,6 +203,24 @@ public class VersionInfo {
     return buckets[slot];
   }
 
+  /**
+   * Acquires the lock of the given bucket. The uncontended case is a single CAS; if the lock
+   * is held by another thread, the time spent waiting for it is recorded.
+   */
+  public void lockBucket(VersionBucket bucket) {
+    if (bucket.tryLock()) {
+      return;
+    }
+    final long start = System.nanoTime();
+    bucket.lock();
+    bucketLockWaitTimer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /** Returns the timer used to record time spent waiting for re-ordered updates. */
+  public Timer getBucketReorderWaitTimer() {
+    return bucketReorderWaitTimer;
+  }
+
   public Long lookupVersion(BytesRef idBytes) {
     return ulog.lookupVersion(idBytes);
   }
@@ -264,11 +296,8 @@ public class VersionInfo {
 
   public void seedBucketsWithHighestVersion(long highestVersion) {
     for (int i=0; i<buckets.length; i++) {
-      // should not happen, but in case other threads are calling updateHighest on the version bucket
-      synchronized (buckets[i]) {
-        if (buckets[i].highest < highestVersion)
-          buckets[i].highest = highestVersion;
-      }
+      // other threads may be calling updateHighest on the version bucket concurrently
+      buckets[i].seedHighest(highestVersion);
     }
   }
 }
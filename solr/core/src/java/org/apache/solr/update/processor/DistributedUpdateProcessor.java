@@ -35,6 +35,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.codahale.metrics.Timer;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CharsRefBuilder;
 import org.apache.solr.client.solrj.SolrRequest;
@@ -986,12 +987,12 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
   }
 
  
-  // must be synchronized by bucket
+  // must be called with the bucket lock held
   private void doLocalAdd(AddUpdateCommand cmd) throws IOException {
     super.processAdd(cmd);
   }
 
-  // must be synchronized by bucket
+  // must be called with the bucket lock held
   private void doLocalDelete(DeleteUpdateCommand cmd) throws IOException {
     super.processDelete(cmd);
   }
@@ -1049,7 +1050,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     long dependentVersionFound = -1;
     // if this is an in-place update, check and wait if we should be waiting for a previous update (on which
-    // this update depends), before entering the synchronized block
+    // this update depends), before acquiring the bucket lock
     if (!leaderLogic && cmd.isInPlaceUpdate()) {
       dependentVersionFound = waitForDependentUpdates(cmd, versionOnUpdate, isReplayOrPeersync, bucket);
       if (dependentVersionFound == -1) {
@@ -1060,12 +1061,13 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     vinfo.lockForUpdate();
     try {
-      synchronized (bucket) {
-        bucket.notifyAll(); //just in case anyone is waiting let them know that we have a new update
-        // we obtain the version when synchronized and then do the add so we can ensure that
+      vinfo.lockBucket(bucket);
+      try {
+        bucket.signalAll(); //just in case anyone is waiting let them know that we have a new update
+        // we obtain the version while holding the bucket lock and then do the add so we can ensure that
         // if version1 < version2 then version1 is actually added before version2.
 
-        // even if we don't store the version field, synchronizing on the bucket
+        // even if we don't store the version field, locking the bucket
         // will enable us to know what version happened first, and thus enable
         // realtime-get to work reliably.
         // TODO: if versions aren't stored, do we need to set on the cmd anyway for some reason?
@@ -1130,7 +1132,7 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
               long prev = cmd.prevVersion;
               Long lastVersion = vinfo.lookupVersion(cmd.getIndexedId());
               if (lastVersion == null || Math.abs(lastVersion) < prev) {
-                // this was checked for (in waitForDependentUpdates()) before entering the synchronized block.
+                // this was checked for (in waitForDependentUpdates()) before acquiring the bucket lock.
                 // So we shouldn't be here, unless what must've happened is:
                 // by the time synchronization block was entered, the prev update was deleted by DBQ. Since
                 // now that update is not in index, the vinfo.lookupVersion() is possibly giving us a version 
@@ -1210,7 +1212,9 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
           cmd.solrDoc = clonedDoc;
         }
 
-      }  // end synchronized (bucket)
+      } finally {
+        bucket.unlock();
+      }
     } finally {
       vinfo.unlockForUpdate();
     }
@@ -1232,7 +1236,8 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
     vinfo.lockForUpdate();
     try {
-      synchronized (bucket) {
+      vinfo.lockBucket(bucket);
+      try {
         Long lookedUpVersion = vinfo.lookupVersion(cmd.getIndexedId());
         lastFoundVersion = lookedUpVersion == null ? 0L: lookedUpVersion;
 
@@ -1241,18 +1246,27 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
               (cmd.getVersion() == 0 ? versionOnUpdate : cmd.getVersion()), cmd.prevVersion, lastFoundVersion, isReplayOrPeersync, cmd.getPrintableId());
         }
 
-        while (Math.abs(lastFoundVersion) < cmd.prevVersion && !waitTimeout.hasTimedOut())  {
+        if (Math.abs(lastFoundVersion) < cmd.prevVersion) {
+          final Timer.Context waitTime = vinfo.getBucketReorderWaitTimer().time();
           try {
-            long timeLeft = waitTimeout.timeLeft(TimeUnit.MILLISECONDS);
-            if (timeLeft > 0) { // wait(0) waits forever until notified, but we don't want that.
-              bucket.wait(timeLeft);
+            while (Math.abs(lastFoundVersion) < cmd.prevVersion && !waitTimeout.hasTimedOut())  {
+              try {
+                long timeLeft = waitTimeout.timeLeft(TimeUnit.NANOSECONDS);
+                if (timeLeft > 0) { // awaitNanos returns immediately on a non-positive timeout
+                  bucket.awaitNanos(timeLeft);
+                }
+              } catch (InterruptedException ie) {
+                throw new RuntimeException(ie);
+              }
+              lookedUpVersion = vinfo.lookupVersion(cmd.getIndexedId());
+              lastFoundVersion = lookedUpVersion == null ? 0L: lookedUpVersion;
             }
-          } catch (InterruptedException ie) {
-            throw new RuntimeException(ie);
+          } finally {
+            waitTime.stop();
           }
-          lookedUpVersion = vinfo.lookupVersion(cmd.getIndexedId());
-          lastFoundVersion = lookedUpVersion == null ? 0L: lookedUpVersion;
         }
+      } finally {
+        bucket.unlock();
       }
     } finally {
       vinfo.unlockForUpdate();
@@ -1794,7 +1808,8 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
     vinfo.lockForUpdate();
     try {
 
-      synchronized (bucket) {
+      vinfo.lockBucket(bucket);
+      try {
         if (versionsStored) {
           long bucketVersion = bucket.highest;
 
@@ -1865,7 +1880,9 @@ public class DistributedUpdateProcessor extends UpdateRequestProcessor {
 
         doLocalDelete(cmd);
         return false;
-      }  // end synchronized (bucket)
+      } finally {
+        bucket.unlock();
+      }
 
     } finally {
       vinfo.unlockForUpdate();
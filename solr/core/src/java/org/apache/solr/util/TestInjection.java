@@ -135,6 +135,8 @@ public class TestInjection {
   public static String splitFailureBeforeReplicaCreation = null;
 
   public static String waitForReplicasInSync = "true:60";
+
+  public static String failIndexFetchPackets = null;
   
   private static Set<Timer> timers = Collections.synchronizedSet(new HashSet<Timer>());
 
@@ -150,6 +152,7 @@ public class TestInjection {
     randomDelayInCoreCreation = null;
     splitFailureBeforeReplicaCreation = null;
     prepRecoveryOpPauseForever = null;
+    failIndexFetchPackets = null;
     countPrepRecoveryOpPauseForever = new AtomicInteger(0);
 
     for (Timer timer : timers) {
@@ -253,6 +256,22 @@ public class TestInjection {
     return true;
   }
   
+  public static boolean injectFailIndexFetchPacket() {
+    if (failIndexFetchPackets != null) {
+      Random rand = random();
+      if (null == rand) return true;
+
+      Pair<Boolean,Integer> pair = parseValue(failIndexFetchPackets);
+      boolean enabled = pair.first();
+      int chanceIn100 = pair.second();
+      if (enabled && rand.nextInt(100) >= (100 - chanceIn100)) {
+        throw new SolrException(ErrorCode.SERVER_ERROR, "Random test index fetch fail");
+      }
+    }
+
+    return true;
+  }
+
   public static boolean injectNonExistentCoreExceptionAfterUnload(String cname) {
     if (nonExistentCoreExceptionAfterUnload != null) {
       Random rand = random();
@@ -40,6 +40,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.LuceneTestCase.Slow;
@@ -69,7 +70,10 @@ import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.StandardDirectoryFactory;
 import org.apache.solr.core.snapshots.SolrSnapshotMetaDataManager;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.apache.solr.util.FileUtils;
+import org.apache.solr.util.RefCounted;
+import org.apache.solr.util.TestInjection;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -112,6 +116,7 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
   public void setUp() throws Exception {
     super.setUp();
 //    System.setProperty("solr.directoryFactory", "solr.StandardDirectoryFactory");
+    System.setProperty("solr.replication.fetchThreads", String.valueOf(random().nextBoolean() ? 1 : TestUtil.nextInt(random(), 2, 4)));
     // For manual testing only
     // useFactory(null); // force an FS factory.
     master = new SolrInstance(createTempDir("solr-instance").toFile(), "master", null);
@@ -148,6 +153,7 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
     slaveClient.close();
     masterClient = slaveClient = null;
     System.clearProperty("solr.indexfetcher.sotimeout");
+    System.clearProperty("solr.replication.fetchThreads");
   }
 
   private static JettySolrRunner createJetty(SolrInstance instance) throws Exception {
@@ -435,6 +441,55 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
 
   }
 
+  @Test
+  public void doTestResumeInterruptedFileFetch() throws Exception {
+    clearIndexWithReplication();
+
+    // large enough for some index files to span several packets
+    final int numDocs = 1000;
+    List<SolrInputDocument> docs = new ArrayList<>();
+    for (int i = 0; i < numDocs; i++) {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.addField("id", i);
+      doc.addField("name", TestUtil.randomSimpleString(random(), 3000, 4000));
+      docs.add(doc);
+    }
+    masterClient.add(docs);
+    masterClient.commit();
+
+    SolrCore slaveCore = slaveJetty.getCoreContainer().getCores().iterator().next();
+    ReplicationHandler handler = (ReplicationHandler) slaveCore.getRequestHandler(ReplicationHandler.PATH);
+    long fetchedBytesBefore = handler.fetchedBytes.getCount();
+
+    // break the stream after every packet that does not end a file, so that a file spanning
+    // several packets is interrupted partway and has to be requested again from an offset
+    TestInjection.failIndexFetchPackets = "true:100";
+    try {
+      pullFromMasterToSlave();
+      rQuery(numDocs, "*:*", slaveClient);
+    } finally {
+      TestInjection.reset();
+    }
+    assertVersions(masterClient, slaveClient);
+
+    long indexSize = 0;
+    long maxFileSize = 0;
+    RefCounted<SolrIndexSearcher> searcher = slaveCore.getSearcher();
+    try {
+      DirectoryReader reader = searcher.get().getIndexReader();
+      for (String file : reader.getIndexCommit().getFileNames()) {
+        long length = reader.directory().fileLength(file);
+        indexSize += length;
+        maxFileSize = Math.max(maxFileSize, length);
+      }
+    } finally {
+      searcher.decref();
+    }
+    assertTrue("no index file spans several packets: " + maxFileSize, maxFileSize > ReplicationHandler.PACKET_SZ);
+    // every file was downloaded once: interrupted files were resumed instead of being fetched from the start
+    assertEquals(indexSize, handler.fetchedBytes.getCount() - fetchedBytesBefore);
+  }
+
   @Test
   public void doTestReplicateAfterWrite2Slave() throws Exception {
     clearIndexWithReplication();
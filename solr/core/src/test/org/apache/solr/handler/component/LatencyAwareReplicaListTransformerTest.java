@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.ZkStateReader;
+import org.junit.Test;
+
+public class LatencyAwareReplicaListTransformerTest extends LuceneTestCase {
+
+  private final ReplicaLatencyTracker tracker = new ReplicaLatencyTracker(95, 10);
+  private final LatencyAwareReplicaListTransformer transformer = new LatencyAwareReplicaListTransformer(random(), tracker);
+
+  private static long millis(long ms) {
+    return TimeUnit.MILLISECONDS.toNanos(ms);
+  }
+
+  @Test
+  public void testTransformUrls() throws Exception {
+    tracker.recordLatency("http://host1:8983/solr/c1_shard1_replica1", millis(100));
+    tracker.recordLatency("http://host2:8983/solr/c1_shard1_replica2", millis(10));
+    tracker.recordLatency("http://host3:8983/solr/c1_shard1_replica3", millis(50));
+
+    // the same replicas given without scheme and with a trailing slash
+    List<String> urls = new ArrayList<>(Arrays.asList(
+        "host1:8983/solr/c1_shard1_replica1/",
+        "host3:8983/solr/c1_shard1_replica3/",
+        "host2:8983/solr/c1_shard1_replica2/"));
+    transformer.transform(urls);
+    assertEquals(Arrays.asList(
+        "host2:8983/solr/c1_shard1_replica2/",
+        "host3:8983/solr/c1_shard1_replica3/",
+        "host1:8983/solr/c1_shard1_replica1/"), urls);
+
+    // a replica without samples is tried first
+    urls.add("host4:8983/solr/c1_shard1_replica4/");
+    transformer.transform(urls);
+    assertEquals("host4:8983/solr/c1_shard1_replica4/", urls.get(0));
+  }
+
+  @Test
+  public void testTransformReplicas() throws Exception {
+    List<Replica> replicas = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Map<String,Object> props = new HashMap<>();
+      props.put(ZkStateReader.BASE_URL_PROP, "http://host" + i + ":8983/solr");
+      props.put(ZkStateReader.CORE_NAME_PROP, "core" + i);
+      replicas.add(new Replica("core_node" + i, props));
+      tracker.recordLatency("http://host" + i + ":8983/solr/core" + i, millis(10 * (3 - i)));
+    }
+    List<Replica> transformed = new ArrayList<>(replicas);
+    transformer.transform(transformed);
+    assertEquals(Arrays.asList(replicas.get(2), replicas.get(1), replicas.get(0)), transformed);
+  }
+
+  @Test
+  public void testOutstandingRequests() throws Exception {
+    String fast = "http://fast:8983/solr/core";
+    String slow = "http://slow:8983/solr/core";
+    tracker.recordLatency(fast, millis(10));
+    tracker.recordLatency(slow, millis(25));
+    assertTrue(tracker.getScore(fast) < tracker.getScore(slow));
+
+    // requests piling up on the fast replica move it behind the slow one
+    tracker.requestStarted(fast);
+    tracker.requestStarted(fast);
+    assertTrue(tracker.getScore(fast) > tracker.getScore(slow));
+    List<String> urls = new ArrayList<>(Arrays.asList(fast, slow));
+    transformer.transform(urls);
+    assertEquals(Arrays.asList(slow, fast), urls);
+
+    tracker.requestFinished(fast);
+    tracker.requestFinished(fast);
+    assertTrue(tracker.getScore(fast) < tracker.getScore(slow));
+  }
+
+  @Test
+  public void testMovingAverage() throws Exception {
+    String url = "http://host:8983/solr/core";
+    tracker.recordLatency(url, millis(100));
+    assertEquals(100, tracker.getScore(url), 0.01);
+    tracker.recordLatency(url, millis(0));
+    assertEquals((1 - ReplicaLatencyTracker.ALPHA) * 100, tracker.getScore(url), 0.01);
+  }
+
+  @Test
+  public void testHedgeDelay() throws Exception {
+    assertEquals(-1, tracker.getHedgeDelayMs());
+    for (int i = 1; i < ReplicaLatencyTracker.MIN_HEDGE_SAMPLES; i++) {
+      tracker.recordLatency("http://host:8983/solr/core", millis(i % 100));
+    }
+    assertEquals("not enough samples yet", -1, tracker.getHedgeDelayMs());
+    tracker.recordLatency("http://host:8983/solr/core", millis(99));
+    long delay = tracker.getHedgeDelayMs();
+    assertTrue("delay: " + delay, delay >= 90 && delay <= 99);
+
+    // the minimum delay applies when responses are fast
+    ReplicaLatencyTracker fastTracker = new ReplicaLatencyTracker(95, 10);
+    for (int i = 0; i < ReplicaLatencyTracker.MIN_HEDGE_SAMPLES; i++) {
+      fastTracker.recordLatency("http://host:8983/solr/core", millis(1));
+    }
+    assertEquals(10, fastTracker.getHedgeDelayMs());
+
+    expectThrows(IllegalArgumentException.class, () -> new ReplicaLatencyTracker(100, 10));
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.HttpClient;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.LBHttpSolrClient;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.PluginInfo;
+import org.junit.Test;
+
+public class TestHttpShardHandlerFactory extends SolrTestCaseJ4 {
+
+  private static final String FAST = "http://fast:8983/solr/core";
+  private static final String SLOW = "http://slow:8983/solr/core";
+
+  /** Answers immediately, except for the slow replica which hangs until released */
+  private static class StubLoadBalancer extends LBHttpSolrClient {
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+
+    @SuppressWarnings("deprecation")
+    StubLoadBalancer(HttpClient httpClient) {
+      super(httpClient);
+    }
+
+    @Override
+    public Rsp request(Req req) throws SolrServerException, IOException {
+      final String url = req.getServers().get(0);
+      if (url.equals(SLOW)) {
+        try {
+          release.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+          Thread.currentThread().interrupt();
+        }
+      }
+      return new Rsp() {{
+        this.server = url;
+        this.rsp = new NamedList<>();
+      }};
+    }
+  }
+
+  private static class StubShardHandlerFactory extends HttpShardHandlerFactory {
+    StubLoadBalancer loadBalancer;
+
+    @Override
+    protected LBHttpSolrClient createLoadbalancer(HttpClient httpClient) {
+      loadBalancer = new StubLoadBalancer(httpClient);
+      return loadBalancer;
+    }
+  }
+
+  private static StubShardHandlerFactory createFactory(boolean hedge) {
+    return createFactory(hedge, 64);
+  }
+
+  private static StubShardHandlerFactory createFactory(boolean hedge, int maxHedgeThreads) {
+    NamedList<Object> args = new NamedList<>();
+    args.add(HttpShardHandlerFactory.INIT_LATENCY_AWARE_REPLICA_SELECTION, true);
+    args.add(HttpShardHandlerFactory.INIT_HEDGE_SHARD_REQUESTS, hedge);
+    args.add(HttpShardHandlerFactory.INIT_HEDGE_DELAY_PERCENTILE, 90);
+    args.add(HttpShardHandlerFactory.INIT_MIN_HEDGE_DELAY, 20);
+    args.add(HttpShardHandlerFactory.INIT_MAX_HEDGE_THREADS, maxHedgeThreads);
+    StubShardHandlerFactory factory = new StubShardHandlerFactory();
+    factory.init(new PluginInfo("shardHandlerFactory", Collections.emptyMap(), args, null));
+    return factory;
+  }
+
+  @Test
+  public void testHedgedRequest() throws Exception {
+    StubShardHandlerFactory factory = createFactory(true);
+    try {
+      QueryRequest req = new QueryRequest(new ModifiableSolrParams());
+      List<String> urls = Arrays.asList(SLOW, FAST);
+      for (int i = 0; i < ReplicaLatencyTracker.MIN_HEDGE_SAMPLES; i++) {
+        assertEquals(FAST, factory.makeLoadBalancedRequest(req, Arrays.asList(FAST, SLOW)).getServer());
+      }
+      assertEquals(20, factory.getReplicaLatencyTracker().getHedgeDelayMs());
+
+      // the slow replica hangs, the hedged request to the other replica answers
+      LBHttpSolrClient.Rsp rsp = factory.makeLoadBalancedRequest(req, urls);
+      assertEquals(FAST, rsp.getServer());
+      // and the request to the slow replica is cancelled
+      assertTrue(factory.loadBalancer.interrupted.await(10, TimeUnit.SECONDS));
+    } finally {
+      factory.loadBalancer.release.countDown();
+      factory.close();
+    }
+  }
+
+  @Test
+  public void testHedgingNeedsIdleThread() throws Exception {
+    StubShardHandlerFactory factory = createFactory(true, 1);
+    try {
+      QueryRequest req = new QueryRequest(new ModifiableSolrParams());
+      for (int i = 0; i < ReplicaLatencyTracker.MIN_HEDGE_SAMPLES; i++) {
+        assertEquals(FAST, factory.makeLoadBalancedRequest(req, Arrays.asList(FAST, SLOW)).getServer());
+      }
+
+      // the only hedge thread sends the request to the slow replica, so the request is not hedged
+      Thread releaser = new Thread(() -> {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        factory.loadBalancer.release.countDown();
+      });
+      releaser.start();
+      assertEquals(SLOW, factory.makeLoadBalancedRequest(req, Arrays.asList(SLOW, FAST)).getServer());
+      releaser.join();
+    } finally {
+      factory.loadBalancer.release.countDown();
+      factory.close();
+    }
+  }
+
+  @Test
+  public void testNoHedging() throws Exception {
+    StubShardHandlerFactory factory = createFactory(false);
+    try {
+      QueryRequest req = new QueryRequest(new ModifiableSolrParams());
+      factory.loadBalancer.release.countDown();
+      for (int i = 0; i < ReplicaLatencyTracker.MIN_HEDGE_SAMPLES; i++) {
+        assertEquals(SLOW, factory.makeLoadBalancedRequest(req, Arrays.asList(SLOW, FAST)).getServer());
+      }
+      assertNotNull(factory.getReplicaLatencyTracker());
+    } finally {
+      factory.close();
+    }
+  }
+
+}
@@ -19,6 +19,7 @@ package org.apache.solr.index;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.lucene.document.Document;
@@ -26,11 +27,16 @@ import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.MultiDocValues;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.MultiDocValues.MultiSortedDocValues;
 import org.apache.lucene.index.MultiDocValues.MultiSortedSetDocValues;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LuceneTestCase;
@@ -120,4 +126,67 @@ public class TestSlowCompositeReaderWrapper extends LuceneTestCase {
     w.close();
     dir.close();
   }
+
+  public void testOrdMapsAreUpdated() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    final int numDocs = TestUtil.nextInt(random(), 100, 300);
+    for (int i = 0; i < numDocs; ++i) {
+      w.addDocument(newDocument(i * 2));
+      if (i == numDocs / 2) {
+        w.commit();
+      }
+    }
+    DirectoryReader reader1 = DirectoryReader.open(w);
+    SlowCompositeReaderWrapper slowWrapper1 = (SlowCompositeReaderWrapper) SlowCompositeReaderWrapper.wrap(reader1);
+    slowWrapper1.getSortedDocValues("sorted");
+    slowWrapper1.getSortedSetDocValues("sorted_set");
+
+    // a few more docs with both new and existing values
+    for (int i = 0; i < 5; ++i) {
+      w.addDocument(newDocument(random().nextInt(numDocs * 2)));
+    }
+    DirectoryReader reader2 = DirectoryReader.openIfChanged(reader1, w);
+    assertNotNull(reader2);
+    assertTrue(reader2.leaves().size() > 2);
+    SlowCompositeReaderWrapper slowWrapper2 = (SlowCompositeReaderWrapper) SlowCompositeReaderWrapper.wrap(reader2);
+    slowWrapper2.reuseOrdinalMaps(slowWrapper1);
+
+    SortedDocValues expectedSorted = MultiDocValues.getSortedValues(reader2, "sorted");
+    SortedDocValues actualSorted = slowWrapper2.getSortedDocValues("sorted");
+    assertEquals(expectedSorted.getValueCount(), actualSorted.getValueCount());
+    for (int doc = expectedSorted.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = expectedSorted.nextDoc()) {
+      assertEquals(doc, actualSorted.nextDoc());
+      assertEquals(expectedSorted.ordValue(), actualSorted.ordValue());
+      assertEquals(expectedSorted.binaryValue(), actualSorted.binaryValue());
+    }
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, actualSorted.nextDoc());
+
+    SortedSetDocValues expectedSortedSet = MultiDocValues.getSortedSetValues(reader2, "sorted_set");
+    SortedSetDocValues actualSortedSet = slowWrapper2.getSortedSetDocValues("sorted_set");
+    assertEquals(expectedSortedSet.getValueCount(), actualSortedSet.getValueCount());
+    for (int doc = expectedSortedSet.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = expectedSortedSet.nextDoc()) {
+      assertEquals(doc, actualSortedSet.nextDoc());
+      for (long ord = expectedSortedSet.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = expectedSortedSet.nextOrd()) {
+        assertEquals(ord, actualSortedSet.nextOrd());
+        assertEquals(expectedSortedSet.lookupOrd(ord), actualSortedSet.lookupOrd(ord));
+      }
+      assertEquals(SortedSetDocValues.NO_MORE_ORDS, actualSortedSet.nextOrd());
+    }
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, actualSortedSet.nextDoc());
+    assertEquals(2, slowWrapper2.cachedOrdMaps.size());
+
+    reader1.close();
+    reader2.close();
+    w.close();
+    dir.close();
+  }
+
+  private static Document newDocument(int value) {
+    Document doc = new Document();
+    doc.add(new SortedDocValuesField("sorted", new BytesRef(String.format(Locale.ROOT, "%05d", value))));
+    doc.add(new SortedSetDocValuesField("sorted_set", new BytesRef(String.format(Locale.ROOT, "%05d", value))));
+    doc.add(new SortedSetDocValuesField("sorted_set", new BytesRef(String.format(Locale.ROOT, "%05d", value + 1))));
+    return doc;
+  }
 }
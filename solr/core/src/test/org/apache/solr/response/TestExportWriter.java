@@ -173,6 +173,24 @@ public class TestExportWriter extends SolrTestCaseJ4 {
     assertJsonEquals(s, "{\"responseHeader\": {\"status\": 0}, \"response\":{\"numFound\":1, \"docs\":[{\"stringdv\":\"chello \\\"world\\\"\"}]}}");
   }
 
+  @Test
+  public void testPipelinedOutputMatchesSequential() throws Exception {
+    String[][] requests = {
+        {"q", "*:*", "fl", "floatdv,intdv,stringdv,longdv,doubledv", "sort", "intdv asc"},
+        {"q", "*:*", "fl", "intdv_m,floatdv_m,doubledv_m,longdv_m,stringdv_m", "sort", "intdv desc"},
+        {"q", "*:*", "fl", "intdv,stringdv", "sort", "stringdv asc,intdv desc"},
+        {"q", "id:(1 2 3)", "fl", "intdv", "sort", "doubledv desc,intdv asc"},
+        {"q", "stringdv:blah", "fl", "intdv", "sort", "doubledv desc"},
+    };
+    for (String[] params : requests) {
+      String sequential = h.query(req(params, "qt", "/export"));
+      for (String threads : new String[] {"1", "3"}) {
+        String pipelined = h.query(req(params, "qt", "/export", "threads", threads));
+        assertEquals("threads=" + threads, sequential, pipelined);
+      }
+    }
+  }
+
   private void assertJsonEquals(String actual, String expected) {
     assertEquals(Utils.toJSONString(Utils.fromJSONString(expected)), Utils.toJSONString(Utils.fromJSONString(actual)));
   }
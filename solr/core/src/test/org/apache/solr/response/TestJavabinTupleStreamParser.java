@@ -30,6 +30,7 @@ import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.JavabinTupleStreamParser;
+import org.apache.solr.client.solrj.io.stream.SolrStream;
 import org.apache.solr.client.solrj.io.stream.StreamContext;
 import org.apache.solr.client.solrj.io.stream.TupleStream;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
@@ -38,6 +39,7 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.common.util.Utils;
 
@@ -185,6 +187,25 @@ public class TestJavabinTupleStreamParser extends SolrTestCaseJ4 {
     }
 
   }
+  public void testError() throws IOException {
+    NamedList header = new NamedList();
+    header.add("status", 400);
+    NamedList error = new NamedList();
+    error.add("msg", "undefined field foo_s");
+    error.add("code", 400);
+    NamedList rsp = new NamedList();
+    rsp.add("responseHeader", header);
+    rsp.add("error", error);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new JavaBinCodec().marshal(rsp, baos);
+
+    for (boolean onlyJsonTypes : new boolean[] {true, false}) {
+      JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(baos.toByteArray()), onlyJsonTypes);
+      SolrStream.HandledException e = expectThrows(SolrStream.HandledException.class, parser::next);
+      assertEquals("undefined field foo_s", e.getMessage());
+    }
+  }
+
   public static byte[] serialize(Object o) throws IOException {
     SolrQueryResponse response = new SolrQueryResponse();
     response.getValues().add("results", o);
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+import org.apache.solr.metrics.SolrMetricManager;
+
+/**
+ * Test for CaffeineCache
+ *
+ * @see org.apache.solr.search.CaffeineCache
+ */
+public class TestCaffeineCache extends LuceneTestCase {
+  SolrMetricManager metricManager = new SolrMetricManager();
+  String registry = TestUtil.randomSimpleString(random(), 2, 10);
+  String scope = TestUtil.randomSimpleString(random(), 2, 10);
+
+  private CaffeineCache<Object, Object> newCache(Map<String, String> params, Object persistence) {
+    CaffeineCache<Object, Object> cache = new CaffeineCache<>();
+    cache.initializeMetrics(metricManager, registry, scope);
+    cache.init(params, persistence, new NoOpRegenerator());
+    return cache;
+  }
+
+  public void testSimple() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    params.put("autowarmCount", "25");
+    CaffeineCache<Object, Object> cache = new CaffeineCache<>();
+    cache.initializeMetrics(metricManager, registry, scope);
+    Object persistence = cache.init(params, null, new NoOpRegenerator());
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, "" + i);
+    }
+    assertEquals(100, cache.size());
+    assertEquals("25", cache.get(25));
+    assertNull(cache.get(110));
+    Map<String, Object> nl = cache.getMetricsMap().getValue();
+    assertEquals(2L, nl.get("lookups"));
+    assertEquals(1L, nl.get("hits"));
+    assertEquals(100L, nl.get("inserts"));
+
+    CaffeineCache<Object, Object> cacheNew = newCache(params, persistence);
+    cacheNew.warm(null, cache);
+    cacheNew.setState(SolrCache.State.LIVE);
+    cache.close();
+
+    assertEquals(25, cacheNew.size());
+    // the only entry that was read is among the hottest ones
+    assertEquals("25", cacheNew.get(25));
+    nl = cacheNew.getMetricsMap().getValue();
+    assertEquals(1L, nl.get("lookups"));
+    assertEquals(1L, nl.get("hits"));
+    assertEquals(0L, nl.get("inserts"));
+    assertEquals(3L, nl.get("cumulative_lookups"));
+    assertEquals(2L, nl.get("cumulative_hits"));
+    assertEquals(100L, nl.get("cumulative_inserts"));
+
+    cacheNew.clear();
+    assertEquals(0, cacheNew.size());
+    cacheNew.close();
+  }
+
+  public void testScanResistance() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put("size", "100");
+    CaffeineCache<Object, Object> cache = newCache(params, null);
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, "" + i);
+    }
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 100; i++) {
+        assertEquals("" + i, cache.get(i));
+      }
+    }
+    // a scan over keys that are only seen once must not flush the frequently used ones
+    for (int i = 1000; i < 2000; i++) {
+      assertNull(cache.get(i));
+      cache.put(i, "" + i);
+    }
+    int retained = 0;
+    for (int i = 0; i < 100; i++) {
+      if (cache.get(i) != null) {
+        retained++;
+      }
+    }
+    assertTrue("only " + retained + " frequently used entries survived the scan", retained >= 90);
+    assertTrue(cache.size() <= 100);
+    Map<String, Object> nl = cache.getMetricsMap().getValue();
+    assertEquals(1000L, nl.get("evictions"));
+    cache.close();
+  }
+
+  public void testMaxRamSize() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put("maxRamMB", "1");
+    CaffeineCache<Object, Accountable> cache = new CaffeineCache<>();
+    cache.initializeMetrics(metricManager, registry, scope);
+    cache.init(params, null, new NoOpRegenerator());
+    cache.setState(SolrCache.State.LIVE);
+    for (int i = 0; i < 100; i++) {
+      cache.put(i, () -> 64 * 1024);
+    }
+    long ramBytesUsed = cache.ramBytesUsed();
+    assertTrue("ramBytesUsed=" + ramBytesUsed, ramBytesUsed <= 1024 * 1024 + 64 * 1024);
+    assertTrue(cache.size() < 100);
+    Map<String, Object> nl = cache.getMetricsMap().getValue();
+    assertEquals(100L - cache.size(), nl.get("evictions"));
+    assertEquals(1L, nl.get("maxRamMB"));
+    cache.close();
+  }
+}
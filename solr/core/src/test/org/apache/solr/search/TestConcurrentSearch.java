@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.index.LogDocMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.index.LogDocMergePolicyFactory;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+public class TestConcurrentSearch extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // we need several segments so that they get searched concurrently
+    systemSetPropertySolrTestsMergePolicy(LogDocMergePolicy.class.getName());
+    systemSetPropertySolrTestsMergePolicyFactory(LogDocMergePolicyFactory.class.getName());
+    System.setProperty("solr.searchThreads", "4");
+    initCore("solrconfig.xml","schema.xml");
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.searchThreads");
+    systemClearPropertySolrTestsMergePolicy();
+    systemClearPropertySolrTestsMergePolicyFactory();
+  }
+
+  public void testSameResultsAsSequentialSearch() throws Exception {
+    assertNotNull(h.getCore().getSearchExecutor());
+
+    final String[] words = new String[] {"apple", "banana", "cherry", "date"};
+    final int numSegments = 5;
+    int id = 0;
+    for (int i = 0; i < numSegments; ++i) {
+      final int numDocs = atLeast(20);
+      for (int j = 0; j < numDocs; ++j) {
+        final StringBuilder text = new StringBuilder();
+        final int numWords = random().nextInt(5);
+        for (int k = 0; k < numWords; ++k) {
+          text.append(words[random().nextInt(words.length)]).append(' ');
+        }
+        assertU(adoc("id", Integer.toString(id++), "v_t", text.toString(), "v_i1", Integer.toString(random().nextInt(10))));
+      }
+      assertU(commit());
+    }
+
+    final SolrQueryRequest req = req("q", "*:*");
+    try {
+      final SolrIndexSearcher searcher = req.getSearcher();
+      assertTrue(searcher.getTopReaderContext().leaves().size() > 1);
+      final IndexSearcher sequentialSearcher = new IndexSearcher(searcher.getIndexReader());
+      sequentialSearcher.setSimilarity(searcher.getSimilarity(true));
+
+      final Query[] queries = new Query[] {
+          new MatchAllDocsQuery(),
+          new TermQuery(new Term("v_t", "apple")),
+          new BooleanQuery.Builder()
+              .add(new TermQuery(new Term("v_t", "banana")), Occur.SHOULD)
+              .add(new TermQuery(new Term("v_t", "cherry")), Occur.SHOULD)
+              .build()
+      };
+      final Sort[] sorts = new Sort[] {
+          null,
+          new Sort(searcher.getSchema().getField("v_i1").getSortField(false), SortField.FIELD_DOC),
+          new Sort(searcher.getSchema().getField("v_i1").getSortField(true), SortField.FIELD_SCORE)
+      };
+
+      for (Query query : queries) {
+        for (Sort sort : sorts) {
+          final int len = random().nextInt(20);
+          final QueryCommand cmd = new QueryCommand()
+              .setQuery(query)
+              .setSort(sort)
+              .setLen(len)
+              .setNeedDocSet(random().nextBoolean())
+              .setFlags(SolrIndexSearcher.NO_CHECK_QCACHE | SolrIndexSearcher.NO_SET_QCACHE | SolrIndexSearcher.GET_SCORES);
+          final QueryResult result = searcher.search(new QueryResult(), cmd);
+
+          final TopDocs expected = sort == null
+              ? sequentialSearcher.search(query, Math.max(1, len))
+              : sequentialSearcher.search(query, Math.max(1, len), sort, true, true);
+          assertEquals(expected.totalHits, result.getDocList().matches());
+          if (cmd.isNeedDocSet()) {
+            assertEquals(expected.totalHits, result.getDocSet().size());
+          }
+          final DocIterator it = result.getDocList().iterator();
+          for (int i = 0; i < Math.min(len, expected.scoreDocs.length); ++i) {
+            final ScoreDoc scoreDoc = expected.scoreDocs[i];
+            assertTrue(it.hasNext());
+            assertEquals(scoreDoc.doc, it.nextDoc());
+            assertEquals(scoreDoc.score, it.score(), 0f);
+          }
+          assertFalse(it.hasNext());
+        }
+      }
+    } finally {
+      req.close();
+    }
+  }
+}
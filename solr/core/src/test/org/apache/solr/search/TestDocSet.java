@@ -111,6 +111,10 @@ public class TestDocSet extends LuceneTestCase {
     return new BitDocSet(bs);
   }
 
+  public DocSet getRoaringDocSet(FixedBitSet bs) {
+    return RoaringDocSet.fromBits(bs);
+  }
+
   public DocSet getDocSlice(FixedBitSet bs) {
     int len = bs.cardinality();
     int[] arr = new int[len+5];
@@ -129,7 +133,7 @@ public class TestDocSet extends LuceneTestCase {
 
 
   public DocSet getDocSet(FixedBitSet bs) {
-    switch(rand.nextInt(10)) {
+    switch(rand.nextInt(11)) {
       case 0: return getHashDocSet(bs);
 
       case 1: return getBitDocSet(bs);
@@ -143,6 +147,8 @@ public class TestDocSet extends LuceneTestCase {
       case 8: return getIntDocSet(bs);
 
       case 9: return getDocSlice(bs);
+
+      case 10: return getRoaringDocSet(bs);
     }
     return null;
   }
@@ -260,6 +266,79 @@ public class TestDocSet extends LuceneTestCase {
     return sets;
   }
 
+  // a set spanning several 64K blocks of a RoaringDocSet, which are each empty, sparse or dense
+  public FixedBitSet getRandomBlockSet(int maxDoc) {
+    FixedBitSet bs = new FixedBitSet(maxDoc);
+    for (int start = 0; start < maxDoc; start += 1 << 16) {
+      int end = Math.min(maxDoc, start + (1 << 16));
+      int n;
+      switch (rand.nextInt(4)) {
+        case 0: n = 0; break;
+        case 1: n = rand.nextInt(100); break;
+        case 2: n = rand.nextInt(8192); break;
+        default: n = rand.nextInt(end - start); break;
+      }
+      for (int i = 0; i < n; i++) {
+        bs.set(start + rand.nextInt(end - start));
+      }
+    }
+    return bs;
+  }
+
+  public void testRoaringDocSets() {
+    for (int iter = 0; iter < 20; iter++) {
+      int maxDoc = rand.nextInt(300000) + 1;
+      FixedBitSet bs1 = getRandomBlockSet(maxDoc);
+      FixedBitSet bs2 = getRandomBlockSet(maxDoc);
+
+      RoaringDocSet.Builder builder = new RoaringDocSet.Builder(maxDoc);
+      for (BitSetIterator it = new BitSetIterator(bs1, 0); it.nextDoc() != DocIdSetIterator.NO_MORE_DOCS; ) {
+        builder.add(it.docID());
+      }
+      DocSet r1 = builder.build();
+      DocSet r2 = getRoaringDocSet(bs2);
+      assertEquals(r1, getRoaringDocSet(bs1));
+      iter(new BitDocSet(bs1), r1);
+      iter(new BitDocSet(bs2), r2);
+      checkEqual(bs1, r1);
+
+      FixedBitSet a_and = bs1.clone(); a_and.and(bs2);
+      FixedBitSet a_or = bs1.clone(); a_or.or(bs2);
+      FixedBitSet a_andn = bs1.clone(); a_andn.andNot(bs2);
+
+      for (DocSet b2 : new DocSet[] {r2, getBitDocSet(bs2), getIntDocSet(bs2)}) {
+        iter(new BitDocSet(a_and), r1.intersection(b2));
+        iter(new BitDocSet(a_or), r1.union(b2));
+        iter(new BitDocSet(a_andn), r1.andNot(b2));
+        iter(new BitDocSet(a_and), b2.intersection(r1));
+        assertEquals(a_and.cardinality(), r1.intersectionSize(b2));
+        assertEquals(a_and.cardinality(), b2.intersectionSize(r1));
+        assertEquals(a_and.cardinality() > 0, r1.intersects(b2));
+        assertEquals(a_or.cardinality(), r1.unionSize(b2));
+        assertEquals(a_andn.cardinality(), r1.andNotSize(b2));
+      }
+
+      BitDocSet target = new BitDocSet(bs2.clone());
+      r1.addAllTo(target);
+      assertEquals(a_or.cardinality(), target.size());
+      assertEquals(bs1, DocSetBase.toBitSet(r1));
+
+      DocSet compacted = DocSetUtil.compact(new BitDocSet(bs1));
+      assertEquals(new BitDocSet(bs1), compacted);
+      if (maxDoc >= 1 << 16 && bs1.cardinality() < maxDoc >> 6) {
+        assertTrue(compacted instanceof RoaringDocSet);
+        assertTrue(compacted.ramBytesUsed() < new BitDocSet(bs1).ramBytesUsed());
+      }
+    }
+  }
+
+  public void testRoaringDocSetBuilderOrder() {
+    RoaringDocSet.Builder builder = new RoaringDocSet.Builder(100);
+    builder.add(5);
+    expectThrows(IllegalArgumentException.class, () -> builder.add(5));
+    expectThrows(IllegalArgumentException.class, () -> builder.add(3));
+  }
+
   /* needs code insertion into HashDocSet
   public void testCollisions() {
     loadfactor=.75f;
@@ -525,7 +604,7 @@ public class TestDocSet extends LuceneTestCase {
     IndexReaderContext topLevelContext = reader.getContext();
     FixedBitSet bs = getRandomSet(reader.maxDoc(), rand.nextInt(reader.maxDoc()+1));
     DocSet a = new BitDocSet(bs);
-    DocSet b = getIntDocSet(bs);
+    DocSet b = rand.nextBoolean() ? getIntDocSet(bs) : getRoaringDocSet(bs);
 
     Filter fa = a.getTopFilter();
     Filter fb = b.getTopFilter();
@@ -558,6 +637,22 @@ public class TestDocSet extends LuceneTestCase {
     }
   }
 
+  public void testRoaringFilter() throws IOException {
+    for (int i=0; i<20; i++) {
+      IndexReader[] subs = new IndexReader[rand.nextInt(4)+1];
+      for (int j=0; j<subs.length; j++) {
+        subs[j] = dummyIndexReader(rand.nextInt(100000));
+      }
+      IndexReader reader = new MultiReader(subs);
+      FixedBitSet bs = getRandomBlockSet(reader.maxDoc());
+      Filter fa = getBitDocSet(bs).getTopFilter();
+      Filter fb = getRoaringDocSet(bs).getTopFilter();
+      for (LeafReaderContext readerContext : reader.leaves()) {
+        doTestIteratorEqual(fa.getDocIdSet(readerContext, null), fb.getDocIdSet(readerContext, null));
+      }
+    }
+  }
+
   public void testFilter() throws IOException {
     // keeping these numbers smaller help hit more edge cases
     int maxSeg=4;
@@ -17,6 +17,7 @@
 package org.apache.solr.search;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -29,13 +30,18 @@ import java.util.concurrent.atomic.AtomicInteger;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Metric;
 import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexReaderContext;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.LogDocMergePolicy;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queries.function.FunctionValues;
 import org.apache.lucene.queries.function.ValueSource;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.NamedList;
@@ -180,6 +186,67 @@ public class TestIndexSearcher extends SolrTestCaseJ4 {
   }
 
 
+  public void testDocSetBitsReplacesRoaringDocSet() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      assertU(adoc("id", Integer.toString(i), "v_s1", i % 2 == 0 ? "even" : "odd"));
+    }
+    assertU(commit());
+
+    SolrQueryRequest req = req("q", "*:*");
+    try {
+      SolrIndexSearcher searcher = req.getSearcher();
+      Query q = new TermQuery(new Term("v_s1", "even"));
+      FixedBitSet bits = new FixedBitSet(searcher.maxDoc());
+      DocIterator it = searcher.getDocSet(q).iterator();
+      while (it.hasNext()) {
+        bits.set(it.nextDoc());
+      }
+      // as if the set had been cached in its compact form
+      searcher.getFilterCache().put(q, RoaringDocSet.fromBits(bits));
+
+      BitDocSet answer = searcher.getDocSetBits(q);
+      assertEquals(5, answer.size());
+      // the bits replace the compact set, so they are not built again on the next call
+      assertSame(answer, searcher.getFilterCache().get(q));
+      assertSame(answer, searcher.getDocSetBits(q));
+    } finally {
+      req.close();
+    }
+  }
+
+  public void testBatchDocs() throws Exception {
+    int numDocs = 100;
+    for (int i = 0; i < numDocs; i++) {
+      assertU(adoc("id", Integer.toString(i), "v_t", "text " + i, "v_s1", "string" + i));
+    }
+    assertU(commit());
+
+    SolrQueryRequest req = req("q", "*:*");
+    try {
+      SolrIndexSearcher searcher = req.getSearcher();
+      SolrDocumentFetcher fetcher = searcher.getDocFetcher();
+      int[] ids = new int[atLeast(10)];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = random().nextInt(searcher.maxDoc());
+      }
+      Document[] docs = fetcher.doc(ids, random().nextBoolean() ? null : Collections.singleton("v_s1"));
+      assertEquals(ids.length, docs.length);
+      for (int i = 0; i < ids.length; i++) {
+        assertEquals(fetcher.doc(ids[i]).get("v_s1"), docs[i].get("v_s1"));
+      }
+    } finally {
+      req.close();
+    }
+
+    // more hits than DocsStreamer reads at once
+    assertQ(req("q", "*:*", "fl", "id,v_s1", "sort", "id asc", "rows", "50", "start", "10"),
+        "//result[@numFound='100']",
+        "count(//doc)=50",
+        "//result/doc[1]/str[@name='v_s1'][.='string10']",
+        "//result/doc[40]/str[@name='v_s1'][.='string49']",
+        "//result/doc[50]/str[@name='v_s1'][.='string59']");
+  }
+
   // make sure we don't leak searchers (SOLR-3391)
   public void testCloses() {
     assertU(adoc("id","1"));
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.function.FunctionQuery;
+import org.apache.lucene.queries.function.valuesource.ConstValueSource;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.util.RefCounted;
+import org.junit.BeforeClass;
+
+public class TestSegmentFilterCache extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-segmentfiltercache.xml", "schema.xml");
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    assertU(delQ("*:*"));
+    assertU(commit());
+    h.getCore().getSegmentFilterCache().clear();
+  }
+
+  private static int getDocSetSize(Query query) throws Exception {
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      return ref.get().getDocSet(query).size();
+    } finally {
+      ref.decref();
+    }
+  }
+
+  private static int numSegments() throws Exception {
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      return ref.get().getTopReaderContext().leaves().size();
+    } finally {
+      ref.decref();
+    }
+  }
+
+  private static boolean isCached(SegmentFilterCache cache, Query query) throws Exception {
+    RefCounted<SolrIndexSearcher> ref = h.getCore().getSearcher();
+    try {
+      for (LeafReaderContext leaf : ref.get().getTopReaderContext().leaves()) {
+        if (cache.get(leaf.reader().getCoreCacheHelper().getKey(), query) != null) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      ref.decref();
+    }
+  }
+
+  public void testIsCacheable() {
+    Query term = new TermQuery(new Term("foo_s", "a"));
+    Query range = TermRangeQuery.newStringRange("foo_s", "a", "b", true, true);
+    Query function = new FunctionQuery(new ConstValueSource(1));
+    assertTrue(SegmentFilterCache.isCacheable(term));
+    assertTrue(SegmentFilterCache.isCacheable(range));
+    assertFalse(SegmentFilterCache.isCacheable(function));
+    assertTrue(SegmentFilterCache.isCacheable(new BooleanQuery.Builder()
+        .add(term, BooleanClause.Occur.MUST)
+        .add(range, BooleanClause.Occur.MUST_NOT)
+        .build()));
+    assertFalse(SegmentFilterCache.isCacheable(new BooleanQuery.Builder()
+        .add(term, BooleanClause.Occur.MUST)
+        .add(function, BooleanClause.Occur.FILTER)
+        .build()));
+    assertTrue(SegmentFilterCache.isCacheable(new WrappedQuery(term)));
+    // the terms that a fuzzy query keeps depend on the whole index
+    FuzzyQuery fuzzy = new FuzzyQuery(new Term("foo_s", "a"));
+    assertFalse(SegmentFilterCache.isCacheable(fuzzy));
+    PrefixQuery prefix = new PrefixQuery(new Term("foo_s", "a"));
+    assertTrue(SegmentFilterCache.isCacheable(prefix));
+    prefix.setRewriteMethod(new MultiTermQuery.TopTermsScoringBooleanQueryRewrite(10));
+    assertFalse(SegmentFilterCache.isCacheable(prefix));
+  }
+
+  public void testTopTermsQueryAfterReopen() throws Exception {
+    SegmentFilterCache cache = h.getCore().getSegmentFilterCache();
+    // only the single closest term of the index matches
+    Query query = new FuzzyQuery(new Term("foo_s", "abce"), 1, 0, 1, false);
+
+    assertU(adoc("id", "1", "foo_s", "abcd"));
+    assertU(commit());
+    assertEquals(1, getDocSetSize(query));
+
+    // a new segment with a closer term changes the top terms, so the first segment no longer matches
+    assertU(adoc("id", "2", "foo_s", "abce"));
+    assertU(commit());
+    assertEquals(2, numSegments());
+    assertEquals(1, getDocSetSize(query));
+    assertFalse(isCached(cache, query));
+  }
+
+  public void testReuseAcrossSearchers() throws Exception {
+    SegmentFilterCache cache = h.getCore().getSegmentFilterCache();
+    Query query = TermRangeQuery.newStringRange("foo_s", "a", "b", true, true);
+
+    for (int i = 0; i < 10; i++) {
+      assertU(adoc("id", Integer.toString(i), "foo_s", i % 2 == 0 ? "a" : "z"));
+    }
+    assertU(commit());
+    assertEquals(5, getDocSetSize(query));
+    assertEquals(numSegments(), cache.size());
+    long hits = cache.getHits();
+
+    // a new segment: the filterCache is autowarmed from the entry of the previous segment
+    assertU(adoc("id", "10", "foo_s", "a"));
+    assertU(commit());
+    assertEquals(2, numSegments());
+    assertEquals(hits + 1, cache.getHits());
+    assertEquals(2, cache.size());
+    assertEquals(6, getDocSetSize(query));
+
+    // deletions are applied on top of the cached entries
+    assertU(delI("0"));
+    assertU(commit());
+    assertEquals(hits + 3, cache.getHits());
+    assertEquals(5, getDocSetSize(query));
+
+    // entries are removed with their segments
+    assertU(delQ("*:*"));
+    assertU(commit());
+    assertEquals(0, getDocSetSize(query));
+    assertEquals(0, cache.size());
+  }
+
+  public void testNotCacheable() throws Exception {
+    SegmentFilterCache cache = h.getCore().getSegmentFilterCache();
+    assertU(adoc("id", "1", "foo_s", "a"));
+    assertU(commit());
+    long lookups = cache.getLookups();
+    int size = cache.size();
+    assertEquals(1, getDocSetSize(new FunctionQuery(new ConstValueSource(1))));
+    assertEquals(size, cache.size());
+    assertEquals(lookups, cache.getLookups());
+  }
+}
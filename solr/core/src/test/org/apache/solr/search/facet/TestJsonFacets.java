@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
+import java.util.TreeMap;
 
 import com.carrotsearch.randomizedtesting.annotations.ParametersFactory;
 import com.tdunning.math.stats.AVLTreeDigest;
@@ -42,6 +43,7 @@ import org.apache.solr.request.macro.MacroExpander;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.noggit.ObjectBuilder;
 
 @LuceneTestCase.SuppressCodecs({"Lucene3x","Lucene40","Lucene41","Lucene42","Lucene45","Appending"})
 @SuppressPointFields
@@ -1534,6 +1536,154 @@ public class TestJsonFacets extends SolrTestCaseHS {
     }
   }
 
+  @Test
+  public void testThreads() throws Exception {
+    Client client = Client.localClient;
+    client.deleteByQuery("*:*", null);
+
+    Random r = random();
+    int ndocs = atLeast(100);
+    Map<String,Integer> catCounts = new TreeMap<>();
+    Map<String,Integer> multiCounts = new TreeMap<>();
+    Map<Integer,Integer> numCounts = new TreeMap<>();
+    for (int i=0; i<ndocs; i++) {
+      String cat = "c" + r.nextInt(20);
+      String multi1 = "m" + r.nextInt(20);
+      String multi2 = "m" + r.nextInt(20);
+      int num = r.nextInt(20);
+      client.add(sdoc("id", getId(i), "cat_s", cat, "cat_sd", cat, "multi_ss", multi1, "multi_ss", multi2,
+          "multi_sds", multi1, "multi_sds", multi2, "num_i", num, "num_id", num), null);
+      catCounts.merge(cat, 1, Integer::sum);
+      multiCounts.merge(multi1, 1, Integer::sum);
+      if (!multi1.equals(multi2)) {
+        multiCounts.merge(multi2, 1, Integer::sum);
+      }
+      numCounts.merge(num, 1, Integer::sum);
+      if (r.nextInt(100) < 10) {
+        client.commit();
+      }
+    }
+    client.commit();
+
+    for (String threads : new String[] {"0", "1", "2", "-1"}) {
+      ModifiableSolrParams p = params("rows", "0", "threads", threads, "perSeg", Boolean.toString(r.nextBoolean()));
+      for (String field : new String[] {"cat_s", "cat_sd"}) {
+        client.testJQ(params(p, "q", "*:*", "field", field
+            , "json.facet", "{f:{type:terms, field:${field}, limit:-1, sort:'index asc', threads:${threads}, perSeg:${perSeg}}}"
+            )
+            , "facets=={count:" + ndocs + ", f:{buckets:" + bucketsJSON(catCounts, true) + "}}"
+        );
+      }
+      for (String field : new String[] {"multi_ss", "multi_sds"}) {
+        client.testJQ(params(p, "q", "*:*", "field", field
+            , "json.facet", "{f:{type:terms, field:${field}, limit:-1, sort:'index asc', threads:${threads}, perSeg:${perSeg}}}"
+            )
+            , "facets=={count:" + ndocs + ", f:{buckets:" + bucketsJSON(multiCounts, true) + "}}"
+        );
+      }
+      for (String field : new String[] {"num_i", "num_id"}) {
+        client.testJQ(params(p, "q", "*:*", "field", field
+            , "json.facet", "{f:{type:terms, field:${field}, limit:-1, sort:'index asc', threads:${threads}}}"
+            )
+            , "facets=={count:" + ndocs + ", f:{buckets:" + bucketsJSON(numCounts, false) + "}}"
+        );
+      }
+    }
+  }
+
+  @Test
+  public void testSample() throws Exception {
+    doSample(Client.localClient, null);
+  }
+
+  @Test
+  public void testSampleDistrib() throws Exception {
+    initServers();
+    Client client = servers.getClient(random().nextInt());
+    doSample(client, servers.getShards());
+  }
+
+  private void doSample(Client client, String shards) throws Exception {
+    client.deleteByQuery("*:*", null);
+
+    Random r = random();
+    int ndocs = atLeast(2000);
+    String[] cats = {"A", "B", "C", "D"};
+    double[] weights = {0.5, 0.25, 0.15, 0.1};
+    Map<String,Integer> catCounts = new HashMap<>();
+    for (int i=0; i<ndocs; i++) {
+      double d = r.nextDouble();
+      int c = 0;
+      while (c < cats.length - 1 && d >= weights[c]) {
+        d -= weights[c++];
+      }
+      client.add(sdoc("id", getId(i), "cat_s", cats[c], "cat_sd", cats[c], "num_i", c), null);
+      catCounts.merge(cats[c], 1, Integer::sum);
+      if (r.nextInt(100) < 5) {
+        client.commit();
+      }
+    }
+    client.commit();
+
+    for (String field : new String[] {"cat_s", "cat_sd", "num_i"}) {
+      ModifiableSolrParams p = params("q", "*:*", "rows", "0"
+          , "json.facet", "{f:{type:terms, field:" + field + ", sample:200, mincount:1, numBuckets:true, sampleSeed:" + r.nextLong() + "}}");
+      if (shards != null) {
+        p.set("shards", shards);
+      }
+      String json = getSampleJSON(client, p);
+      Map<String,Object> rsp = (Map<String,Object>) ObjectBuilder.fromJSON(json);
+      Map<String,Object> facets = (Map<String,Object>) rsp.get("facets");
+      // the same seed picks the same sample
+      assertEquals(facets, ((Map<String,Object>) ObjectBuilder.fromJSON(getSampleJSON(client, p))).get("facets"));
+      assertEquals(ndocs, ((Number) facets.get("count")).intValue());
+      // estimated over the whole domain, not just the sample
+      assertEquals(json, catCounts.size(), ((Number) ((Map<String,Object>) facets.get("f")).get("numBuckets")).intValue());
+      List<Map<String,Object>> buckets = (List<Map<String,Object>>) ((Map<String,Object>) facets.get("f")).get("buckets");
+      assertFalse(buckets.isEmpty());
+      long prevCount = Long.MAX_VALUE;
+      for (Map<String,Object> bucket : buckets) {
+        String val = field.equals("num_i") ? cats[((Number) bucket.get("val")).intValue()] : (String) bucket.get("val");
+        long count = ((Number) bucket.get("count")).longValue();
+        long error = ((Number) bucket.get("countError")).longValue();
+        assertTrue(json, count <= prevCount);
+        assertTrue(json, error > 0);
+        // twice the 95% interval, so that this practically never fails
+        assertTrue(json, Math.abs(count - catCounts.get(val)) <= 2 * error);
+        prevCount = count;
+      }
+    }
+
+    // sampling only estimates counts
+    try {
+      client.testJQ(params("ignore_exception", "true", "q", "*:*"
+          , "json.facet", "{f:{type:terms, field:cat_s, sample:10, sort:'x desc', facet:{x:'sum(num_i)'}}}"
+          )
+      );
+      fail("sorting by a stat of a sample should fail");
+    } catch (SolrException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("sample"));
+    }
+  }
+
+  private static String getSampleJSON(Client client, ModifiableSolrParams p) throws Exception {
+    if (p.get("shards") == null) {
+      return JQ(req(p));
+    } else {
+      return getJSON(client.getClientProvider().all().get(0), p);
+    }
+  }
+
+  private static String bucketsJSON(Map<?,Integer> counts, boolean quote) {
+    StringBuilder sb = new StringBuilder("[");
+    for (Map.Entry<?,Integer> entry : counts.entrySet()) {
+      if (sb.length() > 1) sb.append(',');
+      String val = quote ? "'" + entry.getKey() + "'" : entry.getKey().toString();
+      sb.append("{val:").append(val).append(",count:").append(entry.getValue()).append('}');
+    }
+    return sb.append(']').toString();
+  }
+
   public void testTolerant() throws Exception {
     initServers();
     Client client = servers.getClient(random().nextInt());
@@ -17,6 +17,8 @@
 package org.apache.solr.update;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -31,10 +33,13 @@ import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.embedded.JettySolrRunner;
+import org.apache.solr.client.solrj.impl.BinaryRequestWriter;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
 import org.apache.solr.client.solrj.request.LukeRequest;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.cloud.ZkCoreNodeProps;
 import org.apache.solr.common.cloud.ZkNodeProps;
 import org.apache.solr.common.cloud.ZkStateReader;
@@ -329,6 +334,37 @@ public class SolrCmdDistributorTest extends BaseDistributedSearchTestCase {
     testRetryNodeWontRetrySocketError();
     
     testDistribOpenSearcher();
+    testSharedUpdateRequest();
+  }
+
+  private void testSharedUpdateRequest() throws IOException {
+    SolrCmdDistributor.SharedUpdateRequest uReq = new SolrCmdDistributor.SharedUpdateRequest();
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(DistributedUpdateProcessor.COMMIT_END_POINT, true);
+    uReq.setParams(params);
+    uReq.add(sdoc("id", "shared1"));
+    uReq.deleteById("shared2");
+
+    StreamingSolrClients.SharedUpdateRequestWriter writer = new StreamingSolrClients.SharedUpdateRequestWriter();
+    ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+    writer.write(uReq, out1);
+    ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+    writer.write(uReq, out2);
+    assertArrayEquals(out1.toByteArray(), out2.toByteArray());
+    assertSame("a shared request should only be marshalled once", uReq.getBytes(), uReq.getBytes());
+
+    // the shared bytes must be the same as encoding the request normally
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new BinaryRequestWriter().write(uReq, expected);
+    assertArrayEquals(expected.toByteArray(), out1.toByteArray());
+
+    List<SolrInputDocument> docs = new ArrayList<>();
+    UpdateRequest read = new JavaBinUpdateRequestCodec().unmarshal(new ByteArrayInputStream(out1.toByteArray()),
+        (document, req, commitWithin, override) -> docs.add(document));
+    assertEquals(1, docs.size());
+    assertEquals("shared1", docs.get(0).getFieldValue("id"));
+    assertEquals(Collections.singletonList("shared2"), read.getDeleteById());
+    assertTrue(read.getParams().getBool(DistributedUpdateProcessor.COMMIT_END_POINT, false));
   }
 
   private void testMaxRetries() throws IOException {
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.Test;
+
+public class TransactionLogSyncerTest extends SolrTestCaseJ4 {
+
+  /** Counts fsyncs and makes them slow enough for concurrent callers to pile up. */
+  private static class CountingLog extends TransactionLog {
+    final AtomicInteger fsyncs = new AtomicInteger();
+    volatile boolean fail;
+
+    @Override
+    public void finish(UpdateLog.SyncLevel syncLevel) {
+      assertEquals(UpdateLog.SyncLevel.FSYNC, syncLevel);
+      fsyncs.incrementAndGet();
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      if (fail) {
+        throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "simulated fsync failure");
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "CountingLog";
+    }
+  }
+
+  @Test
+  public void testConcurrentCallersAreBatched() throws Exception {
+    final CountingLog tlog = new CountingLog();
+    final int numThreads = atLeast(8);
+    final int syncsPerThread = atLeast(5);
+    final CountDownLatch start = new CountDownLatch(1);
+    final TransactionLogSyncer syncer = new TransactionLogSyncer(random().nextInt(5));
+    try {
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        Thread thread = new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          for (int i = 0; i < syncsPerThread; i++) {
+            syncer.sync(tlog);
+          }
+        });
+        thread.start();
+        threads.add(thread);
+      }
+      start.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } finally {
+      syncer.close();
+    }
+    int fsyncs = tlog.fsyncs.get();
+    assertTrue("expected at least one fsync", fsyncs > 0);
+    assertTrue("expected fsyncs to be batched, got " + fsyncs + " for " + (numThreads * syncsPerThread) + " requests",
+        fsyncs < numThreads * syncsPerThread);
+  }
+
+  @Test
+  public void testFailureIsPropagated() throws Exception {
+    final CountingLog tlog = new CountingLog();
+    tlog.fail = true;
+    try (TransactionLogSyncer syncer = new TransactionLogSyncer(0)) {
+      SolrException e = expectThrows(SolrException.class, () -> syncer.sync(tlog));
+      assertEquals("simulated fsync failure", e.getMessage());
+      // the syncer keeps working after a failure
+      tlog.fail = false;
+      syncer.sync(tlog);
+    }
+    assertEquals(2, tlog.fsyncs.get());
+  }
+
+  @Test
+  public void testSyncAfterClose() throws Exception {
+    final CountingLog tlog = new CountingLog();
+    TransactionLogSyncer syncer = new TransactionLogSyncer(0);
+    syncer.sync(tlog);
+    syncer.close();
+    // falls back to syncing on the calling thread
+    syncer.sync(tlog);
+    assertEquals(2, tlog.fsyncs.get());
+  }
+
+  @Test
+  public void testGroupCommitUpdateLog() throws Exception {
+    System.setProperty("solr.ulog.syncLevel", "FSYNC");
+    System.setProperty("solr.ulog.groupCommit", "true");
+    try {
+      initCore("solrconfig-tlog.xml", "schema15.xml");
+      try (SolrQueryRequest req = req()) {
+        assertNotNull(req.getCore().getUpdateHandler().getUpdateLog().syncer);
+      }
+      for (int i = 0; i < 10; i++) {
+        assertU(adoc("id", Integer.toString(i)));
+      }
+      assertJQ(req("qt", "/get", "id", "7", "fl", "id"), "=={'doc':{'id':'7'}}");
+      assertU(commit());
+      assertQ(req("q", "*:*"), "//*[@numFound='10']");
+    } finally {
+      deleteCore();
+      System.clearProperty("solr.ulog.syncLevel");
+      System.clearProperty("solr.ulog.groupCommit");
+    }
+  }
+}
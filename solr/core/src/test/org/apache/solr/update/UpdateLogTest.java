@@ -118,6 +118,29 @@ public class UpdateLogTest extends SolrTestCaseJ4 {
     assertEquals("title1", partialDoc.getFieldValue("title_s"));
   }
   
+  @Test
+  public void testLookupReturnsIndependentCopies() {
+    ulogAdd(ulog, null, sdoc("id", "1", "title_s", "title1", "_version_", "100"));
+
+    // the first lookup decodes the entry, the second one may be served from the lookup cache;
+    // modifications by callers (e.g. atomic updates) must not leak into later lookups
+    SolrInputDocument doc = (SolrInputDocument) ((List) ulog.lookup(DOC_1_INDEXED_ID)).get(2);
+    doc.setField("title_s", "modified");
+    doc = (SolrInputDocument) ((List) ulog.lookup(DOC_1_INDEXED_ID)).get(2);
+    assertEquals("title1", doc.getFieldValue("title_s"));
+    doc.setField("title_s", "modified again");
+
+    // after a commit the entry is read from the finished (memory-mapped) log
+    ulogCommit(ulog);
+    for (int i = 0; i < 2; i++) {
+      List entry = (List) ulog.lookup(DOC_1_INDEXED_ID);
+      assertEquals(100L, entry.get(UpdateLog.VERSION_IDX));
+      doc = (SolrInputDocument) entry.get(2);
+      assertEquals("title1", doc.getFieldValue("title_s"));
+      doc.setField("title_s", "modified");
+    }
+  }
+
   @Test
   public void testApplyPartialUpdatesAfterMultipleCommits() {    
     ulogAdd(ulog, null, sdoc("id", "1", "title_s", "title1", "val1_i_dvo", "1", "_version_", "100"));
@@ -16,6 +16,9 @@
  */
 package org.apache.solr.update;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.lucene.util.BytesRef;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.util.Hash;
@@ -25,6 +28,73 @@ import org.junit.Test;
 
 public class VersionInfoTest extends SolrTestCaseJ4 {
 
+  @Test
+  public void testBucketHighestConcurrentUpdates() throws Exception {
+    VersionBucket bucket = new VersionBucket();
+    bucket.updateHighest(42L);
+    assertEquals("unseeded bucket must not be raised", 0L, bucket.highest);
+    bucket.seedHighest(10L);
+    assertEquals(10L, bucket.highest);
+
+    final int numThreads = atLeast(4);
+    final int numUpdates = atLeast(1000);
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final int base = t;
+      threads[t] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        for (int i = 0; i < numUpdates; i++) {
+          long v = 10L + base + (long) i * numThreads;
+          bucket.updateHighest((i & 1) == 0 ? v : -v);
+        }
+      });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(10L + numThreads - 1 + (long) (numUpdates - 1) * numThreads, bucket.highest);
+
+    bucket.seedHighest(5L);
+    assertEquals("seeding must never lower the highest version",
+        10L + numThreads - 1 + (long) (numUpdates - 1) * numThreads, bucket.highest);
+  }
+
+  @Test
+  public void testBucketWaitersAreSignalled() throws Exception {
+    VersionBucket bucket = new VersionBucket();
+    CountDownLatch waiting = new CountDownLatch(1);
+    long[] remaining = new long[1];
+    Thread waiter = new Thread(() -> {
+      bucket.lock();
+      try {
+        waiting.countDown();
+        remaining[0] = bucket.awaitNanos(TimeUnit.SECONDS.toNanos(30));
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      } finally {
+        bucket.unlock();
+      }
+    });
+    waiter.start();
+    assertTrue(waiting.await(30, TimeUnit.SECONDS));
+    // the waiter releases the lock while parked, so we can acquire it and signal
+    bucket.lock();
+    try {
+      bucket.signalAll();
+    } finally {
+      bucket.unlock();
+    }
+    waiter.join();
+    assertTrue("waiter should have been signalled before the timeout", remaining[0] > 0);
+  }
+
   @Test
   public void testMaxIndexedVersionFromIndex() throws Exception {
     initCore("solrconfig-tlog.xml", "schema-version-indexed.xml");
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  A fixed capacity batch of Tuples that a stream buffers in order to aggregate them together.
+ *  Numeric columns of the batch can be viewed as primitive arrays, which lets batch aware
+ *  metrics aggregate a run of tuples without unboxing a value per tuple and metric.
+ *  <p>
+ *  Batches are reused across reads: the tuples and columns of a batch are only valid until
+ *  the next call to {@link #clear()}.
+ **/
+
+public class TupleBatch {
+
+  private final Tuple[] tuples;
+  private int size;
+  private final Map<String, NumericColumn> columns = new HashMap<>();
+
+  public TupleBatch(int capacity) {
+    if(capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.tuples = new Tuple[capacity];
+  }
+
+  public int capacity() {
+    return tuples.length;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size == tuples.length;
+  }
+
+  public Tuple get(int index) {
+    return tuples[index];
+  }
+
+  public void add(Tuple tuple) {
+    tuples[size++] = tuple;
+  }
+
+  public void clear() {
+    Arrays.fill(tuples, 0, size, null);
+    size = 0;
+    for(NumericColumn column : columns.values()) {
+      column.built = false;
+    }
+  }
+
+  /**
+   *  Returns a primitive view of the values of a column for the tuples currently in the batch.
+   *  The view is built on first access and cached until the batch is cleared.
+   **/
+
+  public NumericColumn getNumericColumn(String name) {
+    NumericColumn column = columns.get(name);
+    if(column == null) {
+      column = new NumericColumn(tuples.length);
+      columns.put(name, column);
+    }
+    if(!column.built) {
+      column.build(name, tuples, size);
+    }
+    return column;
+  }
+
+  /**
+   *  The values of one column of a batch, split into a long[] and a double[].
+   *  When any value of the column is null or is neither a Long nor a Double, {@link #isNumeric()}
+   *  returns false and callers must fall back to reading the tuples themselves.
+   **/
+
+  public static final class NumericColumn {
+
+    private final long[] longs;
+    private final double[] doubles;
+    private final boolean[] isDouble;
+    private boolean numeric;
+    private boolean built;
+
+    NumericColumn(int capacity) {
+      this.longs = new long[capacity];
+      this.doubles = new double[capacity];
+      this.isDouble = new boolean[capacity];
+    }
+
+    private void build(String name, Tuple[] tuples, int size) {
+      numeric = true;
+      for(int i=0; i<size; i++) {
+        Object o = tuples[i].get(name);
+        if(o instanceof Long) {
+          longs[i] = (Long)o;
+          isDouble[i] = false;
+        } else if(o instanceof Double) {
+          doubles[i] = (Double)o;
+          isDouble[i] = true;
+        } else {
+          numeric = false;
+          break;
+        }
+      }
+      built = true;
+    }
+
+    public boolean isNumeric() {
+      return numeric;
+    }
+
+    public boolean isDouble(int index) {
+      return isDouble[index];
+    }
+
+    public long getLong(int index) {
+      return longs[index];
+    }
+
+    public double getDouble(int index) {
+      return doubles[index];
+    }
+  }
+}
@@ -29,12 +29,14 @@ import java.util.Map;
 import org.apache.solr.common.util.DataInputInputStream;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
 
 public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStreamParser {
   private final InputStream is;
   final FastInputStream fis;
   private int arraySize = Integer.MAX_VALUE;
   private boolean onlyJsonTypes = false;
+  private boolean atDocs = false;
   int objectSize;
 
 
@@ -42,7 +44,6 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
     this.onlyJsonTypes = onlyJsonTypes;
     this.is = is;
     this.fis = initRead(is);
-    if (!readTillDocs()) arraySize = 0;
   }
 
 
@@ -65,6 +66,8 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
             return true;
           }
           return false;
+        } else if ("error".equals(k)) {
+          handleError(readVal(fis));
         } else {
           if (readTillDocs()) return true;
         }
@@ -78,6 +81,19 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
     //here after it will be a stream of maps
   }
 
+  private void handleError(Object error) throws IOException {
+    Object msg = null;
+    if (error instanceof Map) {
+      msg = ((Map) error).get("msg");
+    } else if (error instanceof NamedList) {
+      msg = ((NamedList) error).get("msg");
+    }
+    if (msg != null) {
+      throw new SolrStream.HandledException(msg.toString());
+    }
+    throw new IOException("");
+  }
+
   private boolean isObjectType(DataInputInputStream dis) throws IOException {
     tagByte = dis.readByte();
     if (tagByte >>> 5 == ORDERED_MAP >>> 5 ||
@@ -98,7 +114,7 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
 
   private Map readAsMap(DataInputInputStream dis) throws IOException {
     int sz = readSize(dis);
-    Map m = new LinkedHashMap<>();
+    Map m = new LinkedHashMap<>(sz);
     for (int i = 0; i < sz; i++) {
       String name = (String) readVal(dis);
       Object val = readVal(dis);
@@ -110,7 +126,7 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
   private Map readSolrDocumentAsMap(DataInputInputStream dis) throws IOException {
     tagByte = dis.readByte();
     int size = readSize(dis);
-    Map doc = new LinkedHashMap<>();
+    Map doc = new LinkedHashMap<>(size);
     for (int i = 0; i < size; i++) {
       String fieldName;
       Object obj = readVal(dis); // could be a field name, or a child document
@@ -175,6 +191,12 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
 
   @Override
   public Map<String, Object> next() throws IOException {
+    if (!atDocs) {
+      // like the JSON parser, the header is only consumed on the first call so that
+      // an error returned by the server surfaces from next() rather than from open()
+      atDocs = true;
+      if (!readTillDocs()) arraySize = 0;
+    }
     if (arraySize == 0) return null;
     Object o = readVal(fis);
     arraySize--;
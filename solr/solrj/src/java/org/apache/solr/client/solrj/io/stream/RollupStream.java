@@ -24,6 +24,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.HashKey;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eq.FieldEqualitor;
@@ -44,6 +45,8 @@ public class RollupStream extends TupleStream implements Expressible {
 
   private static final long serialVersionUID = 1;
 
+  private static final int BATCH_SIZE = 1024;
+
   private PushBackStream tupleStream;
   private Bucket[] buckets;
   private Metric[] metrics;
@@ -52,6 +55,8 @@ public class RollupStream extends TupleStream implements Expressible {
   private Metric[] currentMetrics;
   private boolean finished = false;
 
+  private transient TupleBatch batch;
+
   public RollupStream(TupleStream tupleStream,
                       Bucket[] buckets,
                       Metric[] metrics) {
@@ -183,6 +188,7 @@ public class RollupStream extends TupleStream implements Expressible {
 
   public void open() throws IOException {
     tupleStream.open();
+    batch = new TupleBatch(BATCH_SIZE);
   }
 
   public void close() throws IOException {
@@ -190,6 +196,7 @@ public class RollupStream extends TupleStream implements Expressible {
     this.currentMetrics = null;
     this.currentKey = new HashKey("-");
     this.finished = false;
+    this.batch = null;
   }
 
   public Tuple read() throws IOException {
@@ -198,20 +205,12 @@ public class RollupStream extends TupleStream implements Expressible {
       Tuple tuple = tupleStream.read();
       if(tuple.EOF) {
         if(!finished) {
-
           if(currentMetrics == null) {
             return tuple;
           }
 
-          Map<String,Object> map = new HashMap<String,Object>();
-          for(Metric metric : currentMetrics) {
-            map.put(metric.getIdentifier(), metric.getValue());
-          }
-
-          for(int i=0; i<buckets.length; i++) {
-            map.put(buckets[i].toString(), currentKey.getParts()[i]);
-          }
-          Tuple t = new Tuple(map);
+          updateMetrics();
+          Tuple t = bucketTuple();
           tupleStream.pushBack(tuple);
           finished = true;
           return t;
@@ -220,46 +219,71 @@ public class RollupStream extends TupleStream implements Expressible {
         }
       }
 
+      // Tuples of the current bucket are buffered and aggregated with a single metric update per
+      // full batch, without allocating a HashKey per tuple.
+      if(currentMetrics != null && isCurrentBucket(tuple)) {
+        batch.add(tuple);
+        if(batch.isFull()) {
+          updateMetrics();
+        }
+        continue;
+      }
+
+      // The tuple starts a new bucket, so the current one is complete and is emitted right away.
+      Tuple t = null;
+      if(currentMetrics != null) {
+        updateMetrics();
+        t = bucketTuple();
+      }
+
       Object[] bucketValues = new Object[buckets.length];
       for(int i=0; i<buckets.length; i++) {
         bucketValues[i] = buckets[i].getBucketValue(tuple);
       }
-
-      HashKey hashKey = new HashKey(bucketValues);
-
-      if(hashKey.equals(currentKey)) {
-        for(Metric bucketMetric : currentMetrics) {
-          bucketMetric.update(tuple);
+      currentKey = new HashKey(bucketValues);
+      if (metrics != null) {
+        currentMetrics = new Metric[metrics.length];
+        for(int i=0; i<metrics.length; i++) {
+          currentMetrics[i] = metrics[i].newInstance();
         }
-      } else {
-        Tuple t = null;
-        if(currentMetrics != null) {
-          Map<String,Object> map = new HashMap<String,Object>();
-          for(Metric metric : currentMetrics) {
-            map.put(metric.getIdentifier(), metric.getValue());
-          }
+        batch.add(tuple);
+      }
 
-          for(int i=0; i<buckets.length; i++) {
-            map.put(buckets[i].toString(), currentKey.getParts()[i]);
-          }
-          t = new Tuple(map);
-        }
+      if(t != null) {
+        return t;
+      }
+    }
+  }
 
-        currentKey = hashKey;
-        if (metrics != null) {
-          currentMetrics = new Metric[metrics.length];
-          for(int i=0; i<metrics.length; i++) {
-            Metric bucketMetric = metrics[i].newInstance();
-            bucketMetric.update(tuple);
-            currentMetrics[i]  = bucketMetric;
-          }
-        }
+  private void updateMetrics() {
+    if(batch.size() > 0) {
+      for(Metric bucketMetric : currentMetrics) {
+        bucketMetric.update(batch, 0, batch.size());
+      }
+      batch.clear();
+    }
+  }
 
-        if(t != null) {
-          return t;
-        }
+  private boolean isCurrentBucket(Tuple tuple) {
+    Object[] parts = currentKey.getParts();
+    for(int i=0; i<buckets.length; i++) {
+      if(!parts[i].equals(buckets[i].getBucketValue(tuple))) {
+        return false;
       }
     }
+    return true;
+  }
+
+  private Tuple bucketTuple() {
+    Map<String,Object> map = new HashMap<String,Object>();
+    for(Metric metric : currentMetrics) {
+      map.put(metric.getIdentifier(), metric.getValue());
+    }
+
+    for(int i=0; i<buckets.length; i++) {
+      map.put(buckets[i].toString(), currentKey.getParts()[i]);
+    }
+    return new Tuple(map);
   }
 
   public int getCost() {
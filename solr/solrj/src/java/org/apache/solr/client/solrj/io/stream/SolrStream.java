@@ -229,7 +229,13 @@ public class SolrStream extends TupleStream {
         if (fieldMappings != null) {
           fields = mapFields(fields, fieldMappings);
         }
-        return new Tuple(fields);
+
+        // the parser hands out a freshly allocated map per document, so take ownership
+        // of it rather than copying every field into a new map
+        Tuple tuple = new Tuple();
+        tuple.fields = fields;
+        tuple.EOF = fields.containsKey("EOF");
+        return tuple;
       }
     } catch (HandledException e) {
       throw new IOException("--> "+this.baseUrl+":"+e.getMessage());
@@ -273,7 +279,9 @@ public class SolrStream extends TupleStream {
       modifiableSolrParams.remove("qt");
     }
 
-    String wt = requestParams.get(CommonParams.WT, "json");
+    // javabin is both smaller on the wire and cheaper to decode than json, so it is used
+    // unless the caller explicitly asks for another format
+    String wt = requestParams.get(CommonParams.WT, CommonParams.JAVABIN);
     QueryRequest query = new QueryRequest(requestParams);
     query.setPath(p);
     query.setResponseParser(new InputStreamResponseParser(wt));
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -83,6 +84,22 @@ public class MeanMetric extends Metric {
     }
   }
 
+  public void update(TupleBatch batch, int from, int to) {
+    TupleBatch.NumericColumn column = batch.getNumericColumn(columnName);
+    if(!column.isNumeric()) {
+      super.update(batch, from, to);
+      return;
+    }
+    count += to - from;
+    for(int i=from; i<to; i++) {
+      if(column.isDouble(i)) {
+        doubleSum += column.getDouble(i);
+      } else {
+        longSum += column.getLong(i);
+      }
+    }
+  }
+
   public Metric newInstance() {
     return new MeanMetric(columnName, outputLong);
   }
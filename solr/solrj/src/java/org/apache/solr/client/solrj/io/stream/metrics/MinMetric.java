@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -83,6 +84,27 @@ public class MinMetric extends Metric {
     }
   }
 
+  public void update(TupleBatch batch, int from, int to) {
+    TupleBatch.NumericColumn column = batch.getNumericColumn(columnName);
+    if(!column.isNumeric()) {
+      super.update(batch, from, to);
+      return;
+    }
+    for(int i=from; i<to; i++) {
+      if(column.isDouble(i)) {
+        double d = column.getDouble(i);
+        if(d < doubleMin) {
+          doubleMin = d;
+        }
+      } else {
+        long l = column.getLong(i);
+        if(l < longMin) {
+          longMin = l;
+        }
+      }
+    }
+  }
+
   public Metric newInstance() {
     return new MinMetric(columnName);
   }
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -70,6 +71,21 @@ public class SumMetric extends Metric {
     }
   }
 
+  public void update(TupleBatch batch, int from, int to) {
+    TupleBatch.NumericColumn column = batch.getNumericColumn(columnName);
+    if(!column.isNumeric()) {
+      super.update(batch, from, to);
+      return;
+    }
+    for(int i=from; i<to; i++) {
+      if(column.isDouble(i)) {
+        doubleSum += column.getDouble(i);
+      } else {
+        longSum += column.getLong(i);
+      }
+    }
+  }
+
   public Metric newInstance() {
     return new SumMetric(columnName);
   }
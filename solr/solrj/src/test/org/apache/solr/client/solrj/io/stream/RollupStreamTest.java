@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+import org.apache.solr.client.solrj.io.stream.expr.Explanation;
+import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
+import org.apache.solr.client.solrj.io.stream.metrics.CountMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.MaxMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.MeanMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.Metric;
+import org.apache.solr.client.solrj.io.stream.metrics.MinMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.SumMetric;
+import org.junit.Test;
+
+public class RollupStreamTest extends LuceneTestCase {
+
+  @Test
+  public void testRollupAcrossBatches() throws Exception {
+    List<Tuple> tuples = new ArrayList<>();
+    int numBuckets = atLeast(20);
+    for(int bucket=0; bucket<numBuckets; bucket++) {
+      // runs both shorter and longer than a batch
+      int runLength = random().nextBoolean() ? 1 + random().nextInt(10) : 1 + random().nextInt(3000);
+      boolean doubles = random().nextBoolean();
+      for(int i=0; i<runLength; i++) {
+        Map<String,Object> fields = new HashMap<>();
+        fields.put("a_s", "bucket" + bucket);
+        fields.put("b_s", bucket % 3 == 0 ? "x" : "y");
+        if(doubles) {
+          fields.put("a_f", random().nextDouble() * 100);
+        } else {
+          fields.put("a_f", (long) random().nextInt(1000));
+        }
+        if(bucket % 7 != 0 || i % 2 == 0) {
+          fields.put("a_i", (long) i);
+        }
+        tuples.add(new Tuple(fields));
+      }
+    }
+
+    Bucket[] buckets = {new Bucket("a_s"), new Bucket("b_s")};
+    Metric[] metrics = {new SumMetric("a_f"),
+                        new MinMetric("a_f"),
+                        new MaxMetric("a_f"),
+                        new MeanMetric("a_f"),
+                        new CountMetric(),
+                        new CountMetric("a_i")};
+
+    RollupStream rollupStream = new RollupStream(new ListStream(tuples), buckets, metrics);
+    List<Tuple> results = new ArrayList<>();
+    rollupStream.open();
+    try {
+      for(Tuple tuple = rollupStream.read(); !tuple.EOF; tuple = rollupStream.read()) {
+        results.add(tuple);
+      }
+    } finally {
+      rollupStream.close();
+    }
+
+    assertEquals(numBuckets, results.size());
+    int start = 0;
+    for(int bucket=0; bucket<numBuckets; bucket++) {
+      Tuple result = results.get(bucket);
+      assertEquals("bucket" + bucket, result.get("a_s"));
+
+      int end = start;
+      while(end < tuples.size() && result.get("a_s").equals(tuples.get(end).get("a_s"))) {
+        ++end;
+      }
+      for(Metric metric : metrics) {
+        Metric expected = metric.newInstance();
+        for(int i=start; i<end; i++) {
+          expected.update(tuples.get(i));
+        }
+        assertEquals(metric.getIdentifier(), expected.getValue(), result.get(metric.getIdentifier()));
+      }
+      start = end;
+    }
+    assertEquals(tuples.size(), start);
+  }
+
+  @Test
+  public void testEmptyStream() throws Exception {
+    RollupStream rollupStream = new RollupStream(new ListStream(new ArrayList<>()),
+        new Bucket[] {new Bucket("a_s")}, new Metric[] {new CountMetric()});
+    rollupStream.open();
+    try {
+      assertTrue(rollupStream.read().EOF);
+    } finally {
+      rollupStream.close();
+    }
+  }
+
+  @Test
+  public void testBucketEmittedWhenGroupEnds() throws Exception {
+    List<Tuple> tuples = new ArrayList<>();
+    for(int i=0; i<3000; i++) {
+      Map<String,Object> fields = new HashMap<>();
+      fields.put("a_s", i < 2 ? "first" : "second");
+      tuples.add(new Tuple(fields));
+    }
+    ListStream source = new ListStream(tuples);
+    RollupStream rollupStream = new RollupStream(source,
+        new Bucket[] {new Bucket("a_s")}, new Metric[] {new CountMetric()});
+    rollupStream.open();
+    try {
+      Tuple first = rollupStream.read();
+      assertEquals("first", first.get("a_s"));
+      assertEquals(2L, first.get("count(*)"));
+      // only the tuple that ended the group was read ahead
+      assertEquals(3, source.index);
+
+      Tuple second = rollupStream.read();
+      assertEquals("second", second.get("a_s"));
+      assertEquals(2998L, second.get("count(*)"));
+      assertTrue(rollupStream.read().EOF);
+    } finally {
+      rollupStream.close();
+    }
+  }
+
+  @Test
+  public void testNullMetrics() throws Exception {
+    List<Tuple> tuples = new ArrayList<>();
+    Map<String,Object> fields = new HashMap<>();
+    fields.put("a_s", "a");
+    tuples.add(new Tuple(fields));
+    RollupStream rollupStream = new RollupStream(new ListStream(tuples),
+        new Bucket[] {new Bucket("a_s")}, null);
+    rollupStream.open();
+    try {
+      assertTrue(rollupStream.read().EOF);
+    } finally {
+      rollupStream.close();
+    }
+  }
+
+  private static class ListStream extends TupleStream {
+
+    private final List<Tuple> tuples;
+    private int index;
+
+    ListStream(List<Tuple> tuples) {
+      this.tuples = tuples;
+    }
+
+    public void setStreamContext(StreamContext context) {
+    }
+
+    public List<TupleStream> children() {
+      return new ArrayList<>();
+    }
+
+    public void open() throws IOException {
+      index = 0;
+    }
+
+    public void close() throws IOException {
+    }
+
+    public Tuple read() throws IOException {
+      if(index == tuples.size()) {
+        Map<String,Object> m = new HashMap<>();
+        m.put("EOF", true);
+        return new Tuple(m);
+      }
+      return tuples.get(index++);
+    }
+
+    public StreamComparator getStreamSort() {
+      return null;
+    }
+
+    public Explanation toExplanation(StreamFactory factory) throws IOException {
+      return null;
+    }
+  }
+}